@@ -0,0 +1,201 @@
+package com.balamaci.reactor.benchmark;
+
+import com.balamaci.reactor.publisher.AdaptiveLimitRate;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+import reactor.core.publisher.Flux;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Fixed limitRate values compared with AdaptiveLimitRate, with the shape of
+ * Part09BackpressureHandling.cascadingBackpressureOperators: source -&gt; limitRate -&gt; publishOn(.., 5) -&gt;
+ * slow subscriber.
+ *
+ * Sleeping 200ms per event like subscribeWithSlowSubscriber does would only measure Thread.sleep, so the slow
+ * subscriber burns 'consumerCost' CPU tokens per event instead. The source answers every request(n) only after
+ * 'roundTripMicros' - think of a remote call - and then emits the n events on its own thread, so small batches
+ * starve the subscriber while big batches keep more events in the queue. The 'upstreamRequests' counter shows how many
+ * request(n) round trips each mode made.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class AdaptiveLimitRateBenchmark {
+
+    private static final int COUNT = 10_000;
+
+    @Param({"100"})
+    long roundTripMicros;
+
+    @Param({"200", "2000"})
+    long consumerCost;
+
+    private ScheduledExecutorService sourceThread;
+    private Scheduler consumerScheduler;
+
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    @State(Scope.Thread)
+    public static class Requests {
+
+        final AtomicLong count = new AtomicLong();
+
+        public long upstreamRequests;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            count.set(0);
+            upstreamRequests = 0;
+        }
+
+        @TearDown(Level.Iteration)
+        public void collect() {
+            upstreamRequests = count.get();
+        }
+    }
+
+    @Setup
+    public void setup() {
+        sourceThread = Executors.newSingleThreadScheduledExecutor();
+        consumerScheduler = Schedulers.newSingle("consumer");
+    }
+
+    @TearDown
+    public void tearDown() {
+        sourceThread.shutdownNow();
+        consumerScheduler.shutdown();
+    }
+
+    @Benchmark
+    public void limitRate4(Requests requests) {
+        run(Flux.from(new RoundTripSource(requests.count)).limitRate(4));
+    }
+
+    @Benchmark
+    public void limitRate32(Requests requests) {
+        run(Flux.from(new RoundTripSource(requests.count)).limitRate(32));
+    }
+
+    @Benchmark
+    public void limitRate256(Requests requests) {
+        run(Flux.from(new RoundTripSource(requests.count)).limitRate(256));
+    }
+
+    @Benchmark
+    public void adaptiveLimitRate(Requests requests) {
+        run(Flux.from(new RoundTripSource(requests.count))
+                .transform(AdaptiveLimitRate.limitRate(4, 4, 256)));
+    }
+
+    private void run(Flux<Integer> flux) {
+        SlowSubscriber subscriber = new SlowSubscriber(consumerCost);
+        flux.publishOn(consumerScheduler, 5)
+            .subscribe(subscriber);
+        subscriber.awaitTermination();
+    }
+
+    /**
+     * Emits the n events of every request(n) after the round trip, on its own thread
+     */
+    private final class RoundTripSource implements Publisher<Integer> {
+
+        private final AtomicLong requests;
+
+        RoundTripSource(AtomicLong requests) {
+            this.requests = requests;
+        }
+
+        @Override
+        public void subscribe(Subscriber<? super Integer> subscriber) {
+            subscriber.onSubscribe(new Subscription() {
+                int next;
+                volatile boolean cancelled;
+
+                @Override
+                public void request(long n) {
+                    requests.incrementAndGet();
+                    sourceThread.schedule(() -> {
+                        for (long i = 0; i < n && next < COUNT && !cancelled; i++) {
+                            subscriber.onNext(next++);
+                        }
+                        if (next == COUNT && !cancelled) {
+                            cancelled = true;
+                            subscriber.onComplete();
+                        }
+                    }, roundTripMicros, TimeUnit.MICROSECONDS);
+                }
+
+                @Override
+                public void cancel() {
+                    cancelled = true;
+                }
+            });
+        }
+    }
+
+    private static final class SlowSubscriber extends CountDownLatch implements Subscriber<Integer> {
+
+        private final long cost;
+
+        SlowSubscriber(long cost) {
+            super(1);
+            this.cost = cost;
+        }
+
+        @Override
+        public void onSubscribe(Subscription s) {
+            s.request(Long.MAX_VALUE);
+        }
+
+        @Override
+        public void onNext(Integer integer) {
+            Blackhole.consumeCPU(cost);
+        }
+
+        @Override
+        public void onError(Throwable t) {
+            countDown();
+        }
+
+        @Override
+        public void onComplete() {
+            countDown();
+        }
+
+        void awaitTermination() {
+            try {
+                if (!await(30, TimeUnit.SECONDS)) {
+                    throw new IllegalStateException("Publisher did not terminate in 30 seconds");
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException("Interrupted waiting for the publisher to terminate");
+            }
+        }
+    }
+}
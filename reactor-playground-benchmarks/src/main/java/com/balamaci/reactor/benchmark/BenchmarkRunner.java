@@ -0,0 +1,45 @@
+package com.balamaci.reactor.benchmark;
+
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Entry point of benchmarks.jar
+ *
+ * Runs every selected benchmark twice - once for throughput (ops/sec) and once sampling the time per operation
+ * (latency percentiles in microseconds) - always with the GC profiler attached so the allocation rate
+ * (gc.alloc.rate.norm = bytes allocated per operation) is reported next to each scenario.
+ *
+ * Accepts the regular JMH command line options, ex:
+ *    java -jar benchmarks.jar Part02 -f 1 -wi 2 -i 3
+ */
+public class BenchmarkRunner {
+
+    public static void main(String[] args) throws RunnerException, CommandLineOptionException {
+        CommandLineOptions commandLine = new CommandLineOptions(args);
+
+        Options throughput = new OptionsBuilder()
+                .parent(commandLine)
+                .mode(Mode.Throughput)
+                .timeUnit(TimeUnit.SECONDS)
+                .addProfiler(GCProfiler.class)
+                .build();
+        new Runner(throughput).run();
+
+        Options latency = new OptionsBuilder()
+                .parent(commandLine)
+                .mode(Mode.SampleTime)
+                .timeUnit(TimeUnit.MICROSECONDS)
+                .addProfiler(GCProfiler.class)
+                .build();
+        new Runner(latency).run();
+    }
+}
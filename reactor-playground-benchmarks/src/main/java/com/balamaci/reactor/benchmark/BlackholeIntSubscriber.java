@@ -0,0 +1,36 @@
+package com.balamaci.reactor.benchmark;
+
+import com.balamaci.reactor.publisher.primitive.IntSubscriber;
+import org.openjdk.jmh.infra.Blackhole;
+import org.reactivestreams.Subscription;
+
+/**
+ * {@link BlackholeSubscriber} counterpart for IntFlux, consumes the primitive values without boxing them
+ */
+public final class BlackholeIntSubscriber implements IntSubscriber {
+
+    private final Blackhole blackhole;
+
+    public BlackholeIntSubscriber(Blackhole blackhole) {
+        this.blackhole = blackhole;
+    }
+
+    @Override
+    public void onSubscribe(Subscription s) {
+        s.request(Long.MAX_VALUE);
+    }
+
+    @Override
+    public void onNext(int value) {
+        blackhole.consume(value);
+    }
+
+    @Override
+    public void onError(Throwable t) {
+        blackhole.consume(t);
+    }
+
+    @Override
+    public void onComplete() {
+    }
+}
@@ -0,0 +1,90 @@
+package com.balamaci.reactor.benchmark;
+
+import org.openjdk.jmh.infra.Blackhole;
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Subscriber that hands every signal to a JMH {@link Blackhole} instead of logging it, so the cost we measure
+ * is the cost of the operator chain and not of SLF4J.
+ *
+ * Requests either everything upfront (Long.MAX_VALUE) or in batches of the given size, replenishing once
+ * a batch was consumed - the same way a bounded subscriber like publishOn(.., prefetch) would.
+ */
+public final class BlackholeSubscriber<T> extends CountDownLatch implements Subscriber<T> {
+
+    private final Blackhole blackhole;
+    private final long batchSize;
+
+    private Subscription subscription;
+    private long remaining;
+
+    public BlackholeSubscriber(Blackhole blackhole) {
+        this(blackhole, Long.MAX_VALUE);
+    }
+
+    public BlackholeSubscriber(Blackhole blackhole, long batchSize) {
+        super(1);
+        this.blackhole = blackhole;
+        this.batchSize = batchSize;
+    }
+
+    public static <T> BlackholeSubscriber<T> subscribe(Publisher<T> publisher, Blackhole blackhole) {
+        BlackholeSubscriber<T> subscriber = new BlackholeSubscriber<>(blackhole);
+        publisher.subscribe(subscriber);
+        return subscriber;
+    }
+
+    public static <T> BlackholeSubscriber<T> subscribe(Publisher<T> publisher, Blackhole blackhole,
+                                                        long batchSize) {
+        BlackholeSubscriber<T> subscriber = new BlackholeSubscriber<>(blackhole, batchSize);
+        publisher.subscribe(subscriber);
+        return subscriber;
+    }
+
+    @Override
+    public void onSubscribe(Subscription s) {
+        this.subscription = s;
+        this.remaining = batchSize;
+        s.request(batchSize);
+    }
+
+    @Override
+    public void onNext(T t) {
+        blackhole.consume(t);
+
+        if (batchSize != Long.MAX_VALUE && --remaining == 0) {
+            remaining = batchSize;
+            subscription.request(batchSize);
+        }
+    }
+
+    @Override
+    public void onError(Throwable t) {
+        blackhole.consume(t);
+        countDown();
+    }
+
+    @Override
+    public void onComplete() {
+        countDown();
+    }
+
+    /**
+     * Blocks until the publisher terminated, needed for the pipelines that hop threads
+     */
+    public void await() {
+        try {
+            if (!await(30, TimeUnit.SECONDS)) {
+                throw new IllegalStateException("Publisher did not terminate in 30 seconds");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted waiting for the publisher to terminate");
+        }
+    }
+}
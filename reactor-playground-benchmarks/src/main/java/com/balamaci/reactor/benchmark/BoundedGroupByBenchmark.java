@@ -0,0 +1,143 @@
+package com.balamaci.reactor.benchmark;
+
+import com.balamaci.reactor.publisher.BoundedGroupBy;
+import com.balamaci.reactor.publisher.GroupMetrics;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.GroupedFlux;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Counting per group like Part05AdvancedOperators.groupBy, over 'events' keys drawn from 'keys' distinct
+ * ones with a Zipf distribution - a few hot keys, a long tail seen once or twice, like user ids:
+ *
+ *   - groupBy - Flux.groupBy, every key seen stays a group until the end
+ *   - bounded - BoundedGroupBy with 'maxGroups' open groups, evicting the least recently used group for a new
+ *     key. The counter shows how many groups that took - the groups of the hot keys stay open, the tail keys come
+ *     and go
+ *
+ * The groups are counted by a subscriber of their own instead of flatMap(count): the flatMap of this Reactor
+ * version scans all its inners on every drain, with a concurrency of 1024 that alone is ~12us per group.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+@State(Scope.Thread)
+public class BoundedGroupByBenchmark {
+
+    @Param({"1000000"})
+    int events;
+
+    @Param({"1000000"})
+    int keys;
+
+    @Param({"1.0"})
+    double zipfExponent;
+
+    @Param({"1024", "65536"})
+    int maxGroups;
+
+    private Integer[] eventKeys;
+
+    @Setup
+    public void setup() {
+        double[] cumulative = new double[keys];
+        double total = 0;
+        for (int rank = 0; rank < keys; rank++) {
+            total += 1 / Math.pow(rank + 1, zipfExponent);
+            cumulative[rank] = total;
+        }
+        Random random = new Random(42);
+        eventKeys = new Integer[events];
+        for (int i = 0; i < events; i++) {
+            int rank = Arrays.binarySearch(cumulative, random.nextDouble() * total);
+            eventKeys[i] = rank >= 0 ? rank : -rank - 1;
+        }
+    }
+
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    @State(Scope.Thread)
+    public static class Groups {
+
+        /** the groups opened, a count emitted for each */
+        public long groups;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            groups = 0;
+        }
+    }
+
+    @Benchmark
+    public void groupBy(Groups groups, Blackhole bh) {
+        run(Flux.fromArray(eventKeys).groupBy(key -> key), groups, bh);
+    }
+
+    @Benchmark
+    public void bounded(Groups groups, Blackhole bh) {
+        GroupMetrics metrics = new GroupMetrics("zipf");
+        run(Flux.fromArray(eventKeys).transform(BoundedGroupBy.groupByBounded(key -> key, maxGroups, metrics)),
+                groups, bh);
+    }
+
+    /**
+     * Every group is subscribed as soon as it's emitted, flatMap would add the scan of its inners to every event
+     */
+    private void run(Flux<GroupedFlux<Integer, Integer>> grouped, Groups groups, Blackhole bh) {
+        BlackholeSubscriber.subscribe(grouped.doOnNext(group -> group.subscribe(new GroupCounter(groups, bh))), bh)
+                .await();
+    }
+
+    static final class GroupCounter implements Subscriber<Integer> {
+
+        private final Groups groups;
+        private final Blackhole bh;
+        private long count;
+
+        GroupCounter(Groups groups, Blackhole bh) {
+            this.groups = groups;
+            this.bh = bh;
+        }
+
+        @Override
+        public void onSubscribe(Subscription s) {
+            s.request(Long.MAX_VALUE);
+        }
+
+        @Override
+        public void onNext(Integer key) {
+            count++;
+        }
+
+        @Override
+        public void onError(Throwable t) {
+            bh.consume(t);
+        }
+
+        @Override
+        public void onComplete() {
+            groups.groups++;
+            bh.consume(count);
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package com.balamaci.reactor.benchmark;
+
+import com.balamaci.reactor.resilience.Bulkhead;
+import com.balamaci.reactor.resilience.BulkheadOperator;
+import com.balamaci.reactor.resilience.ConcurrencyLimit;
+import com.balamaci.reactor.scheduler.HashedWheelTimer;
+import com.balamaci.reactor.simulator.RemoteServiceSimulator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import reactor.core.publisher.Flux;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 'calls' calls through flatMap with 'concurrency' of them in flight, to a service that slows down when it gets
+ * more than 'capacity' calls at once - its latency is baseLatency * (1 + (inFlight / capacity)^2), so it answers
+ * the most calls per second at exactly 'capacity' in flight:
+ *
+ *   - noLimit - all the flatMap concurrency reaches the service
+ *   - fixedAtCapacity, fixedTooHigh - a Bulkhead with a fixed limit, right and 4 times too high
+ *   - vegas, gradient - a Bulkhead with an adaptive limit starting at 'concurrency' and finding the capacity from
+ *     the latency alone. The limit is kept across the operations, like it would be in front of a real service
+ *
+ * The wheel ticks every 100us so the 1ms latency isn't rounded up to the tick.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class BulkheadBenchmark {
+
+    @Param({"1000"})
+    int calls;
+
+    @Param({"256"})
+    int concurrency;
+
+    @Param({"16"})
+    int capacity;
+
+    @Param({"1000"})
+    int baseLatencyMicros;
+
+    private HashedWheelTimer timer;
+    private RemoteServiceSimulator remoteService;
+
+    private Bulkhead fixedAtCapacity;
+    private Bulkhead fixedTooHigh;
+    private Bulkhead vegas;
+    private Bulkhead gradient;
+
+    @Setup
+    public void setup() {
+        timer = HashedWheelTimer.create("remote-service", 100, TimeUnit.MICROSECONDS, 4096);
+        long baseNanos = TimeUnit.MICROSECONDS.toNanos(baseLatencyMicros);
+        RemoteServiceSimulator[] holder = new RemoteServiceSimulator[1]; // the latency reads the calls in flight
+        remoteService = RemoteServiceSimulator.create(timer, () -> {
+            double load = (double) holder[0].inFlight() / capacity;
+            return (long) (baseNanos * (1 + load * load));
+        });
+        holder[0] = remoteService;
+
+        fixedAtCapacity = Bulkhead.create("fixed", ConcurrencyLimit.fixed(capacity), concurrency);
+        fixedTooHigh = Bulkhead.create("fixed", ConcurrencyLimit.fixed(capacity * 4), concurrency);
+        vegas = Bulkhead.create("vegas", ConcurrencyLimit.vegas(concurrency, concurrency), concurrency);
+        gradient = Bulkhead.create("gradient", ConcurrencyLimit.gradient(concurrency, concurrency), concurrency);
+    }
+
+    @TearDown
+    public void tearDown() {
+        timer.shutdown();
+    }
+
+    @Benchmark
+    public void noLimit(Blackhole bh) {
+        run(Flux.range(0, calls).flatMap(remoteService::request, concurrency), bh);
+    }
+
+    @Benchmark
+    public void fixedAtCapacity(Blackhole bh) {
+        run(throughBulkhead(fixedAtCapacity), bh);
+    }
+
+    @Benchmark
+    public void fixedTooHigh(Blackhole bh) {
+        run(throughBulkhead(fixedTooHigh), bh);
+    }
+
+    @Benchmark
+    public void vegas(Blackhole bh) {
+        run(throughBulkhead(vegas), bh);
+    }
+
+    @Benchmark
+    public void gradient(Blackhole bh) {
+        run(throughBulkhead(gradient), bh);
+    }
+
+    private Flux<Integer> throughBulkhead(Bulkhead bulkhead) {
+        return Flux.range(0, calls).flatMap(val -> remoteService.request(val).flux()
+                .transform(BulkheadOperator.bulkhead(bulkhead)), concurrency);
+    }
+
+    private void run(Flux<Integer> flux, Blackhole bh) {
+        BlackholeSubscriber.subscribe(flux, bh).await();
+    }
+}
@@ -0,0 +1,142 @@
+package com.balamaci.reactor.benchmark;
+
+import com.balamaci.reactor.resilience.CircuitBreaker;
+import com.balamaci.reactor.resilience.CircuitBreakerOperator;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import reactor.core.publisher.Flux;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * What the CircuitBreakerOperator costs and what it saves, 'calls' calls one after the other through concatMap:
+ *
+ *   - closed* - a healthy service: no fallback, the onErrorResumeWith fallback of Part08ErrorHandling and the
+ *     circuit breaker, its overhead per call is the difference
+ *   - flaky* - a service failing for the first 'outageMicros' of every operation then working again, with the
+ *     onErrorResumeWith fallback or behind a breaker opening for 'openMicros'. The counters show the calls that
+ *     still hit the failing service, the ones short-circuited and of those the ones lost - short-circuited after
+ *     the service came back, until a trial call closed the breaker
+ *
+ * The outage is measured in time and not in attempts like the attemptsMap of Part08ErrorHandling, the calls the
+ * breaker keeps away from the service would otherwise keep it failing forever.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class CircuitBreakerBenchmark {
+
+    @Param({"10000"})
+    int calls;
+
+    @Param({"1000"})
+    int outageMicros;
+
+    @Param({"100"})
+    int openMicros;
+
+    private CircuitBreaker healthyBreaker;
+
+    @Setup
+    public void setup() {
+        healthyBreaker = CircuitBreaker.create("healthy", 100, Duration.ofSeconds(1));
+    }
+
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    @State(Scope.Thread)
+    public static class Outcomes {
+
+        /** the calls that reached the service while it was failing */
+        public long failedCalls;
+        /** the calls that didn't reach the service */
+        public long shortCircuited;
+        /** the calls that didn't reach the service while it was working */
+        public long lostCalls;
+
+        long healthyAt;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            failedCalls = 0;
+            shortCircuited = 0;
+            lostCalls = 0;
+        }
+
+        void startOutage(long outageNanos) {
+            healthyAt = System.nanoTime() + outageNanos;
+        }
+
+        Flux<Integer> fallback(Throwable exception) {
+            if (exception instanceof CircuitBreaker.OpenException) {
+                shortCircuited++;
+                if (System.nanoTime() >= healthyAt) {
+                    lostCalls++;
+                }
+            }
+            return Flux.just(-1);
+        }
+    }
+
+    @Benchmark
+    public void closedNoFallback(Blackhole bh) {
+        run(Flux.range(0, calls).concatMap(Flux::just), bh);
+    }
+
+    @Benchmark
+    public void closedOnErrorResumeWith(Blackhole bh) {
+        run(Flux.range(0, calls).concatMap(val -> Flux.just(val)
+                .onErrorResumeWith(exception -> Flux.just(-1))), bh);
+    }
+
+    @Benchmark
+    public void closedCircuitBreaker(Blackhole bh) {
+        run(Flux.range(0, calls).concatMap(val -> Flux.just(val)
+                .transform(CircuitBreakerOperator.circuitBreaker(healthyBreaker, exception -> Flux.just(-1)))), bh);
+    }
+
+    @Benchmark
+    public void flakyOnErrorResumeWith(Outcomes outcomes, Blackhole bh) {
+        outcomes.startOutage(TimeUnit.MICROSECONDS.toNanos(outageMicros));
+        run(Flux.range(0, calls).concatMap(val -> flakyCall(outcomes, val)
+                .onErrorResumeWith(outcomes::fallback)), bh);
+    }
+
+    @Benchmark
+    public void flakyCircuitBreaker(Outcomes outcomes, Blackhole bh) {
+        outcomes.startOutage(TimeUnit.MICROSECONDS.toNanos(outageMicros));
+        CircuitBreaker breaker = CircuitBreaker.create("flaky", 20, Duration.ofNanos(
+                TimeUnit.MICROSECONDS.toNanos(openMicros)));
+        run(Flux.range(0, calls).concatMap(val -> flakyCall(outcomes, val)
+                .transform(CircuitBreakerOperator.circuitBreaker(breaker, outcomes::fallback))), bh);
+    }
+
+    private Flux<Integer> flakyCall(Outcomes outcomes, int val) {
+        return Flux.defer(() -> {
+            if (System.nanoTime() < outcomes.healthyAt) {
+                outcomes.failedCalls++;
+                return Flux.error(new RuntimeException("Failing call"));
+            }
+            return Flux.just(val);
+        });
+    }
+
+    private void run(Flux<Integer> flux, Blackhole bh) {
+        BlackholeSubscriber.subscribe(flux, bh).await();
+    }
+}
@@ -0,0 +1,67 @@
+package com.balamaci.reactor.benchmark;
+
+import com.balamaci.reactor.publisher.CustomRangeFlux;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import reactor.core.publisher.Flux;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * CustomRangeFlux compared with Flux.range, for the unbounded fast path, the bounded slow path
+ * and the synchronously fused map/filter chain.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class CustomRangeFluxBenchmark {
+
+    @Param({"1000", "1000000", "100000000"})
+    int count;
+
+    @Benchmark
+    public void fluxRangeUnbounded(Blackhole bh) {
+        BlackholeSubscriber.subscribe(Flux.range(0, count), bh);
+    }
+
+    @Benchmark
+    public void customRangeUnbounded(Blackhole bh) {
+        BlackholeSubscriber.subscribe(new CustomRangeFlux(0, count), bh);
+    }
+
+    @Benchmark
+    public void fluxRangeBounded(Blackhole bh) {
+        BlackholeSubscriber.subscribe(Flux.range(0, count), bh, 128);
+    }
+
+    @Benchmark
+    public void customRangeBounded(Blackhole bh) {
+        BlackholeSubscriber.subscribe(new CustomRangeFlux(0, count), bh, 128);
+    }
+
+    @Benchmark
+    public void fluxRangeMapFilter(Blackhole bh) {
+        BlackholeSubscriber.subscribe(Flux.range(0, count)
+                .map(val -> val + 1)
+                .filter(val -> (val & 1) == 0), bh);
+    }
+
+    @Benchmark
+    public void customRangeMapFilter(Blackhole bh) {
+        BlackholeSubscriber.subscribe(new CustomRangeFlux(0, count)
+                .map(val -> val + 1)
+                .filter(val -> (val & 1) == 0), bh);
+    }
+}
@@ -0,0 +1,72 @@
+package com.balamaci.reactor.benchmark;
+
+import com.balamaci.reactor.metrics.InstrumentedPublishOn;
+import com.balamaci.reactor.metrics.PublishOnMetrics;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import reactor.core.publisher.Flux;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The cost of the queue metrics: publishOn compared with InstrumentedPublishOn for a few prefetch values.
+ * The source is hidden so the original publishOn can't fuse with it either.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class InstrumentedPublishOnBenchmark {
+
+    private static final int COUNT = 100_000;
+
+    @Param({"5", "32", "256"})
+    int prefetch;
+
+    private Scheduler scheduler;
+    private PublishOnMetrics metrics;
+
+    @Setup
+    public void setup() {
+        scheduler = Schedulers.newSingle("publish");
+        metrics = new PublishOnMetrics("publish");
+    }
+
+    @TearDown
+    public void tearDown() {
+        scheduler.shutdown();
+    }
+
+    @Benchmark
+    public void publishOn(Blackhole bh) {
+        Flux<Integer> flux = Flux.range(0, COUNT)
+                .hide()
+                .publishOn(scheduler, prefetch);
+
+        BlackholeSubscriber.subscribe(flux, bh).await();
+    }
+
+    @Benchmark
+    public void instrumentedPublishOn(Blackhole bh) {
+        Flux<Integer> flux = Flux.range(0, COUNT)
+                .hide()
+                .transform(InstrumentedPublishOn.publishOn(scheduler, prefetch, metrics));
+
+        BlackholeSubscriber.subscribe(flux, bh).await();
+    }
+}
@@ -0,0 +1,74 @@
+package com.balamaci.reactor.benchmark;
+
+import com.balamaci.reactor.aggregate.KeyedAggregate;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import reactor.core.publisher.Flux;
+import reactor.util.function.Tuples;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Counting 'events' elements per key, over 'keys' distinct keys drawn uniformly:
+ *
+ *   - groupByCount - Part05AdvancedOperators.groupBy, groupBy(...).flatMap(group -&gt; group.count().map(...))
+ *   - countByKey - KeyedAggregate.countByKey, a long per key in a LongValueMap
+ *
+ * Run with -prof gc, gc.alloc.rate.norm divided by 'keys' is the memory a key costs. The flatMap of this Reactor
+ * version scans all its inners on every drain, which with a concurrency of Integer.MAX_VALUE and 10M open groups
+ * doesn't finish in any useful time - that's the point of the comparison, at 10K keys it's measurable.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx3g")
+@State(Scope.Thread)
+public class KeyedAggregateBenchmark {
+
+    @Param({"10000000"})
+    int events;
+
+    @Param({"10000", "10000000"})
+    int keys;
+
+    private Integer[] eventKeys;
+
+    @Setup
+    public void setup() {
+        Integer[] boxedKeys = new Integer[keys];
+        for (int i = 0; i < keys; i++) {
+            boxedKeys[i] = i;
+        }
+        Random random = new Random(42);
+        eventKeys = new Integer[events];
+        for (int i = 0; i < events; i++) {
+            eventKeys[i] = boxedKeys[random.nextInt(keys)];
+        }
+    }
+
+    @Benchmark
+    public void groupByCount(Blackhole bh) {
+        BlackholeSubscriber.subscribe(Flux.fromArray(eventKeys)
+                .groupBy(key -> key)
+                .flatMap(group -> group.count().map(count -> Tuples.of(group.key(), count)), Integer.MAX_VALUE),
+                bh).await();
+    }
+
+    @Benchmark
+    public void countByKey(Blackhole bh) {
+        BlackholeSubscriber.subscribe(Flux.fromArray(eventKeys)
+                .transform(KeyedAggregate.countByKey(key -> key)), bh).await();
+    }
+}
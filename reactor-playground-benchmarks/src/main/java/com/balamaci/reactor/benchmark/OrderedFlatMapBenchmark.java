@@ -0,0 +1,106 @@
+package com.balamaci.reactor.benchmark;
+
+import com.balamaci.reactor.publisher.OrderedFlatMap;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import reactor.core.publisher.Flux;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * The flatMap variants of Part06FlatMapOperator on 'colors' substreams shaped like simulateRemoteOperation: a
+ * remote call of 'remoteMicros' on an elastic thread, then one event per letter of the color.
+ *
+ *   - concatMap - in order, one remote call at a time, the throughput is bounded by the call latency
+ *   - flatMap - 'maxConcurrency' calls at a time, the events interleaved
+ *   - flatMapSequential - the built-in ordered flatMap
+ *   - flatMapOrdered - OrderedFlatMap, the same with the reorder buffer bounded by 'prefetch' per substream
+ *
+ * Throughput compares the ordered variants with concatMap, the sample times (the time of one whole run, with
+ * percentiles) compare them with flatMap.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class OrderedFlatMapBenchmark {
+
+    private static final String[] COLORS = {"orange", "red", "green", "blue", "lightgoldenrodyellow", "tan"};
+
+    @Param({"64"})
+    int colors;
+
+    @Param({"200"})
+    long remoteMicros;
+
+    @Param({"16"})
+    int maxConcurrency;
+
+    @Param({"32"})
+    int prefetch;
+
+    private Scheduler remote;
+
+    @Setup
+    public void setup() {
+        remote = Schedulers.newElastic("remote");
+    }
+
+    @TearDown
+    public void tearDown() {
+        remote.shutdown();
+    }
+
+    @Benchmark
+    public void concatMap(Blackhole bh) {
+        run(source().concatMap(this::simulateRemoteOperation), bh);
+    }
+
+    @Benchmark
+    public void flatMap(Blackhole bh) {
+        run(source().flatMap(this::simulateRemoteOperation, maxConcurrency), bh);
+    }
+
+    @Benchmark
+    public void flatMapSequential(Blackhole bh) {
+        run(source().flatMapSequential(this::simulateRemoteOperation, maxConcurrency, prefetch), bh);
+    }
+
+    @Benchmark
+    public void flatMapOrdered(Blackhole bh) {
+        run(source().transform(OrderedFlatMap.flatMapOrdered(this::simulateRemoteOperation, maxConcurrency,
+                prefetch)), bh);
+    }
+
+    private Flux<String> source() {
+        return Flux.range(0, colors).map(index -> COLORS[index % COLORS.length]);
+    }
+
+    private void run(Flux<String> flux, Blackhole bh) {
+        BlackholeSubscriber.subscribe(flux, bh).await();
+    }
+
+    private Flux<String> simulateRemoteOperation(String color) {
+        return Flux.defer(() -> {
+                    LockSupport.parkNanos(TimeUnit.MICROSECONDS.toNanos(remoteMicros));
+                    return Flux.range(0, color.length()).map(i -> color + i);
+                })
+                .subscribeOn(remote);
+    }
+}
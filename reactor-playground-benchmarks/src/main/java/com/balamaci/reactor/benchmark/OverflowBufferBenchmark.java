@@ -0,0 +1,100 @@
+package com.balamaci.reactor.benchmark;
+
+import com.balamaci.reactor.overflow.OnBackpressureOverflow;
+import com.balamaci.reactor.overflow.OverflowBuffer;
+import com.balamaci.reactor.overflow.SpillCodec;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import reactor.core.publisher.Flux;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The OverflowBuffer strategies next to the built-in onBackpressureDrop/Latest/Buffer, for a producer emitting
+ * everything at once into a publishOn(.., 32). The gc.alloc.rate.norm column shows the per run allocation -
+ * the buffers are preallocated, only the boxed Integers and the spill file mapping remain.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class OverflowBufferBenchmark {
+
+    private static final int COUNT = 100_000;
+
+    @Param({"1024"})
+    int capacity;
+
+    private Scheduler scheduler;
+
+    @Setup
+    public void setup() {
+        scheduler = Schedulers.newSingle("consumer");
+    }
+
+    @TearDown
+    public void tearDown() {
+        scheduler.shutdown();
+    }
+
+    @Benchmark
+    public void onBackpressureDrop(Blackhole bh) {
+        run(source().onBackpressureDrop(), bh);
+    }
+
+    @Benchmark
+    public void onBackpressureLatest(Blackhole bh) {
+        run(source().onBackpressureLatest(), bh);
+    }
+
+    @Benchmark
+    public void onBackpressureBuffer(Blackhole bh) {
+        run(source().onBackpressureBuffer(), bh);
+    }
+
+    @Benchmark
+    public void dropOldest(Blackhole bh) {
+        run(source().transform(OnBackpressureOverflow.onBackpressure(() -> OverflowBuffer.dropOldest(capacity))), bh);
+    }
+
+    @Benchmark
+    public void sampling(Blackhole bh) {
+        run(source().transform(OnBackpressureOverflow.onBackpressure(
+                () -> OverflowBuffer.sampling(capacity, capacity / 2, 4))), bh);
+    }
+
+    @Benchmark
+    public void priorityEviction(Blackhole bh) {
+        run(source().transform(OnBackpressureOverflow.onBackpressure(
+                () -> OverflowBuffer.priority(capacity, val -> val & 7))), bh);
+    }
+
+    @Benchmark
+    public void spillToDisk(Blackhole bh) {
+        run(source().transform(OnBackpressureOverflow.onBackpressure(
+                () -> OverflowBuffer.spillToDisk(capacity, 1 << 20, SpillCodec.integers()))), bh);
+    }
+
+    private Flux<Integer> source() {
+        return Flux.range(0, COUNT).hide();
+    }
+
+    private void run(Flux<Integer> flux, Blackhole bh) {
+        BlackholeSubscriber.subscribe(flux.publishOn(scheduler, 32), bh).await();
+    }
+}
@@ -0,0 +1,91 @@
+package com.balamaci.reactor.benchmark;
+
+import com.balamaci.reactor.aggregate.EventTime;
+import com.balamaci.reactor.aggregate.PanedWindows;
+import com.balamaci.reactor.aggregate.WindowAggregate;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import reactor.core.publisher.Flux;
+
+import java.time.Duration;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A sliding sum over 1 minute windows starting every second, for events coming at 1M/s of event time - 10s of
+ * them, the score is in events per second of wall time, so anything above 1M keeps up:
+ *
+ *   - windowReduce - window(span, shift) counted in events, which at a fixed rate are the same windows, and a reduce
+ *     per window Flux. An event is handed to every open window, 10 here since there are only 10s of events - 60 in
+ *     a steady stream
+ *   - panes - PanedWindows, an event is added to its 1s pane and each window sums its 60 panes when it closes
+ *   - outOfOrderPanes - the same with every timestamp moved back by up to 500ms, a watermark 1s behind the highest
+ *     timestamp and 5s of allowed lateness
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+@OperationsPerInvocation(PanedWindowsBenchmark.EVENTS)
+@State(Scope.Thread)
+public class PanedWindowsBenchmark {
+
+    static final int EVENTS = 10_000_000;
+    private static final int EVENTS_PER_SECOND = 1_000_000;
+
+    /** the timestamps in milliseconds, the event is its timestamp */
+    private Long[] events;
+    private Long[] outOfOrderEvents;
+
+    @Setup
+    public void setup() {
+        events = new Long[EVENTS];
+        for (int i = 0; i < EVENTS; i++) {
+            events[i] = (long) i * 1000 / EVENTS_PER_SECOND;
+        }
+        Random random = new Random(42);
+        outOfOrderEvents = new Long[EVENTS];
+        for (int i = 0; i < EVENTS; i++) {
+            outOfOrderEvents[i] = Math.max(0, events[i] - random.nextInt(500));
+        }
+    }
+
+    @Benchmark
+    public void windowReduce(Blackhole bh) {
+        BlackholeSubscriber.subscribe(Flux.fromArray(events)
+                .window(60 * EVENTS_PER_SECOND, EVENTS_PER_SECOND)
+                .flatMap(window -> window.reduce(0L, (sum, timestamp) -> sum + (timestamp & 0xff))), bh)
+                .await();
+    }
+
+    @Benchmark
+    public void panes(Blackhole bh) {
+        BlackholeSubscriber.subscribe(Flux.fromArray(events)
+                .transform(PanedWindows.sliding(Duration.ofMinutes(1), Duration.ofSeconds(1),
+                        timestamp -> timestamp, WindowAggregate.sum(timestamp -> timestamp & 0xff))), bh)
+                .await();
+    }
+
+    @Benchmark
+    public void outOfOrderPanes(Blackhole bh) {
+        EventTime<Long> eventTime = EventTime.<Long>timestamps(timestamp -> timestamp)
+                .boundedOutOfOrderness(Duration.ofSeconds(1))
+                .allowedLateness(Duration.ofSeconds(5))
+                .lateEvents(bh::consume);
+        BlackholeSubscriber.subscribe(Flux.fromArray(outOfOrderEvents)
+                .transform(PanedWindows.sliding(Duration.ofMinutes(1), Duration.ofSeconds(1), eventTime,
+                        WindowAggregate.sum(timestamp -> timestamp & 0xff))), bh)
+                .await();
+    }
+}
@@ -0,0 +1,124 @@
+package com.balamaci.reactor.benchmark;
+
+import com.balamaci.reactor.publisher.ParallelOrderedJoin;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static com.balamaci.reactor.publisher.ParallelOrderedJoin.mapValue;
+import static com.balamaci.reactor.publisher.ParallelOrderedJoin.testValue;
+
+/**
+ * The reduce and collect pipelines of Part02SimpleOperators with a CPU heavy map - 'mapCost' CPU tokens per event -
+ * on a single rail and split into 'rails' rails, each running on its own thread of a newParallel(rails) scheduler.
+ *
+ *   - singleRail - plain Flux map/filter/reduce, the baseline
+ *   - reduceOnRails - the rails reduce on their own, the rail results are reduced at the end
+ *   - collectUnordered - the rails merged with sequential(), in arrival order
+ *   - collectOrdered - the rails merged with ParallelOrderedJoin, in source order
+ *
+ * The speed-up is bounded by the cores of the machine, more rails than cores only adds thread hops.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ParallelRailsBenchmark {
+
+    private static final int COUNT = 10_000;
+
+    @Param({"1", "2", "4", "8", "16", "32"})
+    int rails;
+
+    @Param({"1000"})
+    long mapCost;
+
+    private Scheduler scheduler;
+
+    @Setup
+    public void setup() {
+        scheduler = Schedulers.newParallel("rail", rails);
+    }
+
+    @TearDown
+    public void tearDown() {
+        scheduler.shutdown();
+    }
+
+    @Benchmark
+    public void singleRail(Blackhole bh) {
+        Mono<Long> sum = Flux.range(0, COUNT)
+                .map(this::heavyMapping)
+                .filter(this::keep)
+                .reduce(0L, Long::sum);
+
+        BlackholeSubscriber.subscribe(sum, bh).await();
+    }
+
+    @Benchmark
+    public void reduceOnRails(Blackhole bh) {
+        Mono<Long> sum = Flux.range(0, COUNT)
+                .parallel(rails)
+                .runOn(scheduler)
+                .map(this::heavyMapping)
+                .filter(this::keep)
+                .reduce(Long::sum);
+
+        BlackholeSubscriber.subscribe(sum, bh).await();
+    }
+
+    @Benchmark
+    public void collectUnordered(Blackhole bh) {
+        Mono<List<Long>> list = Flux.range(0, COUNT)
+                .parallel(rails)
+                .runOn(scheduler)
+                .map(this::heavyMapping)
+                .filter(this::keep)
+                .sequential()
+                .collect(ArrayList::new, List::add);
+
+        BlackholeSubscriber.subscribe(list, bh).await();
+    }
+
+    @Benchmark
+    public void collectOrdered(Blackhole bh) {
+        Mono<List<Long>> list = ParallelOrderedJoin.indexed(Flux.range(0, COUNT))
+                .parallel(rails)
+                .runOn(scheduler)
+                .map(mapValue(this::heavyMapping))
+                .filter(testValue(this::keep))
+                .as(ParallelOrderedJoin::ordered)
+                .collect(ArrayList::new, List::add);
+
+        BlackholeSubscriber.subscribe(list, bh).await();
+    }
+
+    private long heavyMapping(int val) {
+        Blackhole.consumeCPU(mapCost);
+        return (long) val * val;
+    }
+
+    private boolean keep(long val) {
+        return val % 3 != 0;
+    }
+}
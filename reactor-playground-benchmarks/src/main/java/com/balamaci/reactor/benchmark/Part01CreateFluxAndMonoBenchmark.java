@@ -0,0 +1,100 @@
+package com.balamaci.reactor.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Pipelines from Part01CreateFluxAndMono
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class Part01CreateFluxAndMonoBenchmark {
+
+    private static final String[] COLORS = new String[]{"red", "green", "blue", "black"};
+
+    @Param({"10", "1000"})
+    int events;
+
+    private List<String> colorList;
+
+    @Setup
+    public void setup() {
+        colorList = Arrays.asList(COLORS);
+    }
+
+    @Benchmark
+    public void just(Blackhole bh) {
+        BlackholeSubscriber.subscribe(Flux.just(1, 5, 10), bh);
+    }
+
+    @Benchmark
+    public void range(Blackhole bh) {
+        BlackholeSubscriber.subscribe(Flux.range(1, events), bh, 5);
+    }
+
+    @Benchmark
+    public void fromArray(Blackhole bh) {
+        BlackholeSubscriber.subscribe(Flux.fromArray(COLORS), bh);
+    }
+
+    @Benchmark
+    public void fromIterable(Blackhole bh) {
+        BlackholeSubscriber.subscribe(Flux.fromIterable(colorList), bh);
+    }
+
+    @Benchmark
+    public void fromJavaStream(Blackhole bh) {
+        BlackholeSubscriber.subscribe(Flux.fromStream(Stream.of("red", "green")), bh);
+    }
+
+    @Benchmark
+    public void fromFuture(Blackhole bh) {
+        BlackholeSubscriber.subscribe(Mono.fromFuture(CompletableFuture.completedFuture("red")), bh);
+    }
+
+    @Benchmark
+    public void createSimpleFlux(Blackhole bh) {
+        Flux<Integer> flux = Flux.create(subscriber -> {
+            for (int i = 0; i < events; i++) {
+                subscriber.next(i);
+            }
+            subscriber.complete();
+        });
+
+        BlackholeSubscriber.subscribe(flux, bh);
+    }
+
+    @Benchmark
+    public void canceledFlux(Blackhole bh) {
+        Flux<Integer> flux = Flux.create(subscriber -> {
+            int i = 1;
+            while (!subscriber.isCancelled()) {
+                subscriber.next(i++);
+            }
+        });
+
+        BlackholeSubscriber.subscribe(flux.take(events), bh);
+    }
+}
@@ -0,0 +1,68 @@
+package com.balamaci.reactor.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Pipelines from Part02SimpleOperators.
+ *
+ * delay() and interval() are left out, their cost is dominated by the configured wait time and not by the operators.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class Part02SimpleOperatorsBenchmark {
+
+    @Param({"4", "1000"})
+    int events;
+
+    @Benchmark
+    public void scanOperator(Blackhole bh) {
+        Flux<Integer> numbers = Flux.range(0, events)
+                .scan(0, (totalSoFar, currentValue) -> totalSoFar + currentValue);
+
+        BlackholeSubscriber.subscribe(numbers, bh);
+    }
+
+    @Benchmark
+    public void reduceOperator(Blackhole bh) {
+        Mono<Integer> numbers = Flux.range(0, events)
+                .reduce(0, (totalSoFar, val) -> totalSoFar + val);
+
+        BlackholeSubscriber.subscribe(numbers, bh);
+    }
+
+    @Benchmark
+    public void collectOperator(Blackhole bh) {
+        Mono<ArrayList<Integer>> numbers = Flux.range(0, events)
+                .collect(ArrayList::new, ArrayList::add);
+
+        BlackholeSubscriber.subscribe(numbers, bh);
+    }
+
+    @Benchmark
+    public void repeat(Blackhole bh) {
+        Flux<Integer> random = Flux.defer(() -> Mono.just(ThreadLocalRandom.current().nextInt(20)))
+                .repeat(5);
+
+        BlackholeSubscriber.subscribe(random, bh);
+    }
+}
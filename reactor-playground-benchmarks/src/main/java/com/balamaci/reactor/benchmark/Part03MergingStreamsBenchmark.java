@@ -0,0 +1,77 @@
+package com.balamaci.reactor.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.function.Tuples;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Pipelines from Part03MergingStreams.
+ *
+ * The scenarios pace one of the streams with Flux.interval, here both sides are synchronous sources so we measure
+ * the pairing/merging cost and not the timer.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class Part03MergingStreamsBenchmark {
+
+    @Param({"3", "1000"})
+    int events;
+
+    @Benchmark
+    public void zipUsedForTakingTheResultOfCombinedAsyncOperations(Blackhole bh) {
+        Mono<Boolean> isUserBlockedStream = Mono.fromFuture(CompletableFuture.completedFuture(Boolean.FALSE));
+        Mono<String> userCreditScoreStream = Mono.fromFuture(CompletableFuture.completedFuture("GOOD"));
+
+        BlackholeSubscriber.subscribe(Flux.zip(isUserBlockedStream, userCreditScoreStream, Tuples::of), bh);
+    }
+
+    @Benchmark
+    public void zipUsedToSlowDownAnotherStream(Blackhole bh) {
+        Flux<Integer> colors = Flux.range(0, events);
+        Flux<Long> timer = Flux.range(0, events).map(Integer::longValue);
+
+        BlackholeSubscriber.subscribe(Flux.zip(colors, timer, (key, val) -> key), bh);
+    }
+
+    @Benchmark
+    public void mergeOperator(Blackhole bh) {
+        Flux<Integer> colors = Flux.range(0, events);
+        Flux<Integer> numbers = Flux.range(0, events);
+
+        BlackholeSubscriber.subscribe(Flux.merge(colors, numbers), bh);
+    }
+
+    @Benchmark
+    public void concatStreams(Blackhole bh) {
+        Flux<Integer> colors = Flux.range(0, events);
+        Flux<Integer> numbers = Flux.range(0, events);
+
+        BlackholeSubscriber.subscribe(Flux.concat(colors, numbers), bh);
+    }
+
+    @Benchmark
+    public void combineLatest(Blackhole bh) {
+        Flux<Integer> colors = Flux.range(0, events);
+        Flux<Integer> numbers = Flux.range(0, events);
+
+        BlackholeSubscriber.subscribe(Flux.combineLatest(colors, numbers, Tuples::of), bh);
+    }
+}
@@ -0,0 +1,104 @@
+package com.balamaci.reactor.benchmark;
+
+import com.balamaci.reactor.publisher.BroadcastProcessor;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import reactor.core.publisher.ConnectableFlux;
+import reactor.core.publisher.Flux;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Fan-out of a single upstream to 1, 16 and 256 subscribers, BroadcastProcessor compared with publish().
+ *
+ * The replay benchmarks fill a replay buffer of 'history' events and return it, run them with the GC profiler
+ * (BenchmarkRunner always does) and divide gc.alloc.rate.norm by history for the memory cost per retained event.
+ * The events are preallocated so only the buffer itself is counted.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class Part04HotObservablesBenchmark {
+
+    private static final int COUNT = 100_000;
+
+    @State(Scope.Thread)
+    public static class FanOut {
+
+        @Param({"1", "16", "256"})
+        int subscribers;
+    }
+
+    @Benchmark
+    public void broadcastProcessorFanOut(FanOut fanOut, Blackhole bh) {
+        BroadcastProcessor<Integer> processor = BroadcastProcessor.create(256);
+        for (int i = 0; i < fanOut.subscribers; i++) {
+            BlackholeSubscriber.subscribe(processor, bh);
+        }
+        Flux.range(0, COUNT).subscribe(processor);
+    }
+
+    @Benchmark
+    public void publishFanOut(FanOut fanOut, Blackhole bh) {
+        Flux<Integer> shared = Flux.range(0, COUNT).publish(256).autoConnect(fanOut.subscribers);
+        for (int i = 0; i < fanOut.subscribers; i++) {
+            BlackholeSubscriber.subscribe(shared, bh);
+        }
+    }
+
+    /**
+     * publish() fuses with Flux.range and polls it directly, hide() takes the fusion out to compare
+     * with the processor which always receives the events through onNext
+     */
+    @Benchmark
+    public void publishNotFusedFanOut(FanOut fanOut, Blackhole bh) {
+        Flux<Integer> shared = Flux.range(0, COUNT).hide().publish(256).autoConnect(fanOut.subscribers);
+        for (int i = 0; i < fanOut.subscribers; i++) {
+            BlackholeSubscriber.subscribe(shared, bh);
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Replay {
+
+        @Param({"1000", "100000"})
+        int history;
+
+        Integer[] events;
+
+        @Setup
+        public void setup() {
+            events = new Integer[history];
+            for (int i = 0; i < history; i++) {
+                events[i] = i;
+            }
+        }
+    }
+
+    @Benchmark
+    public BroadcastProcessor<Integer> broadcastProcessorReplayRetention(Replay replay) {
+        BroadcastProcessor<Integer> processor = BroadcastProcessor.replay(replay.history, 16);
+        Flux.fromArray(replay.events).subscribe(processor);
+        return processor;
+    }
+
+    @Benchmark
+    public ConnectableFlux<Integer> fluxReplayRetention(Replay replay) {
+        ConnectableFlux<Integer> replayed = Flux.fromArray(replay.events).replay(replay.history);
+        replayed.connect();
+        return replayed;
+    }
+}
@@ -0,0 +1,63 @@
+package com.balamaci.reactor.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import reactor.core.publisher.Flux;
+import reactor.util.function.Tuples;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Pipelines from Part05AdvancedOperators.
+ *
+ * The time based windows are left out, the count based window/buffer exercise the same window machinery.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class Part05AdvancedOperatorsBenchmark {
+
+    private static final String[] COLORS = new String[]{"red", "green", "blue", "red", "yellow", "green", "green"};
+
+    @Param({"1000"})
+    int events;
+
+    @Benchmark
+    public void buffer(Blackhole bh) {
+        BlackholeSubscriber.subscribe(Flux.range(0, events).buffer(5), bh);
+    }
+
+    @Benchmark
+    public void simpleWindow(Blackhole bh) {
+        Flux<Integer> numbers = Flux.range(0, events)
+                .window(5)
+                .flatMap(window -> window);
+
+        BlackholeSubscriber.subscribe(numbers, bh);
+    }
+
+    @Benchmark
+    public void groupBy(Blackhole bh) {
+        Flux<String> colors = Flux.range(0, events)
+                .map(i -> COLORS[i % COLORS.length]);
+
+        BlackholeSubscriber.subscribe(colors
+                .groupBy(val -> val)
+                .flatMap(groupedColor -> groupedColor
+                        .count()
+                        .map(count -> Tuples.of(groupedColor.key(), count))
+                ), bh);
+    }
+}
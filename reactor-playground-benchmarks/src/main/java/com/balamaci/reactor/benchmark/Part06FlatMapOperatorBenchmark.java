@@ -0,0 +1,82 @@
+package com.balamaci.reactor.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import reactor.core.publisher.Flux;
+import reactor.util.function.Tuples;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Pipelines from Part06FlatMapOperator.
+ *
+ * simulateRemoteOperation() is replaced by a synchronous substream emitting as many events as the length of the
+ * color string, without the thread start and the sleep between emissions.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class Part06FlatMapOperatorBenchmark {
+
+    @Benchmark
+    public void flatMap(Blackhole bh) {
+        Flux<String> colors = Flux.just("orange", "red", "green")
+                .flatMap(this::simulateRemoteOperation);
+
+        BlackholeSubscriber.subscribe(colors, bh);
+    }
+
+    @Benchmark
+    public void flatMapConcurrency(Blackhole bh) {
+        Flux<String> colors = Flux.just("orange", "red", "green")
+                .flatMap(this::simulateRemoteOperation, 1);
+
+        BlackholeSubscriber.subscribe(colors, bh);
+    }
+
+    @Benchmark
+    public void concatMap(Blackhole bh) {
+        Flux<String> colors = Flux.just("orange", "red", "green", "blue")
+                .concatMap(this::simulateRemoteOperation);
+
+        BlackholeSubscriber.subscribe(colors, bh);
+    }
+
+    @Benchmark
+    public void flatMapFor(Blackhole bh) {
+        Flux<String> colors = Flux.just("red", "green", "blue", "red", "yellow", "green", "green");
+
+        BlackholeSubscriber.subscribe(colors
+                .groupBy(val -> val)
+                .flatMap(groupedColor -> groupedColor
+                        .count()
+                        .map(countVal -> Tuples.of(groupedColor.key(), countVal))
+                ), bh);
+    }
+
+    @Benchmark
+    public void flatMapOverrideCompleteEvent(Blackhole bh) {
+        Flux<String> colors = Flux.just("red", "green", "blue", "red", "yellow", "green", "green");
+
+        BlackholeSubscriber.subscribe(colors
+                .window(2)
+                .flatMap(window -> window.flatMap(Flux::just, Flux::error, () -> Flux.just("==="))
+                ), bh);
+    }
+
+    private Flux<String> simulateRemoteOperation(String color) {
+        return Flux.range(0, color.length())
+                .map(i -> color + i);
+    }
+}
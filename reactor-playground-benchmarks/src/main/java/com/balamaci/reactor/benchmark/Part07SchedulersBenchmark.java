@@ -0,0 +1,94 @@
+package com.balamaci.reactor.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Pipelines from Part07Schedulers - measures the cost of the thread hops introduced by subscribeOn/publishOn.
+ * The blocking sleeps of the scenarios are left out.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class Part07SchedulersBenchmark {
+
+    @Param({"2", "1000"})
+    int events;
+
+    private Scheduler parallel;
+    private Scheduler elasticPublish;
+    private Scheduler elastic2ndPublish;
+    private ExecutorService fixedThreadPool;
+    private Scheduler fixedThreadPoolScheduler;
+
+    @Setup
+    public void setup() {
+        parallel = Schedulers.newParallel("parallel-subscribe");
+        elasticPublish = Schedulers.newElastic("elastic-publish");
+        elastic2ndPublish = Schedulers.newElastic("elastic-2nd-publish");
+        fixedThreadPool = Executors.newFixedThreadPool(2);
+        fixedThreadPoolScheduler = Schedulers.fromExecutor(fixedThreadPool);
+    }
+
+    @TearDown
+    public void tearDown() {
+        parallel.shutdown();
+        elasticPublish.shutdown();
+        elastic2ndPublish.shutdown();
+        fixedThreadPool.shutdownNow();
+    }
+
+    @Benchmark
+    public void testSubscribeOn(Blackhole bh) {
+        Flux<Integer> flux = Flux.range(0, events)
+                .subscribeOn(elasticPublish)
+                .map(val -> val * 2);
+
+        BlackholeSubscriber.subscribe(flux, bh).await();
+    }
+
+    @Benchmark
+    public void testPublishOn(Blackhole bh) {
+        Flux<Integer> flux = Flux.range(0, events)
+                .subscribeOn(parallel)
+                .publishOn(elasticPublish)
+                .map(val -> val * 2)
+                .publishOn(elastic2ndPublish);
+
+        BlackholeSubscriber.subscribe(flux, bh).await();
+    }
+
+    @Benchmark
+    public void flatMapConcurrency(Blackhole bh) {
+        Flux<String> flux = Flux.just("red", "green", "blue", "yellow", "orange")
+                .flatMap(color -> Mono.just(color)
+                        .map(String::toUpperCase)
+                        .map(changedColor -> "**" + changedColor + "**")
+                        .subscribeOn(fixedThreadPoolScheduler)
+                );
+
+        BlackholeSubscriber.subscribe(flux, bh).await();
+    }
+}
@@ -0,0 +1,92 @@
+package com.balamaci.reactor.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import reactor.core.publisher.Flux;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Pipelines from Part08ErrorHandling
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class Part08ErrorHandlingBenchmark {
+
+    @Benchmark
+    public void errorIsTerminalOperation(Blackhole bh) {
+        Flux<String> colors = Flux.just("green", "blue", "red", "yellow")
+                .map(color -> {
+                    if ("red".equals(color)) {
+                        throw new RuntimeException("Encountered red");
+                    }
+                    return color + "*";
+                })
+                .map(val -> val + "XXX");
+
+        BlackholeSubscriber.subscribe(colors, bh);
+    }
+
+    @Benchmark
+    public void onErrorReturn(Blackhole bh) {
+        Flux<Integer> numbers = Flux.just("1", "3", "a", "4", "5", "c")
+                .map(Integer::parseInt)
+                .onErrorReturn(0);
+
+        BlackholeSubscriber.subscribe(numbers, bh);
+    }
+
+    @Benchmark
+    public void onErrorReturnWithFlatMap(Blackhole bh) {
+        Flux<String> colors = Flux.just("green", "blue", "red", "white", "blue")
+                .flatMap(color -> simulateRemoteOperation(color)
+                        .onErrorReturn("-blank-"));
+
+        BlackholeSubscriber.subscribe(colors, bh);
+    }
+
+    @Benchmark
+    public void onErrorResumeWith(Blackhole bh) {
+        Flux<String> colors = Flux.just("green", "blue", "red", "white", "blue")
+                .flatMap(color -> simulateRemoteOperation(color)
+                        .onErrorResumeWith(th -> {
+                            if (th instanceof IllegalArgumentException) {
+                                return Flux.error(new RuntimeException("Fatal, wrong arguments"));
+                            }
+                            return Flux.just("blank");
+                        })
+                );
+
+        BlackholeSubscriber.subscribe(colors, bh);
+    }
+
+    @Benchmark
+    public void retry(Blackhole bh) {
+        Flux<String> colors = Flux.just("red", "blue", "green", "yellow")
+                .concatMap(color -> simulateRemoteOperation(color)
+                        .retry(2)
+                        .onErrorResumeWith(exception -> Flux.just("blank"))
+                );
+
+        BlackholeSubscriber.subscribe(colors, bh);
+    }
+
+    private Flux<String> simulateRemoteOperation(String color) {
+        if ("red".equals(color)) {
+            return Flux.error(new RuntimeException("Color red raises exception"));
+        }
+        return Flux.just("**" + color + "**");
+    }
+}
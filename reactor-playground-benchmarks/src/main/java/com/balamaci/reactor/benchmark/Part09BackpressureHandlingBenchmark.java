@@ -0,0 +1,101 @@
+package com.balamaci.reactor.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.FluxSink;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Pipelines from Part09BackpressureHandling.
+ *
+ * The slow subscriber is replaced by a subscriber requesting in small batches so the overflow strategies
+ * and the backpressure operators are actually exercised.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class Part09BackpressureHandlingBenchmark {
+
+    @Param({"1000"})
+    int events;
+
+    private Scheduler elastic;
+
+    @State(Scope.Thread)
+    public static class Overflow {
+
+        @Param({"DROP", "LATEST", "BUFFER"})
+        FluxSink.OverflowStrategy strategy;
+    }
+
+    @Setup
+    public void setup() {
+        elastic = Schedulers.newElastic("elast");
+    }
+
+    @TearDown
+    public void tearDown() {
+        elastic.shutdown();
+    }
+
+    @Benchmark
+    public void fluxWithCreateHasBackpressureSupport(Overflow overflow, Blackhole bh) {
+        Flux<Integer> flux = createFlux(events, overflow.strategy)
+                .publishOn(elastic, 5);
+
+        BlackholeSubscriber.subscribe(flux, bh, 5).await();
+    }
+
+    @Benchmark
+    public void backpressureStrategyTriggeredBySlowOperator(Blackhole bh) {
+        Flux<String> flux = createFlux(events, FluxSink.OverflowStrategy.IGNORE)
+                .onBackpressureDrop(bh::consume)
+                .onBackpressureBuffer(5)
+                .publishOn(elastic, 2)
+                .map(val -> "*" + val + "*");
+
+        BlackholeSubscriber.subscribe(flux, bh).await();
+    }
+
+    @Benchmark
+    public void cascadingBackpressureOperators(Blackhole bh) {
+        Flux<Integer> flux = createFlux(events, FluxSink.OverflowStrategy.IGNORE)
+                .onBackpressureBuffer(5)
+                .limitRate(10)
+                .onBackpressureDrop(bh::consume)
+                .publishOn(elastic, 5);
+
+        BlackholeSubscriber.subscribe(flux, bh, 5).await();
+    }
+
+    private Flux<Integer> createFlux(int events, FluxSink.OverflowStrategy overflowStrategy) {
+        return Flux.create(subscriber -> {
+            for (int i = 1; i < events; i++) {
+                if (subscriber.isCancelled()) {
+                    return;
+                }
+                subscriber.next(i);
+            }
+
+            subscriber.complete();
+        }, overflowStrategy);
+    }
+}
@@ -0,0 +1,79 @@
+package com.balamaci.reactor.benchmark;
+
+import com.balamaci.reactor.publisher.primitive.IntFlux;
+import com.balamaci.reactor.publisher.primitive.LongFlux;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import reactor.core.publisher.Flux;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The scan/reduce pipelines of Part02SimpleOperators over boxed Flux&lt;Integer&gt; versus IntFlux/LongFlux.
+ * Compare the gc.alloc.rate.norm lines - the boxed scan allocates an Integer per element (for values outside
+ * the Integer cache) while the IntFlux scan allocates just the operator objects.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class PrimitiveFluxBenchmark {
+
+    @Param({"10000000"})
+    int count;
+
+    @Benchmark
+    public void boxedScan(Blackhole bh) {
+        BlackholeSubscriber.subscribe(Flux.range(0, count).scan(0, Integer::sum), bh);
+    }
+
+    @Benchmark
+    public void intFluxScan(Blackhole bh) {
+        IntFlux.range(0, count)
+                .scan(0, Integer::sum)
+                .subscribe(new BlackholeIntSubscriber(bh));
+    }
+
+    @Benchmark
+    public void boxedReduce(Blackhole bh) {
+        BlackholeSubscriber.subscribe(Flux.range(0, count).reduce(0, Integer::sum), bh);
+    }
+
+    @Benchmark
+    public void intFluxSum(Blackhole bh) {
+        BlackholeSubscriber.subscribe(IntFlux.range(0, count).sum(), bh);
+    }
+
+    @Benchmark
+    public void boxedLongMapFilterReduce(Blackhole bh) {
+        BlackholeSubscriber.subscribe(Flux.range(0, count)
+                .map(Integer::longValue)
+                .map(val -> val * 3)
+                .filter(val -> (val & 1) == 0)
+                .reduce(0L, Long::sum), bh);
+    }
+
+    @Benchmark
+    public void longFluxMapFilterSum(Blackhole bh) {
+        BlackholeSubscriber.subscribe(LongFlux.range(0, count)
+                .map(val -> val * 3)
+                .filter(val -> (val & 1) == 0)
+                .sum(), bh);
+    }
+
+    @Benchmark
+    public void intFluxBuffer(Blackhole bh) {
+        BlackholeSubscriber.subscribe(IntFlux.range(0, count).buffer(1024), bh);
+    }
+}
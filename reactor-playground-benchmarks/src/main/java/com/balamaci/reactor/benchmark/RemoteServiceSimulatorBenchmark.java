@@ -0,0 +1,84 @@
+package com.balamaci.reactor.benchmark;
+
+import com.balamaci.reactor.scheduler.HashedWheelTimer;
+import com.balamaci.reactor.simulator.LatencyDistribution;
+import com.balamaci.reactor.simulator.RemoteServiceSimulator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 'calls' remote calls in flight at once through flatMap, each answering after 'latencyMillis':
+ *
+ *   - threadPerCall - the legacy simulateRemoteOperation way, a new thread sleeping for the latency
+ *   - timerWheel - the RemoteServiceSimulator, a timeout on a shared HashedWheelTimer
+ *
+ * Both are bounded by the latency, the difference is what the waiting costs - thread starts and stacks against a
+ * few objects per call.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class RemoteServiceSimulatorBenchmark {
+
+    @Param({"1000", "10000"})
+    int calls;
+
+    @Param({"10"})
+    int latencyMillis;
+
+    private HashedWheelTimer timer;
+    private RemoteServiceSimulator remoteService;
+
+    @Setup
+    public void setup() {
+        timer = HashedWheelTimer.create("remote-service");
+        remoteService = RemoteServiceSimulator.create(timer, LatencyDistribution.fixed(
+                Duration.ofMillis(latencyMillis)));
+    }
+
+    @TearDown
+    public void tearDown() {
+        timer.shutdown();
+    }
+
+    @Benchmark
+    public void threadPerCall(Blackhole bh) {
+        run(Flux.range(0, calls).flatMap(this::threadPerCall, calls), bh);
+    }
+
+    @Benchmark
+    public void timerWheel(Blackhole bh) {
+        run(Flux.range(0, calls).flatMap(remoteService::request, calls), bh);
+    }
+
+    private void run(Flux<Integer> flux, Blackhole bh) {
+        BlackholeSubscriber.subscribe(flux, bh).await();
+    }
+
+    private Mono<Integer> threadPerCall(int val) {
+        return Mono.create(sink -> new Thread(() -> {
+            LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(latencyMillis));
+            sink.success(val);
+        }).start());
+    }
+}
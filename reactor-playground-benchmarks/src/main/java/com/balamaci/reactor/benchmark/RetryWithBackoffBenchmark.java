@@ -0,0 +1,86 @@
+package com.balamaci.reactor.benchmark;
+
+import com.balamaci.reactor.resilience.RetryPolicy;
+import com.balamaci.reactor.resilience.RetryWithBackoff;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A call failing 'failures' times before it answers, retried with a backoff of 'backoffMillis' doubling each time:
+ *
+ *   - retryWhen - Part08ErrorHandling.retryWhenUsedForRetryWithBackoff, a zip with a range and a delayed
+ *     publisher flatMapped for every error
+ *   - retryWithBackoff - the RetryWithBackoff operator, a timer task per retry
+ *
+ * Both wait the same backoff on Schedulers.timer(), what differs is the gc.alloc.rate.norm per retried call. The
+ * failures share a single exception so the stack traces don't hide what the operators allocate.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class RetryWithBackoffBenchmark {
+
+    private static final RuntimeException FAILURE = new RuntimeException("Failing call");
+
+    @Param({"5"})
+    int failures;
+
+    @Param({"1"})
+    long backoffMillis;
+
+    private RetryPolicy policy;
+
+    @Setup
+    public void setup() {
+        policy = RetryPolicy.exponential(failures, Duration.ofMillis(backoffMillis), Duration.ofSeconds(1));
+    }
+
+    @Benchmark
+    public void retryWhen(Blackhole bh) {
+        Flux<Integer> call = flakyCall()
+                .retryWhen(exceptionStream -> exceptionStream
+                        .zipWith(Flux.range(0, failures + 1), (exc, attempt) -> {
+                            if (attempt < failures) {
+                                return Mono.delay(Duration.ofMillis(backoffMillis << attempt));
+                            }
+                            return Mono.<Long>error(exc);
+                        })
+                        .flatMap(val -> val));
+
+        BlackholeSubscriber.subscribe(call, bh).await();
+    }
+
+    @Benchmark
+    public void retryWithBackoff(Blackhole bh) {
+        Flux<Integer> call = flakyCall()
+                .transform(RetryWithBackoff.retryWithBackoff(policy));
+
+        BlackholeSubscriber.subscribe(call, bh).await();
+    }
+
+    private Flux<Integer> flakyCall() {
+        AtomicInteger attempts = new AtomicInteger();
+        return Flux.defer(() -> attempts.incrementAndGet() <= failures
+                ? Flux.error(FAILURE)
+                : Flux.just(attempts.get()));
+    }
+}
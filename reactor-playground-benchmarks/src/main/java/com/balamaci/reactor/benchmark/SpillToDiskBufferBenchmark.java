@@ -0,0 +1,108 @@
+package com.balamaci.reactor.benchmark;
+
+import com.balamaci.reactor.overflow.OnBackpressureOverflow;
+import com.balamaci.reactor.overflow.OverflowBuffer;
+import com.balamaci.reactor.overflow.OverflowMetrics;
+import com.balamaci.reactor.overflow.SpillCodec;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import reactor.core.publisher.Flux;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * onBackpressureBuffer() compared with the spill-to-disk OverflowBuffer when the producer is 10 times faster than
+ * the subscriber: 'producerCost' CPU tokens per event on the producer thread, 10x that on the consumer thread.
+ *
+ * The whole backlog of onBackpressureBuffer stays on the heap (see gc.alloc.rate.norm), the spill buffer keeps
+ * at most 'heapHead' events there. The 'spilledEvents' rate shows how much of the delivered events/s (ops/s x
+ * 100000) went through the 1MB segment files.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class SpillToDiskBufferBenchmark {
+
+    private static final int COUNT = 100_000;
+    private static final int SEGMENT_BYTES = 1 << 20;
+
+    @Param({"10"})
+    long producerCost;
+
+    @Param({"1024"})
+    int heapHead;
+
+    private Scheduler producer;
+    private Scheduler consumer;
+
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    @State(Scope.Thread)
+    public static class Spill {
+
+        public long spilledEvents;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            spilledEvents = 0;
+        }
+    }
+
+    @Setup
+    public void setup() {
+        producer = Schedulers.newSingle("producer");
+        consumer = Schedulers.newSingle("consumer");
+    }
+
+    @TearDown
+    public void tearDown() {
+        producer.shutdown();
+        consumer.shutdown();
+    }
+
+    @Benchmark
+    public void onBackpressureBuffer(Blackhole bh) {
+        run(source().onBackpressureBuffer(), bh);
+    }
+
+    @Benchmark
+    public void spillToDisk(Spill spill, Blackhole bh) {
+        OverflowMetrics metrics = new OverflowMetrics("spillToDisk");
+        run(source().transform(OnBackpressureOverflow.onBackpressure(() -> OverflowBuffer.spillToDisk(heapHead,
+                SEGMENT_BYTES, Integer.MAX_VALUE, SpillCodec.longs(), null), metrics)), bh);
+
+        spill.spilledEvents += metrics.spilled();
+    }
+
+    private Flux<Long> source() {
+        return Flux.range(0, COUNT)
+                .map(i -> {
+                    Blackhole.consumeCPU(producerCost);
+                    return (long) i;
+                })
+                .subscribeOn(producer);
+    }
+
+    private void run(Flux<Long> flux, Blackhole bh) {
+        Flux<Long> slowConsumer = flux.publishOn(consumer, 32)
+                .doOnNext(val -> Blackhole.consumeCPU(producerCost * 10));
+        BlackholeSubscriber.subscribe(slowConsumer, bh).await();
+    }
+}
@@ -0,0 +1,75 @@
+package com.balamaci.reactor.benchmark;
+
+import com.balamaci.reactor.resilience.SweepingTimeout;
+import com.balamaci.reactor.resilience.TimeoutSweeper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import reactor.core.publisher.Flux;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * What a timeout between events costs per event: a stream of ELEMENTS integers with no timeout, with
+ * Flux.timeout(Duration) - Part08ErrorHandling.timeoutWithRetry - and with the SweepingTimeout. The score is the
+ * time per element; a stream of 10M elements/s leaves a budget of 100ns for each.
+ *
+ * The sweeper runs every 10ms on its own thread, like the shared one, so its sweeps are part of the numbers.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class SweepingTimeoutBenchmark {
+
+    private static final int ELEMENTS = 1_000_000;
+    private static final Duration TIMEOUT = Duration.ofSeconds(1);
+
+    private TimeoutSweeper sweeper;
+
+    @Setup
+    public void setup() {
+        sweeper = TimeoutSweeper.create(Duration.ofMillis(10), Schedulers.newTimer("sweeper", true));
+    }
+
+    @TearDown
+    public void tearDown() {
+        sweeper.shutdown();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ELEMENTS)
+    public void noTimeout(Blackhole bh) {
+        run(Flux.range(0, ELEMENTS), bh);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ELEMENTS)
+    public void timeout(Blackhole bh) {
+        run(Flux.range(0, ELEMENTS).timeout(TIMEOUT), bh);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ELEMENTS)
+    public void sweepingTimeout(Blackhole bh) {
+        run(Flux.range(0, ELEMENTS).transform(SweepingTimeout.sweepingTimeout(TIMEOUT, sweeper)), bh);
+    }
+
+    private void run(Flux<Integer> flux, Blackhole bh) {
+        BlackholeSubscriber.subscribe(flux, bh).await();
+    }
+}
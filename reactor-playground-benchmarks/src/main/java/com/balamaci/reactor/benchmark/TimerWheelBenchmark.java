@@ -0,0 +1,83 @@
+package com.balamaci.reactor.benchmark;
+
+import com.balamaci.reactor.scheduler.HashedWheelTimedScheduler;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import reactor.core.Cancellation;
+import reactor.core.scheduler.Schedulers;
+import reactor.core.scheduler.TimedScheduler;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-request timeouts at scale: 'timeouts' timeouts pending at the same time, then all but one in
+ * 'keepOneIn' cancelled - the requests that answered in time - and the rest left to fire.
+ *
+ * Schedulers.newTimer() - what Schedulers.timer() is by default - against the HashedWheelTimedScheduler. One
+ * operation is the whole batch, the time includes the 'delayMillis' the surviving timeouts wait, the same for
+ * both.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Thread)
+public class TimerWheelBenchmark {
+
+    @Param({"singleTimed", "hashedWheel"})
+    String scheduler;
+
+    @Param({"1000000"})
+    int timeouts;
+
+    @Param({"100"})
+    int keepOneIn;
+
+    @Param({"100"})
+    long delayMillis;
+
+    private TimedScheduler timer;
+
+    @Setup
+    public void setup() {
+        timer = "hashedWheel".equals(scheduler) ? HashedWheelTimedScheduler.create("wheel")
+                : Schedulers.newTimer("timer");
+    }
+
+    @TearDown
+    public void tearDown() {
+        timer.shutdown();
+    }
+
+    @Benchmark
+    public void scheduleAndCancel() throws InterruptedException {
+        CountDownLatch fired = new CountDownLatch((timeouts + keepOneIn - 1) / keepOneIn);
+        Runnable onTimeout = fired::countDown;
+
+        Cancellation[] pending = new Cancellation[timeouts];
+        for (int i = 0; i < timeouts; i++) {
+            pending[i] = timer.schedule(onTimeout, delayMillis, TimeUnit.MILLISECONDS);
+        }
+        for (int i = 0; i < timeouts; i++) {
+            if (i % keepOneIn != 0) {
+                pending[i].dispose();
+            }
+        }
+
+        if (!fired.await(30, TimeUnit.SECONDS)) {
+            throw new IllegalStateException("The timeouts didn't fire, still waiting for " + fired.getCount());
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package com.balamaci.reactor.benchmark;
+
+import com.balamaci.reactor.scheduler.VirtualThreadScheduler;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 'calls' simulated remote calls - blocking for 'latencyMillis' each - all in flight at once through
+ * flatMap(call.subscribeOn(scheduler), calls), the shape of Part07Schedulers.flatMapConcurrency scaled up.
+ *
+ * The time of one batch is bounded by calls / threads * latency: the fixed pool queues what doesn't fit in its
+ * threads, elastic grows a pooled thread for every blocked call, the VirtualThreadScheduler starts a thread per
+ * call and the capped one lets only 'maxConcurrency' of them run the call at a time.
+ *
+ * On a runtime without virtual threads (before Java 21) the VirtualThreadScheduler falls back to a platform thread
+ * per call - run it on Java 21 or later, otherwise the virtual results measure the fallback.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class VirtualThreadSchedulerBenchmark {
+
+    @Param({"10000"})
+    int calls;
+
+    @Param({"1"})
+    long latencyMillis;
+
+    @Param({"64"})
+    int fixedPoolSize;
+
+    @Param({"1000"})
+    int maxConcurrency;
+
+    private ExecutorService fixedPool;
+    private Scheduler fixed;
+    private Scheduler elastic;
+    private VirtualThreadScheduler virtual;
+    private VirtualThreadScheduler virtualCapped;
+
+    @Setup
+    public void setup() {
+        fixedPool = Executors.newFixedThreadPool(fixedPoolSize);
+        fixed = Schedulers.fromExecutorService(fixedPool);
+        elastic = Schedulers.newElastic("elastic");
+        virtual = VirtualThreadScheduler.create("virtual");
+        virtualCapped = VirtualThreadScheduler.create("virtual-capped", maxConcurrency);
+    }
+
+    @TearDown
+    public void tearDown() {
+        fixed.shutdown();
+        fixedPool.shutdownNow();
+        elastic.shutdown();
+        virtual.shutdown();
+        virtualCapped.shutdown();
+    }
+
+    @Benchmark
+    public void fixedThreadPool(Blackhole bh) {
+        run(fixed, bh);
+    }
+
+    @Benchmark
+    public void elastic(Blackhole bh) {
+        run(elastic, bh);
+    }
+
+    @Benchmark
+    public void virtualThreads(Blackhole bh) {
+        run(virtual, bh);
+    }
+
+    @Benchmark
+    public void virtualThreadsCapped(Blackhole bh) {
+        run(virtualCapped, bh);
+    }
+
+    private void run(Scheduler scheduler, Blackhole bh) {
+        Flux<Integer> flux = Flux.range(0, calls)
+                .flatMap(val -> simulateRemoteCall(val).subscribeOn(scheduler), calls);
+        BlackholeSubscriber.subscribe(flux, bh).await();
+    }
+
+    private Mono<Integer> simulateRemoteCall(int val) {
+        return Mono.fromCallable(() -> {
+            Thread.sleep(latencyMillis);
+            return val;
+        });
+    }
+}
@@ -0,0 +1,97 @@
+package com.balamaci.reactor.benchmark;
+
+import com.balamaci.reactor.scheduler.WorkStealingScheduler;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Schedulers.newParallel() compared with the WorkStealingScheduler on skewed flatMap substreams, like
+ * simulateRemoteOperation with colors of different length: every substream waits 'charMicros' per letter of its
+ * color, and every 'parallelism'-th color is the long one.
+ *
+ * newParallel hands out its Workers round-robin, so all the long colors land on the same thread and the batch
+ * takes as long as that one thread needs. The work-stealing threads share the load whatever the order. Waiting
+ * rather than burning CPU keeps the comparison meaningful on machines with fewer cores than 'parallelism'.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class WorkStealingSchedulerBenchmark {
+
+    private static final String LONG_COLOR = "lightgoldenrodyellow";
+    private static final String[] SHORT_COLORS = {"red", "tan", "blue", "sky", "pink"};
+
+    @Param({"4"})
+    int parallelism;
+
+    @Param({"64"})
+    int substreams;
+
+    @Param({"50"})
+    long charMicros;
+
+    private Scheduler parallel;
+    private WorkStealingScheduler workStealing;
+
+    @Setup
+    public void setup() {
+        parallel = Schedulers.newParallel("parallel", parallelism);
+        workStealing = WorkStealingScheduler.create("stealing", parallelism);
+    }
+
+    @TearDown
+    public void tearDown() {
+        parallel.shutdown();
+        workStealing.shutdown();
+    }
+
+    @Benchmark
+    public void newParallel(Blackhole bh) {
+        run(parallel, bh);
+    }
+
+    @Benchmark
+    public void workStealing(Blackhole bh) {
+        run(workStealing, bh);
+    }
+
+    private void run(Scheduler scheduler, Blackhole bh) {
+        Flux<String> flux = Flux.range(0, substreams)
+                .map(this::color)
+                .flatMap(color -> simulateRemoteOperation(color).subscribeOn(scheduler), substreams);
+
+        BlackholeSubscriber.subscribe(flux, bh).await();
+    }
+
+    private String color(int index) {
+        return index % parallelism == 0 ? LONG_COLOR : SHORT_COLORS[index % SHORT_COLORS.length];
+    }
+
+    private Mono<String> simulateRemoteOperation(String color) {
+        return Mono.fromCallable(() -> {
+            LockSupport.parkNanos(TimeUnit.MICROSECONDS.toNanos(charMicros * color.length()));
+            return color;
+        });
+    }
+}
@@ -0,0 +1,39 @@
+package com.balamaci.reactor.aggregate;
+
+import java.util.function.ToLongFunction;
+
+/**
+ * The average of {@link WindowAggregate}: a sum and a count, merged by adding both
+ */
+final class AverageWindowAggregate<T> implements WindowAggregate<T, LongWindowAggregate.Cell, Double> {
+
+    private final ToLongFunction<? super T> valueSelector;
+
+    AverageWindowAggregate(ToLongFunction<? super T> valueSelector) {
+        this.valueSelector = valueSelector;
+    }
+
+    @Override
+    public LongWindowAggregate.Cell createAccumulator() {
+        return new LongWindowAggregate.Cell();
+    }
+
+    @Override
+    public LongWindowAggregate.Cell add(LongWindowAggregate.Cell cell, T value) {
+        cell.value += valueSelector.applyAsLong(value);
+        cell.count++;
+        return cell;
+    }
+
+    @Override
+    public LongWindowAggregate.Cell merge(LongWindowAggregate.Cell cell, LongWindowAggregate.Cell other) {
+        cell.value += other.value;
+        cell.count += other.count;
+        return cell;
+    }
+
+    @Override
+    public Double result(LongWindowAggregate.Cell cell) {
+        return (double) cell.value / cell.count;
+    }
+}
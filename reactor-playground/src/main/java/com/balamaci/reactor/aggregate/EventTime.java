@@ -0,0 +1,87 @@
+package com.balamaci.reactor.aggregate;
+
+import java.time.Duration;
+import java.util.function.Consumer;
+import java.util.function.ToLongFunction;
+
+/**
+ * How the event time windows of {@link PanedWindows} read the time from the events. Immutable, every setting
+ * returns a copy:
+ *
+ * <pre>
+ * EventTime&lt;Reading&gt; eventTime = EventTime.timestamps((Reading reading) -&gt; reading.timestampMillis)
+ *         .boundedOutOfOrderness(Duration.ofSeconds(2))
+ *         .allowedLateness(Duration.ofSeconds(5))
+ *         .lateEvents(reading -&gt; log.warn("Too late for its windows {}", reading));
+ * </pre>
+ *
+ *   - boundedOutOfOrderness - how far behind the highest timestamp seen an event may still come. The watermark is
+ *     the highest timestamp minus this, a window closes - emits its result - when the watermark passes its end
+ *   - allowedLateness - how long after closing a window keeps its panes. An event coming for it in the meantime is
+ *     added and the window is emitted again, with the event
+ *   - lateEvents - gets the events coming after all their windows were dropped, instead of ignoring them
+ */
+public final class EventTime<T> {
+
+    private final ToLongFunction<? super T> timestampMillis;
+    private final long outOfOrdernessMillis;
+    private final long latenessMillis;
+    private final Consumer<? super T> lateEvents;
+
+    /**
+     * In order events, no lateness, late events ignored
+     *
+     * @param timestampMillis the timestamp of an event, in milliseconds
+     */
+    public static <T> EventTime<T> timestamps(ToLongFunction<? super T> timestampMillis) {
+        return new EventTime<>(timestampMillis, 0, 0, null);
+    }
+
+    private EventTime(ToLongFunction<? super T> timestampMillis, long outOfOrdernessMillis, long latenessMillis,
+                      Consumer<? super T> lateEvents) {
+        this.timestampMillis = timestampMillis;
+        this.outOfOrdernessMillis = outOfOrdernessMillis;
+        this.latenessMillis = latenessMillis;
+        this.lateEvents = lateEvents;
+    }
+
+    public EventTime<T> boundedOutOfOrderness(Duration outOfOrderness) {
+        if (outOfOrderness.isNegative()) {
+            throw new IllegalArgumentException("outOfOrderness >= 0 required but it was " + outOfOrderness);
+        }
+        return new EventTime<>(timestampMillis, outOfOrderness.toMillis(), latenessMillis, lateEvents);
+    }
+
+    public EventTime<T> allowedLateness(Duration lateness) {
+        if (lateness.isNegative()) {
+            throw new IllegalArgumentException("lateness >= 0 required but it was " + lateness);
+        }
+        return new EventTime<>(timestampMillis, outOfOrdernessMillis, lateness.toMillis(), lateEvents);
+    }
+
+    /**
+     * @param lateEvents called on the thread of the source, an exception fails the stream
+     */
+    public EventTime<T> lateEvents(Consumer<? super T> lateEvents) {
+        return new EventTime<>(timestampMillis, outOfOrdernessMillis, latenessMillis, lateEvents);
+    }
+
+    ToLongFunction<? super T> timestampMillis() {
+        return timestampMillis;
+    }
+
+    long outOfOrdernessMillis() {
+        return outOfOrdernessMillis;
+    }
+
+    long latenessMillis() {
+        return latenessMillis;
+    }
+
+    /**
+     * @return null when the late events are ignored
+     */
+    Consumer<? super T> lateEvents() {
+        return lateEvents;
+    }
+}
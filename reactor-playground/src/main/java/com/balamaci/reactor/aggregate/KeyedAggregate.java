@@ -0,0 +1,418 @@
+package com.balamaci.reactor.aggregate;
+
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+import reactor.core.Cancellation;
+import reactor.core.Exceptions;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Operators;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+import reactor.core.scheduler.TimedScheduler;
+import reactor.util.function.Tuple2;
+import reactor.util.function.Tuples;
+
+import java.time.Duration;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+import java.util.function.Function;
+import java.util.function.LongBinaryOperator;
+import java.util.function.ToLongFunction;
+
+/**
+ * Aggregates a long per key - a count, a sum, a min, a max or any other combination - and emits a (key, value)
+ * tuple per key when the source completes:
+ *
+ * <pre>
+ * colors.transform(KeyedAggregate.countByKey(color -&gt; color))
+ * </pre>
+ *
+ * does what groupBy(...).flatMap(group -&gt; group.count().map(...)) does, without a GroupedFlux, a Mono, a flatMap
+ * inner and a queue per key: the values are longs in a {@link LongValueMap}, an element is a lookup and a
+ * combine that allocate nothing. Only the results are boxed into tuples, as they're requested.
+ *
+ * With a flush interval the aggregates are emitted - and started again from scratch - every interval, each batch
+ * covers the elements since the previous one. The flush is serialized with the elements through a 'wip' taken by a
+ * CAS per element, without it the elements go straight into the map.
+ */
+public final class KeyedAggregate<T, K> extends Flux<Tuple2<K, Long>> {
+
+    private final Publisher<? extends T> source;
+    private final Function<? super T, ? extends K> keySelector;
+    private final ToLongFunction<? super T> valueSelector;
+    private final long identity;
+    private final LongBinaryOperator combiner;
+    private final long flushNanos;
+    private final TimedScheduler timer;
+
+    public static <T, K> Function<Flux<T>, Flux<Tuple2<K, Long>>> countByKey(
+            Function<? super T, ? extends K> keySelector) {
+        return aggregateByKey(keySelector, t -> 1, 0, Long::sum);
+    }
+
+    /**
+     * @param flushInterval the counts since the previous flush are emitted every interval
+     */
+    public static <T, K> Function<Flux<T>, Flux<Tuple2<K, Long>>> countByKey(
+            Function<? super T, ? extends K> keySelector, Duration flushInterval) {
+        return aggregateByKey(keySelector, t -> 1, 0, Long::sum, flushInterval);
+    }
+
+    public static <T, K> Function<Flux<T>, Flux<Tuple2<K, Long>>> sumByKey(
+            Function<? super T, ? extends K> keySelector, ToLongFunction<? super T> valueSelector) {
+        return aggregateByKey(keySelector, valueSelector, 0, Long::sum);
+    }
+
+    public static <T, K> Function<Flux<T>, Flux<Tuple2<K, Long>>> minByKey(
+            Function<? super T, ? extends K> keySelector, ToLongFunction<? super T> valueSelector) {
+        return aggregateByKey(keySelector, valueSelector, Long.MAX_VALUE, Math::min);
+    }
+
+    public static <T, K> Function<Flux<T>, Flux<Tuple2<K, Long>>> maxByKey(
+            Function<? super T, ? extends K> keySelector, ToLongFunction<? super T> valueSelector) {
+        return aggregateByKey(keySelector, valueSelector, Long.MIN_VALUE, Math::max);
+    }
+
+    /**
+     * @param identity the value a key starts from, the combiner gets it with the key's first value
+     * @param combiner (aggregate so far, value of the element) -&gt; new aggregate
+     */
+    public static <T, K> Function<Flux<T>, Flux<Tuple2<K, Long>>> aggregateByKey(
+            Function<? super T, ? extends K> keySelector, ToLongFunction<? super T> valueSelector, long identity,
+            LongBinaryOperator combiner) {
+        return flux -> new KeyedAggregate<>(flux, keySelector, valueSelector, identity, combiner, 0, null);
+    }
+
+    /**
+     * @param flushInterval the aggregates since the previous flush are emitted every interval, on
+     *                      Schedulers.timer()
+     */
+    public static <T, K> Function<Flux<T>, Flux<Tuple2<K, Long>>> aggregateByKey(
+            Function<? super T, ? extends K> keySelector, ToLongFunction<? super T> valueSelector, long identity,
+            LongBinaryOperator combiner, Duration flushInterval) {
+        long flushNanos = flushInterval.toNanos();
+        if (flushNanos <= 0) {
+            throw new IllegalArgumentException("flushInterval > 0 required but it was " + flushInterval);
+        }
+        return flux -> new KeyedAggregate<>(flux, keySelector, valueSelector, identity, combiner, flushNanos,
+                Schedulers.timer());
+    }
+
+    /**
+     * @param flushNanos 0 to emit only on completion
+     */
+    public KeyedAggregate(Publisher<? extends T> source, Function<? super T, ? extends K> keySelector,
+                          ToLongFunction<? super T> valueSelector, long identity, LongBinaryOperator combiner,
+                          long flushNanos, TimedScheduler timer) {
+        this.source = source;
+        this.keySelector = keySelector;
+        this.valueSelector = valueSelector;
+        this.identity = identity;
+        this.combiner = combiner;
+        this.flushNanos = flushNanos;
+        this.timer = timer;
+    }
+
+    @Override
+    public void subscribe(Subscriber<? super Tuple2<K, Long>> subscriber) {
+        source.subscribe(new KeyedAggregateSubscriber<>(subscriber, keySelector, valueSelector, identity, combiner,
+                flushNanos, timer));
+    }
+
+    /**
+     * Is its own flush task. The map being filled is touched only by whoever holds the 'wip' - always the source
+     * thread without flushes - the full ones wait in 'ready' for the downstream demand.
+     */
+    static final class KeyedAggregateSubscriber<T, K> implements Subscriber<T>, Subscription, Runnable {
+
+        private final Subscriber<? super Tuple2<K, Long>> actual;
+        private final Function<? super T, ? extends K> keySelector;
+        private final ToLongFunction<? super T> valueSelector;
+        private final long identity;
+        private final LongBinaryOperator combiner;
+        private final long flushNanos;
+        private final TimedScheduler timer;
+
+        private Subscription s;
+        private Cancellation flushes;
+
+        /** touched only while holding the wip */
+        private LongValueMap<K> map = new LongValueMap<>(16);
+        private boolean terminated;
+
+        private final Queue<T> missedElements = new ConcurrentLinkedQueue<>();
+        private volatile boolean flushDue;
+        private volatile boolean sourceDone;
+
+        private volatile int wip;
+        @SuppressWarnings("rawtypes")
+        private static final AtomicIntegerFieldUpdater<KeyedAggregateSubscriber> WIP =
+                AtomicIntegerFieldUpdater.newUpdater(KeyedAggregateSubscriber.class, "wip");
+
+        /** the full maps, emitted as requested */
+        private final Queue<LongValueMap<K>> ready = new ConcurrentLinkedQueue<>();
+        private volatile boolean readyDone;
+        private volatile Throwable error;
+        private volatile boolean cancelled;
+
+        /** touched only in the emit loop */
+        private LongValueMap<K> emitting;
+        private int cursor;
+
+        private volatile long requested;
+        @SuppressWarnings("rawtypes")
+        private static final AtomicLongFieldUpdater<KeyedAggregateSubscriber> REQUESTED =
+                AtomicLongFieldUpdater.newUpdater(KeyedAggregateSubscriber.class, "requested");
+
+        private volatile int emitWip;
+        @SuppressWarnings("rawtypes")
+        private static final AtomicIntegerFieldUpdater<KeyedAggregateSubscriber> EMIT_WIP =
+                AtomicIntegerFieldUpdater.newUpdater(KeyedAggregateSubscriber.class, "emitWip");
+
+        KeyedAggregateSubscriber(Subscriber<? super Tuple2<K, Long>> actual,
+                                 Function<? super T, ? extends K> keySelector,
+                                 ToLongFunction<? super T> valueSelector, long identity,
+                                 LongBinaryOperator combiner, long flushNanos, TimedScheduler timer) {
+            this.actual = actual;
+            this.keySelector = keySelector;
+            this.valueSelector = valueSelector;
+            this.identity = identity;
+            this.combiner = combiner;
+            this.flushNanos = flushNanos;
+            this.timer = timer;
+        }
+
+        @Override
+        public void onSubscribe(Subscription subscription) {
+            if (Operators.validate(s, subscription)) {
+                s = subscription;
+                actual.onSubscribe(this);
+                if (timer != null) {
+                    Cancellation task = timer.schedulePeriodically(this, flushNanos, flushNanos,
+                            TimeUnit.NANOSECONDS);
+                    if (task == Scheduler.REJECTED) {
+                        s.cancel();
+                        onError(new IllegalStateException("The timer rejected the flushes"));
+                        return;
+                    }
+                    flushes = task;
+                }
+                s.request(Long.MAX_VALUE);
+            }
+        }
+
+        @Override
+        public void onNext(T t) {
+            if (timer == null) {
+                accumulate(t);
+                return;
+            }
+            if (wip == 0 && WIP.compareAndSet(this, 0, 1)) {
+                accumulate(t);
+                if (WIP.decrementAndGet(this) == 0) {
+                    return;
+                }
+            } else {
+                missedElements.offer(t);
+                if (WIP.getAndIncrement(this) != 0) {
+                    return;
+                }
+            }
+            drainSerialized();
+        }
+
+        @Override
+        public void onError(Throwable t) {
+            if (sourceDone) {
+                Operators.onErrorDropped(t);
+                return;
+            }
+            error = t;
+            sourceDone = true;
+            enter();
+        }
+
+        @Override
+        public void onComplete() {
+            if (sourceDone) {
+                return;
+            }
+            sourceDone = true;
+            enter();
+        }
+
+        /**
+         * The flush, from the timer
+         */
+        @Override
+        public void run() {
+            flushDue = true;
+            enter();
+        }
+
+        @Override
+        public void request(long n) {
+            if (Operators.validate(n)) {
+                Operators.getAndAddCap(REQUESTED, this, n);
+                drainEmit();
+            }
+        }
+
+        @Override
+        public void cancel() {
+            if (!cancelled) {
+                cancelled = true;
+                s.cancel();
+                disposeFlushes();
+                drainEmit();
+            }
+        }
+
+        private void accumulate(T t) {
+            if (terminated) {
+                Operators.onNextDropped(t);
+                return;
+            }
+            try {
+                K key = keySelector.apply(t);
+                if (key == null) {
+                    throw new NullPointerException("The keySelector returned a null key");
+                }
+                map.combine(key, valueSelector.applyAsLong(t), identity, combiner);
+            } catch (Throwable e) {
+                Exceptions.throwIfFatal(e);
+                s.cancel();
+                error = e;
+                sourceDone = true;
+                terminate();
+            }
+        }
+
+        private void enter() {
+            if (WIP.getAndIncrement(this) == 0) {
+                drainSerialized();
+            }
+        }
+
+        private void drainSerialized() {
+            int missed = 1;
+            for (;;) {
+                if (!terminated) {
+                    T t;
+                    while ((t = missedElements.poll()) != null) {
+                        accumulate(t);
+                    }
+                    if (flushDue && !terminated) {
+                        flushDue = false;
+                        flush();
+                    }
+                    if (sourceDone && !terminated) {
+                        terminate();
+                    }
+                } else {
+                    missedElements.clear();
+                }
+
+                missed = WIP.addAndGet(this, -missed);
+                if (missed == 0) {
+                    return;
+                }
+            }
+        }
+
+        private void flush() {
+            LongValueMap<K> full = map;
+            if (full.size() == 0) {
+                return;
+            }
+            map = new LongValueMap<>(full.size()); // the next period likely sees as many keys
+            ready.offer(full);
+            drainEmit();
+        }
+
+        private void terminate() {
+            terminated = true;
+            disposeFlushes();
+            if (error == null && map.size() != 0) {
+                ready.offer(map);
+            }
+            map = null;
+            readyDone = true;
+            drainEmit();
+        }
+
+        private void disposeFlushes() {
+            Cancellation c = flushes;
+            if (c != null) {
+                c.dispose();
+            }
+        }
+
+        private void drainEmit() {
+            if (EMIT_WIP.getAndIncrement(this) != 0) {
+                return;
+            }
+            int missed = 1;
+            for (;;) {
+                long r = requested;
+                long e = 0;
+                for (;;) {
+                    if (cancelled) {
+                        ready.clear();
+                        emitting = null;
+                        return;
+                    }
+                    Throwable ex = error;
+                    if (ex != null && readyDone) {
+                        ready.clear();
+                        emitting = null;
+                        actual.onError(ex);
+                        return;
+                    }
+                    LongValueMap<K> m = emitting;
+                    if (m == null) {
+                        boolean d = readyDone;
+                        m = ready.poll();
+                        if (m == null) {
+                            if (d) {
+                                actual.onComplete();
+                                return;
+                            }
+                            break;
+                        }
+                        emitting = m;
+                        cursor = 0;
+                    }
+                    int capacity = m.capacity();
+                    int i = cursor;
+                    while (i < capacity && m.keyAt(i) == null) {
+                        i++;
+                    }
+                    cursor = i;
+                    if (i == capacity) {
+                        emitting = null;
+                        continue;
+                    }
+                    if (e == r) {
+                        break;
+                    }
+                    actual.onNext(Tuples.of(m.keyAt(i), m.valueAt(i)));
+                    cursor = i + 1;
+                    e++;
+                }
+                if (e != 0 && r != Long.MAX_VALUE) {
+                    REQUESTED.addAndGet(this, -e);
+                }
+
+                missed = EMIT_WIP.addAndGet(this, -missed);
+                if (missed == 0) {
+                    return;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package com.balamaci.reactor.aggregate;
+
+import com.balamaci.reactor.util.Hashing;
+
+import java.util.function.LongBinaryOperator;
+
+/**
+ * A hash map from keys to primitive longs: linear probing over a keys array and a long[] of values, at most half
+ * full. An entry is a reference and a long - no node, no boxed Long - and updating a value allocates nothing.
+ *
+ * Not thread safe, the operators using it touch it from one thread at a time.
+ */
+final class LongValueMap<K> {
+
+    private Object[] keys;
+    private long[] values;
+    private int mask;
+    private int size;
+
+    LongValueMap(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(4, expectedSize * 2 - 1)) << 1;
+        keys = new Object[capacity];
+        values = new long[capacity];
+        mask = capacity - 1;
+    }
+
+    /**
+     * values[key] = combiner(values[key], value), with 'identity' as the value of a new key
+     */
+    void combine(K key, long value, long identity, LongBinaryOperator combiner) {
+        int i = Hashing.spread(key.hashCode()) & mask;
+        Object k;
+        while ((k = keys[i]) != null) {
+            if (k.equals(key)) {
+                values[i] = combiner.applyAsLong(values[i], value);
+                return;
+            }
+            i = (i + 1) & mask;
+        }
+        keys[i] = key;
+        values[i] = combiner.applyAsLong(identity, value);
+        if (++size > mask >> 1) {
+            resize();
+        }
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * The slots to iterate over with keyAt and valueAt
+     */
+    int capacity() {
+        return keys.length;
+    }
+
+    /**
+     * @return null for an empty slot
+     */
+    @SuppressWarnings("unchecked")
+    K keyAt(int slot) {
+        return (K) keys[slot];
+    }
+
+    long valueAt(int slot) {
+        return values[slot];
+    }
+
+    private void resize() {
+        Object[] oldKeys = keys;
+        long[] oldValues = values;
+        keys = new Object[oldKeys.length << 1];
+        values = new long[oldKeys.length << 1];
+        mask = keys.length - 1;
+        for (int j = 0; j < oldKeys.length; j++) {
+            Object k = oldKeys[j];
+            if (k != null) {
+                int i = Hashing.spread(k.hashCode()) & mask;
+                while (keys[i] != null) {
+                    i = (i + 1) & mask;
+                }
+                keys[i] = k;
+                values[i] = oldValues[j];
+            }
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package com.balamaci.reactor.aggregate;
+
+import java.util.function.LongBinaryOperator;
+import java.util.function.ToLongFunction;
+
+/**
+ * The count, sum, min and max of {@link WindowAggregate}: a long combined like in {@link KeyedAggregate}, kept in
+ * a mutable cell.
+ */
+final class LongWindowAggregate<T> implements WindowAggregate<T, LongWindowAggregate.Cell, Long> {
+
+    static final class Cell {
+        long value;
+        long count;
+    }
+
+    private final ToLongFunction<? super T> valueSelector;
+    private final long identity;
+    private final LongBinaryOperator combiner;
+
+    LongWindowAggregate(ToLongFunction<? super T> valueSelector, long identity, LongBinaryOperator combiner) {
+        this.valueSelector = valueSelector;
+        this.identity = identity;
+        this.combiner = combiner;
+    }
+
+    @Override
+    public Cell createAccumulator() {
+        Cell cell = new Cell();
+        cell.value = identity;
+        return cell;
+    }
+
+    @Override
+    public Cell add(Cell cell, T value) {
+        cell.value = combiner.applyAsLong(cell.value, valueSelector.applyAsLong(value));
+        return cell;
+    }
+
+    @Override
+    public Cell merge(Cell cell, Cell other) {
+        cell.value = combiner.applyAsLong(cell.value, other.value);
+        return cell;
+    }
+
+    @Override
+    public Long result(Cell cell) {
+        return cell.value;
+    }
+}
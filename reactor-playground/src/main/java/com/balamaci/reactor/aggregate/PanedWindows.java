@@ -0,0 +1,472 @@
+package com.balamaci.reactor.aggregate;
+
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+import reactor.core.Cancellation;
+import reactor.core.Exceptions;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Operators;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+import reactor.core.scheduler.TimedScheduler;
+
+import java.time.Duration;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.ToLongFunction;
+
+/**
+ * Tumbling and sliding windows that emit a {@link WindowAggregate} result per window instead of a Flux per window:
+ *
+ * <pre>
+ * numbers.transform(PanedWindows.sliding(Duration.ofSeconds(9), Duration.ofSeconds(3), WindowAggregate.sum(n -&gt; n)))
+ * </pre>
+ *
+ * window(timespan, timeshift) opens a Flux per window and hands an element to every window it falls in - three
+ * with a 9s span and a 3s shift. Here an element is added to the accumulator of its pane, see {@link Panes}, and
+ * a window is the merge of its panes when it closes.
+ *
+ * A window closes when the watermark passes its end:
+ *
+ *   - processing time - the elements are stamped with the timer's clock, and the watermark is that clock, ticking
+ *     on the window ends so the windows close even when no element comes
+ *   - event time - the timestamps come from the elements, the watermark is the highest timestamp seen minus the
+ *     out of orderness allowed by the {@link EventTime}. A closed window is kept for the allowed lateness, an element
+ *     coming for it meanwhile is added and the window emitted again, the elements coming after that go to the
+ *     late events consumer
+ *
+ * The windows still open when the source completes are closed with what they have, an error is passed on right
+ * away dropping them. An exception from the aggregate cancels the source and is passed on the same way.
+ */
+public final class PanedWindows<T, A, R> extends Flux<WindowResult<R>> {
+
+    private final Publisher<? extends T> source;
+    private final long spanMillis;
+    private final long shiftMillis;
+    private final WindowAggregate<? super T, A, R> aggregate;
+    private final EventTime<T> eventTime;
+    private final TimedScheduler timer;
+
+    public static <T, A, R> Function<Flux<T>, Flux<WindowResult<R>>> tumbling(
+            Duration span, WindowAggregate<? super T, A, R> aggregate) {
+        return sliding(span, span, aggregate);
+    }
+
+    /**
+     * Processing time windows on Schedulers.timer()
+     */
+    public static <T, A, R> Function<Flux<T>, Flux<WindowResult<R>>> sliding(
+            Duration span, Duration shift, WindowAggregate<? super T, A, R> aggregate) {
+        return sliding(span, shift, aggregate, Schedulers.timer());
+    }
+
+    public static <T, A, R> Function<Flux<T>, Flux<WindowResult<R>>> sliding(
+            Duration span, Duration shift, WindowAggregate<? super T, A, R> aggregate, TimedScheduler timer) {
+        long spanMillis = validateSpan(span);
+        long shiftMillis = validateShift(spanMillis, shift);
+        return flux -> new PanedWindows<>(flux, spanMillis, shiftMillis, aggregate, null, timer);
+    }
+
+    /**
+     * Event time windows of in order elements
+     *
+     * @param timestampMillis the timestamp of an element, in milliseconds
+     */
+    public static <T, A, R> Function<Flux<T>, Flux<WindowResult<R>>> sliding(
+            Duration span, Duration shift, ToLongFunction<? super T> timestampMillis,
+            WindowAggregate<? super T, A, R> aggregate) {
+        return sliding(span, shift, EventTime.timestamps(timestampMillis), aggregate);
+    }
+
+    public static <T, A, R> Function<Flux<T>, Flux<WindowResult<R>>> tumbling(
+            Duration span, EventTime<T> eventTime, WindowAggregate<? super T, A, R> aggregate) {
+        return sliding(span, span, eventTime, aggregate);
+    }
+
+    /**
+     * Event time windows
+     */
+    public static <T, A, R> Function<Flux<T>, Flux<WindowResult<R>>> sliding(
+            Duration span, Duration shift, EventTime<T> eventTime, WindowAggregate<? super T, A, R> aggregate) {
+        long spanMillis = validateSpan(span);
+        long shiftMillis = validateShift(spanMillis, shift);
+        return flux -> new PanedWindows<>(flux, spanMillis, shiftMillis, aggregate, eventTime, null);
+    }
+
+    private static long validateSpan(Duration span) {
+        long spanMillis = span.toMillis();
+        if (spanMillis <= 0) {
+            throw new IllegalArgumentException("span >= 1ms required but it was " + span);
+        }
+        return spanMillis;
+    }
+
+    private static long validateShift(long spanMillis, Duration shift) {
+        long shiftMillis = shift.toMillis();
+        if (shiftMillis <= 0) {
+            throw new IllegalArgumentException("shift >= 1ms required but it was " + shift);
+        }
+        long panesPerWindow = spanMillis / Panes.paneMillis(spanMillis, shiftMillis);
+        if (panesPerWindow > 1 << 20) { // the ring of the panes starts at one window, see Panes
+            throw new IllegalArgumentException("span / gcd(span, shift) <= 2^20 required but it was "
+                    + panesPerWindow);
+        }
+        return shiftMillis;
+    }
+
+    /**
+     * @param eventTime null for processing time windows, on 'timer'
+     */
+    public PanedWindows(Publisher<? extends T> source, long spanMillis, long shiftMillis,
+                        WindowAggregate<? super T, A, R> aggregate, EventTime<T> eventTime, TimedScheduler timer) {
+        this.source = source;
+        this.spanMillis = spanMillis;
+        this.shiftMillis = shiftMillis;
+        this.aggregate = aggregate;
+        this.eventTime = eventTime;
+        this.timer = timer;
+    }
+
+    @Override
+    public void subscribe(Subscriber<? super WindowResult<R>> subscriber) {
+        long latenessMillis = eventTime == null ? 0 : eventTime.latenessMillis();
+        source.subscribe(new PanedWindowsSubscriber<>(subscriber,
+                new Panes<>(spanMillis, shiftMillis, latenessMillis, aggregate), shiftMillis, eventTime, timer));
+    }
+
+    /**
+     * Is its own tick task. With processing time the panes are touched by whoever holds the 'wip', the elements
+     * and the ticks taking turns like in {@link KeyedAggregate}. With event time there's no tick, the source
+     * thread is the only one touching them.
+     */
+    static final class PanedWindowsSubscriber<T, A, R> implements Subscriber<T>, Subscription, Runnable {
+
+        private final Subscriber<? super WindowResult<R>> actual;
+        private final Panes<T, A, R> panes;
+        private final long shiftMillis;
+        private final ToLongFunction<? super T> timestampMillis;
+        private final long outOfOrdernessMillis;
+        private final Consumer<? super T> lateEvents;
+        private final TimedScheduler timer;
+
+        private Subscription s;
+        private Cancellation ticks;
+
+        /** touched only while holding the wip, or by the source thread with event time */
+        private long watermark = Long.MIN_VALUE;
+        private boolean terminated;
+
+        /** the processing time elements missed while someone else held the wip, stamped when they get it */
+        private final Queue<T> missedElements = new ConcurrentLinkedQueue<>();
+        private volatile boolean tickDue;
+        private volatile boolean sourceDone;
+
+        private volatile int wip;
+        @SuppressWarnings("rawtypes")
+        private static final AtomicIntegerFieldUpdater<PanedWindowsSubscriber> WIP =
+                AtomicIntegerFieldUpdater.newUpdater(PanedWindowsSubscriber.class, "wip");
+
+        /** the results of the closed windows, emitted as requested */
+        private final Queue<WindowResult<R>> closed = new ConcurrentLinkedQueue<>();
+        private volatile boolean closedDone;
+        private volatile Throwable error;
+        private volatile boolean cancelled;
+
+        private volatile long requested;
+        @SuppressWarnings("rawtypes")
+        private static final AtomicLongFieldUpdater<PanedWindowsSubscriber> REQUESTED =
+                AtomicLongFieldUpdater.newUpdater(PanedWindowsSubscriber.class, "requested");
+
+        private volatile int emitWip;
+        @SuppressWarnings("rawtypes")
+        private static final AtomicIntegerFieldUpdater<PanedWindowsSubscriber> EMIT_WIP =
+                AtomicIntegerFieldUpdater.newUpdater(PanedWindowsSubscriber.class, "emitWip");
+
+        PanedWindowsSubscriber(Subscriber<? super WindowResult<R>> actual, Panes<T, A, R> panes, long shiftMillis,
+                               EventTime<T> eventTime, TimedScheduler timer) {
+            this.actual = actual;
+            this.panes = panes;
+            this.shiftMillis = shiftMillis;
+            this.timestampMillis = eventTime == null ? null : eventTime.timestampMillis();
+            this.outOfOrdernessMillis = eventTime == null ? 0 : eventTime.outOfOrdernessMillis();
+            this.lateEvents = eventTime == null ? null : eventTime.lateEvents();
+            this.timer = timer;
+        }
+
+        @Override
+        public void onSubscribe(Subscription subscription) {
+            if (Operators.validate(s, subscription)) {
+                s = subscription;
+                actual.onSubscribe(this);
+                if (timer != null) {
+                    long now = timer.now(TimeUnit.MILLISECONDS);
+                    long untilWindowEnd = shiftMillis - Math.floorMod(now, shiftMillis);
+                    Cancellation task = timer.schedulePeriodically(this, untilWindowEnd, shiftMillis,
+                            TimeUnit.MILLISECONDS);
+                    if (task == Scheduler.REJECTED) {
+                        s.cancel();
+                        onError(new IllegalStateException("The timer rejected the window ticks"));
+                        return;
+                    }
+                    ticks = task;
+                }
+                s.request(Long.MAX_VALUE);
+            }
+        }
+
+        @Override
+        public void onNext(T t) {
+            if (timer == null) {
+                if (terminated) {
+                    Operators.onNextDropped(t);
+                    return;
+                }
+                long timestamp;
+                try {
+                    timestamp = timestampMillis.applyAsLong(t);
+                } catch (Throwable e) {
+                    fail(e);
+                    return;
+                }
+                long candidate = timestamp - outOfOrdernessMillis;
+                if (candidate > watermark) {
+                    watermark = candidate;
+                    advance(candidate);
+                    if (terminated) { // closing the windows failed, the error is on its way downstream
+                        return;
+                    }
+                }
+                if (add(timestamp, t) == Panes.LATE && lateEvents != null) {
+                    try {
+                        lateEvents.accept(t);
+                    } catch (Throwable e) {
+                        fail(e);
+                    }
+                }
+                return;
+            }
+            if (wip == 0 && WIP.compareAndSet(this, 0, 1)) {
+                add(now(), t);
+                if (WIP.decrementAndGet(this) == 0) {
+                    return;
+                }
+            } else {
+                missedElements.offer(t);
+                if (WIP.getAndIncrement(this) != 0) {
+                    return;
+                }
+            }
+            drainSerialized();
+        }
+
+        @Override
+        public void onError(Throwable t) {
+            if (sourceDone) {
+                Operators.onErrorDropped(t);
+                return;
+            }
+            error = t;
+            sourceDone = true;
+            enter();
+        }
+
+        @Override
+        public void onComplete() {
+            if (sourceDone) {
+                return;
+            }
+            sourceDone = true;
+            enter();
+        }
+
+        /**
+         * The tick of the processing time watermark, from the timer
+         */
+        @Override
+        public void run() {
+            tickDue = true;
+            enter();
+        }
+
+        @Override
+        public void request(long n) {
+            if (Operators.validate(n)) {
+                Operators.getAndAddCap(REQUESTED, this, n);
+                drainEmit();
+            }
+        }
+
+        @Override
+        public void cancel() {
+            if (!cancelled) {
+                cancelled = true;
+                s.cancel();
+                disposeTicks();
+                drainEmit();
+            }
+        }
+
+        /**
+         * @return Panes.LATE for an element too late for its windows
+         */
+        private int add(long timestamp, T t) {
+            if (terminated) {
+                Operators.onNextDropped(t);
+                return 0;
+            }
+            int results;
+            try {
+                results = panes.add(timestamp, t, closed);
+            } catch (Throwable e) {
+                fail(e);
+                return 0;
+            }
+            if (results > 0) {
+                drainEmit();
+            }
+            return results;
+        }
+
+        private void advance(long watermark) {
+            int results;
+            try {
+                results = panes.advance(watermark, closed);
+            } catch (Throwable e) {
+                fail(e);
+                return;
+            }
+            if (results != 0) {
+                drainEmit();
+            }
+        }
+
+        /**
+         * A callback failed - the timestamps, the late events or the aggregate - or the panes don't fit in their ring
+         * anymore, an event far from the open windows
+         */
+        private void fail(Throwable e) {
+            Exceptions.throwIfFatal(e);
+            s.cancel();
+            error = e;
+            sourceDone = true;
+            terminate();
+        }
+
+        /**
+         * The processing time clock, read while holding the wip and never behind the last tick: an element stamped
+         * before a tick closed its window - and with no lateness purged it - would be too late for any window
+         */
+        private long now() {
+            long now = timer.now(TimeUnit.MILLISECONDS);
+            if (now > watermark) {
+                watermark = now;
+            }
+            return watermark;
+        }
+
+        private void enter() {
+            if (WIP.getAndIncrement(this) == 0) {
+                drainSerialized();
+            }
+        }
+
+        private void drainSerialized() {
+            int missed = 1;
+            for (;;) {
+                if (!terminated) {
+                    T t;
+                    while (!terminated && (t = missedElements.poll()) != null) {
+                        add(now(), t);
+                    }
+                    if (!terminated && tickDue) {
+                        tickDue = false;
+                        advance(now());
+                    }
+                    if (!terminated && sourceDone) {
+                        terminate();
+                    }
+                }
+                if (terminated) {
+                    missedElements.clear();
+                }
+
+                missed = WIP.addAndGet(this, -missed);
+                if (missed == 0) {
+                    return;
+                }
+            }
+        }
+
+        private void terminate() {
+            terminated = true;
+            disposeTicks();
+            if (error == null) {
+                try {
+                    panes.advance(Long.MAX_VALUE, closed);
+                } catch (Throwable e) { // the source is done already, nothing to cancel
+                    Exceptions.throwIfFatal(e);
+                    error = e;
+                }
+            }
+            closedDone = true;
+            drainEmit();
+        }
+
+        private void disposeTicks() {
+            Cancellation c = ticks;
+            if (c != null) {
+                c.dispose();
+            }
+        }
+
+        private void drainEmit() {
+            if (EMIT_WIP.getAndIncrement(this) != 0) {
+                return;
+            }
+            int missed = 1;
+            for (;;) {
+                long r = requested;
+                long e = 0;
+                for (;;) {
+                    if (cancelled) {
+                        closed.clear();
+                        return;
+                    }
+                    Throwable ex = error;
+                    if (ex != null && closedDone) {
+                        closed.clear();
+                        actual.onError(ex);
+                        return;
+                    }
+                    if (closedDone && closed.isEmpty()) {
+                        actual.onComplete();
+                        return;
+                    }
+                    if (e == r) {
+                        break;
+                    }
+                    WindowResult<R> result = closed.poll();
+                    if (result == null) {
+                        break;
+                    }
+                    actual.onNext(result);
+                    e++;
+                }
+                if (e != 0 && r != Long.MAX_VALUE) {
+                    REQUESTED.addAndGet(this, -e);
+                }
+
+                missed = EMIT_WIP.addAndGet(this, -missed);
+                if (missed == 0) {
+                    return;
+                }
+            }
+        }
+    }
+}
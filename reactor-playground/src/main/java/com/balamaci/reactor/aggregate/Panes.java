@@ -0,0 +1,197 @@
+package com.balamaci.reactor.aggregate;
+
+import java.util.Queue;
+
+/**
+ * The accumulators of the sliding windows of a {@link PanedWindows}, one per pane. The panes are gcd(span, shift)
+ * long, so a window is always made of whole panes - span / pane of them - and an element is added to a single
+ * accumulator however many windows it belongs to. With a 9s span and a 3s shift the element goes into one 3s pane
+ * instead of three windows, and a window closing merges its three panes.
+ *
+ * Pane p is the timestamps [p * pane, (p + 1) * pane). The windows end on the multiples of 'panesPerShift', the one
+ * ending at pane e covers the panes [e - panesPerWindow, e) and closes when the watermark reaches e * pane - when no
+ * element with an earlier timestamp is expected anymore. It's purged 'lateness' after that, until then an element
+ * for it is still added and the window closed again. The panes are in a ring indexed by p &amp; mask, covering
+ * [low, high), a pane is dropped once the last window holding it was purged.
+ *
+ * Not thread safe, the operator touches it from one thread at a time.
+ */
+final class Panes<T, A, R> {
+
+    /** returned by add for an element all the windows of which were purged */
+    static final int LATE = -1;
+
+    private final WindowAggregate<? super T, A, R> aggregate;
+    private final long paneMillis;
+    private final long panesPerWindow;
+    private final long panesPerShift;
+    private final long latenessMillis;
+
+    /** a null slot is a pane without elements */
+    private Object[] accumulators;
+    private int mask;
+    private long low;
+    private long high;
+
+    /** where the last closed window ended, in panes */
+    private long closedEnd = Long.MIN_VALUE;
+    /** where the last purged window ended, in panes */
+    private long purgedEnd = Long.MIN_VALUE;
+
+    Panes(long spanMillis, long shiftMillis, long latenessMillis, WindowAggregate<? super T, A, R> aggregate) {
+        this.aggregate = aggregate;
+        this.paneMillis = paneMillis(spanMillis, shiftMillis);
+        this.panesPerWindow = spanMillis / paneMillis;
+        this.panesPerShift = shiftMillis / paneMillis;
+        this.latenessMillis = latenessMillis;
+        // one window - with panesPerShift a long shift would allocate the gap between two windows too, which never
+        // holds a pane. ensureCapacity grows it when more panes are open
+        int capacity = Integer.highestOneBit(Math.max(4, (int) panesPerWindow) - 1) << 1;
+        this.accumulators = new Object[capacity];
+        this.mask = capacity - 1;
+    }
+
+    static long paneMillis(long spanMillis, long shiftMillis) {
+        long a = spanMillis;
+        long b = shiftMillis;
+        while (b != 0) {
+            long t = a % b;
+            a = b;
+            b = t;
+        }
+        return a;
+    }
+
+    /**
+     * @return LATE when all the windows of the timestamp were purged, otherwise the results of the closed windows
+     * offered again to 'closed' with the element. With a shift longer than the span an element falling between two
+     * windows is ignored
+     */
+    @SuppressWarnings("unchecked")
+    int add(long timestamp, T value, Queue<? super WindowResult<R>> closed) {
+        long p = Math.floorDiv(timestamp, paneMillis);
+        long earliestEnd = earliestEnd(p);
+        long latestEnd = latestEnd(p);
+        if (latestEnd <= purgedEnd) {
+            return LATE;
+        }
+        if (latestEnd < earliestEnd) {
+            return 0;
+        }
+        if (low == high) {
+            low = p;
+            high = p + 1;
+        } else if (p < low) {
+            ensureCapacity(high - p);
+            low = p;
+        } else if (p >= high) {
+            ensureCapacity(p + 1 - low);
+            high = p + 1;
+        }
+        int slot = (int) p & mask;
+        A accumulator = (A) accumulators[slot];
+        if (accumulator == null) {
+            accumulator = aggregate.createAccumulator();
+        }
+        accumulators[slot] = aggregate.add(accumulator, value);
+
+        int results = 0;
+        if (earliestEnd <= closedEnd) {
+            long end = purgedEnd == Long.MIN_VALUE ? earliestEnd : Math.max(earliestEnd, purgedEnd + panesPerShift);
+            for (long last = Math.min(latestEnd, closedEnd); end <= last; end += panesPerShift) {
+                if (offerWindow(end, closed)) {
+                    results++;
+                }
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Closes the windows ending at or before the watermark, merging their panes into a result for each that had
+     * an element, and purges the ones closed 'lateness' before it
+     *
+     * @return the results offered to 'closed'
+     */
+    int advance(long watermark, Queue<? super WindowResult<R>> closed) {
+        long lastEnd = lastEndBefore(watermark);
+        if (lastEnd <= closedEnd) {
+            return 0;
+        }
+        int results = 0;
+        if (low < high) {
+            long end = earliestEnd(low);
+            if (closedEnd != Long.MIN_VALUE) {
+                end = Math.max(end, closedEnd + panesPerShift);
+            }
+            for (; end <= lastEnd && end - panesPerWindow < high; end += panesPerShift) {
+                if (offerWindow(end, closed)) {
+                    results++;
+                }
+            }
+        }
+        closedEnd = lastEnd;
+        purgedEnd = watermark == Long.MAX_VALUE ? lastEnd : lastEndBefore(watermark - latenessMillis);
+        while (low < high && latestEnd(low) <= purgedEnd) {
+            accumulators[(int) low & mask] = null;
+            low++;
+        }
+        return results;
+    }
+
+    @SuppressWarnings("unchecked")
+    private boolean offerWindow(long end, Queue<? super WindowResult<R>> closed) {
+        A window = null;
+        for (long p = Math.max(low, end - panesPerWindow), to = Math.min(high, end); p < to; p++) {
+            A pane = (A) accumulators[(int) p & mask];
+            if (pane != null) {
+                window = aggregate.merge(window == null ? aggregate.createAccumulator() : window, pane);
+            }
+        }
+        if (window == null) {
+            return false;
+        }
+        closed.offer(new WindowResult<>((end - panesPerWindow) * paneMillis, end * paneMillis,
+                aggregate.result(window)));
+        return true;
+    }
+
+    /**
+     * The end of the last window ending at or before the timestamp, in panes
+     */
+    private long lastEndBefore(long timestamp) {
+        return Math.floorDiv(Math.floorDiv(timestamp, paneMillis), panesPerShift) * panesPerShift;
+    }
+
+    /**
+     * The end of the first window holding pane p
+     */
+    private long earliestEnd(long p) {
+        return (Math.floorDiv(p, panesPerShift) + 1) * panesPerShift;
+    }
+
+    /**
+     * The end of the last window holding pane p
+     */
+    private long latestEnd(long p) {
+        return Math.floorDiv(p + panesPerWindow, panesPerShift) * panesPerShift;
+    }
+
+    private void ensureCapacity(long panes) {
+        if (panes <= accumulators.length) {
+            return;
+        }
+        if (panes > 1 << 30) {
+            throw new IllegalStateException("The panes between the oldest open window and the newest element don't "
+                    + "fit in an array: " + panes);
+        }
+        int capacity = Integer.highestOneBit((int) panes - 1) << 1;
+        Object[] grown = new Object[capacity];
+        int grownMask = capacity - 1;
+        for (long p = low; p < high; p++) {
+            grown[(int) p & grownMask] = accumulators[(int) p & mask];
+        }
+        accumulators = grown;
+        mask = grownMask;
+    }
+}
@@ -0,0 +1,49 @@
+package com.balamaci.reactor.aggregate;
+
+import java.util.function.ToLongFunction;
+
+/**
+ * What a window computes, incrementally: the elements are added to an accumulator as they come, nothing keeps the
+ * elements themselves. {@link PanedWindows} keeps an accumulator per pane - a slice of time shared by the
+ * overlapping windows - and merges the panes of a window when it closes.
+ *
+ * add and merge may change their first argument and return it, a mutable accumulator allocates nothing per element.
+ * merge never changes its second argument, a pane is merged into every window it belongs to.
+ *
+ * @param <T> the elements
+ * @param <A> the accumulator
+ * @param <R> the result of a window
+ */
+public interface WindowAggregate<T, A, R> {
+
+    A createAccumulator();
+
+    A add(A accumulator, T value);
+
+    A merge(A accumulator, A other);
+
+    /**
+     * Called only for windows with at least an element
+     */
+    R result(A accumulator);
+
+    static <T> WindowAggregate<T, ?, Long> count() {
+        return new LongWindowAggregate<>(t -> 1, 0, Long::sum);
+    }
+
+    static <T> WindowAggregate<T, ?, Long> sum(ToLongFunction<? super T> valueSelector) {
+        return new LongWindowAggregate<>(valueSelector, 0, Long::sum);
+    }
+
+    static <T> WindowAggregate<T, ?, Long> min(ToLongFunction<? super T> valueSelector) {
+        return new LongWindowAggregate<>(valueSelector, Long.MAX_VALUE, Math::min);
+    }
+
+    static <T> WindowAggregate<T, ?, Long> max(ToLongFunction<? super T> valueSelector) {
+        return new LongWindowAggregate<>(valueSelector, Long.MIN_VALUE, Math::max);
+    }
+
+    static <T> WindowAggregate<T, ?, Double> average(ToLongFunction<? super T> valueSelector) {
+        return new AverageWindowAggregate<>(valueSelector);
+    }
+}
@@ -0,0 +1,34 @@
+package com.balamaci.reactor.aggregate;
+
+/**
+ * The result of a window covering the timestamps in [start, end), in milliseconds
+ */
+public final class WindowResult<R> {
+
+    private final long start;
+    private final long end;
+    private final R value;
+
+    public WindowResult(long start, long end, R value) {
+        this.start = start;
+        this.end = end;
+        this.value = value;
+    }
+
+    public long start() {
+        return start;
+    }
+
+    public long end() {
+        return end;
+    }
+
+    public R value() {
+        return value;
+    }
+
+    @Override
+    public String toString() {
+        return "[" + start + ", " + end + ")=" + value;
+    }
+}
@@ -0,0 +1,34 @@
+package com.balamaci.reactor.metrics;
+
+/**
+ * Folds the hashCode of every event in an order sensitive checksum, the same way List.hashCode() does.
+ *
+ * Two runs of a pipeline produced the same events in the same order if they have the same count and checksum,
+ * which is how we check an optimized operator against the original one without collecting the events.
+ */
+public final class ChecksumSubscriber<T> extends MeasuringSubscriber<T> {
+
+    private long checksum = 1;
+
+    public ChecksumSubscriber() {
+        this(Long.MAX_VALUE);
+    }
+
+    public ChecksumSubscriber(long batchSize) {
+        super(batchSize);
+    }
+
+    @Override
+    protected void record(T t) {
+        checksum = 31 * checksum + t.hashCode();
+    }
+
+    public long checksum() {
+        return checksum;
+    }
+
+    @Override
+    public String toString() {
+        return super.toString() + "[checksum=" + checksum + "]";
+    }
+}
@@ -0,0 +1,19 @@
+package com.balamaci.reactor.metrics;
+
+/**
+ * Just counts the events, the cheapest way to drive a pipeline to completion
+ */
+public final class CountingSubscriber<T> extends MeasuringSubscriber<T> {
+
+    public CountingSubscriber() {
+        this(Long.MAX_VALUE);
+    }
+
+    public CountingSubscriber(long batchSize) {
+        super(batchSize);
+    }
+
+    @Override
+    protected void record(T t) {
+    }
+}
@@ -0,0 +1,276 @@
+package com.balamaci.reactor.metrics;
+
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+import reactor.core.Exceptions;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Operators;
+import reactor.core.scheduler.Scheduler;
+import reactor.util.concurrent.QueueSupplier;
+
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Function;
+
+/**
+ * publishOn(scheduler, prefetch) that exports what happens in its queue into a {@link PublishOnMetrics}:
+ *
+ * <pre>
+ * PublishOnMetrics metrics = new PublishOnMetrics("elast");
+ * flux.transform(InstrumentedPublishOn.publishOn(Schedulers.newElastic("elast"), 5, metrics))
+ * </pre>
+ *
+ * Works like the original: requests 'prefetch' upfront, then replenishes with request(limit) every 'limit'
+ * delivered events where limit is 75% of the prefetch, and delivers the error only after the queued events.
+ * It's not fuseable - fusion would bypass the queue we want to observe.
+ *
+ * The queue is a single producer single consumer ring, with a parallel long[] holding the enqueue timestamp of
+ * the sampled events. That's the only extra cost besides the wait free histogram recording.
+ */
+public final class InstrumentedPublishOn<T> extends Flux<T> {
+
+    private final Publisher<? extends T> source;
+    private final Scheduler scheduler;
+    private final int prefetch;
+    private final PublishOnMetrics metrics;
+
+    public static <T> Function<Flux<T>, Flux<T>> publishOn(Scheduler scheduler, int prefetch,
+                                                           PublishOnMetrics metrics) {
+        return flux -> new InstrumentedPublishOn<>(flux, scheduler, prefetch, metrics);
+    }
+
+    public InstrumentedPublishOn(Publisher<? extends T> source, Scheduler scheduler, int prefetch,
+                                 PublishOnMetrics metrics) {
+        if (prefetch <= 0) {
+            throw new IllegalArgumentException("prefetch > 0 required but it was " + prefetch);
+        }
+        this.source = source;
+        this.scheduler = scheduler;
+        this.prefetch = prefetch;
+        this.metrics = metrics;
+    }
+
+    @Override
+    public void subscribe(Subscriber<? super T> subscriber) {
+        source.subscribe(new PublishOnSubscriber<>(subscriber, scheduler.createWorker(), prefetch, metrics));
+    }
+
+    static final class PublishOnSubscriber<T> implements Subscriber<T>, Subscription, Runnable {
+
+        private final Subscriber<? super T> actual;
+        private final Scheduler.Worker worker;
+        private final PublishOnMetrics metrics;
+        private final int prefetch;
+        private final int limit;
+
+        private final AtomicReferenceArray<T> queue;
+        private final long[] enqueuedAt;
+        private final int mask;
+
+        /** written only by the upstream thread, read by the consumer to sample the queue depth */
+        private volatile long producerIndex;
+        @SuppressWarnings("rawtypes")
+        private static final AtomicLongFieldUpdater<PublishOnSubscriber> PRODUCER_INDEX =
+                AtomicLongFieldUpdater.newUpdater(PublishOnSubscriber.class, "producerIndex");
+
+        /** touched only by the consumer thread */
+        private long consumerIndex;
+
+        private Subscription s;
+
+        private volatile boolean cancelled;
+        private volatile boolean done;
+        private Throwable error;
+
+        /** events delivered since the last replenishment, touched only by the consumer thread */
+        private long consumed;
+
+        private volatile long requested;
+        @SuppressWarnings("rawtypes")
+        private static final AtomicLongFieldUpdater<PublishOnSubscriber> REQUESTED =
+                AtomicLongFieldUpdater.newUpdater(PublishOnSubscriber.class, "requested");
+
+        private volatile int wip;
+        @SuppressWarnings("rawtypes")
+        private static final AtomicIntegerFieldUpdater<PublishOnSubscriber> WIP =
+                AtomicIntegerFieldUpdater.newUpdater(PublishOnSubscriber.class, "wip");
+
+        PublishOnSubscriber(Subscriber<? super T> actual, Scheduler.Worker worker, int prefetch,
+                            PublishOnMetrics metrics) {
+            this.actual = actual;
+            this.worker = worker;
+            this.metrics = metrics;
+            this.prefetch = prefetch;
+            this.limit = prefetch - (prefetch >> 2);
+
+            int capacity = QueueSupplier.ceilingNextPowerOfTwo(prefetch);
+            this.queue = new AtomicReferenceArray<>(capacity);
+            this.enqueuedAt = new long[capacity];
+            this.mask = capacity - 1;
+        }
+
+        @Override
+        public void onSubscribe(Subscription s) {
+            if (Operators.validate(this.s, s)) {
+                this.s = s;
+                actual.onSubscribe(this);
+                s.request(prefetch);
+            }
+        }
+
+        @Override
+        public void onNext(T t) {
+            if (done) {
+                Operators.onNextDropped(t);
+                return;
+            }
+            long index = producerIndex;
+            int offset = (int) index & mask;
+            if (queue.get(offset) != null) { // more than requested
+                s.cancel();
+                onError(Exceptions.failWithOverflow());
+                return;
+            }
+            if (metrics.isSampled(index)) {
+                enqueuedAt[offset] = System.nanoTime();
+            }
+            // ordered stores are enough, the consumer finds the event by reading its slot
+            queue.lazySet(offset, t);
+            PRODUCER_INDEX.lazySet(this, index + 1);
+            trySchedule();
+        }
+
+        @Override
+        public void onError(Throwable t) {
+            if (done) {
+                Operators.onErrorDropped(t);
+                return;
+            }
+            error = t;
+            done = true;
+            trySchedule();
+        }
+
+        @Override
+        public void onComplete() {
+            if (done) {
+                return;
+            }
+            done = true;
+            trySchedule();
+        }
+
+        @Override
+        public void request(long n) {
+            if (Operators.validate(n)) {
+                Operators.getAndAddCap(REQUESTED, this, n);
+                trySchedule();
+            }
+        }
+
+        @Override
+        public void cancel() {
+            if (cancelled) {
+                return;
+            }
+            cancelled = true;
+            s.cancel();
+            worker.shutdown();
+            if (WIP.getAndIncrement(this) == 0) {
+                clear();
+            }
+        }
+
+        private void trySchedule() {
+            if (WIP.getAndIncrement(this) == 0) {
+                worker.schedule(this);
+            }
+        }
+
+        @Override
+        public void run() {
+            long index = consumerIndex;
+
+            int missed = 1;
+            for (; ; ) {
+                metrics.recordQueueDepth(producerIndex - index);
+
+                long r = requested;
+                long emitted = 0;
+
+                while (emitted != r) {
+                    boolean d = done;
+                    int offset = (int) index & mask;
+                    T t = queue.get(offset);
+                    boolean empty = t == null;
+                    if (checkTerminated(d, empty, emitted)) {
+                        return;
+                    }
+                    if (empty) {
+                        break;
+                    }
+
+                    if (metrics.isSampled(index)) {
+                        metrics.recordTimeInQueue(System.nanoTime() - enqueuedAt[offset]);
+                    }
+                    queue.lazySet(offset, null);
+                    consumerIndex = ++index;
+
+                    actual.onNext(t);
+                    emitted++;
+
+                    if (++consumed == limit) {
+                        consumed = 0;
+                        metrics.recordReplenish(limit);
+                        s.request(limit);
+                    }
+                }
+
+                if (emitted == r && checkTerminated(done, queue.get((int) index & mask) == null, emitted)) {
+                    return;
+                }
+
+                if (emitted != 0) {
+                    metrics.recordDrainBatch(emitted);
+                    if (r != Long.MAX_VALUE) {
+                        REQUESTED.addAndGet(this, -emitted);
+                    }
+                }
+
+                missed = WIP.addAndGet(this, -missed);
+                if (missed == 0) {
+                    break;
+                }
+            }
+        }
+
+        private boolean checkTerminated(boolean d, boolean empty, long emitted) {
+            if (cancelled) {
+                clear();
+                return true;
+            }
+            if (d && empty) {
+                if (emitted != 0) {
+                    metrics.recordDrainBatch(emitted);
+                }
+                Throwable e = error;
+                if (e != null) {
+                    actual.onError(e);
+                } else {
+                    actual.onComplete();
+                }
+                worker.shutdown();
+                return true;
+            }
+            return false;
+        }
+
+        private void clear() {
+            for (int i = 0; i < queue.length(); i++) {
+                queue.lazySet(i, null);
+            }
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package com.balamaci.reactor.metrics;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+import reactor.core.publisher.Flux;
+import reactor.util.concurrent.QueueSupplier;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Function;
+
+/**
+ * Measures how long the events take to travel from the point they were stamped to each of the recording points
+ * further down the pipeline:
+ *
+ * <pre>
+ * LatencyProbe probe = LatencyProbe.create();
+ *
+ * periodicEmitter(...)
+ *      .transform(probe.stamp())
+ *      .subscribeOn(Schedulers.elastic())
+ *      .transform(probe.record("subscribeOn"))
+ *      .publishOn(Schedulers.parallel())
+ *      .transform(probe.record("publishOn"))
+ *      ...
+ * probe.snapshots() // p50/p99/p99.9/max for every stage
+ * </pre>
+ *
+ * The event itself is not wrapped, the stamp is a single long written in a ring at the index of the event's
+ * sequence number. Each recording point counts the events passing through it, so the n-th event it sees is the
+ * n-th event that got stamped and it finds the stamp at the same index. This means that between the stamp and the
+ * recording points there can only be operators that keep the order and emit one event for each received event
+ * (map, subscribeOn, publishOn, delay, ...), a filter in between would attribute the stamps to the wrong events.
+ *
+ * Nothing is allocated or locked per event - the ring write, a counter and an HdrHistogram {@link Recorder} which
+ * is wait free on the recording side. An event which is more than 'capacity' events behind the stamping point when
+ * it's recorded had its stamp overwritten in the meantime, it's counted as an overrun instead of being recorded.
+ *
+ * A probe measures a single subscription, the stamping is done by just one thread at a time.
+ */
+public final class LatencyProbe {
+
+    private final AtomicLongArray stamps;
+    private final int mask;
+
+    /** number of events stamped so far, written only by the stamping thread */
+    private volatile long stamped;
+
+    private final List<Stage> stages = new CopyOnWriteArrayList<>();
+
+    public static LatencyProbe create() {
+        return create(4096);
+    }
+
+    /**
+     * @param capacity max number of events between the stamp and the last recording point
+     */
+    public static LatencyProbe create(int capacity) {
+        return new LatencyProbe(capacity);
+    }
+
+    private LatencyProbe(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity > 0 required but it was " + capacity);
+        }
+        int size = QueueSupplier.ceilingNextPowerOfTwo(capacity);
+        this.stamps = new AtomicLongArray(size);
+        this.mask = size - 1;
+    }
+
+    /**
+     * To be applied with Flux.transform() where the events enter the measured part of the pipeline
+     */
+    public <T> Function<Flux<T>, Flux<T>> stamp() {
+        // hide() keeps the downstream operators from fusing with the stamping and pulling the events later
+        return flux -> flux.doOnNext(event -> onStamp()).hide();
+    }
+
+    /**
+     * To be applied with Flux.transform() at every point to measure the latency to
+     */
+    public <T> Function<Flux<T>, Flux<T>> record(String stage) {
+        Stage s = new Stage(stage);
+        stages.add(s);
+        return flux -> flux.doOnNext(event -> s.onRecord()).hide();
+    }
+
+    public List<LatencySnapshot> snapshots() {
+        List<LatencySnapshot> snapshots = new ArrayList<>(stages.size());
+        for (Stage stage : stages) {
+            snapshots.add(stage.snapshot());
+        }
+        return snapshots;
+    }
+
+    private void onStamp() {
+        long index = stamped;
+        stamps.lazySet((int) index & mask, System.nanoTime());
+        stamped = index + 1;
+    }
+
+    final class Stage {
+
+        private final String name;
+        private final Recorder recorder = new Recorder(3);
+
+        /** events seen by this stage, written only by the thread delivering them */
+        private long recorded;
+        private volatile long overruns;
+
+        /** all the intervals taken so far from the recorder, touched only when taking snapshots */
+        private final Histogram accumulated = new Histogram(3);
+        private Histogram interval;
+
+        Stage(String name) {
+            this.name = name;
+        }
+
+        void onRecord() {
+            long index = recorded++;
+            long stamp = stamps.get((int) index & mask);
+            // the stamp is valid only if the stamping thread hasn't started to overwrite it after we read it
+            if (stamped - index < stamps.length()) {
+                recorder.recordValue(Math.max(0, System.nanoTime() - stamp));
+            } else {
+                overruns++;
+            }
+        }
+
+        synchronized LatencySnapshot snapshot() {
+            interval = recorder.getIntervalHistogram(interval);
+            accumulated.add(interval);
+            return new LatencySnapshot(name, accumulated, overruns);
+        }
+    }
+}
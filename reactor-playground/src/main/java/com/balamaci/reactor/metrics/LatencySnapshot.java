@@ -0,0 +1,64 @@
+package com.balamaci.reactor.metrics;
+
+import org.HdrHistogram.Histogram;
+
+/**
+ * Latency percentiles of a pipeline stage at the moment the snapshot was taken, all values in nanos
+ */
+public final class LatencySnapshot {
+
+    private final String stage;
+    private final long count;
+    private final long p50;
+    private final long p99;
+    private final long p999;
+    private final long max;
+    private final long overruns;
+
+    LatencySnapshot(String stage, Histogram histogram, long overruns) {
+        this.stage = stage;
+        this.count = histogram.getTotalCount();
+        this.p50 = histogram.getValueAtPercentile(50);
+        this.p99 = histogram.getValueAtPercentile(99);
+        this.p999 = histogram.getValueAtPercentile(99.9);
+        this.max = histogram.getMaxValue();
+        this.overruns = overruns;
+    }
+
+    public String stage() {
+        return stage;
+    }
+
+    public long count() {
+        return count;
+    }
+
+    public long p50() {
+        return p50;
+    }
+
+    public long p99() {
+        return p99;
+    }
+
+    public long p999() {
+        return p999;
+    }
+
+    public long max() {
+        return max;
+    }
+
+    /**
+     * @return events which could not be recorded because their timestamp was already overwritten
+     */
+    public long overruns() {
+        return overruns;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s[count=%d, p50=%.1fus, p99=%.1fus, p99.9=%.1fus, max=%.1fus%s]", stage, count,
+                p50 / 1000d, p99 / 1000d, p999 / 1000d, max / 1000d, overruns > 0 ? ", overruns=" + overruns : "");
+    }
+}
@@ -0,0 +1,137 @@
+package com.balamaci.reactor.metrics;
+
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+import reactor.core.publisher.Operators;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Base for the subscribers that measure a pipeline instead of logging every event.
+ *
+ * Requests either everything upfront (Long.MAX_VALUE) or in batches of the given size, replenishing once a batch
+ * was consumed - the way a bounded consumer like publishOn(.., prefetch) would. Per event it only updates
+ * primitive fields, so what gets measured is the pipeline and not the subscriber.
+ *
+ * The fields are written only by the thread delivering the events, they are safe to read once
+ * {@link #await(long, TimeUnit)} returned true.
+ */
+public abstract class MeasuringSubscriber<T> implements Subscriber<T> {
+
+    private final long batchSize;
+    private final CountDownLatch terminated = new CountDownLatch(1);
+
+    private Subscription subscription;
+    private long remaining;
+
+    private long count;
+    private long startNanos;
+    private long endNanos;
+    private Throwable error;
+
+    protected MeasuringSubscriber(long batchSize) {
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("batchSize > 0 required but it was " + batchSize);
+        }
+        this.batchSize = batchSize;
+    }
+
+    @Override
+    public final void onSubscribe(Subscription s) {
+        if (Operators.validate(subscription, s)) {
+            subscription = s;
+            remaining = batchSize;
+            startNanos = System.nanoTime();
+            s.request(batchSize);
+        }
+    }
+
+    @Override
+    public final void onNext(T t) {
+        count++;
+        record(t);
+
+        if (batchSize != Long.MAX_VALUE && --remaining == 0) {
+            remaining = batchSize;
+            subscription.request(batchSize);
+        }
+    }
+
+    @Override
+    public final void onError(Throwable t) {
+        endNanos = System.nanoTime();
+        error = t;
+        terminated.countDown();
+    }
+
+    @Override
+    public final void onComplete() {
+        endNanos = System.nanoTime();
+        terminated.countDown();
+    }
+
+    /**
+     * Invoked for every event, implementations must not allocate or block
+     */
+    protected abstract void record(T t);
+
+    public void cancel() {
+        Subscription s = subscription;
+        if (s != null) {
+            s.cancel();
+        }
+    }
+
+    /**
+     * @return true if the publisher terminated in the given time
+     */
+    public boolean await(long timeout, TimeUnit unit) {
+        try {
+            return terminated.await(timeout, unit);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    public boolean isTerminated() {
+        return terminated.getCount() == 0;
+    }
+
+    public long count() {
+        return count;
+    }
+
+    public Throwable error() {
+        return error;
+    }
+
+    /**
+     * @return System.nanoTime() at onSubscribe
+     */
+    protected long startNanos() {
+        return startNanos;
+    }
+
+    /**
+     * @return nanos between onSubscribe and the terminal signal
+     */
+    public long elapsedNanos() {
+        return endNanos - startNanos;
+    }
+
+    /**
+     * @return events per second
+     */
+    public double throughput() {
+        long elapsed = elapsedNanos();
+        return elapsed > 0 ? count * 1_000_000_000d / elapsed : 0;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s[count=%d, elapsed=%.3fms, throughput=%.0f/s%s]", getClass().getSimpleName(),
+                count, elapsedNanos() / 1_000_000d, throughput(), error != null ? ", error=" + error : "");
+    }
+}
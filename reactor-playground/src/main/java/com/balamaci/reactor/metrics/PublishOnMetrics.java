@@ -0,0 +1,162 @@
+package com.balamaci.reactor.metrics;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+import reactor.util.concurrent.QueueSupplier;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * What happens inside an {@link InstrumentedPublishOn} queue:
+ *
+ *   - queue depth - sampled every time the consumer thread starts a drain pass
+ *   - time in queue - nanos between the upstream onNext and the delivery on the consumer thread, for one in
+ *   every 'sampleEvery' events - two System.nanoTime() calls and a histogram update for every event would cost
+ *   more than the queue itself
+ *   - drain batch - how many events were delivered in one drain pass, before checking for new work
+ *   - replenishments - how many request(n) calls were made to the upstream after the initial request(prefetch)
+ *
+ * The recording side is wait free (HdrHistogram {@link Recorder}s and {@link LongAdder}s) and shared by all the
+ * subscriptions of the Flux, the snapshots are taken from any thread without stopping the pipeline.
+ */
+public final class PublishOnMetrics {
+
+    private final String name;
+    private final long sampleMask;
+
+    private final Recorder queueDepth = new Recorder(3);
+    private final Recorder timeInQueue = new Recorder(3);
+    private final Recorder drainBatch = new Recorder(3);
+
+    private final LongAdder replenishments = new LongAdder();
+    private final LongAdder replenished = new LongAdder();
+
+    private final Histogram queueDepthTotal = new Histogram(3);
+    private final Histogram timeInQueueTotal = new Histogram(3);
+    private final Histogram drainBatchTotal = new Histogram(3);
+
+    public PublishOnMetrics(String name) {
+        this(name, 16);
+    }
+
+    /**
+     * @param sampleEvery the time in queue is measured for one in every 'sampleEvery' events, rounded up to
+     *                    a power of two
+     */
+    public PublishOnMetrics(String name, int sampleEvery) {
+        if (sampleEvery <= 0) {
+            throw new IllegalArgumentException("sampleEvery > 0 required but it was " + sampleEvery);
+        }
+        this.name = name;
+        this.sampleMask = QueueSupplier.ceilingNextPowerOfTwo(sampleEvery) - 1;
+    }
+
+    boolean isSampled(long index) {
+        return (index & sampleMask) == 0;
+    }
+
+    void recordQueueDepth(long depth) {
+        queueDepth.recordValue(depth);
+    }
+
+    void recordTimeInQueue(long nanos) {
+        timeInQueue.recordValue(Math.max(0, nanos));
+    }
+
+    void recordDrainBatch(long size) {
+        drainBatch.recordValue(size);
+    }
+
+    void recordReplenish(long n) {
+        replenishments.increment();
+        replenished.add(n);
+    }
+
+    public synchronized Snapshot snapshot() {
+        return new Snapshot(name, accumulate(queueDepth, queueDepthTotal), accumulate(timeInQueue, timeInQueueTotal),
+                accumulate(drainBatch, drainBatchTotal), replenishments.sum(), replenished.sum());
+    }
+
+    private Histogram accumulate(Recorder recorder, Histogram total) {
+        total.add(recorder.getIntervalHistogram());
+        return total;
+    }
+
+    public static final class Snapshot {
+
+        private final String name;
+        private final long queueDepthP50;
+        private final long queueDepthMax;
+        private final long timeInQueueP50;
+        private final long timeInQueueP99;
+        private final long timeInQueueMax;
+        private final double drainBatchMean;
+        private final long drainBatchMax;
+        private final long drains;
+        private final long replenishments;
+        private final long replenished;
+
+        Snapshot(String name, Histogram queueDepth, Histogram timeInQueue, Histogram drainBatch,
+                 long replenishments, long replenished) {
+            this.name = name;
+            this.queueDepthP50 = queueDepth.getValueAtPercentile(50);
+            this.queueDepthMax = queueDepth.getMaxValue();
+            this.timeInQueueP50 = timeInQueue.getValueAtPercentile(50);
+            this.timeInQueueP99 = timeInQueue.getValueAtPercentile(99);
+            this.timeInQueueMax = timeInQueue.getMaxValue();
+            this.drainBatchMean = drainBatch.getMean();
+            this.drainBatchMax = drainBatch.getMaxValue();
+            this.drains = drainBatch.getTotalCount();
+            this.replenishments = replenishments;
+            this.replenished = replenished;
+        }
+
+        public long queueDepthP50() {
+            return queueDepthP50;
+        }
+
+        public long queueDepthMax() {
+            return queueDepthMax;
+        }
+
+        public long timeInQueueP50() {
+            return timeInQueueP50;
+        }
+
+        public long timeInQueueP99() {
+            return timeInQueueP99;
+        }
+
+        public long timeInQueueMax() {
+            return timeInQueueMax;
+        }
+
+        public double drainBatchMean() {
+            return drainBatchMean;
+        }
+
+        public long drainBatchMax() {
+            return drainBatchMax;
+        }
+
+        public long drains() {
+            return drains;
+        }
+
+        public long replenishments() {
+            return replenishments;
+        }
+
+        public long replenished() {
+            return replenished;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%s[queueDepth p50=%d max=%d, timeInQueue p50=%.1fus p99=%.1fus max=%.1fus, " +
+                            "drainBatch mean=%.1f max=%d drains=%d, replenishments=%d(%d events)]", name,
+                    queueDepthP50, queueDepthMax, timeInQueueP50 / 1000d, timeInQueueP99 / 1000d,
+                    timeInQueueMax / 1000d, drainBatchMean, drainBatchMax, drains, replenishments, replenished);
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package com.balamaci.reactor.overflow;
+
+import reactor.util.concurrent.QueueSupplier;
+
+import java.util.Arrays;
+
+/**
+ * Fixed capacity FIFO over a preallocated power of two array, nothing is allocated per event
+ */
+final class ArrayRing<T> {
+
+    private final Object[] items;
+    private final int mask;
+    private final int capacity;
+
+    private long head;
+    private long tail;
+
+    ArrayRing(int capacity) {
+        this.capacity = capacity;
+        this.items = new Object[QueueSupplier.ceilingNextPowerOfTwo(capacity)];
+        this.mask = items.length - 1;
+    }
+
+    boolean isFull() {
+        return tail - head == capacity;
+    }
+
+    boolean isEmpty() {
+        return tail == head;
+    }
+
+    int size() {
+        return (int) (tail - head);
+    }
+
+    /**
+     * The caller checks {@link #isFull()} first
+     */
+    void offer(T t) {
+        items[(int) tail & mask] = t;
+        tail++;
+    }
+
+    @SuppressWarnings("unchecked")
+    T poll() {
+        if (head == tail) {
+            return null;
+        }
+        int offset = (int) head & mask;
+        T t = (T) items[offset];
+        items[offset] = null;
+        head++;
+        return t;
+    }
+
+    void clear() {
+        Arrays.fill(items, null);
+        head = 0;
+        tail = 0;
+    }
+}
@@ -0,0 +1,40 @@
+package com.balamaci.reactor.overflow;
+
+/**
+ * A fixed size ring: when it's full the oldest event is dropped to make room for the new one, so the subscriber
+ * always gets the most recent 'capacity' events - onBackpressureLatest keeps only one.
+ */
+public final class DropOldestBuffer<T> extends OverflowBuffer<T> {
+
+    private final ArrayRing<T> ring;
+
+    public DropOldestBuffer(int capacity) {
+        checkPositive(capacity, "capacity");
+        this.ring = new ArrayRing<>(capacity);
+    }
+
+    @Override
+    public void offer(T t) {
+        if (ring.isFull()) {
+            ring.poll();
+            recordDrop();
+        }
+        ring.offer(t);
+        recordSize(ring.size());
+    }
+
+    @Override
+    public T poll() {
+        return ring.poll();
+    }
+
+    @Override
+    public int size() {
+        return ring.size();
+    }
+
+    @Override
+    public void clear() {
+        ring.clear();
+    }
+}
@@ -0,0 +1,267 @@
+package com.balamaci.reactor.overflow;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+
+/**
+ * FIFO of length prefixed records in memory-mapped segment files. The writer appends to the last segment and
+ * opens a new one when the record doesn't fit, the reader deletes a segment once it read everything in it - the
+ * disk usage follows the backlog instead of being reserved upfront. One drained segment is kept as a spare, so a
+ * backlog going back and forth over a segment boundary doesn't create and delete files all the time.
+ *
+ * The OS decides when the pages actually go to disk, writing and reading is as cheap as a heap ByteBuffer as long
+ * as they are resident, and none of it counts against the heap.
+ *
+ * A closed segment is unmapped right away - Unsafe.invokeCleaner on Java 9+, the buffer's Cleaner on Java 8 - so
+ * its file can be deleted also on Windows. Where neither is reachable the mapping goes away when the buffer is
+ * garbage collected, and until then the delete may fail on Windows.
+ *
+ * Creating a segment throws an UncheckedIOException when the file can't be created or mapped (a full disk), close()
+ * closes all the segments and then throws the first failure.
+ */
+final class MappedSegmentQueue<T> implements AutoCloseable {
+
+    private static final int LENGTH = Integer.BYTES;
+
+    private final SpillCodec<T> codec;
+    private final Path directory;
+    private final int segmentBytes;
+    private final int maxSegments;
+
+    private final ArrayDeque<Segment> segments = new ArrayDeque<>();
+    private Segment spare;
+
+    private int count;
+    private long usedBytes;
+    private long segmentsCreated;
+
+    /**
+     * @param directory where the segment files are created, null for the default temp directory
+     */
+    MappedSegmentQueue(SpillCodec<T> codec, int segmentBytes, int maxSegments, Path directory) {
+        this.codec = codec;
+        this.segmentBytes = segmentBytes;
+        this.maxSegments = maxSegments;
+        this.directory = directory;
+    }
+
+    /**
+     * @return false if the record is bigger than a segment or all the segments are full
+     */
+    boolean write(T t) {
+        int maxRecord = LENGTH + codec.maxSizeOf(t);
+        if (maxRecord > segmentBytes) {
+            return false;
+        }
+        Segment tail = segments.peekLast();
+        if (tail == null || segmentBytes - tail.writeOffset < maxRecord) {
+            if (segments.size() == maxSegments) {
+                return false;
+            }
+            tail = nextSegment();
+            segments.addLast(tail);
+        }
+
+        int offset = tail.writeOffset;
+        tail.buffer.position(offset + LENGTH);
+        codec.write(t, tail.buffer);
+        int size = tail.buffer.position() - offset - LENGTH;
+        tail.buffer.putInt(offset, size);
+        tail.writeOffset = offset + LENGTH + size;
+
+        count++;
+        usedBytes += LENGTH + size;
+        return true;
+    }
+
+    /**
+     * @return the oldest record or null if there's none
+     */
+    T read() {
+        if (count == 0) {
+            return null;
+        }
+        Segment head = segments.peekFirst();
+        int offset = head.readOffset;
+        int size = head.buffer.getInt(offset);
+        head.buffer.position(offset + LENGTH);
+        T t = codec.read(head.buffer, size);
+        head.readOffset = offset + LENGTH + size;
+
+        count--;
+        usedBytes -= LENGTH + size;
+
+        if (head.readOffset == head.writeOffset) {
+            if (segments.size() == 1) { // the writer is still on it, both start over from the beginning
+                head.rewind();
+            } else {
+                segments.pollFirst();
+                retire(head);
+            }
+        }
+        return t;
+    }
+
+    int count() {
+        return count;
+    }
+
+    long usedBytes() {
+        return usedBytes;
+    }
+
+    long segmentsCreated() {
+        return segmentsCreated;
+    }
+
+    @Override
+    public void close() {
+        UncheckedIOException failure = null;
+        if (spare != null) {
+            segments.addLast(spare);
+            spare = null;
+        }
+        for (Segment segment : segments) {
+            try {
+                segment.close();
+            } catch (UncheckedIOException e) {
+                if (failure == null) {
+                    failure = e;
+                } else {
+                    failure.addSuppressed(e);
+                }
+            }
+        }
+        segments.clear();
+        count = 0;
+        usedBytes = 0;
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    private Segment nextSegment() {
+        if (spare != null) {
+            Segment segment = spare;
+            spare = null;
+            return segment;
+        }
+        segmentsCreated++;
+        return new Segment(directory, segmentBytes);
+    }
+
+    private void retire(Segment segment) {
+        if (spare == null) {
+            segment.rewind();
+            spare = segment;
+        } else {
+            segment.close();
+        }
+    }
+
+    private static final class Segment {
+
+        private final Path file;
+        private final FileChannel channel;
+        private final MappedByteBuffer buffer;
+
+        private int writeOffset;
+        private int readOffset;
+
+        Segment(Path directory, int segmentBytes) {
+            Path created = null;
+            FileChannel opened = null;
+            try {
+                created = directory == null ? Files.createTempFile("spill-", ".segment")
+                        : Files.createTempFile(directory, "spill-", ".segment");
+                opened = FileChannel.open(created, StandardOpenOption.READ, StandardOpenOption.WRITE);
+                this.buffer = opened.map(FileChannel.MapMode.READ_WRITE, 0, segmentBytes);
+            } catch (IOException e) {
+                UncheckedIOException failure = new UncheckedIOException("Could not map a spill segment", e);
+                try {
+                    if (opened != null) {
+                        opened.close();
+                    }
+                    if (created != null) {
+                        Files.deleteIfExists(created);
+                    }
+                } catch (IOException cleanup) {
+                    failure.addSuppressed(cleanup);
+                }
+                throw failure;
+            }
+            this.file = created;
+            this.channel = opened;
+        }
+
+        void rewind() {
+            writeOffset = 0;
+            readOffset = 0;
+        }
+
+        /**
+         * The buffer must not be touched after this
+         */
+        void close() {
+            unmap(buffer);
+            try {
+                channel.close();
+                Files.deleteIfExists(file);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Could not delete the spill segment " + file, e);
+            }
+        }
+    }
+
+    /** (ByteBuffer)void unmapping a mapped buffer, null when there's no way to do it on this JVM */
+    private static final MethodHandle UNMAP = unmapHandle();
+
+    private static void unmap(MappedByteBuffer buffer) {
+        if (UNMAP == null) {
+            return;
+        }
+        try {
+            UNMAP.invokeExact((ByteBuffer) buffer);
+        } catch (Throwable e) { // the GC unmaps it later
+        }
+    }
+
+    private static MethodHandle unmapHandle() {
+        MethodHandles.Lookup lookup = MethodHandles.lookup();
+        try { // Java 9+
+            Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+            Field theUnsafe = unsafeClass.getDeclaredField("theUnsafe");
+            theUnsafe.setAccessible(true);
+            MethodHandle invokeCleaner = lookup.findVirtual(unsafeClass, "invokeCleaner",
+                    MethodType.methodType(void.class, ByteBuffer.class));
+            return invokeCleaner.bindTo(theUnsafe.get(null));
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            // Java 8, no invokeCleaner
+        }
+        try {
+            Class<?> directBuffer = Class.forName("java.nio.DirectByteBuffer");
+            Method cleaner = directBuffer.getMethod("cleaner");
+            cleaner.setAccessible(true);
+            Method clean = cleaner.getReturnType().getMethod("clean");
+            clean.setAccessible(true);
+            MethodHandle getCleaner = lookup.unreflect(cleaner)
+                    .asType(MethodType.methodType(cleaner.getReturnType(), ByteBuffer.class));
+            MethodHandle runClean = lookup.unreflect(clean);
+            return MethodHandles.filterReturnValue(getCleaner, runClean);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            return null;
+        }
+    }
+}
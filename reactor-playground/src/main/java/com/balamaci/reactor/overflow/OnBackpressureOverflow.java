@@ -0,0 +1,290 @@
+package com.balamaci.reactor.overflow;
+
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+import reactor.core.Exceptions;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Operators;
+
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * onBackpressureBuffer with an {@link OverflowBuffer} deciding what happens when it's full:
+ *
+ * <pre>
+ * OverflowMetrics metrics = new OverflowMetrics("dropOldest");
+ * flux.transform(OnBackpressureOverflow.onBackpressure(() -&gt; OverflowBuffer.dropOldest(5), metrics))
+ *     ...
+ * log.info("{}", metrics); //dropOldest[dropped=14, highWaterMark=5, ...]
+ * </pre>
+ *
+ * Like the other onBackpressureXXX operators it requests everything from the upstream and keeps whatever the
+ * downstream didn't request yet in the buffer. Every subscription gets a new buffer from the Supplier - a retry,
+ * a repeat or a second subscriber start empty - and they all record in the same {@link OverflowMetrics}.
+ *
+ * An error is delivered after the buffered events. A buffer failing - its priority function or its codec
+ * throwing - cancels the upstream, discards the buffered events and fails the stream right away.
+ */
+public final class OnBackpressureOverflow<T> extends Flux<T> {
+
+    private final Publisher<? extends T> source;
+    private final Supplier<? extends OverflowBuffer<T>> bufferSupplier;
+    private final OverflowMetrics metrics;
+
+    public static <T> Function<Flux<T>, Flux<T>> onBackpressure(
+            Supplier<? extends OverflowBuffer<T>> bufferSupplier) {
+        return onBackpressure(bufferSupplier, null);
+    }
+
+    /**
+     * @param metrics null when nobody reads them
+     */
+    public static <T> Function<Flux<T>, Flux<T>> onBackpressure(
+            Supplier<? extends OverflowBuffer<T>> bufferSupplier, OverflowMetrics metrics) {
+        return flux -> new OnBackpressureOverflow<>(flux, bufferSupplier, metrics);
+    }
+
+    public OnBackpressureOverflow(Publisher<? extends T> source, Supplier<? extends OverflowBuffer<T>> bufferSupplier,
+                                  OverflowMetrics metrics) {
+        this.source = source;
+        this.bufferSupplier = bufferSupplier;
+        this.metrics = metrics != null ? metrics : new OverflowMetrics("onBackpressureOverflow");
+    }
+
+    @Override
+    public void subscribe(Subscriber<? super T> subscriber) {
+        OverflowBuffer<T> buffer;
+        try {
+            buffer = bufferSupplier.get();
+            if (buffer == null) {
+                throw new NullPointerException("The bufferSupplier returned a null buffer");
+            }
+        } catch (Throwable e) {
+            Exceptions.throwIfFatal(e);
+            Operators.error(subscriber, Operators.onOperatorError(e));
+            return;
+        }
+        buffer.metrics(metrics); // published to the source thread by the subscribe
+        source.subscribe(new OverflowSubscriber<>(subscriber, buffer));
+    }
+
+    static final class OverflowSubscriber<T> implements Subscriber<T>, Subscription {
+
+        private final Subscriber<? super T> actual;
+        private final OverflowBuffer<T> buffer;
+
+        private Subscription s;
+
+        private volatile boolean cancelled;
+        private volatile boolean done;
+        /** the buffer failed, 'error' goes out without waiting for the buffered events */
+        private volatile boolean failed;
+        private Throwable error;
+
+        private volatile long requested;
+        @SuppressWarnings("rawtypes")
+        private static final AtomicLongFieldUpdater<OverflowSubscriber> REQUESTED =
+                AtomicLongFieldUpdater.newUpdater(OverflowSubscriber.class, "requested");
+
+        private volatile int wip;
+        @SuppressWarnings("rawtypes")
+        private static final AtomicIntegerFieldUpdater<OverflowSubscriber> WIP =
+                AtomicIntegerFieldUpdater.newUpdater(OverflowSubscriber.class, "wip");
+
+        OverflowSubscriber(Subscriber<? super T> actual, OverflowBuffer<T> buffer) {
+            this.actual = actual;
+            this.buffer = buffer;
+        }
+
+        @Override
+        public void onSubscribe(Subscription s) {
+            if (Operators.validate(this.s, s)) {
+                this.s = s;
+                actual.onSubscribe(this);
+                s.request(Long.MAX_VALUE);
+            }
+        }
+
+        @Override
+        public void onNext(T t) {
+            if (done) {
+                Operators.onNextDropped(t);
+                return;
+            }
+            try {
+                synchronized (buffer) {
+                    if (cancelled) { // the buffer might be cleared already, it would keep the event (or a file)
+                        return;
+                    }
+                    buffer.offer(t);
+                }
+            } catch (Throwable e) {
+                Exceptions.throwIfFatal(e);
+                s.cancel();
+                error = Operators.onOperatorError(s, e, t);
+                failed = true;
+                done = true;
+            }
+            drain();
+        }
+
+        @Override
+        public void onError(Throwable t) {
+            if (done) {
+                Operators.onErrorDropped(t);
+                return;
+            }
+            error = t;
+            done = true;
+            drain();
+        }
+
+        @Override
+        public void onComplete() {
+            if (done) {
+                return;
+            }
+            done = true;
+            drain();
+        }
+
+        @Override
+        public void request(long n) {
+            if (Operators.validate(n)) {
+                Operators.getAndAddCap(REQUESTED, this, n);
+                drain();
+            }
+        }
+
+        @Override
+        public void cancel() {
+            if (!cancelled) {
+                cancelled = true;
+                s.cancel();
+                if (WIP.getAndIncrement(this) == 0) {
+                    clear();
+                }
+            }
+        }
+
+        private void drain() {
+            if (WIP.getAndIncrement(this) != 0) {
+                return;
+            }
+
+            int missed = 1;
+            for (; ; ) {
+                if (failed) {
+                    clear();
+                    if (!cancelled) {
+                        actual.onError(error);
+                    }
+                    return;
+                }
+
+                long r = requested;
+                long emitted = 0;
+
+                while (emitted != r) {
+                    boolean d = done;
+                    T t;
+                    try {
+                        synchronized (buffer) {
+                            t = buffer.poll();
+                        }
+                    } catch (Throwable e) {
+                        Exceptions.throwIfFatal(e);
+                        failWhileDraining(e);
+                        return;
+                    }
+                    boolean empty = t == null;
+                    if (checkTerminated(d, empty)) {
+                        return;
+                    }
+                    if (empty) {
+                        break;
+                    }
+
+                    actual.onNext(t);
+                    emitted++;
+                }
+
+                if (emitted == r) {
+                    boolean d = done;
+                    boolean empty = true;
+                    if (d) { // the lock is needed only to tell if it's time to terminate
+                        synchronized (buffer) {
+                            empty = buffer.size() == 0;
+                        }
+                    }
+                    if (checkTerminated(d, empty)) {
+                        return;
+                    }
+                }
+
+                if (emitted != 0 && r != Long.MAX_VALUE) {
+                    REQUESTED.addAndGet(this, -emitted);
+                }
+
+                missed = WIP.addAndGet(this, -missed);
+                if (missed == 0) {
+                    break;
+                }
+            }
+        }
+
+        /**
+         * The buffer can't be read anymore, the events still in it are lost
+         */
+        private void failWhileDraining(Throwable e) {
+            s.cancel();
+            Throwable previous = error;
+            if (previous != null) {
+                Operators.onErrorDropped(previous);
+            }
+            error = Operators.onOperatorError(s, e);
+            done = true;
+            clear();
+            if (!cancelled) {
+                actual.onError(error);
+            }
+        }
+
+        private boolean checkTerminated(boolean d, boolean empty) {
+            if (cancelled) {
+                clear();
+                return true;
+            }
+            if (d && empty) {
+                clear();
+                Throwable e = error;
+                if (e != null) {
+                    actual.onError(e);
+                } else {
+                    actual.onComplete();
+                }
+                return true;
+            }
+            return false;
+        }
+
+        /**
+         * Runs before the terminal signal, a failure to release the buffer (a spill file that can't be deleted)
+         * must not replace it
+         */
+        private void clear() {
+            try {
+                synchronized (buffer) {
+                    buffer.clear();
+                }
+            } catch (Throwable e) {
+                Exceptions.throwIfFatal(e);
+                Operators.onErrorDropped(e);
+            }
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package com.balamaci.reactor.overflow;
+
+import java.nio.file.Path;
+import java.util.function.ToIntFunction;
+
+/**
+ * A bounded buffer deciding what to give up when the downstream can't keep up - the pluggable part of
+ * {@link OnBackpressureOverflow}. The built-in FluxSink.OverflowStrategy values stop at DROP, LATEST, ERROR and
+ * an unbounded BUFFER, these are the ones for an ingest path:
+ *
+ *   - {@link #dropOldest(int)} - a fixed ring, the oldest event makes room for the newest one
+ *   - {@link #sampling(int, int, int)} - above a pressure mark only every Nth event is kept
+ *   - {@link #priority(int, ToIntFunction)} - when full the lowest priority event is evicted
+ *   - {@link #spillToDisk(int, int, int, SpillCodec, Path)} - over the in-memory bound the events go to
+ *   memory-mapped segment files
+ *
+ * A buffer holds the events of a single subscription, the operator takes a Supplier and creates one for every
+ * subscribe. The events dropped and the most events held at once (the high-water mark) are recorded in the
+ * {@link OverflowMetrics} of the operator, shared by all its buffers.
+ *
+ * The operator calls offer/poll/clear under the buffer's monitor, the implementations don't need to be thread
+ * safe.
+ */
+public abstract class OverflowBuffer<T> {
+
+    /** set by the operator before the buffer is used, null when it's used on its own */
+    private OverflowMetrics metrics;
+
+    public static <T> DropOldestBuffer<T> dropOldest(int capacity) {
+        return new DropOldestBuffer<>(capacity);
+    }
+
+    public static <T> SamplingBuffer<T> sampling(int capacity, int pressureMark, int keepEvery) {
+        return new SamplingBuffer<>(capacity, pressureMark, keepEvery);
+    }
+
+    public static <T> PriorityEvictionBuffer<T> priority(int capacity, ToIntFunction<? super T> priority) {
+        return new PriorityEvictionBuffer<>(capacity, priority);
+    }
+
+    public static <T> SpillToDiskBuffer<T> spillToDisk(int memoryCapacity, int diskBytes, SpillCodec<T> codec) {
+        return new SpillToDiskBuffer<>(memoryCapacity, diskBytes, codec);
+    }
+
+    public static <T> SpillToDiskBuffer<T> spillToDisk(int memoryCapacity, int segmentBytes, int maxSegments,
+                                                       SpillCodec<T> codec, Path directory) {
+        return new SpillToDiskBuffer<>(memoryCapacity, segmentBytes, maxSegments, codec, directory);
+    }
+
+    /**
+     * Adds the event, or drops it or another one when the buffer is full
+     */
+    public abstract void offer(T t);
+
+    /**
+     * @return the next event or null if the buffer is empty
+     */
+    public abstract T poll();
+
+    public abstract int size();
+
+    /**
+     * Discards the events, called when the subscription ends
+     */
+    public abstract void clear();
+
+    protected final void recordDrop() {
+        if (metrics != null) {
+            metrics.recordDrop();
+        }
+    }
+
+    protected final void recordSize(int size) {
+        if (metrics != null) {
+            metrics.recordSize(size);
+        }
+    }
+
+    final OverflowMetrics metrics() {
+        return metrics;
+    }
+
+    final void metrics(OverflowMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    static void checkPositive(int value, String name) {
+        if (value <= 0) {
+            throw new IllegalArgumentException(name + " > 0 required but it was " + value);
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package com.balamaci.reactor.overflow;
+
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * What the {@link OverflowBuffer}s of an {@link OnBackpressureOverflow} gave up:
+ *
+ *   - dropped - the events the buffers dropped or evicted
+ *   - highWaterMark - the most events a buffer held at once
+ *   - spilled - the events that went through the segment files of a spill-to-disk buffer, with the most bytes
+ *     they held at once and how many segments were created
+ *
+ * Every subscription gets its own buffer, all of them record here - it can be read from any thread while the
+ * pipelines run.
+ */
+public final class OverflowMetrics {
+
+    private final String name;
+
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder spilled = new LongAdder();
+    private final LongAdder segmentsCreated = new LongAdder();
+
+    private volatile int highWaterMark;
+    private static final AtomicIntegerFieldUpdater<OverflowMetrics> HIGH_WATER_MARK =
+            AtomicIntegerFieldUpdater.newUpdater(OverflowMetrics.class, "highWaterMark");
+
+    private volatile long diskHighWaterBytes;
+    private static final AtomicLongFieldUpdater<OverflowMetrics> DISK_HIGH_WATER_BYTES =
+            AtomicLongFieldUpdater.newUpdater(OverflowMetrics.class, "diskHighWaterBytes");
+
+    public OverflowMetrics(String name) {
+        this.name = name;
+    }
+
+    void recordDrop() {
+        dropped.increment();
+    }
+
+    void recordSize(int size) {
+        for (;;) {
+            int max = highWaterMark;
+            if (size <= max || HIGH_WATER_MARK.compareAndSet(this, max, size)) {
+                return;
+            }
+        }
+    }
+
+    void recordSpill(long diskBytes) {
+        spilled.increment();
+        for (;;) {
+            long max = diskHighWaterBytes;
+            if (diskBytes <= max || DISK_HIGH_WATER_BYTES.compareAndSet(this, max, diskBytes)) {
+                return;
+            }
+        }
+    }
+
+    void recordSegment() {
+        segmentsCreated.increment();
+    }
+
+    public long dropped() {
+        return dropped.sum();
+    }
+
+    public int highWaterMark() {
+        return highWaterMark;
+    }
+
+    public long spilled() {
+        return spilled.sum();
+    }
+
+    public long diskHighWaterBytes() {
+        return diskHighWaterBytes;
+    }
+
+    public long segmentsCreated() {
+        return segmentsCreated.sum();
+    }
+
+    @Override
+    public String toString() {
+        return name + "[dropped=" + dropped.sum() + ", highWaterMark=" + highWaterMark + ", spilled="
+                + spilled.sum() + ", diskHighWaterBytes=" + diskHighWaterBytes + ", segmentsCreated="
+                + segmentsCreated.sum() + "]";
+    }
+}
@@ -0,0 +1,188 @@
+package com.balamaci.reactor.overflow;
+
+import reactor.util.concurrent.QueueSupplier;
+
+import java.util.Arrays;
+import java.util.function.ToIntFunction;
+
+/**
+ * The events are still delivered in the order they came, but when the buffer is full the one with the lowest
+ * priority is evicted - the oldest of them on a tie. A new event with a lower priority than everything in the
+ * buffer is dropped right away.
+ *
+ * The events sit in a ring and a binary min-heap of their ring positions finds the eviction candidate in
+ * O(log n). An eviction leaves a hole in the ring which poll skips. The ring has twice the capacity, so when the
+ * holes fill it up there are at least 'capacity' of them and compacting the live events over the holes is
+ * amortized O(1) per eviction. Nothing is allocated per event.
+ */
+public final class PriorityEvictionBuffer<T> extends OverflowBuffer<T> {
+
+    private final ToIntFunction<? super T> priority;
+    private final int capacity;
+
+    private final Object[] items;
+    private final int[] priorities;
+    /** index in the heap of the event in each ring slot */
+    private final int[] heapIndex;
+    private final int mask;
+
+    /** ring positions, ordered by priority then by age */
+    private final long[] heap;
+    private int size;
+
+    private long head;
+    private long tail;
+
+    public PriorityEvictionBuffer(int capacity, ToIntFunction<? super T> priority) {
+        checkPositive(capacity, "capacity");
+        this.priority = priority;
+        this.capacity = capacity;
+
+        int slots = QueueSupplier.ceilingNextPowerOfTwo(capacity * 2);
+        this.items = new Object[slots];
+        this.priorities = new int[slots];
+        this.heapIndex = new int[slots];
+        this.mask = slots - 1;
+        this.heap = new long[capacity];
+    }
+
+    @Override
+    public void offer(T t) {
+        int p = priority.applyAsInt(t);
+        if (size == capacity) {
+            long lowest = heap[0];
+            if (priorities[slot(lowest)] > p) {
+                recordDrop();
+                return;
+            }
+            items[slot(lowest)] = null;
+            removeFromHeap(0);
+            recordDrop();
+        }
+        if (tail - head == items.length) {
+            compact();
+        }
+
+        int slot = slot(tail);
+        items[slot] = t;
+        priorities[slot] = p;
+        heap[size] = tail;
+        heapIndex[slot] = size;
+        siftUp(size);
+        size++;
+        tail++;
+        recordSize(size);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public T poll() {
+        while (head != tail && items[slot(head)] == null) { // holes left by evictions
+            head++;
+        }
+        if (head == tail) {
+            return null;
+        }
+        int slot = slot(head);
+        T t = (T) items[slot];
+        items[slot] = null;
+        removeFromHeap(heapIndex[slot]);
+        head++;
+        return t;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public void clear() {
+        Arrays.fill(items, null);
+        size = 0;
+        head = 0;
+        tail = 0;
+    }
+
+    private int slot(long position) {
+        return (int) position & mask;
+    }
+
+    /**
+     * Moves the live events over the holes keeping their order. The positions only decrease and keep their
+     * relative order, so the heap stays valid - only the entries are updated.
+     */
+    private void compact() {
+        long write = head;
+        for (long read = head; read != tail; read++) {
+            int from = slot(read);
+            if (items[from] == null) {
+                continue;
+            }
+            if (read != write) {
+                int to = slot(write);
+                items[to] = items[from];
+                priorities[to] = priorities[from];
+                heapIndex[to] = heapIndex[from];
+                heap[heapIndex[to]] = write;
+                items[from] = null;
+            }
+            write++;
+        }
+        tail = write;
+    }
+
+    private boolean lower(long a, long b) {
+        int pa = priorities[slot(a)];
+        int pb = priorities[slot(b)];
+        return pa < pb || (pa == pb && a < b);
+    }
+
+    private void removeFromHeap(int index) {
+        size--;
+        if (index == size) {
+            return;
+        }
+        long last = heap[size];
+        heap[index] = last;
+        heapIndex[slot(last)] = index;
+        siftDown(index);
+        siftUp(heapIndex[slot(last)]);
+    }
+
+    private void siftUp(int index) {
+        long position = heap[index];
+        while (index > 0) {
+            int parent = (index - 1) >>> 1;
+            long parentPosition = heap[parent];
+            if (!lower(position, parentPosition)) {
+                break;
+            }
+            heap[index] = parentPosition;
+            heapIndex[slot(parentPosition)] = index;
+            index = parent;
+        }
+        heap[index] = position;
+        heapIndex[slot(position)] = index;
+    }
+
+    private void siftDown(int index) {
+        long position = heap[index];
+        int half = size >>> 1;
+        while (index < half) {
+            int child = 2 * index + 1;
+            int right = child + 1;
+            if (right < size && lower(heap[right], heap[child])) {
+                child = right;
+            }
+            if (!lower(heap[child], position)) {
+                break;
+            }
+            heap[index] = heap[child];
+            heapIndex[slot(heap[index])] = index;
+            index = child;
+        }
+        heap[index] = position;
+        heapIndex[slot(position)] = index;
+    }
+}
@@ -0,0 +1,55 @@
+package com.balamaci.reactor.overflow;
+
+/**
+ * Keeps everything while the subscriber keeps up, but once 'pressureMark' events are waiting only one in every
+ * 'keepEvery' new events is kept - the stream gets thinner instead of having a gap. The sampling stops as soon
+ * as the buffer goes back under the mark. When even the sampled events fill the buffer they are dropped.
+ */
+public final class SamplingBuffer<T> extends OverflowBuffer<T> {
+
+    private final ArrayRing<T> ring;
+    private final int pressureMark;
+    private final int keepEvery;
+
+    /** events offered since the buffer went over the pressure mark */
+    private int underPressure;
+
+    public SamplingBuffer(int capacity, int pressureMark, int keepEvery) {
+        checkPositive(capacity, "capacity");
+        checkPositive(keepEvery, "keepEvery");
+        if (pressureMark <= 0 || pressureMark > capacity) {
+            throw new IllegalArgumentException("0 < pressureMark <= capacity required but it was " + pressureMark);
+        }
+        this.ring = new ArrayRing<>(capacity);
+        this.pressureMark = pressureMark;
+        this.keepEvery = keepEvery;
+    }
+
+    @Override
+    public void offer(T t) {
+        if (ring.size() < pressureMark) {
+            underPressure = 0;
+        } else if (underPressure++ % keepEvery != 0 || ring.isFull()) {
+            recordDrop();
+            return;
+        }
+        ring.offer(t);
+        recordSize(ring.size());
+    }
+
+    @Override
+    public T poll() {
+        return ring.poll();
+    }
+
+    @Override
+    public int size() {
+        return ring.size();
+    }
+
+    @Override
+    public void clear() {
+        ring.clear();
+        underPressure = 0;
+    }
+}
@@ -0,0 +1,86 @@
+package com.balamaci.reactor.overflow;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * How the events spilled to disk are turned into bytes and back
+ */
+public interface SpillCodec<T> {
+
+    /**
+     * @return an upper bound of the bytes {@link #write(Object, ByteBuffer)} needs for the value
+     */
+    int maxSizeOf(T value);
+
+    /**
+     * Writes the value at the position of the buffer
+     */
+    void write(T value, ByteBuffer out);
+
+    /**
+     * Reads back a value from the position of the buffer
+     *
+     * @param size how many bytes write used for it
+     */
+    T read(ByteBuffer in, int size);
+
+    static SpillCodec<Integer> integers() {
+        return new SpillCodec<Integer>() {
+            @Override
+            public int maxSizeOf(Integer value) {
+                return Integer.BYTES;
+            }
+
+            @Override
+            public void write(Integer value, ByteBuffer out) {
+                out.putInt(value);
+            }
+
+            @Override
+            public Integer read(ByteBuffer in, int size) {
+                return in.getInt();
+            }
+        };
+    }
+
+    static SpillCodec<Long> longs() {
+        return new SpillCodec<Long>() {
+            @Override
+            public int maxSizeOf(Long value) {
+                return Long.BYTES;
+            }
+
+            @Override
+            public void write(Long value, ByteBuffer out) {
+                out.putLong(value);
+            }
+
+            @Override
+            public Long read(ByteBuffer in, int size) {
+                return in.getLong();
+            }
+        };
+    }
+
+    static SpillCodec<String> strings() {
+        return new SpillCodec<String>() {
+            @Override
+            public int maxSizeOf(String value) {
+                return value.length() * 3;
+            }
+
+            @Override
+            public void write(String value, ByteBuffer out) {
+                out.put(value.getBytes(StandardCharsets.UTF_8));
+            }
+
+            @Override
+            public String read(ByteBuffer in, int size) {
+                byte[] bytes = new byte[size];
+                in.get(bytes);
+                return new String(bytes, StandardCharsets.UTF_8);
+            }
+        };
+    }
+}
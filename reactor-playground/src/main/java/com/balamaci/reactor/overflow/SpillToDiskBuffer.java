@@ -0,0 +1,103 @@
+package com.balamaci.reactor.overflow;
+
+import java.nio.file.Path;
+
+/**
+ * Up to 'memoryCapacity' events are kept on the heap, past that they are serialized into memory-mapped segment
+ * files. Only when 'maxSegments' segments are full the events are dropped - the heap holds the small head no
+ * matter how big the backlog gets.
+ *
+ * The order is kept: once something was spilled the new events go to the segments as well, until the subscriber
+ * caught up with everything in them. The segment files are created when needed, deleted as soon as they were
+ * read and all of them are gone when the subscription ends.
+ */
+public final class SpillToDiskBuffer<T> extends OverflowBuffer<T> {
+
+    static final int DEFAULT_SEGMENT_BYTES = 1 << 20;
+
+    private final ArrayRing<T> memory;
+    private final SpillCodec<T> codec;
+    private final int segmentBytes;
+    private final int maxSegments;
+    private final Path directory;
+
+    private MappedSegmentQueue<T> disk;
+    /** the segments of 'disk' already recorded */
+    private long segmentsRecorded;
+
+    /**
+     * Spills into segments of at most 1MB, 'diskBytes' in total
+     */
+    public SpillToDiskBuffer(int memoryCapacity, int diskBytes, SpillCodec<T> codec) {
+        this(memoryCapacity, Math.min(diskBytes, DEFAULT_SEGMENT_BYTES),
+                (int) ((diskBytes + (long) DEFAULT_SEGMENT_BYTES - 1) / DEFAULT_SEGMENT_BYTES), codec, null);
+    }
+
+    /**
+     * @param directory where the segment files are created, null for the default temp directory
+     */
+    public SpillToDiskBuffer(int memoryCapacity, int segmentBytes, int maxSegments, SpillCodec<T> codec,
+                             Path directory) {
+        checkPositive(memoryCapacity, "memoryCapacity");
+        checkPositive(segmentBytes, "segmentBytes");
+        checkPositive(maxSegments, "maxSegments");
+        this.memory = new ArrayRing<>(memoryCapacity);
+        this.codec = codec;
+        this.segmentBytes = segmentBytes;
+        this.maxSegments = maxSegments;
+        this.directory = directory;
+    }
+
+    @Override
+    public void offer(T t) {
+        if (!memory.isFull() && (disk == null || disk.count() == 0)) {
+            memory.offer(t);
+        } else {
+            if (disk == null) {
+                disk = new MappedSegmentQueue<>(codec, segmentBytes, maxSegments, directory);
+                segmentsRecorded = 0;
+            }
+            if (!disk.write(t)) {
+                recordDrop();
+                return;
+            }
+            recordSpill();
+        }
+        recordSize(size());
+    }
+
+    @Override
+    public T poll() {
+        T t = memory.poll();
+        if (t == null && disk != null) {
+            t = disk.read();
+        }
+        return t;
+    }
+
+    @Override
+    public int size() {
+        return memory.size() + (disk == null ? 0 : disk.count());
+    }
+
+    @Override
+    public void clear() {
+        memory.clear();
+        MappedSegmentQueue<T> closing = disk;
+        if (closing != null) {
+            disk = null;
+            closing.close();
+        }
+    }
+
+    private void recordSpill() {
+        OverflowMetrics metrics = metrics();
+        if (metrics == null) {
+            return;
+        }
+        metrics.recordSpill(disk.usedBytes());
+        for (long created = disk.segmentsCreated(); segmentsRecorded < created; segmentsRecorded++) {
+            metrics.recordSegment();
+        }
+    }
+}
@@ -0,0 +1,305 @@
+package com.balamaci.reactor.publisher;
+
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+import reactor.core.Exceptions;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Operators;
+import reactor.util.concurrent.QueueSupplier;
+
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Function;
+import java.util.function.IntConsumer;
+
+/**
+ * limitRate(n) with a request batch that adapts at runtime, between a min and a max, the AIMD way
+ * (additive increase, multiplicative decrease - like TCP congestion control):
+ *
+ *   - the downstream is starving - it still has demand but the queue ran empty while waiting for the upstream.
+ *   The upstream can't keep up with the consumption rate with the current batch, so the next batch grows
+ *   by 'min' events.
+ *   - the downstream is the slow one - it ran out of demand while at least half a batch is waiting in the queue.
+ *   The events would just sit in the queue, the next batch is halved. The events requested with the bigger batch
+ *   still have to be drained after a decrease, so there's no other decrease until they are - once per round trip,
+ *   like TCP.
+ *
+ * The signals are collected while the previous batch is consumed and evaluated when it's time to replenish - when
+ * only 25% of the batch is still outstanding or queued, just like limitRate does. Starving wins when both were
+ * seen - a batch arrives in a burst so it sits in the queue for a while even when the downstream is fast enough.
+ * The request tops up the outstanding and queued events to the current batch size, so it's at least half a batch
+ * even right after a decrease - no round trips for a handful of events.
+ *
+ * The queue is sized for the max batch, the upstream is never requested more than that.
+ */
+public final class AdaptiveLimitRate<T> extends Flux<T> {
+
+    private final Publisher<? extends T> source;
+    private final int minBatch;
+    private final int initialBatch;
+    private final int maxBatch;
+    private final IntConsumer onBatchChange;
+
+    public static <T> Function<Flux<T>, Flux<T>> limitRate(int minBatch, int initialBatch, int maxBatch) {
+        return limitRate(minBatch, initialBatch, maxBatch, batch -> { });
+    }
+
+    /**
+     * @param onBatchChange notified with the new batch size every time it changes
+     */
+    public static <T> Function<Flux<T>, Flux<T>> limitRate(int minBatch, int initialBatch, int maxBatch,
+                                                           IntConsumer onBatchChange) {
+        return flux -> new AdaptiveLimitRate<>(flux, minBatch, initialBatch, maxBatch, onBatchChange);
+    }
+
+    public AdaptiveLimitRate(Publisher<? extends T> source, int minBatch, int initialBatch, int maxBatch,
+                             IntConsumer onBatchChange) {
+        if (minBatch <= 0 || initialBatch < minBatch || maxBatch < initialBatch) {
+            throw new IllegalArgumentException("0 < minBatch <= initialBatch <= maxBatch required but they were "
+                    + minBatch + ", " + initialBatch + ", " + maxBatch);
+        }
+        this.source = source;
+        this.minBatch = minBatch;
+        this.initialBatch = initialBatch;
+        this.maxBatch = maxBatch;
+        this.onBatchChange = onBatchChange;
+    }
+
+    @Override
+    public void subscribe(Subscriber<? super T> subscriber) {
+        source.subscribe(new AdaptiveLimitRateSubscriber<>(subscriber, minBatch, initialBatch, maxBatch,
+                onBatchChange));
+    }
+
+    static final class AdaptiveLimitRateSubscriber<T> implements Subscriber<T>, Subscription {
+
+        private final Subscriber<? super T> actual;
+        private final int minBatch;
+        private final int maxBatch;
+        private final IntConsumer onBatchChange;
+
+        private final AtomicReferenceArray<T> queue;
+        private final int mask;
+
+        /** written only by the upstream */
+        private volatile long producerIndex;
+        @SuppressWarnings("rawtypes")
+        private static final AtomicLongFieldUpdater<AdaptiveLimitRateSubscriber> PRODUCER_INDEX =
+                AtomicLongFieldUpdater.newUpdater(AdaptiveLimitRateSubscriber.class, "producerIndex");
+
+        // touched only in the drain loop
+        private long consumerIndex;
+        private long upstreamRequested;
+        private int batch;
+        private boolean starved;
+        private boolean backlogged;
+        /** no decrease until everything requested before the last one was consumed */
+        private long recoveredAt;
+
+        private Subscription s;
+
+        private volatile boolean cancelled;
+        private volatile boolean done;
+        private Throwable error;
+
+        private volatile long requested;
+        @SuppressWarnings("rawtypes")
+        private static final AtomicLongFieldUpdater<AdaptiveLimitRateSubscriber> REQUESTED =
+                AtomicLongFieldUpdater.newUpdater(AdaptiveLimitRateSubscriber.class, "requested");
+
+        private volatile int wip;
+        @SuppressWarnings("rawtypes")
+        private static final AtomicIntegerFieldUpdater<AdaptiveLimitRateSubscriber> WIP =
+                AtomicIntegerFieldUpdater.newUpdater(AdaptiveLimitRateSubscriber.class, "wip");
+
+        AdaptiveLimitRateSubscriber(Subscriber<? super T> actual, int minBatch, int initialBatch, int maxBatch,
+                                    IntConsumer onBatchChange) {
+            this.actual = actual;
+            this.minBatch = minBatch;
+            this.maxBatch = maxBatch;
+            this.onBatchChange = onBatchChange;
+            this.batch = initialBatch;
+
+            int capacity = QueueSupplier.ceilingNextPowerOfTwo(maxBatch);
+            this.queue = new AtomicReferenceArray<>(capacity);
+            this.mask = capacity - 1;
+        }
+
+        @Override
+        public void onSubscribe(Subscription s) {
+            if (Operators.validate(this.s, s)) {
+                this.s = s;
+                upstreamRequested = batch;
+                actual.onSubscribe(this);
+                s.request(batch);
+            }
+        }
+
+        @Override
+        public void onNext(T t) {
+            if (done) {
+                Operators.onNextDropped(t);
+                return;
+            }
+            long index = producerIndex;
+            int offset = (int) index & mask;
+            if (queue.get(offset) != null) { // more than requested
+                s.cancel();
+                onError(Exceptions.failWithOverflow());
+                return;
+            }
+            queue.lazySet(offset, t);
+            PRODUCER_INDEX.lazySet(this, index + 1);
+            drain();
+        }
+
+        @Override
+        public void onError(Throwable t) {
+            if (done) {
+                Operators.onErrorDropped(t);
+                return;
+            }
+            error = t;
+            done = true;
+            drain();
+        }
+
+        @Override
+        public void onComplete() {
+            if (done) {
+                return;
+            }
+            done = true;
+            drain();
+        }
+
+        @Override
+        public void request(long n) {
+            if (Operators.validate(n)) {
+                Operators.getAndAddCap(REQUESTED, this, n);
+                drain();
+            }
+        }
+
+        @Override
+        public void cancel() {
+            if (!cancelled) {
+                cancelled = true;
+                s.cancel();
+                if (WIP.getAndIncrement(this) == 0) {
+                    clear();
+                }
+            }
+        }
+
+        private void drain() {
+            if (WIP.getAndIncrement(this) != 0) {
+                return;
+            }
+            long index = consumerIndex;
+
+            int missed = 1;
+            for (; ; ) {
+                long r = requested;
+                long emitted = 0;
+
+                while (emitted != r) {
+                    boolean d = done;
+                    int offset = (int) index & mask;
+                    T t = queue.get(offset);
+                    boolean empty = t == null;
+                    if (checkTerminated(d, empty)) {
+                        return;
+                    }
+                    if (empty) {
+                        if (!d) {
+                            starved = true;
+                        }
+                        break;
+                    }
+                    queue.lazySet(offset, null);
+                    index++;
+
+                    actual.onNext(t);
+                    emitted++;
+
+                    if (upstreamRequested - index <= batch >> 2) {
+                        consumerIndex = index;
+                        replenish();
+                    }
+                }
+
+                if (emitted == r) {
+                    boolean empty = queue.get((int) index & mask) == null;
+                    if (checkTerminated(done, empty)) {
+                        return;
+                    }
+                    if (producerIndex - index >= batch >> 1) {
+                        backlogged = true;
+                    }
+                }
+
+                if (emitted != 0 && r != Long.MAX_VALUE) {
+                    REQUESTED.addAndGet(this, -emitted);
+                }
+
+                consumerIndex = index;
+                missed = WIP.addAndGet(this, -missed);
+                if (missed == 0) {
+                    break;
+                }
+            }
+        }
+
+        private void replenish() {
+            if (done) {
+                return;
+            }
+            int next = batch;
+            if (starved) {
+                next = Math.min(maxBatch, batch + minBatch);
+            } else if (backlogged && consumerIndex >= recoveredAt) {
+                next = Math.max(minBatch, batch >> 1);
+                recoveredAt = upstreamRequested;
+            }
+            starved = false;
+            backlogged = false;
+
+            if (next != batch) {
+                batch = next;
+                onBatchChange.accept(next);
+            }
+
+            long toRequest = batch - (upstreamRequested - consumerIndex);
+            if (toRequest > 0) {
+                upstreamRequested += toRequest;
+                s.request(toRequest);
+            }
+        }
+
+        private boolean checkTerminated(boolean d, boolean empty) {
+            if (cancelled) {
+                clear();
+                return true;
+            }
+            if (d && empty) {
+                Throwable e = error;
+                if (e != null) {
+                    actual.onError(e);
+                } else {
+                    actual.onComplete();
+                }
+                return true;
+            }
+            return false;
+        }
+
+        private void clear() {
+            for (int i = 0; i < queue.length(); i++) {
+                queue.lazySet(i, null);
+            }
+        }
+    }
+}
@@ -0,0 +1,710 @@
+package com.balamaci.reactor.publisher;
+
+import com.balamaci.reactor.util.Hashing;
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+import reactor.core.Cancellation;
+import reactor.core.Exceptions;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.GroupedFlux;
+import reactor.core.publisher.Operators;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+import reactor.core.scheduler.TimedScheduler;
+import reactor.util.concurrent.QueueSupplier;
+
+import java.time.Duration;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+import java.util.function.Function;
+
+/**
+ * groupBy for keys of high cardinality - user ids, session ids. Flux.groupBy keeps every group until the source
+ * completes, so the groups pile up for as long as new keys come, and a flatMap with a concurrency lower than the
+ * number of groups stops requesting. Here at most 'maxGroups' groups are open:
+ *
+ * <pre>
+ * GroupMetrics metrics = new GroupMetrics("users");
+ * events.transform(BoundedGroupBy.groupByBounded(Event::userId, 1024, Duration.ofMinutes(5), metrics))
+ *       .flatMap(userEvents -&gt; userEvents.count().map(...), 1024)
+ * </pre>
+ *
+ * A group is completed - evicted - when it got no element for 'idleTimeout', or to make room for a new key when
+ * 'maxGroups' are open: the least recently used of 8 groups sampled in the index, like an LRU without a linked
+ * list to reorder on every element. A key coming back after its group was evicted gets a new group, so what's
+ * computed per group covers the elements between two evictions. The downstream needs a concurrency of at least
+ * 'maxGroups' to keep requesting.
+ *
+ * The groups are found in an open addressing index - the hashes in an int[], the groups in an array, sized for
+ * maxGroups up front - instead of a HashMap node per group. The source elements, the idle sweeps of the timer and
+ * the cancelled groups are serialized through one 'wip': an element takes it with a single CAS, the rare sweep
+ * finding it taken leaves its work to the holder.
+ */
+public final class BoundedGroupBy<T, K> extends Flux<GroupedFlux<K, T>> {
+
+    private static final int SAMPLES = 8;
+
+    private final Publisher<? extends T> source;
+    private final Function<? super T, ? extends K> keySelector;
+    private final int maxGroups;
+    private final long idleTimeoutNanos;
+    private final TimedScheduler timer;
+    private final int prefetch;
+    private final GroupMetrics metrics;
+
+    /**
+     * The groups are evicted only for the limit
+     */
+    public static <T, K> Function<Flux<T>, Flux<GroupedFlux<K, T>>> groupByBounded(
+            Function<? super T, ? extends K> keySelector, int maxGroups, GroupMetrics metrics) {
+        return flux -> new BoundedGroupBy<>(flux, keySelector, maxGroups, 0, null,
+                QueueSupplier.SMALL_BUFFER_SIZE, metrics);
+    }
+
+    /**
+     * @param idleTimeout checked by Schedulers.timer() every idleTimeout / 2 - a group is evicted between 1 and
+     *                    1.5 idleTimeout after its last element
+     */
+    public static <T, K> Function<Flux<T>, Flux<GroupedFlux<K, T>>> groupByBounded(
+            Function<? super T, ? extends K> keySelector, int maxGroups, Duration idleTimeout, GroupMetrics metrics) {
+        return groupByBounded(keySelector, maxGroups, idleTimeout, Schedulers.timer(), metrics);
+    }
+
+    public static <T, K> Function<Flux<T>, Flux<GroupedFlux<K, T>>> groupByBounded(
+            Function<? super T, ? extends K> keySelector, int maxGroups, Duration idleTimeout, TimedScheduler timer,
+            GroupMetrics metrics) {
+        long idleTimeoutNanos = idleTimeout.toNanos();
+        if (idleTimeoutNanos < 2) {
+            throw new IllegalArgumentException("idleTimeout >= 2ns required but it was " + idleTimeout);
+        }
+        return flux -> new BoundedGroupBy<>(flux, keySelector, maxGroups, idleTimeoutNanos, timer,
+                QueueSupplier.SMALL_BUFFER_SIZE, metrics);
+    }
+
+    /**
+     * @param idleTimeoutNanos 0 for no idle eviction
+     * @param metrics null to keep the counts to itself
+     */
+    public BoundedGroupBy(Publisher<? extends T> source, Function<? super T, ? extends K> keySelector,
+                          int maxGroups, long idleTimeoutNanos, TimedScheduler timer, int prefetch,
+                          GroupMetrics metrics) {
+        if (maxGroups <= 0) {
+            throw new IllegalArgumentException("maxGroups > 0 required but it was " + maxGroups);
+        }
+        if (prefetch <= 0) {
+            throw new IllegalArgumentException("prefetch > 0 required but it was " + prefetch);
+        }
+        this.source = source;
+        this.keySelector = keySelector;
+        this.maxGroups = maxGroups;
+        this.idleTimeoutNanos = idleTimeoutNanos;
+        this.timer = timer;
+        this.prefetch = prefetch;
+        this.metrics = metrics != null ? metrics : new GroupMetrics("groupByBounded");
+    }
+
+    @Override
+    public void subscribe(Subscriber<? super GroupedFlux<K, T>> subscriber) {
+        source.subscribe(new BoundedGroupBySubscriber<>(subscriber, keySelector, maxGroups, idleTimeoutNanos, timer,
+                prefetch, metrics));
+    }
+
+    static final class BoundedGroupBySubscriber<T, K> implements Subscriber<T>, Subscription, Runnable {
+
+        private final Subscriber<? super GroupedFlux<K, T>> actual;
+        private final Function<? super T, ? extends K> keySelector;
+        private final int maxGroups;
+        private final long idleTimeoutNanos;
+        private final TimedScheduler timer;
+        private final int prefetch;
+        private final int limit;
+        private final GroupMetrics metrics;
+
+        private Subscription s;
+        private Cancellation sweeps;
+
+        /** the key index, touched only while holding the wip */
+        private final Group<K, T>[] groups;
+        private final int[] hashes;
+        private final int mask;
+        private int size;
+        private int cursor;
+        private long sequence;
+        private boolean terminated;
+
+        /** what found the wip taken, for the holder to do */
+        private final Queue<T> missedElements = new ConcurrentLinkedQueue<>();
+        private final Queue<Group<K, T>> cancelledGroups = new ConcurrentLinkedQueue<>();
+        private volatile boolean sweepDue;
+
+        /** advanced by the timer every idleTimeout / 2 */
+        private volatile long ticks;
+
+        private volatile boolean sourceDone;
+        private Throwable sourceError;
+
+        private volatile int wip;
+        @SuppressWarnings("rawtypes")
+        private static final AtomicIntegerFieldUpdater<BoundedGroupBySubscriber> WIP =
+                AtomicIntegerFieldUpdater.newUpdater(BoundedGroupBySubscriber.class, "wip");
+
+        /** the new groups waiting for the downstream demand */
+        private final Queue<Group<K, T>> newGroups = new ConcurrentLinkedQueue<>();
+        private volatile boolean groupsDone;
+        private volatile Throwable groupsError;
+        private volatile boolean cancelled;
+
+        private volatile long requested;
+        @SuppressWarnings("rawtypes")
+        private static final AtomicLongFieldUpdater<BoundedGroupBySubscriber> REQUESTED =
+                AtomicLongFieldUpdater.newUpdater(BoundedGroupBySubscriber.class, "requested");
+
+        private volatile int emitWip;
+        @SuppressWarnings("rawtypes")
+        private static final AtomicIntegerFieldUpdater<BoundedGroupBySubscriber> EMIT_WIP =
+                AtomicIntegerFieldUpdater.newUpdater(BoundedGroupBySubscriber.class, "emitWip");
+
+        /** consumed by the groups and not requested again yet */
+        private volatile long consumed;
+        @SuppressWarnings("rawtypes")
+        private static final AtomicLongFieldUpdater<BoundedGroupBySubscriber> CONSUMED =
+                AtomicLongFieldUpdater.newUpdater(BoundedGroupBySubscriber.class, "consumed");
+
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        BoundedGroupBySubscriber(Subscriber<? super GroupedFlux<K, T>> actual,
+                                 Function<? super T, ? extends K> keySelector, int maxGroups, long idleTimeoutNanos,
+                                 TimedScheduler timer, int prefetch, GroupMetrics metrics) {
+            this.actual = actual;
+            this.keySelector = keySelector;
+            this.maxGroups = maxGroups;
+            this.idleTimeoutNanos = idleTimeoutNanos;
+            this.timer = timer;
+            this.prefetch = prefetch;
+            this.limit = prefetch - (prefetch >> 2);
+            this.metrics = metrics;
+
+            int capacity = QueueSupplier.ceilingNextPowerOfTwo(Math.max(4, maxGroups * 2)); // at most half full
+            this.groups = new Group[capacity];
+            this.hashes = new int[capacity];
+            this.mask = capacity - 1;
+        }
+
+        @Override
+        public void onSubscribe(Subscription subscription) {
+            if (Operators.validate(s, subscription)) {
+                s = subscription;
+                actual.onSubscribe(this);
+                if (idleTimeoutNanos > 0) {
+                    long period = idleTimeoutNanos / 2;
+                    Cancellation task = timer.schedulePeriodically(this, period, period, TimeUnit.NANOSECONDS);
+                    if (task == Scheduler.REJECTED) {
+                        s.cancel();
+                        onError(new IllegalStateException("The timer rejected the idle sweeps"));
+                        return;
+                    }
+                    sweeps = task;
+                }
+                s.request(prefetch);
+            }
+        }
+
+        @Override
+        public void onNext(T t) {
+            if (wip == 0 && WIP.compareAndSet(this, 0, 1)) {
+                dispatch(t);
+                if (WIP.decrementAndGet(this) == 0) {
+                    return;
+                }
+            } else {
+                missedElements.offer(t);
+                if (WIP.getAndIncrement(this) != 0) {
+                    return;
+                }
+            }
+            drainSerialized();
+        }
+
+        @Override
+        public void onError(Throwable t) {
+            if (sourceDone) {
+                Operators.onErrorDropped(t);
+                return;
+            }
+            sourceError = t;
+            sourceDone = true;
+            enter();
+        }
+
+        @Override
+        public void onComplete() {
+            if (sourceDone) {
+                return;
+            }
+            sourceDone = true;
+            enter();
+        }
+
+        /**
+         * The idle sweep, from the timer
+         */
+        @Override
+        public void run() {
+            ticks++;
+            sweepDue = true;
+            enter();
+        }
+
+        @Override
+        public void request(long n) {
+            if (Operators.validate(n)) {
+                Operators.getAndAddCap(REQUESTED, this, n);
+                drainGroups();
+            }
+        }
+
+        /**
+         * The groups already emitted keep going, upstream is cancelled once they're all done
+         */
+        @Override
+        public void cancel() {
+            if (!cancelled) {
+                cancelled = true;
+                drainGroups();
+                enter();
+            }
+        }
+
+        void groupCancelled(Group<K, T> group) {
+            cancelledGroups.offer(group);
+            enter();
+        }
+
+        /**
+         * The groups consumed 'n' elements, requested again in batches
+         */
+        void replenish(long n) {
+            if (CONSUMED.addAndGet(this, n) >= limit) {
+                long r = CONSUMED.getAndSet(this, 0);
+                if (r != 0) {
+                    s.request(r);
+                }
+            }
+        }
+
+        private void enter() {
+            if (WIP.getAndIncrement(this) == 0) {
+                drainSerialized();
+            }
+        }
+
+        private void drainSerialized() {
+            int missed = 1;
+            for (;;) {
+                if (!terminated) {
+                    T t;
+                    while ((t = missedElements.poll()) != null) {
+                        dispatch(t);
+                    }
+                    Group<K, T> cancelledGroup;
+                    while ((cancelledGroup = cancelledGroups.poll()) != null) {
+                        removeCancelled(cancelledGroup);
+                    }
+                    if (sweepDue) {
+                        sweepDue = false;
+                        sweepIdle();
+                    }
+                    if (sourceDone) {
+                        terminate();
+                    } else if (cancelled && size == 0) {
+                        terminated = true;
+                        disposeSweeps();
+                        s.cancel();
+                    }
+                } else {
+                    missedElements.clear();
+                    cancelledGroups.clear();
+                }
+
+                missed = WIP.addAndGet(this, -missed);
+                if (missed == 0) {
+                    return;
+                }
+            }
+        }
+
+        private void dispatch(T t) {
+            if (terminated) {
+                Operators.onNextDropped(t);
+                return;
+            }
+            K key;
+            try {
+                key = keySelector.apply(t);
+                if (key == null) {
+                    throw new NullPointerException("The keySelector returned a null key");
+                }
+            } catch (Throwable e) {
+                Exceptions.throwIfFatal(e);
+                s.cancel();
+                sourceError = e;
+                sourceDone = true;
+                terminate();
+                return;
+            }
+
+            int hash = Hashing.spread(key.hashCode());
+            int slot = find(key, hash);
+            Group<K, T> group = slot < 0 ? null : groups[slot];
+            if (group != null && group.cancelled) {
+                removeAt(slot);
+                metrics.groupCancelled();
+                group = null;
+            }
+            if (group == null) {
+                if (cancelled) { // nobody to emit a new group to
+                    replenish(1);
+                    return;
+                }
+                if (size == maxGroups) {
+                    evictLeastRecentlyUsed();
+                }
+                group = new Group<>(key, this);
+                insert(hash, group);
+                metrics.groupCreated();
+                newGroups.offer(group);
+                drainGroups();
+            }
+            group.lastSequence = ++sequence;
+            group.lastTick = ticks;
+            group.queue.offer(t);
+            group.drain();
+        }
+
+        private void evictLeastRecentlyUsed() {
+            Group<K, T> oldest = null;
+            int oldestSlot = -1;
+            int samples = Math.min(SAMPLES, size);
+            int i = cursor;
+            while (samples > 0) {
+                Group<K, T> group = groups[i];
+                if (group != null) {
+                    if (oldest == null || group.cancelled || group.lastSequence < oldest.lastSequence) {
+                        oldest = group;
+                        oldestSlot = i;
+                        if (group.cancelled) {
+                            break;
+                        }
+                    }
+                    samples--;
+                }
+                i = (i + 1) & mask;
+            }
+            cursor = i;
+
+            removeAt(oldestSlot);
+            if (oldest.cancelled) {
+                metrics.groupCancelled();
+            } else {
+                metrics.groupEvictedForLimit();
+                oldest.complete(null);
+            }
+        }
+
+        private void sweepIdle() {
+            long now = ticks;
+            for (int i = 0; i < groups.length; i++) {
+                Group<K, T> group;
+                // the slot is checked again after a removal, the backward shift may have moved a group into it
+                while ((group = groups[i]) != null && (group.cancelled || now - group.lastTick > 2)) {
+                    removeAt(i);
+                    if (group.cancelled) {
+                        metrics.groupCancelled();
+                    } else {
+                        metrics.groupEvictedIdle();
+                        group.complete(null);
+                    }
+                }
+            }
+        }
+
+        private void removeCancelled(Group<K, T> group) {
+            int slot = find(group.key, Hashing.spread(group.key.hashCode()));
+            if (slot >= 0 && groups[slot] == group) {
+                removeAt(slot);
+                metrics.groupCancelled();
+            }
+        }
+
+        private void terminate() {
+            terminated = true;
+            disposeSweeps();
+            Throwable e = sourceError;
+            for (int i = 0; i < groups.length; i++) {
+                Group<K, T> group = groups[i];
+                if (group != null) {
+                    groups[i] = null;
+                    group.complete(e);
+                }
+            }
+            metrics.terminated(size);
+            size = 0;
+            groupsError = e;
+            groupsDone = true;
+            drainGroups();
+        }
+
+        private void disposeSweeps() {
+            if (sweeps != null) {
+                sweeps.dispose();
+            }
+        }
+
+        /**
+         * Emits the new groups as requested
+         */
+        private void drainGroups() {
+            if (EMIT_WIP.getAndIncrement(this) != 0) {
+                return;
+            }
+            int missed = 1;
+            for (;;) {
+                if (cancelled) {
+                    Group<K, T> group;
+                    while ((group = newGroups.poll()) != null) {
+                        group.cancel();
+                    }
+                } else {
+                    long r = requested;
+                    long e = 0;
+                    for (;;) {
+                        boolean d = groupsDone;
+                        if (d && newGroups.isEmpty()) {
+                            Throwable ex = groupsError;
+                            if (ex != null) {
+                                actual.onError(ex);
+                            } else {
+                                actual.onComplete();
+                            }
+                            return;
+                        }
+                        if (e == r) {
+                            break;
+                        }
+                        Group<K, T> group = newGroups.poll();
+                        if (group == null) {
+                            break;
+                        }
+                        actual.onNext(group);
+                        e++;
+                    }
+                    if (e != 0 && r != Long.MAX_VALUE) {
+                        REQUESTED.addAndGet(this, -e);
+                    }
+                }
+
+                missed = EMIT_WIP.addAndGet(this, -missed);
+                if (missed == 0) {
+                    return;
+                }
+            }
+        }
+
+        private int find(K key, int hash) {
+            int i = hash & mask;
+            Group<K, T> group;
+            while ((group = groups[i]) != null) {
+                if (hashes[i] == hash && group.key.equals(key)) {
+                    return i;
+                }
+                i = (i + 1) & mask;
+            }
+            return -1;
+        }
+
+        private void insert(int hash, Group<K, T> group) {
+            int i = hash & mask;
+            while (groups[i] != null) {
+                i = (i + 1) & mask;
+            }
+            groups[i] = group;
+            hashes[i] = hash;
+            size++;
+        }
+
+        /**
+         * Linear probing without tombstones: the groups after the freed slot that can't be found from their home
+         * slot any more are shifted back into it
+         */
+        private void removeAt(int slot) {
+            groups[slot] = null;
+            size--;
+            int free = slot;
+            int i = slot;
+            for (;;) {
+                i = (i + 1) & mask;
+                Group<K, T> group = groups[i];
+                if (group == null) {
+                    return;
+                }
+                int home = hashes[i] & mask;
+                boolean reachable = free <= i ? (free < home && home <= i) : (free < home || home <= i);
+                if (!reachable) {
+                    groups[free] = group;
+                    hashes[free] = hashes[i];
+                    groups[i] = null;
+                    free = i;
+                }
+            }
+        }
+    }
+
+    /**
+     * A single subscriber group: the elements wait in its queue for its demand, the upstream is requested again
+     * as they're consumed.
+     */
+    static final class Group<K, T> extends GroupedFlux<K, T> implements Subscription {
+
+        final K key;
+        private final BoundedGroupBySubscriber<T, K> parent;
+        final Queue<T> queue = QueueSupplier.<T>unbounded(QueueSupplier.XS_BUFFER_SIZE).get();
+
+        /** touched only while holding the parent's wip */
+        long lastSequence;
+        long lastTick;
+
+        private volatile Subscriber<? super T> actual;
+
+        private volatile int once;
+        @SuppressWarnings("rawtypes")
+        private static final AtomicIntegerFieldUpdater<Group> ONCE =
+                AtomicIntegerFieldUpdater.newUpdater(Group.class, "once");
+
+        private volatile boolean done;
+        private Throwable error;
+        volatile boolean cancelled;
+
+        /** touched only in the drain loop */
+        private boolean terminated;
+
+        private volatile long requested;
+        @SuppressWarnings("rawtypes")
+        private static final AtomicLongFieldUpdater<Group> REQUESTED =
+                AtomicLongFieldUpdater.newUpdater(Group.class, "requested");
+
+        private volatile int wip;
+        @SuppressWarnings("rawtypes")
+        private static final AtomicIntegerFieldUpdater<Group> WIP =
+                AtomicIntegerFieldUpdater.newUpdater(Group.class, "wip");
+
+        Group(K key, BoundedGroupBySubscriber<T, K> parent) {
+            this.key = key;
+            this.parent = parent;
+        }
+
+        @Override
+        public K key() {
+            return key;
+        }
+
+        @Override
+        public void subscribe(Subscriber<? super T> subscriber) {
+            if (!ONCE.compareAndSet(this, 0, 1)) {
+                Operators.error(subscriber, new IllegalStateException("A group allows only one Subscriber"));
+                return;
+            }
+            subscriber.onSubscribe(this);
+            actual = subscriber;
+            drain();
+        }
+
+        @Override
+        public void request(long n) {
+            if (Operators.validate(n)) {
+                Operators.getAndAddCap(REQUESTED, this, n);
+                drain();
+            }
+        }
+
+        @Override
+        public void cancel() {
+            if (!cancelled) {
+                cancelled = true;
+                parent.groupCancelled(this);
+                drain();
+            }
+        }
+
+        /**
+         * @param e null to complete
+         */
+        void complete(Throwable e) {
+            error = e;
+            done = true;
+            drain();
+        }
+
+        void drain() {
+            if (WIP.getAndIncrement(this) != 0) {
+                return;
+            }
+            int missed = 1;
+            for (;;) {
+                Subscriber<? super T> a = actual;
+                if (cancelled || terminated) {
+                    discard();
+                } else if (a != null) {
+                    long r = requested;
+                    long e = 0;
+                    for (;;) {
+                        if (cancelled) {
+                            discard();
+                            break;
+                        }
+                        boolean d = done;
+                        boolean empty = queue.isEmpty();
+                        if (d && empty) {
+                            terminated = true;
+                            Throwable ex = error;
+                            if (ex != null) {
+                                a.onError(ex);
+                            } else {
+                                a.onComplete();
+                            }
+                            break;
+                        }
+                        if (e == r || empty) {
+                            break;
+                        }
+                        a.onNext(queue.poll());
+                        e++;
+                    }
+                    if (e != 0) {
+                        if (r != Long.MAX_VALUE) {
+                            REQUESTED.addAndGet(this, -e);
+                        }
+                        parent.replenish(e);
+                    }
+                }
+
+                missed = WIP.addAndGet(this, -missed);
+                if (missed == 0) {
+                    return;
+                }
+            }
+        }
+
+        private void discard() {
+            long dropped = 0;
+            while (queue.poll() != null) {
+                dropped++;
+            }
+            if (dropped != 0) {
+                parent.replenish(dropped);
+            }
+        }
+    }
+}
@@ -0,0 +1,348 @@
+package com.balamaci.reactor.publisher;
+
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+import reactor.core.Exceptions;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Operators;
+import reactor.util.concurrent.QueueSupplier;
+
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+
+/**
+ * Single producer / multiple consumer hot processor.
+ *
+ * The events received from the (single) upstream are written in a bounded ring buffer, every subscriber has its
+ * own cursor in the ring and its own demand, and receives events only as far as its own requests allow. There is
+ * no per subscriber queue, an event is stored once no matter how many subscribers there are.
+ *
+ * The upstream is requested only as much as the slowest subscriber has room for in the ring, so a slow subscriber
+ * slows down the whole broadcast instead of having events dropped or buffered without bound. With no subscriber
+ * at all the events are just passing through the ring (nobody is lagging behind), which is the 'hot' behavior.
+ *
+ * With history &gt; 0 the last 'history' events are retained in the ring and replayed to every new subscriber,
+ * also after the upstream terminated. The cost of the retention is one reference slot per retained event
+ * (4 bytes with compressed oops) on top of the retained events themselves. A slot is nulled once the slowest
+ * subscriber and the history both moved past it, so the delivered events aren't kept alive by the ring.
+ *
+ * The ring capacity is the next power of two of history + prefetch, the upstream is never allowed to be more than
+ * (capacity - history) events ahead of the slowest subscriber so the replayed events are never overwritten
+ * while a new subscriber joins.
+ *
+ * Like with publish(), the delivery to all the subscribers happens in a single serialized drain loop - one atomic
+ * increment per event no matter the number of subscribers - so a subscriber blocking in onNext holds back the
+ * others. Put a publishOn in front of such a subscriber.
+ */
+public final class BroadcastProcessor<T> extends Flux<T> implements Subscriber<T> {
+
+    @SuppressWarnings("rawtypes")
+    private static final Inner[] EMPTY = new Inner[0];
+
+    private final Object[] buffer;
+    private final int mask;
+    private final int history;
+    private final long maxAhead;
+    private final long replenishThreshold;
+
+    private volatile Subscription upstream;
+    @SuppressWarnings("rawtypes")
+    private static final AtomicReferenceFieldUpdater<BroadcastProcessor, Subscription> UPSTREAM =
+            AtomicReferenceFieldUpdater.newUpdater(BroadcastProcessor.class, Subscription.class, "upstream");
+
+    /** number of events written in the ring so far */
+    private volatile long producerIndex;
+
+    /** total number of events requested from upstream so far, changed only in the drain loop */
+    private volatile long upstreamRequested;
+
+    /** the slots below this index were nulled, changed only in the drain loop */
+    private long cleared;
+
+    private volatile boolean done;
+    private Throwable error;
+
+    private volatile Inner<T>[] subscribers;
+    @SuppressWarnings("rawtypes")
+    private static final AtomicReferenceFieldUpdater<BroadcastProcessor, Inner[]> SUBSCRIBERS =
+            AtomicReferenceFieldUpdater.newUpdater(BroadcastProcessor.class, Inner[].class, "subscribers");
+
+    private volatile int wip;
+    @SuppressWarnings("rawtypes")
+    private static final AtomicIntegerFieldUpdater<BroadcastProcessor> WIP =
+            AtomicIntegerFieldUpdater.newUpdater(BroadcastProcessor.class, "wip");
+
+    /**
+     * @param prefetch how many events the slowest subscriber may lag behind the upstream
+     */
+    public static <T> BroadcastProcessor<T> create(int prefetch) {
+        return new BroadcastProcessor<>(prefetch, 0);
+    }
+
+    /**
+     * @param history how many of the last events to replay to late subscribers
+     * @param prefetch how many events the slowest subscriber may lag behind the upstream
+     */
+    public static <T> BroadcastProcessor<T> replay(int history, int prefetch) {
+        return new BroadcastProcessor<>(prefetch, history);
+    }
+
+    @SuppressWarnings("unchecked")
+    private BroadcastProcessor(int prefetch, int history) {
+        if (prefetch <= 0) {
+            throw new IllegalArgumentException("prefetch > 0 required but it was " + prefetch);
+        }
+        if (history < 0) {
+            throw new IllegalArgumentException("history >= 0 required but it was " + history);
+        }
+        int capacity = QueueSupplier.ceilingNextPowerOfTwo(history + prefetch);
+        this.buffer = new Object[capacity];
+        this.mask = capacity - 1;
+        this.history = history;
+        this.maxAhead = capacity - history;
+        this.replenishThreshold = Math.max(1, maxAhead >> 2);
+        this.subscribers = EMPTY;
+    }
+
+    public int subscriberCount() {
+        return subscribers.length;
+    }
+
+    public int capacity() {
+        return buffer.length;
+    }
+
+    public boolean isTerminated() {
+        return done;
+    }
+
+    /**
+     * Disconnects from the upstream, the current subscribers don't receive any further signal
+     */
+    public void cancelUpstream() {
+        Operators.terminate(UPSTREAM, this);
+    }
+
+    @Override
+    public void onSubscribe(Subscription s) {
+        if (Operators.setOnce(UPSTREAM, this, s)) {
+            drain();
+        }
+    }
+
+    @Override
+    public void onNext(T t) {
+        if (done) {
+            Operators.onNextDropped(t);
+            return;
+        }
+        long index = producerIndex;
+        if (index == upstreamRequested) { // upstream ignores our requests
+            upstream.cancel();
+            onError(Exceptions.failWithOverflow());
+            return;
+        }
+        buffer[(int) index & mask] = t;
+        producerIndex = index + 1;
+        drain();
+    }
+
+    @Override
+    public void onError(Throwable t) {
+        if (done) {
+            Operators.onErrorDropped(t);
+            return;
+        }
+        error = t;
+        done = true;
+        drain();
+    }
+
+    @Override
+    public void onComplete() {
+        if (done) {
+            return;
+        }
+        done = true;
+        drain();
+    }
+
+    @Override
+    public void subscribe(Subscriber<? super T> subscriber) {
+        Inner<T> inner = new Inner<>(subscriber, this);
+        subscriber.onSubscribe(inner);
+        if (!inner.cancelled) {
+            add(inner);
+            if (inner.cancelled) { // cancelled while being added
+                remove(inner);
+            }
+            drain();
+        }
+    }
+
+    /**
+     * Delivers to every subscriber up to its own demand, then requests from upstream as much as the
+     * slowest subscriber allows, in batches of at least a quarter of the room in the ring.
+     */
+    @SuppressWarnings("unchecked")
+    void drain() {
+        if (WIP.getAndIncrement(this) != 0) {
+            return;
+        }
+        final Object[] buffer = this.buffer;
+        final int mask = this.mask;
+
+        int missed = 1;
+        for (; ; ) {
+            boolean d = done;
+            long produced = producerIndex;
+            long slowest = produced;
+
+            for (Inner<T> inner : subscribers) {
+                if (inner.cancelled) {
+                    continue;
+                }
+                long index = inner.cursor;
+                if (index < 0) { // just joined, starts with the retained history
+                    index = Math.max(0, produced - history);
+                }
+
+                long r = inner.requested;
+                long emitted = 0;
+                while (emitted != r && index != produced && !inner.cancelled) {
+                    inner.actual.onNext((T) buffer[(int) index & mask]);
+                    index++;
+                    emitted++;
+                }
+                inner.cursor = index;
+
+                if (emitted != 0 && r != Long.MAX_VALUE) {
+                    Inner.REQUESTED.addAndGet(inner, -emitted);
+                }
+
+                if (d && index == produced) {
+                    inner.terminate();
+                } else if (!inner.cancelled) {
+                    slowest = Math.min(slowest, index);
+                }
+            }
+
+            // before requesting: the next request lets the upstream write over the slots below slowest - history
+            long clearTo = Math.min(slowest, produced - history);
+            for (long index = cleared; index < clearTo; index++) {
+                buffer[(int) index & mask] = null;
+            }
+            cleared = Math.max(cleared, clearTo);
+
+            Subscription s = upstream;
+            if (s != null && !d) {
+                long requested = upstreamRequested;
+                long toRequest = slowest + maxAhead - requested;
+                // below the batch size only when everybody caught up, otherwise the upstream would be stalled
+                if (toRequest >= replenishThreshold || (toRequest > 0 && slowest == produced)) {
+                    upstreamRequested = requested + toRequest;
+                    s.request(toRequest);
+                }
+            }
+
+            missed = WIP.addAndGet(this, -missed);
+            if (missed == 0) {
+                break;
+            }
+        }
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private void add(Inner<T> inner) {
+        for (; ; ) {
+            Inner<T>[] current = subscribers;
+            int n = current.length;
+            Inner<T>[] next = new Inner[n + 1];
+            System.arraycopy(current, 0, next, 0, n);
+            next[n] = inner;
+            if (SUBSCRIBERS.compareAndSet(this, current, next)) {
+                return;
+            }
+        }
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    void remove(Inner<T> inner) {
+        for (; ; ) {
+            Inner<T>[] current = subscribers;
+            int n = current.length;
+            int j = -1;
+            for (int i = 0; i < n; i++) {
+                if (current[i] == inner) {
+                    j = i;
+                    break;
+                }
+            }
+            if (j < 0) {
+                return;
+            }
+            Inner<T>[] next;
+            if (n == 1) {
+                next = EMPTY;
+            } else {
+                next = new Inner[n - 1];
+                System.arraycopy(current, 0, next, 0, j);
+                System.arraycopy(current, j + 1, next, j, n - j - 1);
+            }
+            if (SUBSCRIBERS.compareAndSet(this, current, next)) {
+                return;
+            }
+        }
+    }
+
+    static final class Inner<T> implements Subscription {
+
+        final Subscriber<? super T> actual;
+        private final BroadcastProcessor<T> parent;
+
+        /** index in the ring of the next event to deliver, -1 until the drain loop first sees this subscriber */
+        long cursor = -1;
+
+        volatile boolean cancelled;
+
+        volatile long requested;
+        @SuppressWarnings("rawtypes")
+        static final AtomicLongFieldUpdater<Inner> REQUESTED =
+                AtomicLongFieldUpdater.newUpdater(Inner.class, "requested");
+
+        Inner(Subscriber<? super T> actual, BroadcastProcessor<T> parent) {
+            this.actual = actual;
+            this.parent = parent;
+        }
+
+        @Override
+        public void request(long n) {
+            if (Operators.validate(n)) {
+                Operators.getAndAddCap(REQUESTED, this, n);
+                parent.drain();
+            }
+        }
+
+        @Override
+        public void cancel() {
+            if (!cancelled) {
+                cancelled = true;
+                parent.remove(this);
+                parent.drain(); // it might have been the slowest one
+            }
+        }
+
+        void terminate() {
+            cancelled = true;
+            parent.remove(this);
+
+            Throwable e = parent.error;
+            if (e != null) {
+                actual.onError(e);
+            } else {
+                actual.onComplete();
+            }
+        }
+    }
+}
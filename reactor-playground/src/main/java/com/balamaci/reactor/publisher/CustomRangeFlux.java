@@ -0,0 +1,170 @@
+package com.balamaci.reactor.publisher;
+
+import org.reactivestreams.Subscriber;
+import reactor.core.Fuseable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Operators;
+
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+
+/**
+ * Production grade version of the CustomFlux from Part09BackpressureHandling, emitting the integers
+ * from startFrom to startFrom + count - 1.
+ *
+ * Compared to the playground version the subscription:
+ *    - accumulates the outstanding demand in a 'requested' counter (capped at Long.MAX_VALUE) so calling request(n)
+ *    from inside onNext (reentrant) or from another thread doesn't start a second emission loop, the thread that
+ *    moved 'requested' from 0 is the only one emitting
+ *    - has an unbounded fast path for request(Long.MAX_VALUE) which doesn't do any per item demand accounting
+ *    - has a slow path for bounded demand, which emits in batches of what was requested and only touches the
+ *    volatile 'requested' counter once per batch
+ *    - supports synchronous fusion (Fuseable.SYNC) so fuseable operators like map() and filter() can pull the values
+ *    with poll() instead of receiving them through onNext()
+ */
+public final class CustomRangeFlux extends Flux<Integer> implements Fuseable {
+
+    private final long startFrom;
+    private final long end;
+
+    public CustomRangeFlux(int startFrom, int count) {
+        if (count < 0) {
+            throw new IllegalArgumentException("count >= 0 required but it was " + count);
+        }
+        long end = (long) startFrom + count;
+        if (end - 1 > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Integer overflow for startFrom=" + startFrom + ", count=" + count);
+        }
+        this.startFrom = startFrom;
+        this.end = end;
+    }
+
+    @Override
+    public void subscribe(Subscriber<? super Integer> subscriber) {
+        if (startFrom == end) {
+            Operators.complete(subscriber);
+            return;
+        }
+        subscriber.onSubscribe(new CustomRangeSubscription(startFrom, end, subscriber));
+    }
+
+    static final class CustomRangeSubscription implements SynchronousSubscription<Integer> {
+
+        private final Subscriber<? super Integer> actualSubscriber;
+        private final long end;
+
+        private long index;
+
+        private volatile boolean cancelled;
+
+        private volatile long requested;
+        private static final AtomicLongFieldUpdater<CustomRangeSubscription> REQUESTED =
+                AtomicLongFieldUpdater.newUpdater(CustomRangeSubscription.class, "requested");
+
+        CustomRangeSubscription(long startFrom, long end, Subscriber<? super Integer> actualSubscriber) {
+            this.index = startFrom;
+            this.end = end;
+            this.actualSubscriber = actualSubscriber;
+        }
+
+        @Override
+        public void request(long n) {
+            if (Operators.validate(n)) {
+                if (Operators.getAndAddCap(REQUESTED, this, n) == 0) { // we are the ones that need to emit
+                    if (n == Long.MAX_VALUE) {
+                        fastPath();
+                    } else {
+                        slowPath(n);
+                    }
+                }
+            }
+        }
+
+        @Override
+        public void cancel() {
+            cancelled = true;
+        }
+
+        private void fastPath() {
+            final long end = this.end;
+            final Subscriber<? super Integer> a = actualSubscriber;
+
+            for (long i = index; i != end; i++) {
+                if (cancelled) {
+                    return;
+                }
+                a.onNext((int) i);
+            }
+            if (cancelled) {
+                return;
+            }
+            a.onComplete();
+        }
+
+        private void slowPath(long n) {
+            final long end = this.end;
+            final Subscriber<? super Integer> a = actualSubscriber;
+
+            long emitted = 0;
+            long i = index;
+
+            for (; ; ) {
+                while (emitted != n && i != end) {
+                    if (cancelled) {
+                        return;
+                    }
+                    a.onNext((int) i);
+
+                    emitted++;
+                    i++;
+                }
+
+                if (i == end) {
+                    if (!cancelled) {
+                        a.onComplete();
+                    }
+                    return;
+                }
+
+                n = requested;
+                if (n == emitted) { // no new request(n) arrived while emitting
+                    index = i;
+                    n = REQUESTED.addAndGet(this, -emitted);
+                    if (n == 0) {
+                        return;
+                    }
+                    emitted = 0;
+                }
+            }
+        }
+
+        @Override
+        public int requestFusion(int requestedMode) {
+            return requestedMode & SYNC;
+        }
+
+        @Override
+        public Integer poll() {
+            long i = index;
+            if (i == end) {
+                return null; // signals the completion in SYNC mode
+            }
+            index = i + 1;
+            return (int) i;
+        }
+
+        @Override
+        public boolean isEmpty() {
+            return index == end;
+        }
+
+        @Override
+        public int size() {
+            return (int) (end - index);
+        }
+
+        @Override
+        public void clear() {
+            index = end;
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package com.balamaci.reactor.publisher;
+
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+
+/**
+ * The groups of a {@link BoundedGroupBy}:
+ *
+ *   - live - the groups open right now, and the most open at the same time
+ *   - created - every group opened, a key coming back after its group was evicted opens a new one
+ *   - evictedIdle - completed because they had no element for the idle timeout
+ *   - evictedForLimit - completed to make room for a new key when maxGroups were open
+ *   - cancelled - dropped because their subscriber cancelled
+ *
+ * A GroupMetrics can be shared by several pipelines - every subscription adds its own groups to the counts -
+ * and read from any thread while they run.
+ */
+public final class GroupMetrics {
+
+    private final String name;
+
+    private volatile int live;
+    private static final AtomicIntegerFieldUpdater<GroupMetrics> LIVE =
+            AtomicIntegerFieldUpdater.newUpdater(GroupMetrics.class, "live");
+    private volatile int maxLive;
+    private static final AtomicIntegerFieldUpdater<GroupMetrics> MAX_LIVE =
+            AtomicIntegerFieldUpdater.newUpdater(GroupMetrics.class, "maxLive");
+    private volatile long created;
+    private static final AtomicLongFieldUpdater<GroupMetrics> CREATED =
+            AtomicLongFieldUpdater.newUpdater(GroupMetrics.class, "created");
+    private volatile long evictedIdle;
+    private static final AtomicLongFieldUpdater<GroupMetrics> EVICTED_IDLE =
+            AtomicLongFieldUpdater.newUpdater(GroupMetrics.class, "evictedIdle");
+    private volatile long evictedForLimit;
+    private static final AtomicLongFieldUpdater<GroupMetrics> EVICTED_FOR_LIMIT =
+            AtomicLongFieldUpdater.newUpdater(GroupMetrics.class, "evictedForLimit");
+    private volatile long cancelled;
+    private static final AtomicLongFieldUpdater<GroupMetrics> CANCELLED =
+            AtomicLongFieldUpdater.newUpdater(GroupMetrics.class, "cancelled");
+
+    public GroupMetrics(String name) {
+        this.name = name;
+    }
+
+    void groupCreated() {
+        CREATED.incrementAndGet(this);
+        int current = LIVE.incrementAndGet(this);
+        for (;;) {
+            int max = maxLive;
+            if (current <= max || MAX_LIVE.compareAndSet(this, max, current)) {
+                return;
+            }
+        }
+    }
+
+    void groupEvictedIdle() {
+        EVICTED_IDLE.incrementAndGet(this);
+        LIVE.decrementAndGet(this);
+    }
+
+    void groupEvictedForLimit() {
+        EVICTED_FOR_LIMIT.incrementAndGet(this);
+        LIVE.decrementAndGet(this);
+    }
+
+    void groupCancelled() {
+        CANCELLED.incrementAndGet(this);
+        LIVE.decrementAndGet(this);
+    }
+
+    /**
+     * @param closed the groups the terminating subscription still had open
+     */
+    void terminated(int closed) {
+        LIVE.addAndGet(this, -closed);
+    }
+
+    public int live() {
+        return live;
+    }
+
+    public int maxLive() {
+        return maxLive;
+    }
+
+    public long created() {
+        return created;
+    }
+
+    public long evictedIdle() {
+        return evictedIdle;
+    }
+
+    public long evictedForLimit() {
+        return evictedForLimit;
+    }
+
+    public long cancelled() {
+        return cancelled;
+    }
+
+    @Override
+    public String toString() {
+        return name + "[live=" + live + ", maxLive=" + maxLive + ", created=" + created + ", evictedIdle="
+                + evictedIdle + ", evictedForLimit=" + evictedForLimit + ", cancelled=" + cancelled + "]";
+    }
+}
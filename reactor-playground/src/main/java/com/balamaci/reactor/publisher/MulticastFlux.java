@@ -0,0 +1,108 @@
+package com.balamaci.reactor.publisher;
+
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+import reactor.core.Cancellation;
+import reactor.core.publisher.ConnectableFlux;
+
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * ConnectableFlux backed by a {@link BroadcastProcessor}, the hot counterpart of a cold source.
+ *
+ * Subscribers are attached to the processor but nothing flows until connect() subscribes the processor to the
+ * source. Being a ConnectableFlux it gets refCount(n) and autoConnect(n) for free. After the source terminated or
+ * the connection was cancelled, the next connect() starts over with a fresh processor - until then late
+ * subscribers still get the replayed history and the terminal signal.
+ */
+public final class MulticastFlux<T> extends ConnectableFlux<T> {
+
+    private final Publisher<? extends T> source;
+    private final Supplier<BroadcastProcessor<T>> processorSupplier;
+
+    private volatile Connection<T> connection;
+    @SuppressWarnings("rawtypes")
+    private static final AtomicReferenceFieldUpdater<MulticastFlux, Connection> CONNECTION =
+            AtomicReferenceFieldUpdater.newUpdater(MulticastFlux.class, Connection.class, "connection");
+
+    /**
+     * Like Flux.publish(prefetch) - subscribers receive just the events emitted after they subscribed
+     */
+    public static <T> MulticastFlux<T> broadcast(Publisher<? extends T> source, int prefetch) {
+        return new MulticastFlux<>(source, () -> BroadcastProcessor.create(prefetch));
+    }
+
+    /**
+     * Like Flux.replay(history) - subscribers first receive the last 'history' events
+     */
+    public static <T> MulticastFlux<T> replay(Publisher<? extends T> source, int history, int prefetch) {
+        return new MulticastFlux<>(source, () -> BroadcastProcessor.replay(history, prefetch));
+    }
+
+    private MulticastFlux(Publisher<? extends T> source, Supplier<BroadcastProcessor<T>> processorSupplier) {
+        this.source = source;
+        this.processorSupplier = processorSupplier;
+    }
+
+    @Override
+    public void connect(Consumer<? super Cancellation> cancelSupport) {
+        Connection<T> c = currentConnection();
+        if (c.connected == 1 && c.processor.isTerminated()) { // the previous connection ran to completion
+            CONNECTION.compareAndSet(this, c, null);
+            c = currentConnection();
+        }
+        cancelSupport.accept(c);
+
+        if (c.connected == 0 && Connection.CONNECTED.compareAndSet(c, 0, 1)) {
+            source.subscribe(c.processor);
+        }
+    }
+
+    @Override
+    public void subscribe(Subscriber<? super T> subscriber) {
+        currentConnection().processor.subscribe(subscriber);
+    }
+
+    @Override
+    public Object upstream() {
+        return source;
+    }
+
+    private Connection<T> currentConnection() {
+        for (; ; ) {
+            Connection<T> c = connection;
+            if (c != null && !c.disposed) {
+                return c;
+            }
+            Connection<T> fresh = new Connection<>(processorSupplier.get());
+            if (CONNECTION.compareAndSet(this, c, fresh)) {
+                return fresh;
+            }
+        }
+    }
+
+    static final class Connection<T> implements Cancellation {
+
+        final BroadcastProcessor<T> processor;
+
+        volatile boolean disposed;
+
+        volatile int connected;
+        @SuppressWarnings("rawtypes")
+        static final AtomicIntegerFieldUpdater<Connection> CONNECTED =
+                AtomicIntegerFieldUpdater.newUpdater(Connection.class, "connected");
+
+        Connection(BroadcastProcessor<T> processor) {
+            this.processor = processor;
+        }
+
+        @Override
+        public void dispose() {
+            disposed = true;
+            processor.cancelUpstream();
+        }
+    }
+}
@@ -0,0 +1,373 @@
+package com.balamaci.reactor.publisher;
+
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+import reactor.core.Exceptions;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Operators;
+import reactor.util.concurrent.QueueSupplier;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+import java.util.function.Function;
+
+/**
+ * flatMap that keeps the source order: up to 'maxConcurrency' inner publishers are subscribed at the same time
+ * like with flatMap, but their events come out one inner after the other like with concatMap.
+ *
+ * <pre>
+ * ReorderBufferMetrics metrics = new ReorderBufferMetrics("colors");
+ * colors.transform(OrderedFlatMap.flatMapOrdered(color -&gt; simulateRemoteOperation(color), 3, 4, metrics))
+ * </pre>
+ *
+ * The events of the inner at the head go straight through. The inners behind it buffer theirs, each in its own
+ * queue bounded by 'prefetch' - the reorder buffer - and when that is full the inner is not requested any more
+ * until it gets to the head, so a slow head costs at most (maxConcurrency - 1) * prefetch buffered events.
+ * When the head completes, the next inner's buffer is drained and another inner is subscribed.
+ *
+ * Errors are delivered right away, the buffered events are dropped. Works like Flux.flatMapSequential, which
+ * doesn't tell what's waiting in the buffers - the occupancy is recorded into the optional
+ * {@link ReorderBufferMetrics}.
+ */
+public final class OrderedFlatMap<T, R> extends Flux<R> {
+
+    private final Publisher<? extends T> source;
+    private final Function<? super T, ? extends Publisher<? extends R>> mapper;
+    private final int maxConcurrency;
+    private final int prefetch;
+    private final ReorderBufferMetrics metrics;
+
+    public static <T, R> Function<Flux<T>, Flux<R>> flatMapOrdered(
+            Function<? super T, ? extends Publisher<? extends R>> mapper, int maxConcurrency, int prefetch) {
+        return flux -> new OrderedFlatMap<>(flux, mapper, maxConcurrency, prefetch, null);
+    }
+
+    /**
+     * @param metrics where the reorder buffer occupancy is recorded
+     */
+    public static <T, R> Function<Flux<T>, Flux<R>> flatMapOrdered(
+            Function<? super T, ? extends Publisher<? extends R>> mapper, int maxConcurrency, int prefetch,
+            ReorderBufferMetrics metrics) {
+        return flux -> new OrderedFlatMap<>(flux, mapper, maxConcurrency, prefetch, metrics);
+    }
+
+    public OrderedFlatMap(Publisher<? extends T> source, Function<? super T, ? extends Publisher<? extends R>> mapper,
+                          int maxConcurrency, int prefetch, ReorderBufferMetrics metrics) {
+        if (maxConcurrency <= 0) {
+            throw new IllegalArgumentException("maxConcurrency > 0 required but it was " + maxConcurrency);
+        }
+        if (prefetch <= 0) {
+            throw new IllegalArgumentException("prefetch > 0 required but it was " + prefetch);
+        }
+        this.source = source;
+        this.mapper = mapper;
+        this.maxConcurrency = maxConcurrency;
+        this.prefetch = prefetch;
+        this.metrics = metrics;
+    }
+
+    @Override
+    public void subscribe(Subscriber<? super R> subscriber) {
+        source.subscribe(new OrderedFlatMapSubscriber<>(subscriber, mapper, maxConcurrency, prefetch, metrics));
+    }
+
+    static final class OrderedFlatMapSubscriber<T, R> implements Subscriber<T>, Subscription {
+
+        private final Subscriber<? super R> actual;
+        private final Function<? super T, ? extends Publisher<? extends R>> mapper;
+        private final int maxConcurrency;
+        private final int prefetch;
+        private final ReorderBufferMetrics metrics;
+
+        /** the subscribed inners in source order, the head is taken out into 'current' */
+        private final Queue<InnerSubscriber<R>> inners = new ConcurrentLinkedQueue<>();
+
+        /** touched only in the drain loop */
+        private InnerSubscriber<R> current;
+
+        private Subscription s;
+
+        private volatile boolean done;
+        private volatile boolean cancelled;
+
+        /** the first error, set under the monitor */
+        private volatile Throwable error;
+
+        private volatile long requested;
+        @SuppressWarnings("rawtypes")
+        private static final AtomicLongFieldUpdater<OrderedFlatMapSubscriber> REQUESTED =
+                AtomicLongFieldUpdater.newUpdater(OrderedFlatMapSubscriber.class, "requested");
+
+        private volatile int wip;
+        @SuppressWarnings("rawtypes")
+        private static final AtomicIntegerFieldUpdater<OrderedFlatMapSubscriber> WIP =
+                AtomicIntegerFieldUpdater.newUpdater(OrderedFlatMapSubscriber.class, "wip");
+
+        OrderedFlatMapSubscriber(Subscriber<? super R> actual,
+                                 Function<? super T, ? extends Publisher<? extends R>> mapper,
+                                 int maxConcurrency, int prefetch, ReorderBufferMetrics metrics) {
+            this.actual = actual;
+            this.mapper = mapper;
+            this.maxConcurrency = maxConcurrency;
+            this.prefetch = prefetch;
+            this.metrics = metrics;
+        }
+
+        @Override
+        public void onSubscribe(Subscription s) {
+            if (Operators.validate(this.s, s)) {
+                this.s = s;
+                actual.onSubscribe(this);
+                s.request(maxConcurrency);
+            }
+        }
+
+        @Override
+        public void onNext(T t) {
+            if (done || cancelled) {
+                Operators.onNextDropped(t);
+                return;
+            }
+            Publisher<? extends R> publisher;
+            try {
+                publisher = mapper.apply(t);
+                if (publisher == null) {
+                    throw new NullPointerException("The mapper returned a null Publisher");
+                }
+            } catch (Throwable e) {
+                Exceptions.throwIfFatal(e);
+                s.cancel();
+                onError(e);
+                return;
+            }
+
+            InnerSubscriber<R> inner = new InnerSubscriber<>(this, prefetch);
+            inners.offer(inner);
+            if (cancelled) { // the drain loop might have already cleaned up
+                inner.cancel();
+                inners.clear();
+                return;
+            }
+            publisher.subscribe(inner);
+        }
+
+        @Override
+        public void onError(Throwable t) {
+            if (done) {
+                Operators.onErrorDropped(t);
+                return;
+            }
+            done = true;
+            innerError(t);
+        }
+
+        @Override
+        public void onComplete() {
+            if (done) {
+                return;
+            }
+            done = true;
+            drain();
+        }
+
+        @Override
+        public void request(long n) {
+            if (Operators.validate(n)) {
+                Operators.getAndAddCap(REQUESTED, this, n);
+                drain();
+            }
+        }
+
+        @Override
+        public void cancel() {
+            if (!cancelled) {
+                cancelled = true;
+                s.cancel();
+                if (WIP.getAndIncrement(this) == 0) {
+                    cancelInners();
+                }
+            }
+        }
+
+        void innerError(Throwable e) {
+            synchronized (this) {
+                if (error != null) {
+                    Operators.onErrorDropped(e);
+                    return;
+                }
+                error = e;
+            }
+            drain();
+        }
+
+        void drain() {
+            if (WIP.getAndIncrement(this) != 0) {
+                return;
+            }
+
+            int missed = 1;
+
+            for (; ; ) {
+                long r = requested;
+                long e = 0L;
+
+                for (; ; ) {
+                    if (cancelled) {
+                        cancelInners();
+                        return;
+                    }
+                    Throwable ex = error;
+                    if (ex != null) {
+                        s.cancel();
+                        cancelInners();
+                        actual.onError(ex);
+                        return;
+                    }
+
+                    InnerSubscriber<R> inner = current;
+                    if (inner == null) {
+                        boolean d = done;
+                        inner = inners.poll();
+                        if (inner == null) {
+                            if (d) {
+                                actual.onComplete();
+                                return;
+                            }
+                            break;
+                        }
+                        current = inner;
+                    }
+
+                    if (inner.done && inner.queue.isEmpty()) {
+                        current = null;
+                        s.request(1);
+                        continue;
+                    }
+                    if (e == r) {
+                        break;
+                    }
+                    R v = inner.queue.poll();
+                    if (v == null) {
+                        break;
+                    }
+                    actual.onNext(v);
+                    inner.consumed();
+                    e++;
+                }
+
+                if (e != 0L && r != Long.MAX_VALUE) {
+                    REQUESTED.addAndGet(this, -e);
+                }
+                if (metrics != null) {
+                    recordOccupancy(e != r);
+                }
+
+                missed = WIP.addAndGet(this, -missed);
+                if (missed == 0) {
+                    break;
+                }
+            }
+        }
+
+        /**
+         * @param demand the drain stopped with demand left, so the head had nothing
+         */
+        private void recordOccupancy(boolean demand) {
+            long buffered = 0;
+            int waiting = 0;
+            for (InnerSubscriber<R> inner : inners) {
+                buffered += inner.produced;
+                waiting++;
+            }
+            metrics.record(buffered, waiting, demand && buffered > 0);
+        }
+
+        private void cancelInners() {
+            if (current != null) {
+                current.cancel();
+                current = null;
+            }
+            InnerSubscriber<R> inner;
+            while ((inner = inners.poll()) != null) {
+                inner.cancel();
+            }
+        }
+    }
+
+    static final class InnerSubscriber<R> implements Subscriber<R> {
+
+        private final OrderedFlatMapSubscriber<?, R> parent;
+        private final int prefetch;
+        private final int limit;
+
+        final Queue<R> queue;
+
+        volatile boolean done;
+
+        /** events received so far, written only by the inner's thread */
+        volatile long produced;
+        @SuppressWarnings("rawtypes")
+        private static final AtomicLongFieldUpdater<InnerSubscriber> PRODUCED =
+                AtomicLongFieldUpdater.newUpdater(InnerSubscriber.class, "produced");
+
+        /** touched only in the drain loop */
+        private int consumed;
+
+        private volatile Subscription s;
+        @SuppressWarnings("rawtypes")
+        private static final AtomicReferenceFieldUpdater<InnerSubscriber, Subscription> S =
+                AtomicReferenceFieldUpdater.newUpdater(InnerSubscriber.class, Subscription.class, "s");
+
+        InnerSubscriber(OrderedFlatMapSubscriber<?, R> parent, int prefetch) {
+            this.parent = parent;
+            this.prefetch = prefetch;
+            this.limit = prefetch - (prefetch >> 2);
+            this.queue = QueueSupplier.<R>get(prefetch).get();
+        }
+
+        @Override
+        public void onSubscribe(Subscription s) {
+            if (Operators.setOnce(S, this, s)) {
+                s.request(prefetch);
+            }
+        }
+
+        @Override
+        public void onNext(R t) {
+            if (!queue.offer(t)) {
+                cancel();
+                parent.innerError(new IllegalStateException("The inner publisher emitted more than requested"));
+                return;
+            }
+            PRODUCED.lazySet(this, produced + 1);
+            parent.drain();
+        }
+
+        @Override
+        public void onError(Throwable t) {
+            parent.innerError(t);
+        }
+
+        @Override
+        public void onComplete() {
+            done = true;
+            parent.drain();
+        }
+
+        void consumed() {
+            if (++consumed == limit) {
+                consumed = 0;
+                s.request(limit);
+            }
+        }
+
+        void cancel() {
+            Operators.terminate(S, this);
+            queue.clear();
+        }
+    }
+}
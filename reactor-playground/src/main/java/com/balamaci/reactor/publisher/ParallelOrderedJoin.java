@@ -0,0 +1,320 @@
+package com.balamaci.reactor.publisher;
+
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Operators;
+import reactor.core.publisher.ParallelFlux;
+import reactor.util.concurrent.QueueSupplier;
+import reactor.util.function.Tuple2;
+import reactor.util.function.Tuples;
+
+import java.util.Queue;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * The ordered counterpart of ParallelFlux.sequential(): merges the rails back into the order the events had in the
+ * source. ParallelFlux.sorted() can do that too, but only after collecting everything into lists - this one
+ * streams.
+ *
+ * The events are numbered with {@link #indexed(Flux)} before parallel(). The rails get the indexes round-robin and
+ * keep them ascending whatever map/filter does in between, so merging them is a k-way merge: the event with the
+ * smallest index among the rail heads goes next, as soon as every rail still running has a head. A filter can
+ * leave gaps in the indexes, that doesn't matter.
+ *
+ * <pre>
+ * Flux&lt;Integer&gt; squares = ParallelOrderedJoin.indexed(Flux.range(1, 100))
+ *         .parallel(4)
+ *         .runOn(Schedulers.parallel())
+ *         .map(mapValue(val -&gt; val * val))
+ *         .filter(testValue(val -&gt; val % 3 != 0))
+ *         .as(ParallelOrderedJoin::ordered);
+ * </pre>
+ *
+ * Every rail buffers at most 'prefetch' events, a rail that runs ahead of the slowest one stops until the merge
+ * catches up.
+ */
+public final class ParallelOrderedJoin<T> extends Flux<T> {
+
+    private final ParallelFlux<Tuple2<Long, T>> source;
+    private final int prefetch;
+
+    /**
+     * Pairs every event with its position in the source, the counter starts from 0 for every subscription
+     */
+    public static <T> Flux<Tuple2<Long, T>> indexed(Flux<T> source) {
+        return Flux.defer(() -> {
+            AtomicLong index = new AtomicLong();
+            return source.map(val -> Tuples.of(index.getAndIncrement(), val));
+        });
+    }
+
+    /**
+     * A map() for the indexed values of a rail, the index is kept
+     */
+    public static <T, R> Function<Tuple2<Long, T>, Tuple2<Long, R>> mapValue(Function<? super T, ? extends R> mapper) {
+        return indexed -> Tuples.of(indexed.getT1(), mapper.apply(indexed.getT2()));
+    }
+
+    /**
+     * A filter() for the indexed values of a rail
+     */
+    public static <T> Predicate<Tuple2<Long, T>> testValue(Predicate<? super T> predicate) {
+        return indexed -> predicate.test(indexed.getT2());
+    }
+
+    public static <T> Flux<T> ordered(ParallelFlux<Tuple2<Long, T>> rails) {
+        return ordered(rails, QueueSupplier.SMALL_BUFFER_SIZE);
+    }
+
+    /**
+     * @param prefetch how many events a rail can buffer ahead of the merge
+     */
+    public static <T> Flux<T> ordered(ParallelFlux<Tuple2<Long, T>> rails, int prefetch) {
+        return new ParallelOrderedJoin<>(rails, prefetch);
+    }
+
+    public ParallelOrderedJoin(ParallelFlux<Tuple2<Long, T>> source, int prefetch) {
+        if (prefetch <= 0) {
+            throw new IllegalArgumentException("prefetch > 0 required but it was " + prefetch);
+        }
+        this.source = source;
+        this.prefetch = prefetch;
+    }
+
+    @Override
+    public void subscribe(Subscriber<? super T> subscriber) {
+        OrderedJoinSubscription<T> parent = new OrderedJoinSubscription<>(subscriber, source.parallelism(),
+                prefetch);
+        subscriber.onSubscribe(parent);
+        source.subscribe(parent.rails);
+    }
+
+    static final class OrderedJoinSubscription<T> implements Subscription {
+
+        private final Subscriber<? super T> actual;
+        private final RailSubscriber<T>[] rails;
+
+        /** the current head of every rail, touched only in the drain loop */
+        private final Object[] heads;
+
+        private volatile boolean cancelled;
+
+        /** the first error, set under the monitor */
+        private volatile Throwable error;
+
+        private volatile long requested;
+        @SuppressWarnings("rawtypes")
+        private static final AtomicLongFieldUpdater<OrderedJoinSubscription> REQUESTED =
+                AtomicLongFieldUpdater.newUpdater(OrderedJoinSubscription.class, "requested");
+
+        private volatile int wip;
+        @SuppressWarnings("rawtypes")
+        private static final AtomicIntegerFieldUpdater<OrderedJoinSubscription> WIP =
+                AtomicIntegerFieldUpdater.newUpdater(OrderedJoinSubscription.class, "wip");
+
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        OrderedJoinSubscription(Subscriber<? super T> actual, int parallelism, int prefetch) {
+            this.actual = actual;
+            this.rails = new RailSubscriber[parallelism];
+            for (int i = 0; i < parallelism; i++) {
+                rails[i] = new RailSubscriber<>(this, prefetch);
+            }
+            this.heads = new Object[parallelism];
+        }
+
+        @Override
+        public void request(long n) {
+            if (Operators.validate(n)) {
+                Operators.getAndAddCap(REQUESTED, this, n);
+                drain();
+            }
+        }
+
+        @Override
+        public void cancel() {
+            if (!cancelled) {
+                cancelled = true;
+                cancelRails();
+                if (WIP.getAndIncrement(this) == 0) {
+                    clear();
+                }
+            }
+        }
+
+        void onError(Throwable e) {
+            synchronized (this) {
+                if (error != null) {
+                    Operators.onErrorDropped(e);
+                    return;
+                }
+                error = e;
+            }
+            drain();
+        }
+
+        void drain() {
+            if (WIP.getAndIncrement(this) != 0) {
+                return;
+            }
+
+            int missed = 1;
+            int n = rails.length;
+
+            for (; ; ) {
+                long r = requested;
+                long e = 0L;
+
+                for (; ; ) {
+                    if (cancelled) {
+                        clear();
+                        return;
+                    }
+                    Throwable ex = error;
+                    if (ex != null) {
+                        cancelRails();
+                        clear();
+                        actual.onError(ex);
+                        return;
+                    }
+
+                    // the rail with the smallest index at its head, -1 if a running rail has nothing yet
+                    int next = -1;
+                    long nextIndex = Long.MAX_VALUE;
+                    boolean allDone = true;
+                    for (int i = 0; i < n; i++) {
+                        RailSubscriber<T> rail = rails[i];
+                        boolean railDone = rail.done;
+                        @SuppressWarnings("unchecked")
+                        Tuple2<Long, T> head = (Tuple2<Long, T>) heads[i];
+                        if (head == null) {
+                            head = rail.queue.poll();
+                            heads[i] = head;
+                        }
+                        if (head == null) {
+                            if (!railDone) {
+                                allDone = false;
+                                next = -1;
+                                break;
+                            }
+                            continue;
+                        }
+                        allDone = false;
+                        long index = head.getT1();
+                        if (index < nextIndex) {
+                            nextIndex = index;
+                            next = i;
+                        }
+                    }
+
+                    if (allDone) {
+                        actual.onComplete();
+                        return;
+                    }
+                    if (next < 0 || e == r) {
+                        break;
+                    }
+
+                    @SuppressWarnings("unchecked")
+                    Tuple2<Long, T> head = (Tuple2<Long, T>) heads[next];
+                    heads[next] = null;
+                    actual.onNext(head.getT2());
+                    rails[next].consumed();
+                    e++;
+                }
+
+                if (e != 0L && r != Long.MAX_VALUE) {
+                    REQUESTED.addAndGet(this, -e);
+                }
+
+                missed = WIP.addAndGet(this, -missed);
+                if (missed == 0) {
+                    break;
+                }
+            }
+        }
+
+        private void cancelRails() {
+            for (RailSubscriber<T> rail : rails) {
+                rail.cancel();
+            }
+        }
+
+        private void clear() {
+            for (int i = 0; i < rails.length; i++) {
+                heads[i] = null;
+                rails[i].queue.clear();
+            }
+        }
+    }
+
+    static final class RailSubscriber<T> implements Subscriber<Tuple2<Long, T>> {
+
+        private final OrderedJoinSubscription<T> parent;
+        private final int prefetch;
+        private final int limit;
+
+        final Queue<Tuple2<Long, T>> queue;
+
+        volatile boolean done;
+
+        /** touched only in the drain loop */
+        private int consumed;
+
+        private volatile Subscription s;
+        @SuppressWarnings("rawtypes")
+        private static final AtomicReferenceFieldUpdater<RailSubscriber, Subscription> S =
+                AtomicReferenceFieldUpdater.newUpdater(RailSubscriber.class, Subscription.class, "s");
+
+        RailSubscriber(OrderedJoinSubscription<T> parent, int prefetch) {
+            this.parent = parent;
+            this.prefetch = prefetch;
+            this.limit = prefetch - (prefetch >> 2);
+            this.queue = QueueSupplier.<Tuple2<Long, T>>get(prefetch).get();
+        }
+
+        @Override
+        public void onSubscribe(Subscription s) {
+            if (Operators.setOnce(S, this, s)) {
+                s.request(prefetch);
+            }
+        }
+
+        @Override
+        public void onNext(Tuple2<Long, T> t) {
+            if (!queue.offer(t)) {
+                cancel();
+                parent.onError(new IllegalStateException("The rail emitted more than requested"));
+                return;
+            }
+            parent.drain();
+        }
+
+        @Override
+        public void onError(Throwable t) {
+            parent.onError(t);
+        }
+
+        @Override
+        public void onComplete() {
+            done = true;
+            parent.drain();
+        }
+
+        void consumed() {
+            if (++consumed == limit) {
+                consumed = 0;
+                s.request(limit);
+            }
+        }
+
+        void cancel() {
+            Operators.terminate(S, this);
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package com.balamaci.reactor.publisher;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * What happens in the reorder buffer of an {@link OrderedFlatMap}, sampled every time the drain loop stops:
+ *
+ *   - occupancy - the events already received from the inner publishers queued behind the head one, waiting
+ *   for it to complete
+ *   - waiting inners - how many inner publishers were subscribed behind the head one
+ *   - head-of-line stalls - how many times the drain stopped on an empty head while the subscriber had demand
+ *   and there were events behind it - the price of keeping the order
+ *
+ * Recording is wait free like in PublishOnMetrics, the snapshots can be taken from any thread while the pipeline
+ * runs.
+ */
+public final class ReorderBufferMetrics {
+
+    private final String name;
+
+    private final Recorder occupancy = new Recorder(3);
+    private final Recorder waitingInners = new Recorder(3);
+
+    /** added to by the drain loops of every subscription sharing the metrics */
+    private final LongAdder headOfLineStalls = new LongAdder();
+
+    private final Histogram occupancyTotal = new Histogram(3);
+    private final Histogram waitingInnersTotal = new Histogram(3);
+
+    public ReorderBufferMetrics(String name) {
+        this.name = name;
+    }
+
+    void record(long bufferedEvents, int inners, boolean stalled) {
+        occupancy.recordValue(bufferedEvents);
+        waitingInners.recordValue(inners);
+        if (stalled) {
+            headOfLineStalls.increment();
+        }
+    }
+
+    public synchronized Snapshot snapshot() {
+        occupancyTotal.add(occupancy.getIntervalHistogram());
+        waitingInnersTotal.add(waitingInners.getIntervalHistogram());
+        return new Snapshot(name, occupancyTotal, waitingInnersTotal, headOfLineStalls.sum());
+    }
+
+    public static final class Snapshot {
+
+        private final String name;
+        private final long occupancyP50;
+        private final long occupancyP99;
+        private final long occupancyMax;
+        private final long waitingInnersMax;
+        private final long samples;
+        private final long headOfLineStalls;
+
+        Snapshot(String name, Histogram occupancy, Histogram waitingInners, long headOfLineStalls) {
+            this.name = name;
+            this.occupancyP50 = occupancy.getValueAtPercentile(50);
+            this.occupancyP99 = occupancy.getValueAtPercentile(99);
+            this.occupancyMax = occupancy.getMaxValue();
+            this.waitingInnersMax = waitingInners.getMaxValue();
+            this.samples = occupancy.getTotalCount();
+            this.headOfLineStalls = headOfLineStalls;
+        }
+
+        public long occupancyP50() {
+            return occupancyP50;
+        }
+
+        public long occupancyP99() {
+            return occupancyP99;
+        }
+
+        public long occupancyMax() {
+            return occupancyMax;
+        }
+
+        public long waitingInnersMax() {
+            return waitingInnersMax;
+        }
+
+        public long samples() {
+            return samples;
+        }
+
+        public long headOfLineStalls() {
+            return headOfLineStalls;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%s[occupancy p50=%d p99=%d max=%d, waitingInners max=%d, " +
+                            "headOfLineStalls=%d, samples=%d]", name, occupancyP50, occupancyP99, occupancyMax,
+                    waitingInnersMax, headOfLineStalls, samples);
+        }
+    }
+}
@@ -0,0 +1,742 @@
+package com.balamaci.reactor.publisher.primitive;
+
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Operators;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+import java.util.function.IntBinaryOperator;
+import java.util.function.IntPredicate;
+import java.util.function.IntUnaryOperator;
+
+/**
+ * A stream of primitive int values, the int specialized counterpart of Flux&lt;Integer&gt;.
+ *
+ * Elements travel between the operators as int through {@link IntSubscriber#onNext(int)} so a chain like
+ * IntFlux.range(..).map(..).scan(..) doesn't allocate anything per element. Backpressure works the same as for
+ * a Flux, through the regular {@link Subscription}.
+ *
+ * At the edges it interoperates with Flux/Mono:
+ *    - {@link #from(Publisher)} unboxes a Publisher&lt;Integer&gt;
+ *    - {@link #boxed()}, {@link #buffer(int)}, {@link #reduce(int, IntBinaryOperator)} and {@link #sum()}
+ *    turn it back into a Flux/Mono (boxing once per element, per buffer or once per stream respectively)
+ */
+public abstract class IntFlux {
+
+    public abstract void subscribe(IntSubscriber subscriber);
+
+    public static IntFlux range(int start, int count) {
+        if (count < 0) {
+            throw new IllegalArgumentException("count >= 0 required but it was " + count);
+        }
+        long end = (long) start + count;
+        if (end - 1 > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Integer overflow for start=" + start + ", count=" + count);
+        }
+        return new IntRange(start, end);
+    }
+
+    public static IntFlux from(Publisher<Integer> source) {
+        return new IntFromPublisher(source);
+    }
+
+    public final IntFlux map(IntUnaryOperator mapper) {
+        return new IntMap(this, mapper);
+    }
+
+    public final IntFlux filter(IntPredicate predicate) {
+        return new IntFilter(this, predicate);
+    }
+
+    /**
+     * Like Flux.scan(initial, accumulator) - emits the initial value first and then every intermediate result
+     */
+    public final IntFlux scan(int initial, IntBinaryOperator accumulator) {
+        return new IntScan(this, initial, accumulator);
+    }
+
+    public final Mono<Integer> reduce(int initial, IntBinaryOperator accumulator) {
+        return new IntReduce(this, initial, accumulator);
+    }
+
+    public final Mono<Integer> sum() {
+        return reduce(0, Integer::sum);
+    }
+
+    /**
+     * Collects the values in int[] arrays of the given size, the last one may be smaller
+     */
+    public final Flux<int[]> buffer(int size) {
+        if (size <= 0) {
+            throw new IllegalArgumentException("size > 0 required but it was " + size);
+        }
+        return new IntBuffer(this, size);
+    }
+
+    public final Flux<Integer> boxed() {
+        return new IntBoxed(this);
+    }
+
+    public final LongFlux asLongFlux() {
+        return new IntAsLong(this);
+    }
+
+
+    static final class IntRange extends IntFlux {
+
+        private final long start;
+        private final long end;
+
+        IntRange(long start, long end) {
+            this.start = start;
+            this.end = end;
+        }
+
+        @Override
+        public void subscribe(IntSubscriber subscriber) {
+            if (start == end) {
+                subscriber.onSubscribe(Operators.emptySubscription());
+                subscriber.onComplete();
+                return;
+            }
+            subscriber.onSubscribe(new RangeSubscription(subscriber, start, end));
+        }
+
+        /**
+         * Same requested-counter drain as CustomRangeFlux, with a fast path for unbounded demand
+         */
+        static final class RangeSubscription implements Subscription {
+
+            private final IntSubscriber actual;
+            private final long end;
+
+            private long index;
+
+            private volatile boolean cancelled;
+
+            private volatile long requested;
+            private static final AtomicLongFieldUpdater<RangeSubscription> REQUESTED =
+                    AtomicLongFieldUpdater.newUpdater(RangeSubscription.class, "requested");
+
+            RangeSubscription(IntSubscriber actual, long start, long end) {
+                this.actual = actual;
+                this.index = start;
+                this.end = end;
+            }
+
+            @Override
+            public void request(long n) {
+                if (Operators.validate(n)) {
+                    if (Operators.getAndAddCap(REQUESTED, this, n) == 0) {
+                        if (n == Long.MAX_VALUE) {
+                            fastPath();
+                        } else {
+                            slowPath(n);
+                        }
+                    }
+                }
+            }
+
+            @Override
+            public void cancel() {
+                cancelled = true;
+            }
+
+            private void fastPath() {
+                final long end = this.end;
+                final IntSubscriber a = actual;
+
+                for (long i = index; i != end; i++) {
+                    if (cancelled) {
+                        return;
+                    }
+                    a.onNext((int) i);
+                }
+                if (!cancelled) {
+                    a.onComplete();
+                }
+            }
+
+            private void slowPath(long n) {
+                final long end = this.end;
+                final IntSubscriber a = actual;
+
+                long emitted = 0;
+                long i = index;
+
+                for (; ; ) {
+                    while (emitted != n && i != end) {
+                        if (cancelled) {
+                            return;
+                        }
+                        a.onNext((int) i);
+
+                        emitted++;
+                        i++;
+                    }
+
+                    if (i == end) {
+                        if (!cancelled) {
+                            a.onComplete();
+                        }
+                        return;
+                    }
+
+                    n = requested;
+                    if (n == emitted) {
+                        index = i;
+                        n = REQUESTED.addAndGet(this, -emitted);
+                        if (n == 0) {
+                            return;
+                        }
+                        emitted = 0;
+                    }
+                }
+            }
+        }
+    }
+
+    static final class IntFromPublisher extends IntFlux {
+
+        private final Publisher<Integer> source;
+
+        IntFromPublisher(Publisher<Integer> source) {
+            this.source = source;
+        }
+
+        @Override
+        public void subscribe(IntSubscriber subscriber) {
+            source.subscribe(new Subscriber<Integer>() {
+                @Override
+                public void onSubscribe(Subscription s) {
+                    subscriber.onSubscribe(s);
+                }
+
+                @Override
+                public void onNext(Integer value) {
+                    subscriber.onNext(value);
+                }
+
+                @Override
+                public void onError(Throwable t) {
+                    subscriber.onError(t);
+                }
+
+                @Override
+                public void onComplete() {
+                    subscriber.onComplete();
+                }
+            });
+        }
+    }
+
+    static final class IntMap extends IntFlux {
+
+        private final IntFlux source;
+        private final IntUnaryOperator mapper;
+
+        IntMap(IntFlux source, IntUnaryOperator mapper) {
+            this.source = source;
+            this.mapper = mapper;
+        }
+
+        @Override
+        public void subscribe(IntSubscriber subscriber) {
+            source.subscribe(new MapSubscriber(subscriber, mapper));
+        }
+
+        static final class MapSubscriber implements IntSubscriber {
+
+            private final IntSubscriber actual;
+            private final IntUnaryOperator mapper;
+
+            private Subscription s;
+            private boolean done;
+
+            MapSubscriber(IntSubscriber actual, IntUnaryOperator mapper) {
+                this.actual = actual;
+                this.mapper = mapper;
+            }
+
+            @Override
+            public void onSubscribe(Subscription s) {
+                this.s = s;
+                actual.onSubscribe(s);
+            }
+
+            @Override
+            public void onNext(int value) {
+                if (done) {
+                    return;
+                }
+                int mapped;
+                try {
+                    mapped = mapper.applyAsInt(value);
+                } catch (Throwable e) {
+                    onError(Operators.onOperatorError(s, e, value));
+                    return;
+                }
+                actual.onNext(mapped);
+            }
+
+            @Override
+            public void onError(Throwable t) {
+                if (done) {
+                    Operators.onErrorDropped(t);
+                    return;
+                }
+                done = true;
+                actual.onError(t);
+            }
+
+            @Override
+            public void onComplete() {
+                if (done) {
+                    return;
+                }
+                done = true;
+                actual.onComplete();
+            }
+        }
+    }
+
+    static final class IntFilter extends IntFlux {
+
+        private final IntFlux source;
+        private final IntPredicate predicate;
+
+        IntFilter(IntFlux source, IntPredicate predicate) {
+            this.source = source;
+            this.predicate = predicate;
+        }
+
+        @Override
+        public void subscribe(IntSubscriber subscriber) {
+            source.subscribe(new FilterSubscriber(subscriber, predicate));
+        }
+
+        static final class FilterSubscriber implements IntSubscriber {
+
+            private final IntSubscriber actual;
+            private final IntPredicate predicate;
+
+            private Subscription s;
+            private boolean done;
+
+            FilterSubscriber(IntSubscriber actual, IntPredicate predicate) {
+                this.actual = actual;
+                this.predicate = predicate;
+            }
+
+            @Override
+            public void onSubscribe(Subscription s) {
+                this.s = s;
+                actual.onSubscribe(s);
+            }
+
+            @Override
+            public void onNext(int value) {
+                if (done) {
+                    return;
+                }
+                boolean pass;
+                try {
+                    pass = predicate.test(value);
+                } catch (Throwable e) {
+                    onError(Operators.onOperatorError(s, e, value));
+                    return;
+                }
+                if (pass) {
+                    actual.onNext(value);
+                } else {
+                    s.request(1); // the dropped value was requested by downstream, replace it
+                }
+            }
+
+            @Override
+            public void onError(Throwable t) {
+                if (done) {
+                    Operators.onErrorDropped(t);
+                    return;
+                }
+                done = true;
+                actual.onError(t);
+            }
+
+            @Override
+            public void onComplete() {
+                if (done) {
+                    return;
+                }
+                done = true;
+                actual.onComplete();
+            }
+        }
+    }
+
+    static final class IntScan extends IntFlux {
+
+        private final IntFlux source;
+        private final int initial;
+        private final IntBinaryOperator accumulator;
+
+        IntScan(IntFlux source, int initial, IntBinaryOperator accumulator) {
+            this.source = source;
+            this.initial = initial;
+            this.accumulator = accumulator;
+        }
+
+        @Override
+        public void subscribe(IntSubscriber subscriber) {
+            source.subscribe(new ScanSubscriber(subscriber, initial, accumulator));
+        }
+
+        /**
+         * The initial value is emitted on the first request, so the first request(n) that goes
+         * upstream is n - 1. A source completing before that first request (ex. an empty range) has its
+         * completion delayed until the initial value was delivered.
+         */
+        static final class ScanSubscriber implements IntSubscriber, Subscription {
+
+            private static final int SEED_EMITTED = 1;
+            private static final int COMPLETE_PENDING = 2;
+
+            private final IntSubscriber actual;
+            private final IntBinaryOperator accumulator;
+
+            private int value;
+            private Subscription s;
+            private boolean seedRequested;
+            private boolean done;
+
+            private volatile int state;
+            private static final AtomicIntegerFieldUpdater<ScanSubscriber> STATE =
+                    AtomicIntegerFieldUpdater.newUpdater(ScanSubscriber.class, "state");
+
+            ScanSubscriber(IntSubscriber actual, int initial, IntBinaryOperator accumulator) {
+                this.actual = actual;
+                this.value = initial;
+                this.accumulator = accumulator;
+            }
+
+            @Override
+            public void onSubscribe(Subscription s) {
+                this.s = s;
+                actual.onSubscribe(this);
+            }
+
+            @Override
+            public void onNext(int t) {
+                if (done) {
+                    return;
+                }
+                int accumulated;
+                try {
+                    accumulated = accumulator.applyAsInt(value, t);
+                } catch (Throwable e) {
+                    onError(Operators.onOperatorError(s, e, t));
+                    return;
+                }
+                value = accumulated;
+                actual.onNext(accumulated);
+            }
+
+            @Override
+            public void onError(Throwable t) {
+                if (done) {
+                    Operators.onErrorDropped(t);
+                    return;
+                }
+                done = true;
+                actual.onError(t);
+            }
+
+            @Override
+            public void onComplete() {
+                if (done) {
+                    return;
+                }
+                done = true;
+                if (state == SEED_EMITTED || !STATE.compareAndSet(this, 0, COMPLETE_PENDING)) {
+                    actual.onComplete();
+                }
+            }
+
+            @Override
+            public void request(long n) {
+                if (!Operators.validate(n)) {
+                    return;
+                }
+                if (!seedRequested) {
+                    seedRequested = true;
+                    actual.onNext(value);
+
+                    if (STATE.getAndSet(this, SEED_EMITTED) == COMPLETE_PENDING) {
+                        actual.onComplete();
+                        return;
+                    }
+                    if (n != Long.MAX_VALUE) {
+                        n--;
+                    }
+                }
+                if (n > 0) {
+                    s.request(n);
+                }
+            }
+
+            @Override
+            public void cancel() {
+                s.cancel();
+            }
+        }
+    }
+
+    static final class IntReduce extends Mono<Integer> {
+
+        private final IntFlux source;
+        private final int initial;
+        private final IntBinaryOperator accumulator;
+
+        IntReduce(IntFlux source, int initial, IntBinaryOperator accumulator) {
+            this.source = source;
+            this.initial = initial;
+            this.accumulator = accumulator;
+        }
+
+        @Override
+        public void subscribe(Subscriber<? super Integer> subscriber) {
+            source.subscribe(new ReduceSubscriber(subscriber, initial, accumulator));
+        }
+
+        /**
+         * MonoSubscriber takes care of delivering the single result only once it was requested
+         */
+        static final class ReduceSubscriber extends Operators.MonoSubscriber<Integer, Integer>
+                implements IntSubscriber {
+
+            private final IntBinaryOperator accumulator;
+
+            private int accumulated;
+            private Subscription s;
+            private boolean done;
+
+            ReduceSubscriber(Subscriber<? super Integer> actual, int initial, IntBinaryOperator accumulator) {
+                super(actual);
+                this.accumulated = initial;
+                this.accumulator = accumulator;
+            }
+
+            @Override
+            public void onSubscribe(Subscription s) {
+                this.s = s;
+                actual.onSubscribe(this);
+                s.request(Long.MAX_VALUE);
+            }
+
+            @Override
+            public void onNext(int t) {
+                if (done) {
+                    return;
+                }
+                try {
+                    accumulated = accumulator.applyAsInt(accumulated, t);
+                } catch (Throwable e) {
+                    onError(Operators.onOperatorError(s, e, t));
+                }
+            }
+
+            @Override
+            public void onError(Throwable t) {
+                if (done) {
+                    Operators.onErrorDropped(t);
+                    return;
+                }
+                done = true;
+                actual.onError(t);
+            }
+
+            @Override
+            public void onComplete() {
+                if (done) {
+                    return;
+                }
+                done = true;
+                complete(accumulated);
+            }
+
+            @Override
+            public void cancel() {
+                super.cancel();
+                s.cancel();
+            }
+        }
+    }
+
+    static final class IntBuffer extends Flux<int[]> {
+
+        private final IntFlux source;
+        private final int size;
+
+        IntBuffer(IntFlux source, int size) {
+            this.source = source;
+            this.size = size;
+        }
+
+        @Override
+        public void subscribe(Subscriber<? super int[]> subscriber) {
+            source.subscribe(new BufferSubscriber(subscriber, size));
+        }
+
+        static final class BufferSubscriber implements IntSubscriber, Subscription {
+
+            private final Subscriber<? super int[]> actual;
+            private final int size;
+
+            private int[] buffer;
+            private int index;
+            private Subscription s;
+            private boolean done;
+
+            BufferSubscriber(Subscriber<? super int[]> actual, int size) {
+                this.actual = actual;
+                this.size = size;
+            }
+
+            @Override
+            public void onSubscribe(Subscription s) {
+                this.s = s;
+                actual.onSubscribe(this);
+            }
+
+            @Override
+            public void onNext(int value) {
+                if (done) {
+                    return;
+                }
+                int[] b = buffer;
+                if (b == null) {
+                    b = new int[size];
+                    buffer = b;
+                }
+                b[index++] = value;
+
+                if (index == size) {
+                    buffer = null;
+                    index = 0;
+                    actual.onNext(b);
+                }
+            }
+
+            @Override
+            public void onError(Throwable t) {
+                if (done) {
+                    Operators.onErrorDropped(t);
+                    return;
+                }
+                done = true;
+                buffer = null;
+                actual.onError(t);
+            }
+
+            @Override
+            public void onComplete() {
+                if (done) {
+                    return;
+                }
+                done = true;
+                int[] b = buffer;
+                if (b != null) {
+                    // fewer than requested * size values arrived so there is demand for this partial buffer
+                    buffer = null;
+                    actual.onNext(Arrays.copyOf(b, index));
+                }
+                actual.onComplete();
+            }
+
+            @Override
+            public void request(long n) {
+                if (Operators.validate(n)) {
+                    s.request(Operators.multiplyCap(n, size));
+                }
+            }
+
+            @Override
+            public void cancel() {
+                s.cancel();
+            }
+        }
+    }
+
+    static final class IntBoxed extends Flux<Integer> {
+
+        private final IntFlux source;
+
+        IntBoxed(IntFlux source) {
+            this.source = source;
+        }
+
+        @Override
+        public void subscribe(Subscriber<? super Integer> subscriber) {
+            source.subscribe(new IntSubscriber() {
+                @Override
+                public void onSubscribe(Subscription s) {
+                    subscriber.onSubscribe(s);
+                }
+
+                @Override
+                public void onNext(int value) {
+                    subscriber.onNext(value);
+                }
+
+                @Override
+                public void onError(Throwable t) {
+                    subscriber.onError(t);
+                }
+
+                @Override
+                public void onComplete() {
+                    subscriber.onComplete();
+                }
+            });
+        }
+    }
+
+    static final class IntAsLong extends LongFlux {
+
+        private final IntFlux source;
+
+        IntAsLong(IntFlux source) {
+            this.source = source;
+        }
+
+        @Override
+        public void subscribe(LongSubscriber subscriber) {
+            source.subscribe(new IntSubscriber() {
+                @Override
+                public void onSubscribe(Subscription s) {
+                    subscriber.onSubscribe(s);
+                }
+
+                @Override
+                public void onNext(int value) {
+                    subscriber.onNext(value);
+                }
+
+                @Override
+                public void onError(Throwable t) {
+                    subscriber.onError(t);
+                }
+
+                @Override
+                public void onComplete() {
+                    subscriber.onComplete();
+                }
+            });
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package com.balamaci.reactor.publisher.primitive;
+
+import org.reactivestreams.Subscription;
+
+/**
+ * Same contract as the Reactive Streams {@link org.reactivestreams.Subscriber} but receiving primitive int values,
+ * so no Integer is allocated for each element.
+ * Backpressure uses the regular {@link Subscription}.
+ */
+public interface IntSubscriber {
+
+    void onSubscribe(Subscription s);
+
+    void onNext(int value);
+
+    void onError(Throwable t);
+
+    void onComplete();
+}
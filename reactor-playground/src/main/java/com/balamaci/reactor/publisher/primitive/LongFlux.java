@@ -0,0 +1,704 @@
+package com.balamaci.reactor.publisher.primitive;
+
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Operators;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+import java.util.function.LongBinaryOperator;
+import java.util.function.LongPredicate;
+import java.util.function.LongUnaryOperator;
+
+/**
+ * A stream of primitive long values, the long specialized counterpart of Flux&lt;Long&gt;.
+ *
+ * Elements travel between the operators as long through {@link LongSubscriber#onNext(long)} so a chain like
+ * LongFlux.range(..).map(..).scan(..) doesn't allocate anything per element. Backpressure works the same as for
+ * a Flux, through the regular {@link Subscription}.
+ *
+ * At the edges it interoperates with Flux/Mono:
+ *    - {@link #from(Publisher)} unboxes a Publisher&lt;Long&gt;
+ *    - {@link #boxed()}, {@link #buffer(int)}, {@link #reduce(long, LongBinaryOperator)} and {@link #sum()}
+ *    turn it back into a Flux/Mono (boxing once per element, per buffer or once per stream respectively)
+ */
+public abstract class LongFlux {
+
+    public abstract void subscribe(LongSubscriber subscriber);
+
+    public static LongFlux range(long start, long count) {
+        if (count < 0) {
+            throw new IllegalArgumentException("count >= 0 required but it was " + count);
+        }
+        if (count > 0 && start > Long.MAX_VALUE - count + 1) {
+            throw new IllegalArgumentException("Long overflow for start=" + start + ", count=" + count);
+        }
+        return new LongRange(start, start + count);
+    }
+
+    public static LongFlux from(Publisher<Long> source) {
+        return new LongFromPublisher(source);
+    }
+
+    public final LongFlux map(LongUnaryOperator mapper) {
+        return new LongMap(this, mapper);
+    }
+
+    public final LongFlux filter(LongPredicate predicate) {
+        return new LongFilter(this, predicate);
+    }
+
+    /**
+     * Like Flux.scan(initial, accumulator) - emits the initial value first and then every intermediate result
+     */
+    public final LongFlux scan(long initial, LongBinaryOperator accumulator) {
+        return new LongScan(this, initial, accumulator);
+    }
+
+    public final Mono<Long> reduce(long initial, LongBinaryOperator accumulator) {
+        return new LongReduce(this, initial, accumulator);
+    }
+
+    public final Mono<Long> sum() {
+        return reduce(0, Long::sum);
+    }
+
+    /**
+     * Collects the values in long[] arrays of the given size, the last one may be smaller
+     */
+    public final Flux<long[]> buffer(int size) {
+        if (size <= 0) {
+            throw new IllegalArgumentException("size > 0 required but it was " + size);
+        }
+        return new LongBuffer(this, size);
+    }
+
+    public final Flux<Long> boxed() {
+        return new LongBoxed(this);
+    }
+
+
+
+    static final class LongRange extends LongFlux {
+
+        private final long start;
+        private final long end;
+
+        LongRange(long start, long end) {
+            this.start = start;
+            this.end = end;
+        }
+
+        @Override
+        public void subscribe(LongSubscriber subscriber) {
+            if (start == end) {
+                subscriber.onSubscribe(Operators.emptySubscription());
+                subscriber.onComplete();
+                return;
+            }
+            subscriber.onSubscribe(new RangeSubscription(subscriber, start, end));
+        }
+
+        /**
+         * Same requested-counter drain as CustomRangeFlux, with a fast path for unbounded demand
+         */
+        static final class RangeSubscription implements Subscription {
+
+            private final LongSubscriber actual;
+            private final long end;
+
+            private long index;
+
+            private volatile boolean cancelled;
+
+            private volatile long requested;
+            private static final AtomicLongFieldUpdater<RangeSubscription> REQUESTED =
+                    AtomicLongFieldUpdater.newUpdater(RangeSubscription.class, "requested");
+
+            RangeSubscription(LongSubscriber actual, long start, long end) {
+                this.actual = actual;
+                this.index = start;
+                this.end = end;
+            }
+
+            @Override
+            public void request(long n) {
+                if (Operators.validate(n)) {
+                    if (Operators.getAndAddCap(REQUESTED, this, n) == 0) {
+                        if (n == Long.MAX_VALUE) {
+                            fastPath();
+                        } else {
+                            slowPath(n);
+                        }
+                    }
+                }
+            }
+
+            @Override
+            public void cancel() {
+                cancelled = true;
+            }
+
+            private void fastPath() {
+                final long end = this.end;
+                final LongSubscriber a = actual;
+
+                for (long i = index; i != end; i++) {
+                    if (cancelled) {
+                        return;
+                    }
+                    a.onNext(i);
+                }
+                if (!cancelled) {
+                    a.onComplete();
+                }
+            }
+
+            private void slowPath(long n) {
+                final long end = this.end;
+                final LongSubscriber a = actual;
+
+                long emitted = 0;
+                long i = index;
+
+                for (; ; ) {
+                    while (emitted != n && i != end) {
+                        if (cancelled) {
+                            return;
+                        }
+                        a.onNext(i);
+
+                        emitted++;
+                        i++;
+                    }
+
+                    if (i == end) {
+                        if (!cancelled) {
+                            a.onComplete();
+                        }
+                        return;
+                    }
+
+                    n = requested;
+                    if (n == emitted) {
+                        index = i;
+                        n = REQUESTED.addAndGet(this, -emitted);
+                        if (n == 0) {
+                            return;
+                        }
+                        emitted = 0;
+                    }
+                }
+            }
+        }
+    }
+
+    static final class LongFromPublisher extends LongFlux {
+
+        private final Publisher<Long> source;
+
+        LongFromPublisher(Publisher<Long> source) {
+            this.source = source;
+        }
+
+        @Override
+        public void subscribe(LongSubscriber subscriber) {
+            source.subscribe(new Subscriber<Long>() {
+                @Override
+                public void onSubscribe(Subscription s) {
+                    subscriber.onSubscribe(s);
+                }
+
+                @Override
+                public void onNext(Long value) {
+                    subscriber.onNext(value);
+                }
+
+                @Override
+                public void onError(Throwable t) {
+                    subscriber.onError(t);
+                }
+
+                @Override
+                public void onComplete() {
+                    subscriber.onComplete();
+                }
+            });
+        }
+    }
+
+    static final class LongMap extends LongFlux {
+
+        private final LongFlux source;
+        private final LongUnaryOperator mapper;
+
+        LongMap(LongFlux source, LongUnaryOperator mapper) {
+            this.source = source;
+            this.mapper = mapper;
+        }
+
+        @Override
+        public void subscribe(LongSubscriber subscriber) {
+            source.subscribe(new MapSubscriber(subscriber, mapper));
+        }
+
+        static final class MapSubscriber implements LongSubscriber {
+
+            private final LongSubscriber actual;
+            private final LongUnaryOperator mapper;
+
+            private Subscription s;
+            private boolean done;
+
+            MapSubscriber(LongSubscriber actual, LongUnaryOperator mapper) {
+                this.actual = actual;
+                this.mapper = mapper;
+            }
+
+            @Override
+            public void onSubscribe(Subscription s) {
+                this.s = s;
+                actual.onSubscribe(s);
+            }
+
+            @Override
+            public void onNext(long value) {
+                if (done) {
+                    return;
+                }
+                long mapped;
+                try {
+                    mapped = mapper.applyAsLong(value);
+                } catch (Throwable e) {
+                    onError(Operators.onOperatorError(s, e, value));
+                    return;
+                }
+                actual.onNext(mapped);
+            }
+
+            @Override
+            public void onError(Throwable t) {
+                if (done) {
+                    Operators.onErrorDropped(t);
+                    return;
+                }
+                done = true;
+                actual.onError(t);
+            }
+
+            @Override
+            public void onComplete() {
+                if (done) {
+                    return;
+                }
+                done = true;
+                actual.onComplete();
+            }
+        }
+    }
+
+    static final class LongFilter extends LongFlux {
+
+        private final LongFlux source;
+        private final LongPredicate predicate;
+
+        LongFilter(LongFlux source, LongPredicate predicate) {
+            this.source = source;
+            this.predicate = predicate;
+        }
+
+        @Override
+        public void subscribe(LongSubscriber subscriber) {
+            source.subscribe(new FilterSubscriber(subscriber, predicate));
+        }
+
+        static final class FilterSubscriber implements LongSubscriber {
+
+            private final LongSubscriber actual;
+            private final LongPredicate predicate;
+
+            private Subscription s;
+            private boolean done;
+
+            FilterSubscriber(LongSubscriber actual, LongPredicate predicate) {
+                this.actual = actual;
+                this.predicate = predicate;
+            }
+
+            @Override
+            public void onSubscribe(Subscription s) {
+                this.s = s;
+                actual.onSubscribe(s);
+            }
+
+            @Override
+            public void onNext(long value) {
+                if (done) {
+                    return;
+                }
+                boolean pass;
+                try {
+                    pass = predicate.test(value);
+                } catch (Throwable e) {
+                    onError(Operators.onOperatorError(s, e, value));
+                    return;
+                }
+                if (pass) {
+                    actual.onNext(value);
+                } else {
+                    s.request(1); // the dropped value was requested by downstream, replace it
+                }
+            }
+
+            @Override
+            public void onError(Throwable t) {
+                if (done) {
+                    Operators.onErrorDropped(t);
+                    return;
+                }
+                done = true;
+                actual.onError(t);
+            }
+
+            @Override
+            public void onComplete() {
+                if (done) {
+                    return;
+                }
+                done = true;
+                actual.onComplete();
+            }
+        }
+    }
+
+    static final class LongScan extends LongFlux {
+
+        private final LongFlux source;
+        private final long initial;
+        private final LongBinaryOperator accumulator;
+
+        LongScan(LongFlux source, long initial, LongBinaryOperator accumulator) {
+            this.source = source;
+            this.initial = initial;
+            this.accumulator = accumulator;
+        }
+
+        @Override
+        public void subscribe(LongSubscriber subscriber) {
+            source.subscribe(new ScanSubscriber(subscriber, initial, accumulator));
+        }
+
+        /**
+         * The initial value is emitted on the first request, so the first request(n) that goes
+         * upstream is n - 1. A source completing before that first request (ex. an empty range) has its
+         * completion delayed until the initial value was delivered.
+         */
+        static final class ScanSubscriber implements LongSubscriber, Subscription {
+
+            private static final int SEED_EMITTED = 1;
+            private static final int COMPLETE_PENDING = 2;
+
+            private final LongSubscriber actual;
+            private final LongBinaryOperator accumulator;
+
+            private long value;
+            private Subscription s;
+            private boolean seedRequested;
+            private boolean done;
+
+            private volatile int state;
+            private static final AtomicIntegerFieldUpdater<ScanSubscriber> STATE =
+                    AtomicIntegerFieldUpdater.newUpdater(ScanSubscriber.class, "state");
+
+            ScanSubscriber(LongSubscriber actual, long initial, LongBinaryOperator accumulator) {
+                this.actual = actual;
+                this.value = initial;
+                this.accumulator = accumulator;
+            }
+
+            @Override
+            public void onSubscribe(Subscription s) {
+                this.s = s;
+                actual.onSubscribe(this);
+            }
+
+            @Override
+            public void onNext(long t) {
+                if (done) {
+                    return;
+                }
+                long accumulated;
+                try {
+                    accumulated = accumulator.applyAsLong(value, t);
+                } catch (Throwable e) {
+                    onError(Operators.onOperatorError(s, e, t));
+                    return;
+                }
+                value = accumulated;
+                actual.onNext(accumulated);
+            }
+
+            @Override
+            public void onError(Throwable t) {
+                if (done) {
+                    Operators.onErrorDropped(t);
+                    return;
+                }
+                done = true;
+                actual.onError(t);
+            }
+
+            @Override
+            public void onComplete() {
+                if (done) {
+                    return;
+                }
+                done = true;
+                if (state == SEED_EMITTED || !STATE.compareAndSet(this, 0, COMPLETE_PENDING)) {
+                    actual.onComplete();
+                }
+            }
+
+            @Override
+            public void request(long n) {
+                if (!Operators.validate(n)) {
+                    return;
+                }
+                if (!seedRequested) {
+                    seedRequested = true;
+                    actual.onNext(value);
+
+                    if (STATE.getAndSet(this, SEED_EMITTED) == COMPLETE_PENDING) {
+                        actual.onComplete();
+                        return;
+                    }
+                    if (n != Long.MAX_VALUE) {
+                        n--;
+                    }
+                }
+                if (n > 0) {
+                    s.request(n);
+                }
+            }
+
+            @Override
+            public void cancel() {
+                s.cancel();
+            }
+        }
+    }
+
+    static final class LongReduce extends Mono<Long> {
+
+        private final LongFlux source;
+        private final long initial;
+        private final LongBinaryOperator accumulator;
+
+        LongReduce(LongFlux source, long initial, LongBinaryOperator accumulator) {
+            this.source = source;
+            this.initial = initial;
+            this.accumulator = accumulator;
+        }
+
+        @Override
+        public void subscribe(Subscriber<? super Long> subscriber) {
+            source.subscribe(new ReduceSubscriber(subscriber, initial, accumulator));
+        }
+
+        /**
+         * MonoSubscriber takes care of delivering the single result only once it was requested
+         */
+        static final class ReduceSubscriber extends Operators.MonoSubscriber<Long, Long>
+                implements LongSubscriber {
+
+            private final LongBinaryOperator accumulator;
+
+            private long accumulated;
+            private Subscription s;
+            private boolean done;
+
+            ReduceSubscriber(Subscriber<? super Long> actual, long initial, LongBinaryOperator accumulator) {
+                super(actual);
+                this.accumulated = initial;
+                this.accumulator = accumulator;
+            }
+
+            @Override
+            public void onSubscribe(Subscription s) {
+                this.s = s;
+                actual.onSubscribe(this);
+                s.request(Long.MAX_VALUE);
+            }
+
+            @Override
+            public void onNext(long t) {
+                if (done) {
+                    return;
+                }
+                try {
+                    accumulated = accumulator.applyAsLong(accumulated, t);
+                } catch (Throwable e) {
+                    onError(Operators.onOperatorError(s, e, t));
+                }
+            }
+
+            @Override
+            public void onError(Throwable t) {
+                if (done) {
+                    Operators.onErrorDropped(t);
+                    return;
+                }
+                done = true;
+                actual.onError(t);
+            }
+
+            @Override
+            public void onComplete() {
+                if (done) {
+                    return;
+                }
+                done = true;
+                complete(accumulated);
+            }
+
+            @Override
+            public void cancel() {
+                super.cancel();
+                s.cancel();
+            }
+        }
+    }
+
+    static final class LongBuffer extends Flux<long[]> {
+
+        private final LongFlux source;
+        private final int size;
+
+        LongBuffer(LongFlux source, int size) {
+            this.source = source;
+            this.size = size;
+        }
+
+        @Override
+        public void subscribe(Subscriber<? super long[]> subscriber) {
+            source.subscribe(new BufferSubscriber(subscriber, size));
+        }
+
+        static final class BufferSubscriber implements LongSubscriber, Subscription {
+
+            private final Subscriber<? super long[]> actual;
+            private final int size;
+
+            private long[] buffer;
+            private int index;
+            private Subscription s;
+            private boolean done;
+
+            BufferSubscriber(Subscriber<? super long[]> actual, int size) {
+                this.actual = actual;
+                this.size = size;
+            }
+
+            @Override
+            public void onSubscribe(Subscription s) {
+                this.s = s;
+                actual.onSubscribe(this);
+            }
+
+            @Override
+            public void onNext(long value) {
+                if (done) {
+                    return;
+                }
+                long[] b = buffer;
+                if (b == null) {
+                    b = new long[size];
+                    buffer = b;
+                }
+                b[index++] = value;
+
+                if (index == size) {
+                    buffer = null;
+                    index = 0;
+                    actual.onNext(b);
+                }
+            }
+
+            @Override
+            public void onError(Throwable t) {
+                if (done) {
+                    Operators.onErrorDropped(t);
+                    return;
+                }
+                done = true;
+                buffer = null;
+                actual.onError(t);
+            }
+
+            @Override
+            public void onComplete() {
+                if (done) {
+                    return;
+                }
+                done = true;
+                long[] b = buffer;
+                if (b != null) {
+                    // fewer than requested * size values arrived so there is demand for this partial buffer
+                    buffer = null;
+                    actual.onNext(Arrays.copyOf(b, index));
+                }
+                actual.onComplete();
+            }
+
+            @Override
+            public void request(long n) {
+                if (Operators.validate(n)) {
+                    s.request(Operators.multiplyCap(n, size));
+                }
+            }
+
+            @Override
+            public void cancel() {
+                s.cancel();
+            }
+        }
+    }
+
+    static final class LongBoxed extends Flux<Long> {
+
+        private final LongFlux source;
+
+        LongBoxed(LongFlux source) {
+            this.source = source;
+        }
+
+        @Override
+        public void subscribe(Subscriber<? super Long> subscriber) {
+            source.subscribe(new LongSubscriber() {
+                @Override
+                public void onSubscribe(Subscription s) {
+                    subscriber.onSubscribe(s);
+                }
+
+                @Override
+                public void onNext(long value) {
+                    subscriber.onNext(value);
+                }
+
+                @Override
+                public void onError(Throwable t) {
+                    subscriber.onError(t);
+                }
+
+                @Override
+                public void onComplete() {
+                    subscriber.onComplete();
+                }
+            });
+        }
+    }
+}
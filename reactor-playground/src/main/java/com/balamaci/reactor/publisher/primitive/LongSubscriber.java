@@ -0,0 +1,19 @@
+package com.balamaci.reactor.publisher.primitive;
+
+import org.reactivestreams.Subscription;
+
+/**
+ * Same contract as the Reactive Streams {@link org.reactivestreams.Subscriber} but receiving primitive long values,
+ * so no Long is allocated for each element.
+ * Backpressure uses the regular {@link Subscription}.
+ */
+public interface LongSubscriber {
+
+    void onSubscribe(Subscription s);
+
+    void onNext(long value);
+
+    void onError(Throwable t);
+
+    void onComplete();
+}
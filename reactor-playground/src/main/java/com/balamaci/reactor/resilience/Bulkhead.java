@@ -0,0 +1,233 @@
+package com.balamaci.reactor.resilience;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Caps the calls in flight to a dependency, whatever pipeline and whatever scheduler they come from - a flatMap
+ * concurrency or a thread pool size only caps one pipeline. The calls over the {@link ConcurrencyLimit} wait in a
+ * queue of at most 'maxQueued', the ones after that are rejected with a {@link BulkheadFullException}.
+ *
+ * <pre>
+ * Bulkhead bulkhead = Bulkhead.create("remote-service", ConcurrencyLimit.fixed(2), 4);
+ * colors.flatMap(color -&gt; remoteCall(color).transform(BulkheadOperator.bulkhead(bulkhead)))
+ * </pre>
+ *
+ * Taking a permit is a CAS on the in-flight count. A waiting call is started by the call that releases its permit,
+ * on that call's completion thread.
+ */
+public final class Bulkhead {
+
+    private final String name;
+    private final ConcurrencyLimit limit;
+    private final int maxQueued;
+
+    private volatile int inFlight;
+    private static final AtomicIntegerFieldUpdater<Bulkhead> IN_FLIGHT =
+            AtomicIntegerFieldUpdater.newUpdater(Bulkhead.class, "inFlight");
+
+    private final Queue<Waiter> waiters = new ConcurrentLinkedQueue<>();
+    private volatile int queued;
+    private static final AtomicIntegerFieldUpdater<Bulkhead> QUEUED =
+            AtomicIntegerFieldUpdater.newUpdater(Bulkhead.class, "queued");
+
+    private volatile int drainWip;
+    private static final AtomicIntegerFieldUpdater<Bulkhead> DRAIN_WIP =
+            AtomicIntegerFieldUpdater.newUpdater(Bulkhead.class, "drainWip");
+
+    private final AtomicLong started = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private volatile int maxInFlight;
+
+    /**
+     * @param maxQueued the calls waiting for a permit, 0 to reject right away when there's none
+     */
+    public static Bulkhead create(String name, ConcurrencyLimit limit, int maxQueued) {
+        if (maxQueued < 0) {
+            throw new IllegalArgumentException("maxQueued >= 0 required but it was " + maxQueued);
+        }
+        return new Bulkhead(name, limit, maxQueued);
+    }
+
+    private Bulkhead(String name, ConcurrencyLimit limit, int maxQueued) {
+        this.name = name;
+        this.limit = limit;
+        this.maxQueued = maxQueued;
+    }
+
+    public int inFlight() {
+        return inFlight;
+    }
+
+    public int queued() {
+        return queued;
+    }
+
+    public int limit() {
+        return limit.limit();
+    }
+
+    /**
+     * @return the most calls seen in flight at once
+     */
+    public int maxInFlight() {
+        return maxInFlight;
+    }
+
+    /**
+     * @return the calls that got a permit, right away or after waiting
+     */
+    public long started() {
+        return started.get();
+    }
+
+    /**
+     * @return the calls rejected because the queue was full
+     */
+    public long rejected() {
+        return rejected.get();
+    }
+
+    @Override
+    public String toString() {
+        return "Bulkhead[" + name + ", limit=" + limit + ", inFlight=" + inFlight + ", maxInFlight=" + maxInFlight
+                + ", queued=" + queued + ", started=" + started.get() + ", rejected=" + rejected.get() + "]";
+    }
+
+    /**
+     * A call ready to start when it gets a permit
+     */
+    interface Waiter {
+
+        /**
+         * Called with the permit taken
+         *
+         * @param inFlight the calls in flight with this one
+         */
+        void start(int inFlight);
+
+        /**
+         * Called when the queue is full
+         */
+        void reject(BulkheadFullException exception);
+    }
+
+    /**
+     * Starts the call now, queues it or rejects it
+     */
+    void submit(Waiter waiter) {
+        int permit = tryAcquire();
+        if (permit > 0) {
+            waiter.start(permit);
+            return;
+        }
+        for (;;) {
+            int current = queued;
+            if (current >= maxQueued) {
+                rejected.incrementAndGet();
+                waiter.reject(new BulkheadFullException(this));
+                return;
+            }
+            if (QUEUED.compareAndSet(this, current, current + 1)) {
+                break;
+            }
+        }
+        waiters.offer(waiter);
+        drainWaiters(); // a permit could have been released before the offer
+    }
+
+    /**
+     * A queued call was cancelled
+     */
+    void remove(Waiter waiter) {
+        if (waiters.remove(waiter)) {
+            QUEUED.decrementAndGet(this);
+        }
+    }
+
+    /**
+     * @param rttNanos how long the call took, from the permit to the end
+     * @param inFlightAtStart what its start returned
+     * @param dropped it failed
+     */
+    void release(long rttNanos, int inFlightAtStart, boolean dropped) {
+        limit.onSample(rttNanos, inFlightAtStart, dropped);
+        IN_FLIGHT.decrementAndGet(this);
+        drainWaiters();
+    }
+
+    /**
+     * Gives back the permit of a cancelled call without telling the limit - like a take(1) downstream, cancelling
+     * says nothing about the dependency
+     */
+    void releaseUnsampled() {
+        IN_FLIGHT.decrementAndGet(this);
+        drainWaiters();
+    }
+
+    /**
+     * @return the calls in flight with the new one, 0 when there was no permit
+     */
+    private int tryAcquire() {
+        for (;;) {
+            int current = inFlight;
+            if (current >= limit.limit()) {
+                return 0;
+            }
+            if (IN_FLIGHT.compareAndSet(this, current, current + 1)) {
+                started.incrementAndGet();
+                if (current + 1 > maxInFlight) {
+                    maxInFlight = current + 1; // racy, only a metric
+                }
+                return current + 1;
+            }
+        }
+    }
+
+    /**
+     * Starts waiting calls while there are permits. Serialized by 'drainWip': a call completing synchronously in
+     * its start releases its permit from inside the loop, that only makes the loop go around once more.
+     */
+    private void drainWaiters() {
+        if (DRAIN_WIP.getAndIncrement(this) != 0) {
+            return;
+        }
+        int missed = 1;
+        for (;;) {
+            while (queued > 0) {
+                int permit = tryAcquire();
+                if (permit == 0) {
+                    break;
+                }
+                Waiter waiter = waiters.poll();
+                if (waiter == null) { // counted but not offered yet, its submit drains again after the offer
+                    IN_FLIGHT.decrementAndGet(this);
+                    started.decrementAndGet();
+                    break;
+                }
+                QUEUED.decrementAndGet(this);
+                waiter.start(permit);
+            }
+            missed = DRAIN_WIP.addAndGet(this, -missed);
+            if (missed == 0) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * What a call is rejected with when the queue is full, without a stack trace - it's thrown at the rate of
+     * the calls
+     */
+    public static final class BulkheadFullException extends RuntimeException {
+
+        private static final long serialVersionUID = 1L;
+
+        BulkheadFullException(Bulkhead bulkhead) {
+            super("Bulkhead " + bulkhead.name + " is full: " + bulkhead.inFlight + " in flight, " + bulkhead.queued
+                    + " queued", null, false, false);
+        }
+    }
+}
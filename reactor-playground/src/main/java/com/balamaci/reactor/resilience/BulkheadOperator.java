@@ -0,0 +1,169 @@
+package com.balamaci.reactor.resilience;
+
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Operators;
+
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+import java.util.function.Function;
+
+/**
+ * Subscribes to the source - makes the call - only with a permit from the {@link Bulkhead}, and gives the permit
+ * back when the call ends:
+ *
+ * <pre>
+ * colors.flatMap(color -&gt; simulateRemoteOperation(color)
+ *         .subscribeOn(Schedulers.elastic())
+ *         .transform(BulkheadOperator.bulkhead(bulkhead)))
+ * </pre>
+ *
+ * The downstream gets its subscription right away and can request before the call started, the demand is kept
+ * and passed on once the source is subscribed. A call waiting in the queue is started on the thread of the call
+ * that released the permit, a rejected one fails with a {@link Bulkhead.BulkheadFullException}.
+ */
+public final class BulkheadOperator<T> extends Flux<T> {
+
+    private final Publisher<? extends T> source;
+    private final Bulkhead bulkhead;
+
+    public static <T> Function<Flux<T>, Flux<T>> bulkhead(Bulkhead bulkhead) {
+        return flux -> new BulkheadOperator<>(flux, bulkhead);
+    }
+
+    public BulkheadOperator(Publisher<? extends T> source, Bulkhead bulkhead) {
+        this.source = source;
+        this.bulkhead = bulkhead;
+    }
+
+    @Override
+    public void subscribe(Subscriber<? super T> subscriber) {
+        BulkheadSubscriber<T> call = new BulkheadSubscriber<>(subscriber, source, bulkhead);
+        subscriber.onSubscribe(call);
+        bulkhead.submit(call);
+    }
+
+    /**
+     * The 'state' CAS decides who ends the call - its termination, its cancellation or the rejection - so the permit
+     * is given back exactly once.
+     */
+    static final class BulkheadSubscriber<T> implements Subscriber<T>, Subscription, Bulkhead.Waiter {
+
+        private static final int QUEUED = 0;
+        private static final int RUNNING = 1;
+        private static final int DONE = 2;
+
+        private final Subscriber<? super T> actual;
+        private final Publisher<? extends T> source;
+        private final Bulkhead bulkhead;
+
+        private long startNanos;
+        private int inFlightAtStart;
+
+        private volatile int state;
+        @SuppressWarnings("rawtypes")
+        private static final AtomicIntegerFieldUpdater<BulkheadSubscriber> STATE =
+                AtomicIntegerFieldUpdater.newUpdater(BulkheadSubscriber.class, "state");
+
+        private volatile Subscription s;
+        @SuppressWarnings("rawtypes")
+        private static final AtomicReferenceFieldUpdater<BulkheadSubscriber, Subscription> S =
+                AtomicReferenceFieldUpdater.newUpdater(BulkheadSubscriber.class, Subscription.class, "s");
+
+        /** requested before the source was subscribed */
+        private volatile long requested;
+        @SuppressWarnings("rawtypes")
+        private static final AtomicLongFieldUpdater<BulkheadSubscriber> REQUESTED =
+                AtomicLongFieldUpdater.newUpdater(BulkheadSubscriber.class, "requested");
+
+        BulkheadSubscriber(Subscriber<? super T> actual, Publisher<? extends T> source, Bulkhead bulkhead) {
+            this.actual = actual;
+            this.source = source;
+            this.bulkhead = bulkhead;
+        }
+
+        @Override
+        public void start(int inFlight) {
+            inFlightAtStart = inFlight; // published by the CAS
+            startNanos = System.nanoTime();
+            if (!STATE.compareAndSet(this, QUEUED, RUNNING)) { // cancelled meanwhile, it never made the call
+                bulkhead.releaseUnsampled();
+                return;
+            }
+            source.subscribe(this);
+        }
+
+        @Override
+        public void reject(Bulkhead.BulkheadFullException exception) {
+            if (STATE.compareAndSet(this, QUEUED, DONE)) {
+                actual.onError(exception);
+            }
+        }
+
+        @Override
+        public void onSubscribe(Subscription subscription) {
+            if (Operators.setOnce(S, this, subscription)) {
+                long r = REQUESTED.getAndSet(this, 0);
+                if (r != 0) {
+                    subscription.request(r);
+                }
+            }
+        }
+
+        @Override
+        public void onNext(T t) {
+            actual.onNext(t);
+        }
+
+        @Override
+        public void onError(Throwable t) {
+            if (STATE.compareAndSet(this, RUNNING, DONE)) {
+                bulkhead.release(System.nanoTime() - startNanos, inFlightAtStart, true);
+                actual.onError(t);
+            } else {
+                Operators.onErrorDropped(t);
+            }
+        }
+
+        @Override
+        public void onComplete() {
+            if (STATE.compareAndSet(this, RUNNING, DONE)) {
+                bulkhead.release(System.nanoTime() - startNanos, inFlightAtStart, false);
+                actual.onComplete();
+            }
+        }
+
+        @Override
+        public void request(long n) {
+            if (!Operators.validate(n)) {
+                return;
+            }
+            Subscription current = s;
+            if (current != null) {
+                current.request(n);
+                return;
+            }
+            Operators.getAndAddCap(REQUESTED, this, n);
+            current = s;
+            if (current != null) { // subscribed meanwhile, the onSubscribe may have missed this demand
+                long r = REQUESTED.getAndSet(this, 0);
+                if (r != 0) {
+                    current.request(r);
+                }
+            }
+        }
+
+        @Override
+        public void cancel() {
+            if (STATE.compareAndSet(this, QUEUED, DONE)) {
+                bulkhead.remove(this);
+            } else if (STATE.compareAndSet(this, RUNNING, DONE)) { // the downstream had enough, not a failure
+                Operators.terminate(S, this);
+                bulkhead.releaseUnsampled();
+            }
+        }
+    }
+}
@@ -0,0 +1,290 @@
+package com.balamaci.reactor.resilience;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+
+/**
+ * A lock-free circuit breaker, shared by all the calls to one dependency:
+ *
+ *   - CLOSED - the calls go through, their outcomes go into a ring buffer of the last 'windowSize' calls. Once the
+ *     ring saw 'minimumCalls' and the failure rate reaches 'failureRateThreshold' the breaker opens
+ *   - OPEN - the calls are short-circuited without reaching the dependency, for 'openDuration'
+ *   - HALF_OPEN - 'halfOpenCalls' trial calls go through, the others are still short-circuited. One failure opens
+ *     the breaker again, when they all succeed it closes with an empty ring
+ *
+ * A call in the closed state costs a read of the phase and two atomic updates on the ring - the slot taken with a
+ * getAndIncrement and the outcome swapped in with a getAndSet - plus a third one on the failure count only when
+ * the outcome differs from the one it replaces.
+ *
+ * The state is a phase object replaced with a CAS on every transition, a call reports its outcome to the phase
+ * that let it through: a slow call started before the breaker opened doesn't count against the half-open trials.
+ */
+public final class CircuitBreaker {
+
+    public enum State { CLOSED, OPEN, HALF_OPEN }
+
+    private final String name;
+    private final int windowSize;
+    private final int minimumCalls;
+    private final float failureRateThreshold;
+    private final long openDurationNanos;
+    private final int halfOpenCalls;
+
+    private volatile Phase phase;
+    private static final AtomicReferenceFieldUpdater<CircuitBreaker, Phase> PHASE =
+            AtomicReferenceFieldUpdater.newUpdater(CircuitBreaker.class, Phase.class, "phase");
+
+    private final AtomicLong shortCircuited = new AtomicLong();
+    private final AtomicLong opened = new AtomicLong();
+
+    /**
+     * Opens when at least half of the last 'windowSize' calls failed, lets a single trial call through after
+     * 'openDuration'
+     */
+    public static CircuitBreaker create(String name, int windowSize, Duration openDuration) {
+        return create(name, windowSize, windowSize, 0.5f, openDuration, 1);
+    }
+
+    public static CircuitBreaker create(String name, int windowSize, int minimumCalls, float failureRateThreshold,
+                                        Duration openDuration, int halfOpenCalls) {
+        if (windowSize <= 0) {
+            throw new IllegalArgumentException("windowSize > 0 required but it was " + windowSize);
+        }
+        if (minimumCalls <= 0 || minimumCalls > windowSize) {
+            throw new IllegalArgumentException("0 < minimumCalls <= windowSize required but it was " + minimumCalls);
+        }
+        if (!(failureRateThreshold > 0) || failureRateThreshold > 1) {
+            throw new IllegalArgumentException("0 < failureRateThreshold <= 1 required but it was "
+                    + failureRateThreshold);
+        }
+        if (openDuration.isNegative()) {
+            throw new IllegalArgumentException("openDuration >= 0 required but it was " + openDuration);
+        }
+        if (halfOpenCalls <= 0) {
+            throw new IllegalArgumentException("halfOpenCalls > 0 required but it was " + halfOpenCalls);
+        }
+        return new CircuitBreaker(name, windowSize, minimumCalls, failureRateThreshold, openDuration.toNanos(),
+                halfOpenCalls);
+    }
+
+    private CircuitBreaker(String name, int windowSize, int minimumCalls, float failureRateThreshold,
+                           long openDurationNanos, int halfOpenCalls) {
+        this.name = name;
+        this.windowSize = windowSize;
+        this.minimumCalls = minimumCalls;
+        this.failureRateThreshold = failureRateThreshold;
+        this.openDurationNanos = openDurationNanos;
+        this.halfOpenCalls = halfOpenCalls;
+        this.phase = new Closed();
+    }
+
+    public State state() {
+        return phase.state;
+    }
+
+    /**
+     * @return the failure rate in the ring of the closed state, 0 until it saw 'minimumCalls'
+     */
+    public float failureRate() {
+        Phase current = phase;
+        return current instanceof Closed ? ((Closed) current).failureRate() : 0;
+    }
+
+    /**
+     * @return the calls that didn't reach the dependency
+     */
+    public long shortCircuited() {
+        return shortCircuited.get();
+    }
+
+    /**
+     * @return how many times the breaker opened
+     */
+    public long opened() {
+        return opened.get();
+    }
+
+    @Override
+    public String toString() {
+        return "CircuitBreaker[" + name + ", state=" + phase.state + ", failureRate=" + failureRate()
+                + ", opened=" + opened.get() + ", shortCircuited=" + shortCircuited.get() + "]";
+    }
+
+    /**
+     * @return the phase to report the outcome of the call to, null when the call is short-circuited
+     */
+    Phase tryAcquire() {
+        for (;;) {
+            Phase current = phase;
+            if (current.tryAcquire()) {
+                return current;
+            }
+            if (current == phase) { // not replaced in the meantime by a transition
+                shortCircuited.incrementAndGet();
+                return null;
+            }
+        }
+    }
+
+    private void transition(Phase from, Phase to) {
+        if (PHASE.compareAndSet(this, from, to) && to instanceof Open) {
+            opened.incrementAndGet();
+        }
+    }
+
+    /**
+     * What a short-circuited call fails with, without a stack trace - it's thrown at the rate of the calls
+     */
+    public static final class OpenException extends RuntimeException {
+
+        private static final long serialVersionUID = 1L;
+
+        OpenException(CircuitBreaker breaker) {
+            super("CircuitBreaker " + breaker.name + " is " + breaker.state(), null, false, false);
+        }
+    }
+
+    abstract static class Phase {
+
+        final State state;
+
+        Phase(State state) {
+            this.state = state;
+        }
+
+        abstract boolean tryAcquire();
+
+        abstract void onSuccess();
+
+        abstract void onFailure();
+
+        /**
+         * The call was cancelled before it had an outcome
+         */
+        void release() {
+        }
+    }
+
+    private final class Closed extends Phase {
+
+        private static final int EMPTY = 0;
+        private static final int SUCCESS = 1;
+        private static final int FAILURE = 2;
+
+        private final AtomicIntegerArray outcomes = new AtomicIntegerArray(windowSize);
+        private final AtomicLong index = new AtomicLong();
+        private final AtomicInteger calls = new AtomicInteger();
+        private final AtomicInteger failures = new AtomicInteger();
+
+        Closed() {
+            super(State.CLOSED);
+        }
+
+        @Override
+        boolean tryAcquire() {
+            return true;
+        }
+
+        @Override
+        void onSuccess() {
+            record(SUCCESS);
+        }
+
+        @Override
+        void onFailure() {
+            record(FAILURE);
+            int seen = calls.get();
+            if (seen >= minimumCalls && failures.get() >= failureRateThreshold * seen) {
+                transition(this, new Open());
+            }
+        }
+
+        private void record(int outcome) {
+            int slot = (int) (index.getAndIncrement() % windowSize);
+            int replaced = outcomes.getAndSet(slot, outcome);
+            if (replaced == EMPTY) {
+                calls.incrementAndGet();
+                if (outcome == FAILURE) {
+                    failures.incrementAndGet();
+                }
+            } else if (replaced != outcome) {
+                failures.addAndGet(outcome == FAILURE ? 1 : -1);
+            }
+        }
+
+        float failureRate() {
+            int seen = calls.get();
+            return seen < minimumCalls ? 0 : (float) failures.get() / seen;
+        }
+    }
+
+    private final class Open extends Phase {
+
+        private final long openedAt = System.nanoTime();
+
+        Open() {
+            super(State.OPEN);
+        }
+
+        @Override
+        boolean tryAcquire() {
+            if (System.nanoTime() - openedAt < openDurationNanos) {
+                return false;
+            }
+            transition(this, new HalfOpen());
+            return false; // acquired again from the half-open phase
+        }
+
+        @Override
+        void onSuccess() {
+        }
+
+        @Override
+        void onFailure() {
+        }
+    }
+
+    private final class HalfOpen extends Phase {
+
+        /** the trial calls left to hand out */
+        private final AtomicInteger permits = new AtomicInteger(halfOpenCalls);
+        private final AtomicInteger successes = new AtomicInteger();
+
+        HalfOpen() {
+            super(State.HALF_OPEN);
+        }
+
+        @Override
+        boolean tryAcquire() {
+            for (;;) {
+                int left = permits.get();
+                if (left == 0) {
+                    return false;
+                }
+                if (permits.compareAndSet(left, left - 1)) {
+                    return true;
+                }
+            }
+        }
+
+        @Override
+        void onSuccess() {
+            if (successes.incrementAndGet() == halfOpenCalls) {
+                transition(this, new Closed());
+            }
+        }
+
+        @Override
+        void onFailure() {
+            transition(this, new Open());
+        }
+
+        @Override
+        void release() {
+            permits.incrementAndGet();
+        }
+    }
+}
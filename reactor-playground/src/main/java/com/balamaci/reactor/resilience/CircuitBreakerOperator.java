@@ -0,0 +1,270 @@
+package com.balamaci.reactor.resilience;
+
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+import reactor.core.Exceptions;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Operators;
+
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+import java.util.function.Function;
+
+/**
+ * Guards every subscription - every call - to the source with a {@link CircuitBreaker}:
+ *
+ * <pre>
+ * colors.concatMap(color -&gt; simulateRemoteOperation(color)
+ *         .transform(CircuitBreakerOperator.circuitBreaker(breaker, exception -&gt; fallbackRemoteOperation())))
+ * </pre>
+ *
+ * A completion counts as a success, an error as a failure, a cancelled call doesn't count. When the breaker is
+ * open the source isn't subscribed at all, the call goes straight to the fallback with a
+ * {@link CircuitBreaker.OpenException}. The failures of the calls that went through get the fallback too, the
+ * way onErrorResumeWith does.
+ */
+public final class CircuitBreakerOperator<T> extends Flux<T> {
+
+    private final Publisher<? extends T> source;
+    private final CircuitBreaker breaker;
+    private final Function<? super Throwable, ? extends Publisher<? extends T>> fallback;
+
+    /**
+     * Without a fallback, the short-circuited calls fail with the {@link CircuitBreaker.OpenException}
+     */
+    public static <T> Function<Flux<T>, Flux<T>> circuitBreaker(CircuitBreaker breaker) {
+        return flux -> new CircuitBreakerOperator<>(flux, breaker, null);
+    }
+
+    /**
+     * @param fallback what replaces a short-circuited or a failed call
+     */
+    public static <T> Function<Flux<T>, Flux<T>> circuitBreaker(CircuitBreaker breaker,
+                                                              Function<? super Throwable, ? extends Publisher<? extends T>> fallback) {
+        return flux -> new CircuitBreakerOperator<>(flux, breaker, fallback);
+    }
+
+    public CircuitBreakerOperator(Publisher<? extends T> source, CircuitBreaker breaker,
+                                  Function<? super Throwable, ? extends Publisher<? extends T>> fallback) {
+        this.source = source;
+        this.breaker = breaker;
+        this.fallback = fallback;
+    }
+
+    @Override
+    public void subscribe(Subscriber<? super T> subscriber) {
+        CircuitBreaker.Phase phase = breaker.tryAcquire();
+        if (phase != null) {
+            source.subscribe(new CircuitBreakerSubscriber<>(subscriber, phase, fallback));
+            return;
+        }
+
+        CircuitBreaker.OpenException open = new CircuitBreaker.OpenException(breaker);
+        if (fallback == null) {
+            Operators.error(subscriber, open);
+            return;
+        }
+        Publisher<? extends T> fallbackPublisher;
+        try {
+            fallbackPublisher = fallback.apply(open);
+        } catch (Throwable e) {
+            Exceptions.throwIfFatal(e);
+            Operators.error(subscriber, e);
+            return;
+        }
+        fallbackPublisher.subscribe(subscriber);
+    }
+
+    /**
+     * Reports the outcome of the call, then switches to the fallback on an error. The requests the call didn't
+     * fulfil carry over to the fallback: the current subscription and the requested amount are touched only by
+     * whoever holds the 'wip' - a request takes it with a single CAS, the rare switch and the cancellation leave
+     * what they changed in the 'missed' fields for the holder to pick up.
+     */
+    static final class CircuitBreakerSubscriber<T> implements Subscriber<T>, Subscription {
+
+        private final Subscriber<? super T> actual;
+        private final CircuitBreaker.Phase phase;
+        private final Function<? super Throwable, ? extends Publisher<? extends T>> fallback;
+
+        private boolean fallingBack;
+        private long produced;
+
+        /** touched only while holding the wip */
+        private Subscription current;
+        private long requested;
+
+        private volatile boolean cancelled;
+
+        private volatile int wip;
+        @SuppressWarnings("rawtypes")
+        private static final AtomicIntegerFieldUpdater<CircuitBreakerSubscriber> WIP =
+                AtomicIntegerFieldUpdater.newUpdater(CircuitBreakerSubscriber.class, "wip");
+
+        private volatile Subscription missedSubscription;
+        @SuppressWarnings("rawtypes")
+        private static final AtomicReferenceFieldUpdater<CircuitBreakerSubscriber, Subscription> MISSED_SUBSCRIPTION =
+                AtomicReferenceFieldUpdater.newUpdater(CircuitBreakerSubscriber.class, Subscription.class,
+                        "missedSubscription");
+
+        private volatile long missedRequested;
+        @SuppressWarnings("rawtypes")
+        private static final AtomicLongFieldUpdater<CircuitBreakerSubscriber> MISSED_REQUESTED =
+                AtomicLongFieldUpdater.newUpdater(CircuitBreakerSubscriber.class, "missedRequested");
+
+        private volatile long missedProduced;
+        @SuppressWarnings("rawtypes")
+        private static final AtomicLongFieldUpdater<CircuitBreakerSubscriber> MISSED_PRODUCED =
+                AtomicLongFieldUpdater.newUpdater(CircuitBreakerSubscriber.class, "missedProduced");
+
+        /** the outcome - or the cancellation - is reported only once */
+        private volatile int reported;
+        @SuppressWarnings("rawtypes")
+        private static final AtomicIntegerFieldUpdater<CircuitBreakerSubscriber> REPORTED =
+                AtomicIntegerFieldUpdater.newUpdater(CircuitBreakerSubscriber.class, "reported");
+
+        CircuitBreakerSubscriber(Subscriber<? super T> actual, CircuitBreaker.Phase phase,
+                                 Function<? super Throwable, ? extends Publisher<? extends T>> fallback) {
+            this.actual = actual;
+            this.phase = phase;
+            this.fallback = fallback;
+        }
+
+        @Override
+        public void onSubscribe(Subscription s) {
+            if (!fallingBack) {
+                if (Operators.validate(current, s)) {
+                    current = s;
+                    actual.onSubscribe(this);
+                }
+                return;
+            }
+            MISSED_SUBSCRIPTION.set(this, s);
+            drain();
+        }
+
+        @Override
+        public void onNext(T t) {
+            produced++;
+            actual.onNext(t);
+        }
+
+        @Override
+        public void onError(Throwable t) {
+            if (fallingBack) {
+                actual.onError(t);
+                return;
+            }
+            if (REPORTED.compareAndSet(this, 0, 1)) {
+                phase.onFailure();
+            }
+            if (fallback == null) {
+                actual.onError(t);
+                return;
+            }
+            Publisher<? extends T> fallbackPublisher;
+            try {
+                fallbackPublisher = fallback.apply(t);
+            } catch (Throwable e) {
+                Exceptions.throwIfFatal(e);
+                actual.onError(e);
+                return;
+            }
+            fallingBack = true;
+            if (produced != 0) {
+                Operators.getAndAddCap(MISSED_PRODUCED, this, produced);
+                produced = 0;
+            }
+            fallbackPublisher.subscribe(this);
+        }
+
+        @Override
+        public void onComplete() {
+            if (!fallingBack && REPORTED.compareAndSet(this, 0, 1)) {
+                phase.onSuccess();
+            }
+            actual.onComplete();
+        }
+
+        @Override
+        public void request(long n) {
+            if (!Operators.validate(n)) {
+                return;
+            }
+            if (wip == 0 && WIP.compareAndSet(this, 0, 1)) {
+                requested = Operators.addCap(requested, n);
+                Subscription s = current;
+                if (s != null) {
+                    s.request(n);
+                }
+                if (WIP.decrementAndGet(this) != 0) {
+                    drainLoop();
+                }
+                return;
+            }
+            Operators.getAndAddCap(MISSED_REQUESTED, this, n);
+            drain();
+        }
+
+        @Override
+        public void cancel() {
+            if (cancelled) {
+                return;
+            }
+            cancelled = true;
+            if (REPORTED.compareAndSet(this, 0, 1)) {
+                phase.release();
+            }
+            drain();
+        }
+
+        private void drain() {
+            if (WIP.getAndIncrement(this) == 0) {
+                drainLoop();
+            }
+        }
+
+        private void drainLoop() {
+            int missed = 1;
+            for (;;) {
+                Subscription ms = missedSubscription != null ? MISSED_SUBSCRIPTION.getAndSet(this, null) : null;
+                long mr = missedRequested != 0 ? MISSED_REQUESTED.getAndSet(this, 0) : 0;
+                long mp = missedProduced != 0 ? MISSED_PRODUCED.getAndSet(this, 0) : 0;
+
+                if (cancelled) {
+                    if (current != null) {
+                        current.cancel();
+                        current = null;
+                    }
+                    if (ms != null) {
+                        ms.cancel();
+                    }
+                } else {
+                    long r = requested;
+                    if (r != Long.MAX_VALUE) {
+                        r = Operators.addCap(r, mr);
+                        if (r != Long.MAX_VALUE) {
+                            r = Math.max(0, r - mp);
+                        }
+                        requested = r;
+                    }
+                    if (ms != null) {
+                        current = ms;
+                        if (r != 0) {
+                            ms.request(r);
+                        }
+                    } else if (mr != 0 && current != null) {
+                        current.request(mr);
+                    }
+                }
+
+                missed = WIP.addAndGet(this, -missed);
+                if (missed == 0) {
+                    return;
+                }
+            }
+        }
+    }
+}
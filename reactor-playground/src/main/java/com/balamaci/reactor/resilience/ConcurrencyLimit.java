@@ -0,0 +1,40 @@
+package com.balamaci.reactor.resilience;
+
+/**
+ * How many calls a {@link Bulkhead} lets run at the same time. The fixed one never changes, the adaptive ones
+ * follow the latency of the calls - when the latency grows the dependency is queueing work and the limit goes
+ * down, when it's back to the lowest seen the limit goes up again.
+ */
+public interface ConcurrencyLimit {
+
+    static ConcurrencyLimit fixed(int limit) {
+        return new FixedLimit(limit);
+    }
+
+    /**
+     * TCP Vegas style: the calls queued at the dependency are estimated from the lowest latency seen and the
+     * current one, the limit grows while that's below alpha and shrinks above beta
+     */
+    static ConcurrencyLimit vegas(int initialLimit, int maxLimit) {
+        return new VegasLimit(initialLimit, maxLimit);
+    }
+
+    /**
+     * The limit follows the ratio between a long term average of the latency and the latest one, plus some
+     * headroom to keep probing for more
+     */
+    static ConcurrencyLimit gradient(int initialLimit, int maxLimit) {
+        return new GradientLimit(initialLimit, maxLimit);
+    }
+
+    int limit();
+
+    /**
+     * A call ended, a cancelled one isn't sampled
+     *
+     * @param rttNanos the time from its start to its end
+     * @param inFlight the calls in flight when it started
+     * @param dropped it failed - its latency says nothing about the dependency
+     */
+    void onSample(long rttNanos, int inFlight, boolean dropped);
+}
@@ -0,0 +1,30 @@
+package com.balamaci.reactor.resilience;
+
+/**
+ * A limit that doesn't look at the samples
+ */
+public final class FixedLimit implements ConcurrencyLimit {
+
+    private final int limit;
+
+    FixedLimit(int limit) {
+        if (limit <= 0) {
+            throw new IllegalArgumentException("limit > 0 required but it was " + limit);
+        }
+        this.limit = limit;
+    }
+
+    @Override
+    public int limit() {
+        return limit;
+    }
+
+    @Override
+    public void onSample(long rttNanos, int inFlight, boolean dropped) {
+    }
+
+    @Override
+    public String toString() {
+        return "FixedLimit[" + limit + "]";
+    }
+}
@@ -0,0 +1,71 @@
+package com.balamaci.reactor.resilience;
+
+/**
+ * The gradient is longRtt / rtt - an exponential average of the latency over the last ~100 calls against the
+ * latest one - kept between 0.5 and 1: the limit is multiplied by it, shrinking while the latency grows, and
+ * sqrt(limit) is added as headroom so it keeps probing for more while the latency stays flat. The new limit is
+ * smoothed in at 20%, a failed call counts as a gradient of 0.5.
+ *
+ * When the latest latencies stay well below the average - the dependency recovered - the average is pulled down
+ * faster so the limit doesn't stay low for the whole window.
+ *
+ * The samples update the limit under the monitor, the limit itself is read without it.
+ */
+public final class GradientLimit implements ConcurrencyLimit {
+
+    private static final double LONG_RTT_FACTOR = 2.0 / (100 + 1);
+    private static final double SMOOTHING = 0.2;
+
+    private final int maxLimit;
+
+    /** guarded by the monitor */
+    private double estimatedLimit;
+    private double longRttNanos;
+
+    private volatile int limit;
+
+    GradientLimit(int initialLimit, int maxLimit) {
+        if (initialLimit <= 0 || initialLimit > maxLimit) {
+            throw new IllegalArgumentException("0 < initialLimit <= maxLimit required but it was " + initialLimit);
+        }
+        this.maxLimit = maxLimit;
+        this.estimatedLimit = initialLimit;
+        this.limit = initialLimit;
+    }
+
+    @Override
+    public int limit() {
+        return limit;
+    }
+
+    @Override
+    public synchronized void onSample(long rttNanos, int inFlight, boolean dropped) {
+        double gradient;
+        if (dropped) {
+            gradient = 0.5;
+        } else {
+            if (rttNanos <= 0) {
+                return;
+            }
+            longRttNanos = longRttNanos == 0 ? rttNanos
+                    : longRttNanos * (1 - LONG_RTT_FACTOR) + rttNanos * LONG_RTT_FACTOR;
+            if (longRttNanos > 2 * rttNanos) { // recovered, forget the slow past faster
+                longRttNanos *= 0.9;
+            }
+            if (inFlight * 2 < estimatedLimit) { // not using the limit, the latency says nothing about it
+                return;
+            }
+            gradient = Math.max(0.5, Math.min(1.0, longRttNanos / rttNanos));
+        }
+
+        double newLimit = estimatedLimit * gradient + Math.sqrt(estimatedLimit);
+        estimatedLimit = estimatedLimit * (1 - SMOOTHING) + newLimit * SMOOTHING;
+        estimatedLimit = Math.max(1, Math.min(maxLimit, estimatedLimit));
+        limit = (int) estimatedLimit;
+    }
+
+    @Override
+    public String toString() {
+        return "GradientLimit[" + limit + "]";
+    }
+}
@@ -0,0 +1,232 @@
+package com.balamaci.reactor.resilience;
+
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+import reactor.core.Cancellation;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Operators;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+import reactor.core.scheduler.TimedScheduler;
+
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Paces the source with a {@link TokenBucket}: the source is requested only the tokens taken from the bucket, so
+ * it can't emit faster than the bucket refills - after a burst of at most 'burst' elements when it was idle:
+ *
+ * <pre>
+ * Flux.just("red", "green", "blue")
+ *     .transform(RateLimitOperator.rateLimit(0.5, 1))  // one every 2 seconds
+ * </pre>
+ *
+ * Zipping with Flux.interval does the same for a timer task and a zip pair per element, is limited to the
+ * millisecond of interval and can't let a burst through. Here the tokens are taken in batches - all the bucket
+ * holds, up to the downstream demand, with one CAS - and the timer is used only when the bucket is empty, to wait
+ * for half a burst of tokens. The timer wakes up late and the bucket doesn't keep more than 'burst' tokens, so the
+ * burst should cover that latency - with a burst of 1 every late wake-up is lost - and at high rates a millisecond
+ * worth of permits keeps the wake-ups to a few per millisecond.
+ *
+ * The bucket can be shared by any number of subscriptions, together they get the bucket's rate. The tokens taken
+ * and not used when the source completes are lost.
+ */
+public final class RateLimitOperator<T> extends Flux<T> {
+
+    private final Publisher<? extends T> source;
+    private final Supplier<TokenBucket> buckets;
+    private final TimedScheduler timer;
+
+    /**
+     * Every subscription gets its own bucket
+     */
+    public static <T> Function<Flux<T>, Flux<T>> rateLimit(double permitsPerSecond, int burst) {
+        TokenBucket.create(permitsPerSecond, burst); // fail at assembly on wrong values
+        return flux -> new RateLimitOperator<>(flux, () -> TokenBucket.create(permitsPerSecond, burst),
+                Schedulers.timer());
+    }
+
+    /**
+     * The subscriptions share 'bucket' - and its rate - with each other and with anyone else taking from it
+     */
+    public static <T> Function<Flux<T>, Flux<T>> rateLimit(TokenBucket bucket) {
+        return rateLimit(bucket, Schedulers.timer());
+    }
+
+    /**
+     * @param timer waits for the next token when the bucket is empty
+     */
+    public static <T> Function<Flux<T>, Flux<T>> rateLimit(TokenBucket bucket, TimedScheduler timer) {
+        return flux -> new RateLimitOperator<>(flux, () -> bucket, timer);
+    }
+
+    public RateLimitOperator(Publisher<? extends T> source, Supplier<TokenBucket> buckets, TimedScheduler timer) {
+        this.source = source;
+        this.buckets = buckets;
+        this.timer = timer;
+    }
+
+    @Override
+    public void subscribe(Subscriber<? super T> subscriber) {
+        source.subscribe(new RateLimitSubscriber<>(subscriber, buckets.get(), timer));
+    }
+
+    /**
+     * Is its own wake-up task. What the downstream requested is accumulated in 'requested', what was passed on to
+     * the source in 'granted' - only the drain holding the 'wip' takes tokens and requests the source, so 'granted'
+     * needs no synchronization. The elements go through untouched.
+     */
+    static final class RateLimitSubscriber<T> implements Subscriber<T>, Subscription, Runnable {
+
+        private final Subscriber<? super T> actual;
+        private final TokenBucket bucket;
+        private final TimedScheduler timer;
+
+        private Subscription s;
+        private volatile boolean cancelled;
+        private volatile boolean done;
+
+        /** touched only while holding the wip */
+        private long granted;
+
+        private volatile long requested;
+        @SuppressWarnings("rawtypes")
+        private static final AtomicLongFieldUpdater<RateLimitSubscriber> REQUESTED =
+                AtomicLongFieldUpdater.newUpdater(RateLimitSubscriber.class, "requested");
+
+        private volatile int wip;
+        @SuppressWarnings("rawtypes")
+        private static final AtomicIntegerFieldUpdater<RateLimitSubscriber> WIP =
+                AtomicIntegerFieldUpdater.newUpdater(RateLimitSubscriber.class, "wip");
+
+        /** one wake-up scheduled at most */
+        private volatile int waiting;
+        @SuppressWarnings("rawtypes")
+        private static final AtomicIntegerFieldUpdater<RateLimitSubscriber> WAITING =
+                AtomicIntegerFieldUpdater.newUpdater(RateLimitSubscriber.class, "waiting");
+
+        private volatile Cancellation wakeUp;
+
+        RateLimitSubscriber(Subscriber<? super T> actual, TokenBucket bucket, TimedScheduler timer) {
+            this.actual = actual;
+            this.bucket = bucket;
+            this.timer = timer;
+        }
+
+        @Override
+        public void onSubscribe(Subscription subscription) {
+            if (Operators.validate(s, subscription)) {
+                s = subscription;
+                actual.onSubscribe(this);
+            }
+        }
+
+        @Override
+        public void onNext(T t) {
+            actual.onNext(t);
+        }
+
+        @Override
+        public void onError(Throwable t) {
+            done = true;
+            disposeWakeUp();
+            actual.onError(t);
+        }
+
+        @Override
+        public void onComplete() {
+            done = true;
+            disposeWakeUp();
+            actual.onComplete();
+        }
+
+        @Override
+        public void request(long n) {
+            if (Operators.validate(n)) {
+                Operators.getAndAddCap(REQUESTED, this, n);
+                drain();
+            }
+        }
+
+        @Override
+        public void cancel() {
+            if (cancelled) {
+                return;
+            }
+            cancelled = true;
+            s.cancel();
+            disposeWakeUp();
+        }
+
+        /**
+         * The bucket has a token again
+         */
+        @Override
+        public void run() {
+            waiting = 0;
+            drain();
+        }
+
+        private void drain() {
+            if (WIP.getAndIncrement(this) != 0) {
+                return;
+            }
+            int missed = 1;
+            for (;;) {
+                while (!cancelled && !done) {
+                    long r = requested;
+                    long missing = r == Long.MAX_VALUE ? Integer.MAX_VALUE : Math.min(Integer.MAX_VALUE, r - granted);
+                    if (missing == 0) {
+                        break;
+                    }
+                    int permits = bucket.tryAcquireUpTo((int) missing);
+                    if (permits == 0) {
+                        waitForTokens((int) missing);
+                        break;
+                    }
+                    granted += permits;
+                    s.request(permits);
+                }
+
+                missed = WIP.addAndGet(this, -missed);
+                if (missed == 0) {
+                    return;
+                }
+            }
+        }
+
+        /**
+         * Waits for half a burst - or what's missing when it's less - so a high rate doesn't mean a wake-up for
+         * every token
+         */
+        private void waitForTokens(int missing) {
+            if (!WAITING.compareAndSet(this, 0, 1)) {
+                return;
+            }
+            int permits = Math.min(missing, Math.max(1, bucket.burst() / 2));
+            Cancellation next = timer.schedule(this, bucket.nanosUntilAvailable(permits), TimeUnit.NANOSECONDS);
+            if (next == Scheduler.REJECTED) {
+                done = true;
+                s.cancel();
+                actual.onError(new RejectedExecutionException("The timer rejected the wake-up"));
+                return;
+            }
+            wakeUp = next;
+            if (cancelled) { // cancelled in the meantime
+                next.dispose();
+            }
+        }
+
+        private void disposeWakeUp() {
+            Cancellation c = wakeUp;
+            if (c != null) {
+                c.dispose();
+            }
+        }
+    }
+}
@@ -0,0 +1,165 @@
+package com.balamaci.reactor.resilience;
+
+import reactor.core.scheduler.Schedulers;
+import reactor.core.scheduler.TimedScheduler;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Predicate;
+
+/**
+ * When and how long to wait before {@link RetryWithBackoff} resubscribes. Immutable, every setting returns a copy,
+ * so a policy can be kept in a constant and shared:
+ *
+ * <pre>
+ * RetryPolicy policy = RetryPolicy.exponential(3, Duration.ofMillis(100), Duration.ofSeconds(2))
+ *         .jitter(RetryPolicy.Jitter.FULL)
+ *         .maxElapsed(Duration.ofSeconds(5))
+ *         .retryOn(exception -&gt; !(exception instanceof IllegalArgumentException))
+ *         .budget(TokenBucket.create(10, 20));
+ * </pre>
+ *
+ * The retry budget is a {@link TokenBucket} shared by all the subscriptions using the policy, each retry takes a
+ * token and the error goes through when there's none left - when a dependency is down the retries stop at the
+ * bucket rate instead of multiplying the load.
+ */
+public final class RetryPolicy {
+
+    public enum Jitter {
+        /** firstBackoff * 2^retry, capped at maxBackoff */
+        NONE,
+        /** a random wait between 0 and the exponential one, spreads the retries of the clients failing together */
+        FULL,
+        /** a random wait between firstBackoff and 3 times the previous wait, capped at maxBackoff */
+        DECORRELATED
+    }
+
+    private final int maxRetries;
+    private final long firstBackoffNanos;
+    private final long maxBackoffNanos;
+    private final Jitter jitter;
+    private final long maxElapsedNanos;
+    private final Predicate<? super Throwable> retryOn;
+    private final TokenBucket budget;
+    private final TimedScheduler timer;
+
+    /**
+     * No jitter, no time limit, every exception retried, no budget, waiting on Schedulers.timer()
+     */
+    public static RetryPolicy exponential(int maxRetries, Duration firstBackoff, Duration maxBackoff) {
+        if (maxRetries < 0) {
+            throw new IllegalArgumentException("maxRetries >= 0 required but it was " + maxRetries);
+        }
+        if (firstBackoff.isNegative() || firstBackoff.isZero()) {
+            throw new IllegalArgumentException("firstBackoff > 0 required but it was " + firstBackoff);
+        }
+        if (maxBackoff.compareTo(firstBackoff) < 0) {
+            throw new IllegalArgumentException("maxBackoff >= firstBackoff required but it was " + maxBackoff);
+        }
+        return new RetryPolicy(maxRetries, firstBackoff.toNanos(), maxBackoff.toNanos(), Jitter.NONE, Long.MAX_VALUE,
+                exception -> true, null, Schedulers.timer());
+    }
+
+    private RetryPolicy(int maxRetries, long firstBackoffNanos, long maxBackoffNanos, Jitter jitter,
+                        long maxElapsedNanos, Predicate<? super Throwable> retryOn, TokenBucket budget,
+                        TimedScheduler timer) {
+        this.maxRetries = maxRetries;
+        this.firstBackoffNanos = firstBackoffNanos;
+        this.maxBackoffNanos = maxBackoffNanos;
+        this.jitter = jitter;
+        this.maxElapsedNanos = maxElapsedNanos;
+        this.retryOn = retryOn;
+        this.budget = budget;
+        this.timer = timer;
+    }
+
+    public RetryPolicy jitter(Jitter jitter) {
+        return new RetryPolicy(maxRetries, firstBackoffNanos, maxBackoffNanos, jitter, maxElapsedNanos, retryOn,
+                budget, timer);
+    }
+
+    /**
+     * No retry whose wait would end later than 'maxElapsed' after the first subscription
+     */
+    public RetryPolicy maxElapsed(Duration maxElapsed) {
+        if (maxElapsed.isNegative()) {
+            throw new IllegalArgumentException("maxElapsed >= 0 required but it was " + maxElapsed);
+        }
+        return new RetryPolicy(maxRetries, firstBackoffNanos, maxBackoffNanos, jitter, maxElapsed.toNanos(), retryOn,
+                budget, timer);
+    }
+
+    /**
+     * @param retryOn the exceptions to retry, the others go through right away
+     */
+    public RetryPolicy retryOn(Predicate<? super Throwable> retryOn) {
+        return new RetryPolicy(maxRetries, firstBackoffNanos, maxBackoffNanos, jitter, maxElapsedNanos, retryOn,
+                budget, timer);
+    }
+
+    /**
+     * @param budget a token per retry, shared by all the subscriptions of the policy
+     */
+    public RetryPolicy budget(TokenBucket budget) {
+        return new RetryPolicy(maxRetries, firstBackoffNanos, maxBackoffNanos, jitter, maxElapsedNanos, retryOn,
+                budget, timer);
+    }
+
+    /**
+     * @param timer where the resubscriptions are scheduled
+     */
+    public RetryPolicy timer(TimedScheduler timer) {
+        return new RetryPolicy(maxRetries, firstBackoffNanos, maxBackoffNanos, jitter, maxElapsedNanos, retryOn,
+                budget, timer);
+    }
+
+    public int maxRetries() {
+        return maxRetries;
+    }
+
+    public TokenBucket budget() {
+        return budget;
+    }
+
+    TimedScheduler timer() {
+        return timer;
+    }
+
+    long maxElapsedNanos() {
+        return maxElapsedNanos;
+    }
+
+    boolean shouldRetry(Throwable exception) {
+        return retryOn.test(exception);
+    }
+
+    /**
+     * @param retry 0 for the first retry
+     * @param previousNanos the previous wait, 0 before the first retry
+     */
+    long backoffNanos(int retry, long previousNanos) {
+        switch (jitter) {
+            case FULL:
+                return ThreadLocalRandom.current().nextLong(exponentialNanos(retry) + 1);
+            case DECORRELATED:
+                long upper = previousNanos > maxBackoffNanos / 3 ? maxBackoffNanos
+                        : Math.max(firstBackoffNanos, previousNanos * 3);
+                return firstBackoffNanos + ThreadLocalRandom.current().nextLong(upper - firstBackoffNanos + 1);
+            default:
+                return exponentialNanos(retry);
+        }
+    }
+
+    private long exponentialNanos(int retry) {
+        if (retry >= Long.SIZE - 1 || firstBackoffNanos > maxBackoffNanos >> retry) {
+            return maxBackoffNanos;
+        }
+        return firstBackoffNanos << retry;
+    }
+
+    @Override
+    public String toString() {
+        return "RetryPolicy[maxRetries=" + maxRetries + ", firstBackoff=" + firstBackoffNanos / 1_000_000
+                + "ms, maxBackoff=" + maxBackoffNanos / 1_000_000 + "ms, jitter=" + jitter + ", budget=" + budget + "]";
+    }
+}
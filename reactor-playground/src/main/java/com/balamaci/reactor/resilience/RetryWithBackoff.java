@@ -0,0 +1,179 @@
+package com.balamaci.reactor.resilience;
+
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+import reactor.core.Cancellation;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Operators;
+import reactor.core.scheduler.Scheduler;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Resubscribes to the source after an error, waiting for the backoff of a {@link RetryPolicy}:
+ *
+ * <pre>
+ * colors.flatMap(color -&gt; simulateRemoteOperation(color)
+ *                             .transform(RetryWithBackoff.retryWithBackoff(policy)))
+ * </pre>
+ *
+ * retryWhen with a zip against a range and a timer per retry builds a few publishers for every error, here the
+ * subscriber that gets the error is the one resubscribing - a retry costs the timer task and nothing else.
+ *
+ * The error goes through, without a retry, when the policy doesn't retry that exception, after maxRetries
+ * retries in total, when the wait would end after maxElapsed or when the retry budget is empty. The downstream
+ * requests carry over: the new subscription is requested what the previous ones didn't deliver.
+ */
+public final class RetryWithBackoff<T> extends Flux<T> {
+
+    private final Publisher<? extends T> source;
+    private final RetryPolicy policy;
+
+    public static <T> Function<Flux<T>, Flux<T>> retryWithBackoff(RetryPolicy policy) {
+        return flux -> new RetryWithBackoff<>(flux, policy);
+    }
+
+    public RetryWithBackoff(Publisher<? extends T> source, RetryPolicy policy) {
+        this.source = source;
+        this.policy = policy;
+    }
+
+    @Override
+    public void subscribe(Subscriber<? super T> subscriber) {
+        RetrySubscriber<T> retrySubscriber = new RetrySubscriber<>(subscriber, source, policy);
+        subscriber.onSubscribe(retrySubscriber);
+        retrySubscriber.run();
+    }
+
+    /**
+     * Is its own resubscribe task. The attempts are one after the other - the next one is subscribed from the timer
+     * after the previous one failed - so the per attempt state needs no synchronization, only what the downstream
+     * request and cancel touch is guarded by the monitor.
+     */
+    static final class RetrySubscriber<T> implements Subscriber<T>, Subscription, Runnable {
+
+        private final Subscriber<? super T> actual;
+        private final Publisher<? extends T> source;
+        private final RetryPolicy policy;
+        private final long startNanos = System.nanoTime();
+
+        private int retries;
+        private long previousBackoffNanos;
+        private long produced;
+
+        /** guarded by the monitor */
+        private Subscription current;
+        private long requested;
+
+        private volatile boolean cancelled;
+        private volatile Cancellation pendingRetry;
+
+        RetrySubscriber(Subscriber<? super T> actual, Publisher<? extends T> source, RetryPolicy policy) {
+            this.actual = actual;
+            this.source = source;
+            this.policy = policy;
+        }
+
+        @Override
+        public void run() {
+            if (!cancelled) {
+                source.subscribe(this);
+            }
+        }
+
+        @Override
+        public void onSubscribe(Subscription s) {
+            long missing;
+            synchronized (this) {
+                if (cancelled) {
+                    s.cancel();
+                    return;
+                }
+                current = s;
+                missing = requested == Long.MAX_VALUE ? Long.MAX_VALUE : requested - produced;
+            }
+            if (missing > 0) {
+                s.request(missing);
+            }
+        }
+
+        @Override
+        public void onNext(T t) {
+            produced++;
+            actual.onNext(t);
+        }
+
+        @Override
+        public void onError(Throwable t) {
+            if (cancelled) {
+                Operators.onErrorDropped(t);
+                return;
+            }
+            if (retries >= policy.maxRetries() || !policy.shouldRetry(t)) {
+                actual.onError(t);
+                return;
+            }
+            long backoffNanos = policy.backoffNanos(retries, previousBackoffNanos);
+            if (System.nanoTime() + backoffNanos - startNanos > policy.maxElapsedNanos()) {
+                actual.onError(t);
+                return;
+            }
+            TokenBucket budget = policy.budget();
+            if (budget != null && !budget.tryAcquire()) {
+                actual.onError(t);
+                return;
+            }
+            retries++;
+            previousBackoffNanos = backoffNanos;
+
+            Cancellation retry = policy.timer().schedule(this, backoffNanos, TimeUnit.NANOSECONDS);
+            if (retry == Scheduler.REJECTED) {
+                actual.onError(t);
+                return;
+            }
+            pendingRetry = retry;
+            if (cancelled) {
+                retry.dispose();
+            }
+        }
+
+        @Override
+        public void onComplete() {
+            if (!cancelled) {
+                actual.onComplete();
+            }
+        }
+
+        @Override
+        public void request(long n) {
+            if (Operators.validate(n)) {
+                Subscription s;
+                synchronized (this) {
+                    requested = Operators.addCap(requested, n);
+                    s = current;
+                }
+                if (s != null) {
+                    s.request(n);
+                }
+            }
+        }
+
+        @Override
+        public void cancel() {
+            Subscription s;
+            synchronized (this) {
+                cancelled = true;
+                s = current;
+            }
+            if (s != null) {
+                s.cancel();
+            }
+            Cancellation retry = pendingRetry;
+            if (retry != null) {
+                retry.dispose();
+            }
+        }
+    }
+}
@@ -0,0 +1,184 @@
+package com.balamaci.reactor.resilience;
+
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Operators;
+
+import java.time.Duration;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+import java.util.function.Function;
+
+/**
+ * A timeout between events for high rate streams. Flux.timeout(Duration) cancels a timer task and schedules a new
+ * one on every event, here an event only bumps a counter and a {@link TimeoutSweeper}, shared by all the
+ * subscriptions, notices when it stopped moving.
+ *
+ * <pre>
+ * colors.transform(SweepingTimeout.sweepingTimeout(Duration.ofSeconds(6)))
+ * </pre>
+ *
+ * Fails with a TimeoutException - like Flux.timeout - when no event came for 'timeout', measured from the
+ * subscription and then from the previous event. The error comes from the sweeper thread up to one sweep period
+ * late, the upstream is cancelled.
+ */
+public final class SweepingTimeout<T> extends Flux<T> {
+
+    private final Publisher<? extends T> source;
+    private final long timeoutNanos;
+    private final TimeoutSweeper sweeper;
+
+    /**
+     * On the {@link TimeoutSweeper#shared()} sweeper
+     */
+    public static <T> Function<Flux<T>, Flux<T>> sweepingTimeout(Duration timeout) {
+        return flux -> new SweepingTimeout<>(flux, timeout, TimeoutSweeper.shared());
+    }
+
+    public static <T> Function<Flux<T>, Flux<T>> sweepingTimeout(Duration timeout, TimeoutSweeper sweeper) {
+        return flux -> new SweepingTimeout<>(flux, timeout, sweeper);
+    }
+
+    public SweepingTimeout(Publisher<? extends T> source, Duration timeout, TimeoutSweeper sweeper) {
+        if (timeout.isZero() || timeout.isNegative()) {
+            throw new IllegalArgumentException("timeout > 0 required but it was " + timeout);
+        }
+        this.source = source;
+        this.timeoutNanos = timeout.toNanos();
+        this.sweeper = sweeper;
+    }
+
+    @Override
+    public void subscribe(Subscriber<? super T> subscriber) {
+        source.subscribe(new SweepingTimeoutSubscriber<>(subscriber, timeoutNanos, sweeper));
+    }
+
+    static final class SweepingTimeoutSubscriber<T> extends TimeoutSweeper.Watched
+            implements Subscriber<T>, Subscription {
+
+        static final int IDLE = 0;
+        static final int EMITTING = 1;
+        /** the sweeper found the subscriber in onNext, the onNext thread delivers the error */
+        static final int TIMED_OUT = 2;
+        static final int TERMINATED = 3;
+
+        private final Subscriber<? super T> actual;
+        private final long timeoutNanos;
+        private final TimeoutSweeper sweeper;
+
+        private Subscription s;
+
+        /** the events so far, written only by onNext and read by the sweeps */
+        private volatile long produced;
+        @SuppressWarnings("rawtypes")
+        private static final AtomicLongFieldUpdater<SweepingTimeoutSubscriber> PRODUCED =
+                AtomicLongFieldUpdater.newUpdater(SweepingTimeoutSubscriber.class, "produced");
+
+        /** keeps the onNext and the onError coming from the sweeper from overlapping */
+        private volatile int state;
+        @SuppressWarnings("rawtypes")
+        private static final AtomicIntegerFieldUpdater<SweepingTimeoutSubscriber> STATE =
+                AtomicIntegerFieldUpdater.newUpdater(SweepingTimeoutSubscriber.class, "state");
+
+        SweepingTimeoutSubscriber(Subscriber<? super T> actual, long timeoutNanos, TimeoutSweeper sweeper) {
+            this.actual = actual;
+            this.timeoutNanos = timeoutNanos;
+            this.sweeper = sweeper;
+        }
+
+        @Override
+        public void onSubscribe(Subscription s) {
+            if (Operators.validate(this.s, s)) {
+                this.s = s;
+                actual.onSubscribe(this);
+
+                sweeper.watch(this);
+                if (state == TERMINATED) { // completed or cancelled during onSubscribe
+                    sweeper.unwatch(this);
+                }
+            }
+        }
+
+        @Override
+        public void onNext(T t) {
+            PRODUCED.lazySet(this, produced + 1);
+
+            if (!STATE.compareAndSet(this, IDLE, EMITTING)) {
+                Operators.onNextDropped(t);
+                return;
+            }
+            actual.onNext(t);
+            if (!STATE.compareAndSet(this, EMITTING, IDLE) && STATE.compareAndSet(this, TIMED_OUT, TERMINATED)) {
+                actual.onError(timeoutError());
+            }
+        }
+
+        @Override
+        public void onError(Throwable t) {
+            if (!STATE.compareAndSet(this, IDLE, TERMINATED)) {
+                Operators.onErrorDropped(t);
+                return;
+            }
+            sweeper.unwatch(this);
+            actual.onError(t);
+        }
+
+        @Override
+        public void onComplete() {
+            if (STATE.compareAndSet(this, IDLE, TERMINATED)) {
+                sweeper.unwatch(this);
+                actual.onComplete();
+            }
+        }
+
+        @Override
+        public void request(long n) {
+            s.request(n);
+        }
+
+        @Override
+        public void cancel() {
+            STATE.set(this, TERMINATED);
+            sweeper.unwatch(this);
+            s.cancel();
+        }
+
+        @Override
+        long progress() {
+            return produced;
+        }
+
+        @Override
+        long timeoutNanos() {
+            return timeoutNanos;
+        }
+
+        @Override
+        void onTimeout() {
+            for (;;) {
+                int current = state;
+                if (current == IDLE) {
+                    if (STATE.compareAndSet(this, IDLE, TERMINATED)) {
+                        s.cancel();
+                        actual.onError(timeoutError());
+                        return;
+                    }
+                } else if (current == EMITTING) {
+                    if (STATE.compareAndSet(this, EMITTING, TIMED_OUT)) {
+                        s.cancel();
+                        return;
+                    }
+                } else {
+                    return;
+                }
+            }
+        }
+
+        private TimeoutException timeoutError() {
+            return new TimeoutException("No event within " + timeoutNanos / 1_000_000 + "ms");
+        }
+    }
+}
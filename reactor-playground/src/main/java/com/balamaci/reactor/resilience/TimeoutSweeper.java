@@ -0,0 +1,131 @@
+package com.balamaci.reactor.resilience;
+
+import reactor.core.Cancellation;
+import reactor.core.scheduler.Schedulers;
+import reactor.core.scheduler.TimedScheduler;
+
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One periodic task checking the timeouts of many subscriptions, instead of a timer task per subscription that
+ * has to be rescheduled on every event. A watched subscription only bumps a progress counter per event, the
+ * sweeper remembers the last value it saw and when it last changed - no System.nanoTime(), no allocation and no
+ * timer call per event.
+ *
+ * The price is precision: a timeout is noticed on the first sweep after it passed, up to one 'period' late.
+ * A sweep costs O(watched subscriptions), so the period should be a fraction of the timeouts, not of the event rate.
+ */
+public final class TimeoutSweeper {
+
+    private static final class Holder {
+        static final TimeoutSweeper SHARED = new TimeoutSweeper(Duration.ofMillis(10).toNanos(),
+                Schedulers.newTimer("timeout-sweeper", true), true);
+    }
+
+    private final Set<Watched> watched = ConcurrentHashMap.newKeySet();
+    private final long periodNanos;
+    private final TimedScheduler scheduler;
+    /** the scheduler was created for this sweeper - the shared one - and is shut down with it */
+    private final boolean ownsScheduler;
+    private final Cancellation sweeping;
+
+    /**
+     * The sweeper behind {@link SweepingTimeout#sweepingTimeout(Duration)}, sweeping every 10ms on its own daemon thread
+     */
+    public static TimeoutSweeper shared() {
+        return Holder.SHARED;
+    }
+
+    /**
+     * @param scheduler runs the sweeps, the timeout errors are delivered from its thread. shutdown() leaves it running
+     */
+    public static TimeoutSweeper create(Duration period, TimedScheduler scheduler) {
+        if (period.isZero() || period.isNegative()) {
+            throw new IllegalArgumentException("period > 0 required but it was " + period);
+        }
+        return new TimeoutSweeper(period.toNanos(), scheduler, false);
+    }
+
+    private TimeoutSweeper(long periodNanos, TimedScheduler scheduler, boolean ownsScheduler) {
+        this.periodNanos = periodNanos;
+        this.scheduler = scheduler;
+        this.ownsScheduler = ownsScheduler;
+        this.sweeping = scheduler.schedulePeriodically(this::sweep, periodNanos, periodNanos, TimeUnit.NANOSECONDS);
+    }
+
+    public long periodNanos() {
+        return periodNanos;
+    }
+
+    /**
+     * @return the subscriptions being watched
+     */
+    public int watching() {
+        return watched.size();
+    }
+
+    /**
+     * Stops sweeping, the watched subscriptions never time out
+     */
+    public void shutdown() {
+        sweeping.dispose();
+        if (ownsScheduler) {
+            scheduler.shutdown();
+        }
+        watched.clear();
+    }
+
+    @Override
+    public String toString() {
+        return "TimeoutSweeper[period=" + periodNanos / 1_000_000 + "ms, watching=" + watched.size() + "]";
+    }
+
+    void watch(Watched subscription) {
+        subscription.lastChange = System.nanoTime();
+        subscription.lastProgress = subscription.progress();
+        watched.add(subscription);
+    }
+
+    void unwatch(Watched subscription) {
+        watched.remove(subscription);
+    }
+
+    private void sweep() {
+        long now = System.nanoTime();
+        for (Watched subscription : watched) {
+            long progress = subscription.progress();
+            if (progress != subscription.lastProgress) {
+                subscription.lastProgress = progress;
+                subscription.lastChange = now;
+            } else if (now - subscription.lastChange >= subscription.timeoutNanos()) {
+                watched.remove(subscription);
+                subscription.onTimeout();
+            }
+        }
+    }
+
+    /**
+     * A subscription the sweeper can watch
+     */
+    abstract static class Watched {
+
+        /** touched only by the sweeps, after watch() */
+        private long lastProgress;
+        private long lastChange;
+
+        /**
+         * @return a value that changes on every event
+         */
+        abstract long progress();
+
+        abstract long timeoutNanos();
+
+        /**
+         * Called from the sweeper thread once there was no progress for timeoutNanos
+         */
+        abstract void onTimeout();
+    }
+}
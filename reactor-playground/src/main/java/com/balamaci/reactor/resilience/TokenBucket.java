@@ -0,0 +1,138 @@
+package com.balamaci.reactor.resilience;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+
+/**
+ * A lock-free token bucket refilling at 'permitsPerSecond' up to 'burst' tokens, safe to share between any number
+ * of subscriptions and threads.
+ *
+ * The whole state is a single long - the time at which the bucket is full again, the "theoretical arrival time" of
+ * the generic cell rate algorithm - so taking a token is one CAS and there's no refill task: the tokens are what
+ * the time since then paid for. The bucket starts full.
+ */
+public final class TokenBucket {
+
+    private final long intervalNanos;
+    private final long toleranceNanos;
+    private final int burst;
+
+    /** when the bucket is full again, the permits taken push it into the future */
+    private volatile long fullAt;
+    private static final AtomicLongFieldUpdater<TokenBucket> FULL_AT =
+            AtomicLongFieldUpdater.newUpdater(TokenBucket.class, "fullAt");
+
+    private volatile long rejected;
+    private static final AtomicLongFieldUpdater<TokenBucket> REJECTED =
+            AtomicLongFieldUpdater.newUpdater(TokenBucket.class, "rejected");
+
+    /**
+     * @param burst how many tokens can be taken at once after the bucket was left to fill up
+     */
+    public static TokenBucket create(double permitsPerSecond, int burst) {
+        if (!(permitsPerSecond > 0) || permitsPerSecond > TimeUnit.SECONDS.toNanos(1)) {
+            throw new IllegalArgumentException("0 < permitsPerSecond <= 1e9 required but it was " + permitsPerSecond);
+        }
+        if (burst <= 0) {
+            throw new IllegalArgumentException("burst > 0 required but it was " + burst);
+        }
+        return new TokenBucket(Math.round(TimeUnit.SECONDS.toNanos(1) / permitsPerSecond), burst);
+    }
+
+    private TokenBucket(long intervalNanos, int burst) {
+        this.intervalNanos = intervalNanos;
+        this.burst = burst;
+        this.toleranceNanos = intervalNanos * burst;
+        this.fullAt = System.nanoTime();
+    }
+
+    public boolean tryAcquire() {
+        return tryAcquire(1);
+    }
+
+    /**
+     * @return false - taking nothing - when there are fewer than 'permits' tokens
+     */
+    public boolean tryAcquire(int permits) {
+        if (permits <= 0) {
+            throw new IllegalArgumentException("permits > 0 required but it was " + permits);
+        }
+        long cost = intervalNanos * permits;
+        for (;;) {
+            long now = System.nanoTime();
+            long current = fullAt;
+            long next = Math.max(current, now) + cost;
+            if (next - now > toleranceNanos) {
+                REJECTED.incrementAndGet(this);
+                return false;
+            }
+            if (FULL_AT.compareAndSet(this, current, next)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Takes what there is, up to 'maxPermits', with a single CAS - a rate limited stream takes its tokens in
+     * batches instead of one per element
+     *
+     * @return the tokens taken, 0 when the bucket is empty
+     */
+    public int tryAcquireUpTo(int maxPermits) {
+        if (maxPermits <= 0) {
+            throw new IllegalArgumentException("maxPermits > 0 required but it was " + maxPermits);
+        }
+        for (;;) {
+            long now = System.nanoTime();
+            long current = fullAt;
+            long from = Math.max(current, now);
+            long permits = Math.min(maxPermits, (toleranceNanos - (from - now)) / intervalNanos);
+            if (permits <= 0) {
+                return 0;
+            }
+            if (FULL_AT.compareAndSet(this, current, from + permits * intervalNanos)) {
+                return (int) permits;
+            }
+        }
+    }
+
+    /**
+     * @return how long until there are 'permits' tokens - at most 'burst' - 0 when there are already
+     */
+    public long nanosUntilAvailable(int permits) {
+        long needed = intervalNanos * Math.min(permits, burst);
+        return Math.max(0, fullAt - System.nanoTime() - (toleranceNanos - needed));
+    }
+
+    /**
+     * @return the tokens in the bucket right now
+     */
+    public int available() {
+        long missing = fullAt - System.nanoTime();
+        if (missing <= 0) {
+            return burst;
+        }
+        return (int) ((toleranceNanos - missing) / intervalNanos);
+    }
+
+    /**
+     * @return the tryAcquire calls that found the bucket empty
+     */
+    public long rejected() {
+        return rejected;
+    }
+
+    public double permitsPerSecond() {
+        return (double) TimeUnit.SECONDS.toNanos(1) / intervalNanos;
+    }
+
+    public int burst() {
+        return burst;
+    }
+
+    @Override
+    public String toString() {
+        return "TokenBucket[permitsPerSecond=" + permitsPerSecond() + ", burst=" + burst + ", available="
+                + available() + ", rejected=" + rejected + "]";
+    }
+}
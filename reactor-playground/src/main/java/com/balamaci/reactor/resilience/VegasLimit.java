@@ -0,0 +1,63 @@
+package com.balamaci.reactor.resilience;
+
+/**
+ * The calls queued at the dependency are limit * (1 - minRtt / rtt) - the part of the latency above the lowest
+ * ever seen is time spent waiting. The limit grows by log10(limit) while fewer than alpha = 3 * log10(limit) calls
+ * are queued, shrinks by the same above beta = 6 * log10(limit) and drops by 10% when a call failed.
+ *
+ * The samples update the limit under the monitor, the limit itself is read without it.
+ */
+public final class VegasLimit implements ConcurrencyLimit {
+
+    private final int maxLimit;
+
+    /** guarded by the monitor */
+    private double estimatedLimit;
+    private long minRttNanos = Long.MAX_VALUE;
+
+    private volatile int limit;
+
+    VegasLimit(int initialLimit, int maxLimit) {
+        if (initialLimit <= 0 || initialLimit > maxLimit) {
+            throw new IllegalArgumentException("0 < initialLimit <= maxLimit required but it was " + initialLimit);
+        }
+        this.maxLimit = maxLimit;
+        this.estimatedLimit = initialLimit;
+        this.limit = initialLimit;
+    }
+
+    @Override
+    public int limit() {
+        return limit;
+    }
+
+    @Override
+    public synchronized void onSample(long rttNanos, int inFlight, boolean dropped) {
+        if (dropped) {
+            estimatedLimit = Math.max(1, estimatedLimit * 0.9);
+            limit = (int) estimatedLimit;
+            return;
+        }
+        if (rttNanos <= 0) {
+            return;
+        }
+        minRttNanos = Math.min(minRttNanos, rttNanos);
+        if (inFlight * 2 < estimatedLimit) { // not using the limit, the latency says nothing about it
+            return;
+        }
+
+        double step = Math.max(1, Math.log10(estimatedLimit));
+        double queued = estimatedLimit * (1 - (double) minRttNanos / rttNanos);
+        if (queued <= 3 * step) {
+            estimatedLimit = Math.min(maxLimit, estimatedLimit + step);
+        } else if (queued >= 6 * step) {
+            estimatedLimit = Math.max(1, estimatedLimit - step);
+        }
+        limit = (int) estimatedLimit;
+    }
+
+    @Override
+    public String toString() {
+        return "VegasLimit[" + limit + "]";
+    }
+}
@@ -0,0 +1,268 @@
+package com.balamaci.reactor.scheduler;
+
+import reactor.core.Cancellation;
+import reactor.core.scheduler.Schedulers;
+import reactor.core.scheduler.TimedScheduler;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A TimedScheduler on a {@link HashedWheelTimer}. Schedulers.timer() - what delay, delaySubscription, interval and
+ * timeout use when no scheduler is given - is a ScheduledThreadPoolExecutor, a priority queue paying O(log n) for
+ * every schedule and cancel. Most per-request timeouts are cancelled long before they fire, here that's an O(1)
+ * flag and unlink.
+ *
+ * Installed for every operator through the Schedulers factory:
+ *
+ * <pre>
+ * Schedulers.setFactory(HashedWheelTimedScheduler.factory(1, TimeUnit.MILLISECONDS, 512));
+ * </pre>
+ *
+ * or passed to a single operator, like any TimedScheduler. The tasks run on the single wheel thread, one after the
+ * other, so the tasks of a Worker keep their order as long as they are due in the same tick. A task runs up to one
+ * tick late - the tick duration is the precision traded for the O(1).
+ */
+public final class HashedWheelTimedScheduler implements TimedScheduler {
+
+    private final HashedWheelTimer timer;
+
+    public static HashedWheelTimedScheduler create(String name) {
+        return new HashedWheelTimedScheduler(HashedWheelTimer.create(name));
+    }
+
+    public static HashedWheelTimedScheduler create(String name, long tickDuration, TimeUnit unit, int wheelSize) {
+        return new HashedWheelTimedScheduler(HashedWheelTimer.create(name, tickDuration, unit, wheelSize));
+    }
+
+    /**
+     * A Schedulers.Factory whose newTimer() - the one behind Schedulers.timer() - is a timer wheel, the other
+     * schedulers stay the default ones
+     */
+    public static Schedulers.Factory factory(long tickDuration, TimeUnit unit, int wheelSize) {
+        return new Schedulers.Factory() {
+            @Override
+            public TimedScheduler newTimer(ThreadFactory threadFactory) {
+                return new HashedWheelTimedScheduler(HashedWheelTimer.create("timer", threadFactory, tickDuration,
+                        unit, wheelSize));
+            }
+        };
+    }
+
+    private HashedWheelTimedScheduler(HashedWheelTimer timer) {
+        this.timer = timer;
+    }
+
+    @Override
+    public Cancellation schedule(Runnable task) {
+        return schedule(task, 0, TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public Cancellation schedule(Runnable task, long delay, TimeUnit unit) {
+        return tryNewTimeout(task, delay, unit);
+    }
+
+    @Override
+    public Cancellation schedulePeriodically(Runnable task, long initialDelay, long period, TimeUnit unit) {
+        if (timer.isShutdown()) {
+            return REJECTED;
+        }
+        PeriodicTask periodicTask = new PeriodicTask(task, unit.toNanos(period), null);
+        if (!periodicTask.start(unit.toNanos(initialDelay))) {
+            return REJECTED;
+        }
+        return periodicTask;
+    }
+
+    @Override
+    public TimedWorker createWorker() {
+        return new WheelWorker();
+    }
+
+    @Override
+    public void shutdown() {
+        timer.shutdown();
+    }
+
+    /**
+     * @return the timeouts scheduled and not yet run or cancelled
+     */
+    public long pending() {
+        return timer.pending();
+    }
+
+    @Override
+    public String toString() {
+        return "HashedWheelTimedScheduler[" + timer + "]";
+    }
+
+    /**
+     * isShutdown() is only a hint, the timer can shut down before newTimeout - which then throws
+     *
+     * @return REJECTED when the timer is shut down
+     */
+    private Cancellation tryNewTimeout(Runnable task, long delay, TimeUnit unit) {
+        if (timer.isShutdown()) {
+            return REJECTED;
+        }
+        try {
+            return timer.newTimeout(task, delay, unit);
+        } catch (IllegalStateException e) {
+            return REJECTED;
+        }
+    }
+
+    /**
+     * Runs at a fixed rate - the next run is scheduled from the previous deadline, not from when it ran, so the
+     * tick rounding doesn't add up
+     */
+    private final class PeriodicTask implements Runnable, Cancellation {
+
+        private final Runnable task;
+        private final long periodNanos;
+        private final Set<Cancellation> tracked;
+
+        private long nextRun;
+        private volatile Cancellation timeout;
+        private volatile boolean cancelled;
+
+        PeriodicTask(Runnable task, long periodNanos, Set<Cancellation> tracked) {
+            this.task = task;
+            this.periodNanos = periodNanos;
+            this.tracked = tracked;
+        }
+
+        /**
+         * @return false when the timer is shut down
+         */
+        boolean start(long initialDelayNanos) {
+            nextRun = System.nanoTime() + initialDelayNanos;
+            return scheduleNext();
+        }
+
+        private boolean scheduleNext() {
+            Cancellation next = tryNewTimeout(this, nextRun - System.nanoTime(), TimeUnit.NANOSECONDS);
+            if (next == REJECTED) {
+                dispose();
+                return false;
+            }
+            timeout = next;
+            if (cancelled) {
+                next.dispose();
+            }
+            return true;
+        }
+
+        @Override
+        public void run() {
+            if (cancelled) {
+                return;
+            }
+            task.run();
+            nextRun += periodNanos;
+            if (!cancelled) {
+                scheduleNext();
+            }
+        }
+
+        @Override
+        public void dispose() {
+            cancelled = true;
+            Cancellation current = timeout;
+            if (current != null) {
+                current.dispose();
+            }
+            if (tracked != null) {
+                tracked.remove(this);
+            }
+        }
+    }
+
+    /**
+     * Keeps track of its pending tasks so shutdown() can cancel them
+     */
+    private final class WheelWorker implements TimedWorker {
+
+        private final Set<Cancellation> tasks = ConcurrentHashMap.newKeySet();
+        private volatile boolean shutdown;
+
+        @Override
+        public Cancellation schedule(Runnable task) {
+            return schedule(task, 0, TimeUnit.NANOSECONDS);
+        }
+
+        @Override
+        public Cancellation schedule(Runnable task, long delay, TimeUnit unit) {
+            if (shutdown || timer.isShutdown()) {
+                return REJECTED;
+            }
+            WorkerTask workerTask = new WorkerTask(task);
+            tasks.add(workerTask);
+            Cancellation timeout = tryNewTimeout(workerTask, delay, unit);
+            if (timeout == REJECTED) {
+                tasks.remove(workerTask);
+                return REJECTED;
+            }
+            workerTask.timeout = timeout;
+            if (shutdown) {
+                workerTask.dispose();
+                return REJECTED;
+            }
+            return workerTask;
+        }
+
+        @Override
+        public Cancellation schedulePeriodically(Runnable task, long initialDelay, long period, TimeUnit unit) {
+            if (shutdown || timer.isShutdown()) {
+                return REJECTED;
+            }
+            PeriodicTask periodicTask = new PeriodicTask(task, unit.toNanos(period), tasks);
+            tasks.add(periodicTask);
+            if (!periodicTask.start(unit.toNanos(initialDelay))) {
+                return REJECTED;
+            }
+            if (shutdown) {
+                periodicTask.dispose();
+                return REJECTED;
+            }
+            return periodicTask;
+        }
+
+        @Override
+        public void shutdown() {
+            shutdown = true;
+            for (Cancellation task : tasks) {
+                task.dispose();
+            }
+            tasks.clear();
+        }
+
+        private final class WorkerTask implements Runnable, Cancellation {
+
+            private final Runnable task;
+            private volatile Cancellation timeout;
+
+            WorkerTask(Runnable task) {
+                this.task = task;
+            }
+
+            @Override
+            public void run() {
+                tasks.remove(this);
+                task.run();
+            }
+
+            @Override
+            public void dispose() {
+                Cancellation current = timeout;
+                if (current != null) {
+                    current.dispose();
+                }
+                tasks.remove(this);
+            }
+        }
+    }
+}
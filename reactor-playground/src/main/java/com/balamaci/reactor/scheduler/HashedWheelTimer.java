@@ -0,0 +1,281 @@
+package com.balamaci.reactor.scheduler;
+
+import reactor.core.Cancellation;
+import reactor.util.concurrent.QueueSupplier;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * A hashed timer wheel (Varghese and Lauck): a ring of 'wheelSize' buckets, the hand moves one bucket every
+ * 'tickDuration' and runs the timeouts in it that are due this round. Scheduling and cancelling are O(1) whatever
+ * the number of pending timeouts - a ScheduledThreadPoolExecutor pays O(log n) for both in its priority queue,
+ * and a cancelled task stays in the queue until its time comes.
+ *
+ * The price is precision: a timeout runs on the first tick at or after its deadline, up to one tick late, never
+ * early. With the default 1ms tick that's fine for network timeouts and simulated latencies.
+ *
+ * A single thread moves the hand and runs the expired tasks, they should be short and never block - hand over to
+ * a Scheduler for anything else. New timeouts and cancellations go through lock-free queues the wheel thread
+ * drains on every tick, so the buckets themselves are touched only by that thread.
+ */
+public final class HashedWheelTimer {
+
+    private static final int MAX_TRANSFERS_PER_TICK = 100_000;
+
+    private static final int ST_INIT = 0;
+    private static final int ST_CANCELLED = 1;
+    private static final int ST_EXPIRED = 2;
+
+    private static final AtomicIntegerFieldUpdater<Timeout> STATE =
+            AtomicIntegerFieldUpdater.newUpdater(Timeout.class, "state");
+
+    private final String name;
+    private final long tickNanos;
+    private final Bucket[] wheel;
+    private final int mask;
+
+    private final Queue<Timeout> newTimeouts = new ConcurrentLinkedQueue<>();
+    private final Queue<Timeout> cancelledTimeouts = new ConcurrentLinkedQueue<>();
+    private final AtomicLong pending = new AtomicLong();
+
+    private final long startTime;
+    private final Thread thread;
+    private volatile boolean shutdown;
+
+    /** touched only by the wheel thread */
+    private long tick;
+
+    public static HashedWheelTimer create(String name) {
+        return create(name, 1, TimeUnit.MILLISECONDS, 512);
+    }
+
+    /**
+     * @param tickDuration how far the hand moves on every tick - the precision of the timer
+     * @param wheelSize the number of buckets, rounded up to a power of two - the timeouts due in more than
+     *                  wheelSize ticks go around the wheel more than once
+     */
+    public static HashedWheelTimer create(String name, long tickDuration, TimeUnit unit, int wheelSize) {
+        return create(name, runnable -> {
+            Thread thread = new Thread(runnable, name);
+            thread.setDaemon(true);
+            return thread;
+        }, tickDuration, unit, wheelSize);
+    }
+
+    /**
+     * @param threadFactory creates the wheel thread
+     */
+    public static HashedWheelTimer create(String name, ThreadFactory threadFactory, long tickDuration, TimeUnit unit,
+                                          int wheelSize) {
+        if (tickDuration <= 0) {
+            throw new IllegalArgumentException("tickDuration > 0 required but it was " + tickDuration);
+        }
+        if (wheelSize <= 0 || wheelSize > 1 << 30) {
+            throw new IllegalArgumentException("0 < wheelSize <= 2^30 required but it was " + wheelSize);
+        }
+        return new HashedWheelTimer(name, threadFactory, unit.toNanos(tickDuration), wheelSize);
+    }
+
+    private HashedWheelTimer(String name, ThreadFactory threadFactory, long tickNanos, int wheelSize) {
+        this.name = name;
+        this.tickNanos = tickNanos;
+
+        int size = QueueSupplier.ceilingNextPowerOfTwo(wheelSize);
+        this.wheel = new Bucket[size];
+        for (int i = 0; i < size; i++) {
+            wheel[i] = new Bucket();
+        }
+        this.mask = size - 1;
+
+        this.startTime = System.nanoTime();
+        this.thread = threadFactory.newThread(this::run);
+        thread.start();
+    }
+
+    /**
+     * Runs the task on the wheel thread after the delay, rounded up to the next tick
+     */
+    public Cancellation newTimeout(Runnable task, long delay, TimeUnit unit) {
+        if (shutdown) {
+            throw new IllegalStateException(name + " is shut down");
+        }
+        long deadline = System.nanoTime() - startTime + Math.max(0, unit.toNanos(delay));
+        Timeout timeout = new Timeout(task, deadline);
+        pending.incrementAndGet();
+        newTimeouts.offer(timeout);
+        return timeout;
+    }
+
+    /**
+     * @return the timeouts scheduled and not yet run or cancelled
+     */
+    public long pending() {
+        return pending.get();
+    }
+
+    public long tickNanos() {
+        return tickNanos;
+    }
+
+    public boolean isShutdown() {
+        return shutdown;
+    }
+
+    /**
+     * Stops the wheel thread, the pending timeouts never run
+     */
+    public void shutdown() {
+        shutdown = true;
+        LockSupport.unpark(thread);
+    }
+
+    @Override
+    public String toString() {
+        return "HashedWheelTimer[" + name + ", tick=" + tickNanos / 1000 + "us, wheelSize=" + wheel.length +
+                ", pending=" + pending.get() + "]";
+    }
+
+    private void run() {
+        while (!shutdown) {
+            long deadline = tickNanos * (tick + 1);
+            for (; ; ) {
+                long sleepNanos = deadline - (System.nanoTime() - startTime);
+                if (sleepNanos <= 0 || shutdown) {
+                    break;
+                }
+                LockSupport.parkNanos(this, sleepNanos);
+            }
+
+            removeCancelled();
+            transferNewTimeouts();
+            expire(wheel[(int) (tick & mask)]);
+            tick++;
+        }
+        newTimeouts.clear();
+        cancelledTimeouts.clear();
+    }
+
+    private void transferNewTimeouts() {
+        for (int i = 0; i < MAX_TRANSFERS_PER_TICK; i++) {
+            Timeout timeout = newTimeouts.poll();
+            if (timeout == null) {
+                return;
+            }
+            if (timeout.state == ST_CANCELLED) { // cancelled before it got into a bucket
+                continue;
+            }
+            long dueTick = (timeout.deadline + tickNanos - 1) / tickNanos - 1;
+            long ticks = Math.max(dueTick, tick); // already due - this tick
+            timeout.remainingRounds = (ticks - tick) / wheel.length;
+            wheel[(int) (ticks & mask)].add(timeout);
+        }
+    }
+
+    private void removeCancelled() {
+        Timeout timeout;
+        while ((timeout = cancelledTimeouts.poll()) != null) {
+            if (timeout.bucket != null) {
+                timeout.bucket.remove(timeout);
+            }
+        }
+    }
+
+    private void expire(Bucket bucket) {
+        Timeout timeout = bucket.head;
+        while (timeout != null) {
+            Timeout next = timeout.next;
+            if (timeout.remainingRounds <= 0) {
+                bucket.remove(timeout);
+                if (STATE.compareAndSet(timeout, ST_INIT, ST_EXPIRED)) {
+                    pending.decrementAndGet();
+                    runTask(timeout.task);
+                }
+            } else {
+                timeout.remainingRounds--;
+            }
+            timeout = next;
+        }
+    }
+
+    private static void runTask(Runnable task) {
+        try {
+            task.run();
+        } catch (Throwable e) {
+            Thread thread = Thread.currentThread();
+            thread.getUncaughtExceptionHandler().uncaughtException(thread, e);
+        }
+    }
+
+    private final class Timeout implements Cancellation {
+
+        private final Runnable task;
+        /** nanos since the start of the timer */
+        private final long deadline;
+
+        volatile int state;
+
+        // touched only by the wheel thread
+        private long remainingRounds;
+        private Bucket bucket;
+        private Timeout next;
+        private Timeout prev;
+
+        Timeout(Runnable task, long deadline) {
+            this.task = task;
+            this.deadline = deadline;
+        }
+
+        @Override
+        public void dispose() {
+            if (STATE.compareAndSet(this, ST_INIT, ST_CANCELLED)) {
+                pending.decrementAndGet();
+                cancelledTimeouts.offer(this);
+            }
+        }
+    }
+
+    /**
+     * Doubly linked list of timeouts, so a cancelled one is unlinked in O(1)
+     */
+    private static final class Bucket {
+
+        private Timeout head;
+        private Timeout tail;
+
+        void add(Timeout timeout) {
+            timeout.bucket = this;
+            if (head == null) {
+                head = tail = timeout;
+            } else {
+                tail.next = timeout;
+                timeout.prev = tail;
+                tail = timeout;
+            }
+        }
+
+        void remove(Timeout timeout) {
+            Timeout next = timeout.next;
+            if (timeout.prev != null) {
+                timeout.prev.next = next;
+            }
+            if (next != null) {
+                next.prev = timeout.prev;
+            }
+            if (timeout == head) {
+                head = next;
+            }
+            if (timeout == tail) {
+                tail = timeout.prev;
+            }
+            timeout.prev = null;
+            timeout.next = null;
+            timeout.bucket = null;
+        }
+    }
+}
@@ -0,0 +1,301 @@
+package com.balamaci.reactor.scheduler;
+
+import reactor.core.Cancellation;
+import reactor.core.scheduler.Scheduler;
+
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A Scheduler for blocking work that starts a new virtual thread for every task instead of pooling platform
+ * threads like Schedulers.elastic() - a blocked virtual thread only costs a few hundred bytes of heap:
+ *
+ * <pre>
+ * flux.subscribeOn(VirtualThreadScheduler.create("io"))
+ * flux.flatMap(val -&gt; remoteCall(val).subscribeOn(VirtualThreadScheduler.create("io", 100)))
+ * </pre>
+ *
+ * The optional concurrency cap is a semaphore the tasks acquire on their own thread, so the scheduling thread
+ * never blocks and the waiting tasks are just parked (virtual) threads - a remote service can be protected from
+ * 10K concurrent calls without a bounded queue in front of it.
+ *
+ * Virtual threads need Java 21 while the project targets 1.8, so they are looked up by reflection. On older
+ * runtimes every task gets a new daemon platform thread instead - same semantics, none of the savings,
+ * {@link #isVirtual()} tells which one it is.
+ *
+ * Workers keep Reactor's guarantee that the tasks of a Worker run one after the other in order: a Worker drains
+ * its queue on a single thread started when the queue goes from empty to non-empty.
+ */
+public final class VirtualThreadScheduler implements Scheduler {
+
+    private static final AtomicIntegerFieldUpdater<VirtualWorker> WORKER_WIP =
+            AtomicIntegerFieldUpdater.newUpdater(VirtualWorker.class, "wip");
+
+    private final String name;
+    private final int maxConcurrency;
+    private final Semaphore permits;
+    private final ThreadFactory threadFactory;
+    private final boolean virtual;
+
+    /** the tasks and workers to interrupt on shutdown */
+    private final Set<Cancellation> active = ConcurrentHashMap.newKeySet();
+    private volatile boolean shutdown;
+
+    public static VirtualThreadScheduler create(String name) {
+        return new VirtualThreadScheduler(name, 0);
+    }
+
+    /**
+     * @param maxConcurrency how many tasks can run at the same time, the others wait for a permit
+     */
+    public static VirtualThreadScheduler create(String name, int maxConcurrency) {
+        if (maxConcurrency <= 0) {
+            throw new IllegalArgumentException("maxConcurrency > 0 required but it was " + maxConcurrency);
+        }
+        return new VirtualThreadScheduler(name, maxConcurrency);
+    }
+
+    private VirtualThreadScheduler(String name, int maxConcurrency) {
+        this.name = name;
+        this.maxConcurrency = maxConcurrency;
+        this.permits = maxConcurrency > 0 ? new Semaphore(maxConcurrency) : null;
+
+        ThreadFactory virtualThreads = virtualThreadFactory(name);
+        this.virtual = virtualThreads != null;
+        this.threadFactory = virtual ? virtualThreads : platformThreadFactory(name);
+    }
+
+    /**
+     * Thread.ofVirtual().name(name + "-", 0).factory() when running on Java 21+, null otherwise
+     */
+    private static ThreadFactory virtualThreadFactory(String name) {
+        try {
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            Class<?> ofVirtual = Class.forName("java.lang.Thread$Builder$OfVirtual");
+            builder = ofVirtual.getMethod("name", String.class, long.class).invoke(builder, name + "-", 0L);
+            return (ThreadFactory) ofVirtual.getMethod("factory").invoke(builder);
+        } catch (ReflectiveOperationException | RuntimeException e) { // not there, or a preview not enabled
+            return null;
+        }
+    }
+
+    private static ThreadFactory platformThreadFactory(String name) {
+        AtomicLong counter = new AtomicLong();
+        return runnable -> {
+            Thread thread = new Thread(runnable, name + "-" + counter.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    public boolean isVirtual() {
+        return virtual;
+    }
+
+    @Override
+    public Cancellation schedule(Runnable task) {
+        if (shutdown) {
+            return REJECTED;
+        }
+        ScheduledTask scheduledTask = new ScheduledTask(task);
+        active.add(scheduledTask);
+        threadFactory.newThread(scheduledTask).start();
+        return scheduledTask;
+    }
+
+    @Override
+    public Worker createWorker() {
+        return new VirtualWorker();
+    }
+
+    @Override
+    public void shutdown() {
+        shutdown = true;
+        for (Cancellation cancellation : active) {
+            cancellation.dispose();
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "VirtualThreadScheduler[" + name + (virtual ? ", virtual" : ", platform") + " threads" +
+                (maxConcurrency > 0 ? ", maxConcurrency=" + maxConcurrency : "") + "]";
+    }
+
+    private void acquire() throws InterruptedException {
+        if (permits != null) {
+            permits.acquire();
+        }
+    }
+
+    private void release() {
+        if (permits != null) {
+            permits.release();
+        }
+    }
+
+    private static void handleError(Throwable e) {
+        Thread thread = Thread.currentThread();
+        thread.getUncaughtExceptionHandler().uncaughtException(thread, e);
+    }
+
+    private final class ScheduledTask implements Runnable, Cancellation {
+
+        private final Runnable task;
+
+        private volatile Thread runner;
+        private volatile boolean cancelled;
+
+        ScheduledTask(Runnable task) {
+            this.task = task;
+        }
+
+        @Override
+        public void run() {
+            runner = Thread.currentThread();
+            try {
+                if (cancelled) {
+                    return;
+                }
+                acquire();
+                try {
+                    if (!cancelled) {
+                        task.run();
+                    }
+                } finally {
+                    release();
+                }
+            } catch (InterruptedException e) { // cancelled while waiting for a permit
+            } catch (Throwable e) {
+                handleError(e);
+            } finally {
+                runner = null;
+                active.remove(this);
+            }
+        }
+
+        @Override
+        public void dispose() {
+            if (!cancelled) {
+                cancelled = true;
+                Thread thread = runner;
+                if (thread != null) {
+                    thread.interrupt();
+                }
+                active.remove(this);
+            }
+        }
+    }
+
+    private final class VirtualWorker implements Worker, Cancellation, Runnable {
+
+        private final Queue<WorkerTask> queue = new ConcurrentLinkedQueue<>();
+
+        private volatile Thread runner;
+        private volatile boolean shutdown;
+
+        volatile int wip;
+
+        VirtualWorker() {
+            active.add(this);
+        }
+
+        @Override
+        public Cancellation schedule(Runnable task) {
+            if (shutdown || VirtualThreadScheduler.this.shutdown) {
+                return REJECTED;
+            }
+            WorkerTask workerTask = new WorkerTask(task);
+            queue.offer(workerTask);
+            if (WORKER_WIP.getAndIncrement(this) == 0) {
+                threadFactory.newThread(this).start();
+            }
+            return workerTask;
+        }
+
+        /**
+         * Runs the queued tasks one after the other, the thread ends when the queue is empty
+         */
+        @Override
+        public void run() {
+            runner = Thread.currentThread();
+            try {
+                acquire();
+            } catch (InterruptedException e) { // shut down while waiting for a permit
+                return;
+            }
+            try {
+                int missed = 1;
+                for (; ; ) {
+                    WorkerTask task;
+                    while ((task = queue.poll()) != null) {
+                        if (shutdown) {
+                            queue.clear();
+                            return;
+                        }
+                        Thread.interrupted(); // a late cancel of the previous task shouldn't hit this one
+                        task.run();
+                    }
+                    missed = WORKER_WIP.addAndGet(this, -missed);
+                    if (missed == 0) {
+                        break;
+                    }
+                }
+            } finally {
+                runner = null;
+                release();
+            }
+        }
+
+        @Override
+        public void shutdown() {
+            if (!shutdown) {
+                shutdown = true;
+                queue.clear();
+                Thread thread = runner;
+                if (thread != null) {
+                    thread.interrupt();
+                }
+                active.remove(this);
+            }
+        }
+
+        @Override
+        public void dispose() {
+            shutdown();
+        }
+    }
+
+    private static final class WorkerTask implements Runnable, Cancellation {
+
+        private final Runnable task;
+        private volatile boolean cancelled;
+
+        WorkerTask(Runnable task) {
+            this.task = task;
+        }
+
+        @Override
+        public void run() {
+            if (cancelled) {
+                return;
+            }
+            try {
+                task.run();
+            } catch (Throwable e) {
+                handleError(e);
+            }
+        }
+
+        @Override
+        public void dispose() {
+            cancelled = true;
+        }
+    }
+}
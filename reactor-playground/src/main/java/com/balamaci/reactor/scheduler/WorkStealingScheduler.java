@@ -0,0 +1,215 @@
+package com.balamaci.reactor.scheduler;
+
+import reactor.core.Cancellation;
+import reactor.core.scheduler.Scheduler;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A parallel Scheduler backed by a ForkJoinPool, where every thread has its own deque and an idle thread steals from
+ * the others. Schedulers.newParallel() pins every Worker to one of its single threaded executors (round-robin), so
+ * with uneven work - some flatMap substreams taking much longer than the others - the tasks pile up behind the
+ * slow ones while the other threads have nothing to do.
+ *
+ * A Worker still runs its tasks one after the other in order: it is a chain of tasks put on a deque as a single
+ * ForkJoinTask when the chain goes from empty to non-empty, so it's always the whole chain that is stolen, never a
+ * task from the middle of it. The chain is pushed to the deque of the thread that scheduled it when that is a
+ * thread of the pool (affinity - the data it needs is probably still in that core's cache), and after
+ * 'maxBatch' tasks a busy chain is pushed back to the end of its thread's deque so it can't monopolize the
+ * thread while the chains behind it starve.
+ */
+public final class WorkStealingScheduler implements Scheduler {
+
+    private static final int DEFAULT_MAX_BATCH = 64;
+
+    private static final AtomicIntegerFieldUpdater<TaskChain> CHAIN_WIP =
+            AtomicIntegerFieldUpdater.newUpdater(TaskChain.class, "wip");
+
+    private final String name;
+    private final int maxBatch;
+    private final ForkJoinPool pool;
+
+    public static WorkStealingScheduler create(String name) {
+        return create(name, Runtime.getRuntime().availableProcessors());
+    }
+
+    public static WorkStealingScheduler create(String name, int parallelism) {
+        return create(name, parallelism, DEFAULT_MAX_BATCH);
+    }
+
+    /**
+     * @param parallelism the number of threads
+     * @param maxBatch how many tasks of a Worker run in one go before the other chains get a chance
+     */
+    public static WorkStealingScheduler create(String name, int parallelism, int maxBatch) {
+        if (parallelism <= 0) {
+            throw new IllegalArgumentException("parallelism > 0 required but it was " + parallelism);
+        }
+        if (maxBatch <= 0) {
+            throw new IllegalArgumentException("maxBatch > 0 required but it was " + maxBatch);
+        }
+        return new WorkStealingScheduler(name, parallelism, maxBatch);
+    }
+
+    private WorkStealingScheduler(String name, int parallelism, int maxBatch) {
+        this.name = name;
+        this.maxBatch = maxBatch;
+
+        AtomicLong counter = new AtomicLong();
+        ForkJoinPool.ForkJoinWorkerThreadFactory threadFactory = forkJoinPool -> {
+            ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(forkJoinPool);
+            thread.setName(name + "-" + counter.incrementAndGet());
+            return thread;
+        };
+        // asyncMode - the deques are FIFO for their own thread too, the tasks are events not recursive splits
+        this.pool = new ForkJoinPool(parallelism, threadFactory, null, true);
+    }
+
+    @Override
+    public Cancellation schedule(Runnable task) {
+        SingleTask singleTask = new SingleTask(task);
+        return submit(ForkJoinTask.adapt(singleTask)) ? singleTask : REJECTED;
+    }
+
+    @Override
+    public Worker createWorker() {
+        return new TaskChain();
+    }
+
+    @Override
+    public void shutdown() {
+        pool.shutdownNow();
+    }
+
+    /**
+     * @return how many chains were stolen by a thread other than the one that queued them, an estimate
+     */
+    public long stealCount() {
+        return pool.getStealCount();
+    }
+
+    public int parallelism() {
+        return pool.getParallelism();
+    }
+
+    @Override
+    public String toString() {
+        return "WorkStealingScheduler[" + name + ", parallelism=" + pool.getParallelism() + ", steals=" +
+                pool.getStealCount() + "]";
+    }
+
+    /**
+     * fork() puts the task on the current thread's own deque, from any other thread it goes to a shared
+     * submission queue
+     */
+    private boolean submit(ForkJoinTask<?> task) {
+        try {
+            if (ForkJoinTask.getPool() == pool) {
+                task.fork();
+            } else {
+                pool.execute(task);
+            }
+            return true;
+        } catch (RejectedExecutionException e) {
+            return false;
+        }
+    }
+
+    private static void handleError(Throwable e) {
+        Thread thread = Thread.currentThread();
+        thread.getUncaughtExceptionHandler().uncaughtException(thread, e);
+    }
+
+    private static final class SingleTask implements Runnable, Cancellation {
+
+        private final Runnable task;
+        private volatile boolean cancelled;
+
+        SingleTask(Runnable task) {
+            this.task = task;
+        }
+
+        @Override
+        public void run() {
+            if (cancelled) {
+                return;
+            }
+            try {
+                task.run();
+            } catch (Throwable e) {
+                handleError(e);
+            }
+        }
+
+        @Override
+        public void dispose() {
+            cancelled = true;
+        }
+    }
+
+    private final class TaskChain implements Worker, Runnable {
+
+        private final Queue<SingleTask> queue = new ConcurrentLinkedQueue<>();
+
+        private volatile boolean shutdown;
+
+        volatile int wip;
+
+        @Override
+        public Cancellation schedule(Runnable task) {
+            if (shutdown) {
+                return REJECTED;
+            }
+            SingleTask singleTask = new SingleTask(task);
+            queue.offer(singleTask);
+            if (CHAIN_WIP.getAndIncrement(this) == 0 && !submit(ForkJoinTask.adapt(this))) {
+                queue.clear();
+                return REJECTED;
+            }
+            return singleTask;
+        }
+
+        /**
+         * Runs at most maxBatch tasks, then pushes the chain back to the end of the deque if there's more
+         */
+        @Override
+        public void run() {
+            int missed = wip;
+            int emitted = 0;
+            for (; ; ) {
+                SingleTask task;
+                while ((task = queue.poll()) != null) {
+                    if (shutdown) {
+                        queue.clear();
+                        return;
+                    }
+                    task.run();
+                    if (++emitted == maxBatch) {
+                        // wip stays > 0, nobody else submits the chain in the meantime
+                        if (!submit(ForkJoinTask.adapt(this))) {
+                            queue.clear();
+                        }
+                        return;
+                    }
+                }
+                missed = CHAIN_WIP.addAndGet(this, -missed);
+                if (missed == 0) {
+                    break;
+                }
+            }
+        }
+
+        @Override
+        public void shutdown() {
+            shutdown = true;
+            queue.clear();
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package com.balamaci.reactor.simulator;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * How long the simulated remote service takes to answer, sampled for every response
+ */
+@FunctionalInterface
+public interface LatencyDistribution {
+
+    long nextNanos();
+
+    static LatencyDistribution fixed(Duration latency) {
+        long nanos = latency.toNanos();
+        return () -> nanos;
+    }
+
+    static LatencyDistribution uniform(Duration min, Duration max) {
+        long minNanos = min.toNanos();
+        long maxNanos = max.toNanos();
+        if (maxNanos < minNanos) {
+            throw new IllegalArgumentException("min <= max required but they were " + min + ", " + max);
+        }
+        return () -> minNanos + (long) (ThreadLocalRandom.current().nextDouble() * (maxNanos - minNanos));
+    }
+
+    /**
+     * Mostly close to the mean with a long tail - the usual shape of a remote call's latency
+     */
+    static LatencyDistribution exponential(Duration mean) {
+        long meanNanos = mean.toNanos();
+        return () -> (long) (-Math.log(1 - ThreadLocalRandom.current().nextDouble()) * meanNanos);
+    }
+}
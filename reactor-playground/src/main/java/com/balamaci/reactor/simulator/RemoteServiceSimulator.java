@@ -0,0 +1,165 @@
+package com.balamaci.reactor.simulator;
+
+import com.balamaci.reactor.scheduler.HashedWheelTimer;
+import reactor.core.Cancellation;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.FluxSink;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A remote service answering after a latency sampled from a {@link LatencyDistribution}, without a thread per
+ * call: every call is just a timeout on a shared {@link HashedWheelTimer}, the responses are emitted from the
+ * wheel thread. The blocked-thread version - new Thread(...) and a sleep between the events - runs out of threads
+ * at a few thousand calls in flight, this one holds 100K of them in a few MB of heap.
+ *
+ * <pre>
+ * RemoteServiceSimulator remote = RemoteServiceSimulator.create(timer, LatencyDistribution.fixed(ofMillis(200)));
+ * colors.flatMap(color -&gt; remote.call(color + "0", color + "1"))
+ * </pre>
+ *
+ * The events are buffered until requested, like with Flux.create. Cancelling a call cancels its timeout.
+ */
+public final class RemoteServiceSimulator {
+
+    private final HashedWheelTimer timer;
+    private final LatencyDistribution latency;
+
+    private final AtomicLong calls = new AtomicLong();
+    private final AtomicLong inFlight = new AtomicLong();
+
+    public static RemoteServiceSimulator create(HashedWheelTimer timer, LatencyDistribution latency) {
+        return new RemoteServiceSimulator(timer, latency);
+    }
+
+    private RemoteServiceSimulator(HashedWheelTimer timer, LatencyDistribution latency) {
+        this.timer = timer;
+        this.latency = latency;
+    }
+
+    /**
+     * A single response after one latency sample
+     */
+    public <T> Mono<T> request(T response) {
+        return Mono.from(call(Collections.singletonList(response), null));
+    }
+
+    /**
+     * A streaming response: every event comes one latency sample after the previous one, the completion comes
+     * with the last event
+     */
+    @SafeVarargs
+    public final <T> Flux<T> call(T... responses) {
+        List<T> list = new ArrayList<>(responses.length); // not Arrays.asList, the generic array stays here
+        for (T response : responses) {
+            list.add(response);
+        }
+        return call(list, null);
+    }
+
+    /**
+     * @param error the call fails with it after the responses, null to complete
+     */
+    public <T> Flux<T> call(List<T> responses, Throwable error) {
+        return Flux.create(sink -> {
+            calls.incrementAndGet();
+            inFlight.incrementAndGet();
+            new StreamingCall<>(sink, responses, error).scheduleNext();
+        });
+    }
+
+    /**
+     * @return the calls started so far
+     */
+    public long calls() {
+        return calls.get();
+    }
+
+    /**
+     * @return the calls started and not yet answered or cancelled
+     */
+    public long inFlight() {
+        return inFlight.get();
+    }
+
+    @Override
+    public String toString() {
+        return "RemoteServiceSimulator[calls=" + calls.get() + ", inFlight=" + inFlight.get() + "]";
+    }
+
+    private final class StreamingCall<T> implements Runnable, Cancellation {
+
+        private final FluxSink<T> sink;
+        private final List<T> responses;
+        private final Throwable error;
+
+        /** touched only by the wheel thread */
+        private int index;
+
+        private volatile Cancellation timeout;
+        private final AtomicBoolean ended = new AtomicBoolean();
+
+        StreamingCall(FluxSink<T> sink, List<T> responses, Throwable error) {
+            this.sink = sink;
+            this.responses = responses;
+            this.error = error;
+            sink.setCancellation(this);
+        }
+
+        void scheduleNext() {
+            Cancellation next = timer.newTimeout(this, latency.nextNanos(), TimeUnit.NANOSECONDS);
+            timeout = next;
+            if (ended.get()) { // cancelled in the meantime
+                next.dispose();
+            }
+        }
+
+        @Override
+        public void run() {
+            if (ended.get()) {
+                return;
+            }
+            if (index < responses.size()) {
+                sink.next(responses.get(index++));
+                if (index < responses.size()) {
+                    scheduleNext();
+                    return;
+                }
+            }
+            if (end()) {
+                if (error != null) {
+                    sink.error(error);
+                } else {
+                    sink.complete();
+                }
+            }
+        }
+
+        /**
+         * Cancelled, or called by the sink after the completion
+         */
+        @Override
+        public void dispose() {
+            if (end()) {
+                Cancellation current = timeout;
+                if (current != null) {
+                    current.dispose();
+                }
+            }
+        }
+
+        private boolean end() {
+            if (ended.compareAndSet(false, true)) {
+                inFlight.decrementAndGet();
+                return true;
+            }
+            return false;
+        }
+    }
+}
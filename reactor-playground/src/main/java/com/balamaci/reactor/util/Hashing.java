@@ -0,0 +1,21 @@
+package com.balamaci.reactor.util;
+
+/**
+ * The hashing of the open addressing tables - the key index of BoundedGroupBy, the LongValueMap of the keyed
+ * aggregates.
+ */
+public final class Hashing {
+
+    private Hashing() {
+    }
+
+    /**
+     * Fibonacci hashing: the multiplication moves the entropy of the low bits to the high ones and the shift folds
+     * it back down, so sequential ids and hashCodes differing only in their high bits spread over a power of two
+     * table masked with its low bits
+     */
+    public static int spread(int hashCode) {
+        int h = hashCode * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
@@ -1,5 +1,7 @@
 package com.balamaci.reactor;
 
+import com.balamaci.reactor.metrics.CountingSubscriber;
+import com.balamaci.reactor.metrics.MeasuringSubscriber;
 import com.balamaci.reactor.util.Helpers;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -10,15 +12,23 @@ import java.time.Duration;
 import java.time.temporal.ChronoUnit;
 import java.time.temporal.TemporalUnit;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Consumer;
 
 /**
+ * Running the scenarios with -Dmeasure=true switches the helpers to "measure" mode: the events are not logged
+ * anymore but consumed by a {@link CountingSubscriber} requesting in batches of -Dmeasure.batch (default 256),
+ * and a single summary line is logged when the stream terminates.
+ *
  * @author sbalamaci
  */
 interface BaseTestFlux {
 
     Logger log = LoggerFactory.getLogger(BaseTestFlux.class);
 
+    boolean MEASURE = Boolean.getBoolean("measure");
+    long MEASURE_BATCH = Long.getLong("measure.batch", 256);
+
     default Flux<Integer> simpleFlux() {
         Flux<Integer> flux = Flux.create(subscriber -> {
             log.info("Started emitting");
@@ -36,6 +46,10 @@ interface BaseTestFlux {
     }
 
     default <T> void subscribeWithLog(Flux<T> flux) {
+        if (MEASURE) {
+            subscribeMeasuring(flux, new CountingSubscriber<>(MEASURE_BATCH));
+            return;
+        }
         flux.subscribe(
                 logNext(),
                 logErrorConsumer(),
@@ -44,6 +58,10 @@ interface BaseTestFlux {
     }
 
     default <T> void subscribeWithLog(Mono<T> mono) {
+        if (MEASURE) {
+            subscribeMeasuring(mono.flux(), new CountingSubscriber<>(MEASURE_BATCH));
+            return;
+        }
         mono.subscribe(
                 logNext(),
                 logErrorConsumer(),
@@ -52,6 +70,11 @@ interface BaseTestFlux {
     }
 
     default <T> void subscribeWithLogWaiting(Flux<T> flux) {
+        if (MEASURE) {
+            MeasuringSubscriber<T> subscriber = subscribeMeasuring(flux, new CountingSubscriber<>(MEASURE_BATCH));
+            subscriber.await(1, TimeUnit.MINUTES);
+            return;
+        }
         CountDownLatch latch = new CountDownLatch(1);
         flux.subscribe(
                 logNext(),
@@ -92,11 +115,26 @@ interface BaseTestFlux {
                             );
     }
 
+    /**
+     * Subscribes a measuring subscriber, its summary is logged once the flux terminated
+     */
+    default <T, S extends MeasuringSubscriber<T>> S subscribeMeasuring(Flux<T> flux, S subscriber) {
+        flux.doAfterTerminate(() -> log.info("{}", subscriber))
+            .subscribe(subscriber);
+        return subscriber;
+    }
+
     default <T> Consumer<? super T> logNext() {
+        if (MEASURE) {
+            return val -> {};
+        }
         return (Consumer<T>) val -> log.info("Subscriber received: {}", val);
     }
 
     default <T> Consumer<? super T> logNextAndSlowByMillis(int millis) {
+        if (MEASURE) {
+            return val -> Helpers.sleepMillis(millis);
+        }
         return (Consumer<T>) val -> {
             log.info("Subscriber received: {}", val);
             Helpers.sleepMillis(millis);
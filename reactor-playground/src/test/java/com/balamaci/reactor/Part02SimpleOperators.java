@@ -1,17 +1,23 @@
 package com.balamaci.reactor;
 
+import com.balamaci.reactor.publisher.ParallelOrderedJoin;
+import com.balamaci.reactor.publisher.primitive.IntFlux;
 import com.balamaci.reactor.util.Helpers;
 import org.junit.Test;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
 
 import java.time.Duration;
 import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Random;
 import java.util.concurrent.CountDownLatch;
 
+import static com.balamaci.reactor.publisher.ParallelOrderedJoin.mapValue;
+
 /**
  * @author sbalamaci
  */
@@ -97,6 +103,42 @@ public class Part02SimpleOperators implements BaseTestFlux {
         subscribeWithLog(numbers);
     }
 
+    /**
+     * Every value going through scan() above is boxed into an Integer, and so is every intermediate result.
+     * IntFlux is the int specialized version of Flux, the values travel between the operators as primitives
+     * and are boxed only when they leave the IntFlux with boxed().
+     */
+    @Test
+    public void scanOperatorWithPrimitives() {
+        Flux<Integer> numbers = IntFlux.range(1, 5)
+                .map(val -> val * 2)
+                .scan(0, (totalSoFar, currentValue) -> {
+                    log.info("totalSoFar={}, emitted={}", totalSoFar, currentValue);
+                    return totalSoFar + currentValue;
+                })
+                .boxed();
+
+        subscribeWithLog(numbers);
+    }
+
+    /**
+     * reduce() and sum() on an IntFlux box just the final result into the returned Mono
+     */
+    @Test
+    public void reduceOperatorWithPrimitives() {
+        Mono<Integer> numbers = IntFlux.range(1, 10)
+                                   .filter(val -> val % 2 == 0)
+                                   .reduce(0, Integer::sum);
+        subscribeWithLog(numbers);
+
+        subscribeWithLog(IntFlux.range(1, 10).sum());
+
+        Flux<String> buffers = IntFlux.range(1, 10)
+                                   .buffer(4)
+                                   .map(Arrays::toString);
+        subscribeWithLog(buffers);
+    }
+
     /**
      * collect operator acts similar to the reduce() operator, but while the reduce() operator uses a reduce function
      * which returns a value, the collect() operator takes a container supplie and a function which doesn't return
@@ -114,6 +156,49 @@ public class Part02SimpleOperators implements BaseTestFlux {
         subscribeWithLog(numbers);
     }
 
+    /**
+     * parallel(n) splits the flux into n rails, the events are handed out round-robin and runOn gives every rail its
+     * own worker, so the map() of the rails run at the same time. reduce() reduces every rail on its own worker and
+     * then the rail results with the same function - it has to be associative, the order of the events is lost.
+     */
+    @Test
+    public void reduceOperatorOnParallelRails() {
+        Mono<Integer> numbers = Flux.just(3, 5, -2, 9)
+                                   .parallel(2)
+                                   .runOn(Schedulers.newParallel("rail", 2))
+                                   .map(val -> {
+                                       log.info("Squaring {}", val);
+                                       return val * val;
+                                   })
+                                   .reduce((totalSoFar, val) -> {
+                                       log.info("totalSoFar={}, emitted={}", totalSoFar, val);
+                                       return totalSoFar + val;
+                                   });
+        subscribeWithLogWaiting(numbers.flux());
+    }
+
+    /**
+     * sequential() merges the rails back in whatever order their events arrive, collect() would see a different
+     * order on every run. The events are numbered before parallel() and ParallelOrderedJoin merges the rails by
+     * that number, so the container gets them in the source order.
+     */
+    @Test
+    public void collectOperatorOnParallelRails() {
+        Mono<List<Integer>> numbers = ParallelOrderedJoin.indexed(Flux.just(3, 5, -2, 9))
+                                    .parallel(2)
+                                    .runOn(Schedulers.newParallel("rail", 2))
+                                    .map(mapValue(val -> {
+                                        log.info("Squaring {}", val);
+                                        return val * val;
+                                    }))
+                                    .as(ParallelOrderedJoin::ordered)
+                                    .collect(ArrayList::new, (container, value) -> {
+                                        log.info("Adding {} to container", value);
+                                        container.add(value);
+                                    });
+        subscribeWithLogWaiting(numbers.flux());
+    }
+
     /**
      * repeat resubscribes to the observable after it receives onComplete
      */
@@ -1,5 +1,7 @@
 package com.balamaci.reactor;
 
+import com.balamaci.reactor.resilience.RateLimitOperator;
+import com.balamaci.reactor.resilience.TokenBucket;
 import com.balamaci.reactor.util.Helpers;
 import java.time.Duration;
 import java.time.temporal.ChronoUnit;
@@ -65,6 +67,27 @@ public class Part03MergingStreams implements BaseTestFlux {
     }
 
 
+    /**
+     * The same pacing without the timer stream: the colors are requested only as a token bucket refills - one token
+     * every 2 seconds, the first one is already in the bucket.
+     * The bucket can also be shared, the colors and the shapes below get 2 permits per second between them and
+     * a burst of 3 at the start.
+     */
+    @Test
+    public void rateLimitUsedToSlowDownAnotherStream() {
+        Flux<String> colors = Flux.just("red", "green", "blue")
+                .transform(RateLimitOperator.rateLimit(0.5, 1));
+        subscribeWithLogWaiting(colors);
+
+        TokenBucket shared = TokenBucket.create(2, 3);
+        Flux<String> sharedColors = Flux.just("red", "green", "blue", "yellow")
+                .transform(RateLimitOperator.rateLimit(shared));
+        Flux<String> sharedShapes = Flux.just("circle", "square", "triangle", "star")
+                .transform(RateLimitOperator.rateLimit(shared));
+        subscribeWithLogWaiting(Flux.merge(sharedColors, sharedShapes));
+        log.info("{}", shared);
+    }
+
     /**
      * Merge operator combines one or more stream and passes events downstream as soon
      * as they appear
@@ -0,0 +1,154 @@
+package com.balamaci.reactor;
+
+import com.balamaci.reactor.publisher.BroadcastProcessor;
+import com.balamaci.reactor.publisher.MulticastFlux;
+import com.balamaci.reactor.util.Helpers;
+import org.junit.Test;
+import reactor.core.publisher.ConnectableFlux;
+import reactor.core.publisher.Flux;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.time.temporal.ChronoUnit;
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * Hot publishers emit their events regardless of having subscribers or not. Instead of each subscriber
+ * triggering its own execution of the source (cold), all the subscribers share a single subscription
+ * to the source and receive the same events - a single upstream feed, multicasted to many subscribers.
+ *
+ * A subscriber joining late misses the events that were emitted before it subscribed, unless the events are
+ * retained and replayed.
+ *
+ * @author sbalamaci
+ */
+public class Part04HotObservables implements BaseTestFlux {
+
+    /**
+     * publish() turns a cold Flux into a ConnectableFlux. Subscribing to it doesn't start the source, it's
+     * connect() that subscribes to the source - once - and from then on every subscriber receives the
+     * events from the moment it subscribed.
+     */
+    @Test
+    public void publishAndConnect() {
+        CountDownLatch latch = new CountDownLatch(2);
+
+        ConnectableFlux<Long> numbers = Flux.interval(Duration.of(1, ChronoUnit.SECONDS))
+                .take(6)
+                .doOnSubscribe(s -> log.info("Subscribed to the source"))
+                .publish();
+
+        numbers.subscribe(val -> log.info("First subscriber received: {}", val),
+                logErrorConsumer(latch), logCompleteMethod(latch));
+
+        log.info("Connecting");
+        numbers.connect();
+
+        Helpers.sleepMillis(3500);
+        numbers.subscribe(val -> log.info("Second subscriber received: {}", val),
+                logErrorConsumer(latch), logCompleteMethod(latch));
+
+        Helpers.wait(latch);
+    }
+
+    /**
+     * refCount(n) connects when the n-th subscriber subscribes, and cancels the source subscription
+     * when all the subscribers cancelled
+     */
+    @Test
+    public void refCount() {
+        Flux<Long> numbers = Flux.interval(Duration.of(500, ChronoUnit.MILLIS))
+                .doOnSubscribe(s -> log.info("Subscribed to the source"))
+                .doOnCancel(() -> log.info("Source subscription cancelled"))
+                .publish()
+                .refCount(2);
+
+        CountDownLatch latch = new CountDownLatch(2);
+        numbers.take(4).subscribe(val -> log.info("First subscriber received: {}", val),
+                logErrorConsumer(latch), logCompleteMethod(latch));
+
+        log.info("Nothing is emitted until the 2nd subscriber");
+        Helpers.sleepMillis(1500);
+
+        numbers.take(6).subscribe(val -> log.info("Second subscriber received: {}", val),
+                logErrorConsumer(latch), logCompleteMethod(latch));
+
+        Helpers.wait(latch);
+        Helpers.sleepMillis(500);
+    }
+
+    /**
+     * replay(n) retains the last n events and replays them to late subscribers.
+     * autoConnect(n) connects on the n-th subscriber, but unlike refCount it doesn't disconnect
+     * when the subscribers leave
+     */
+    @Test
+    public void replayWithAutoConnect() {
+        CountDownLatch latch = new CountDownLatch(2);
+
+        Flux<String> colors = periodicEmitter(new String[]{"red", "green", "blue", "yellow", "orange"},
+                                              1, ChronoUnit.SECONDS, 1)
+                .replay(2)
+                .autoConnect(1);
+
+        colors.subscribe(val -> log.info("First subscriber received: {}", val),
+                logErrorConsumer(latch), logCompleteMethod(latch));
+
+        Helpers.sleepMillis(3500);
+        log.info("Second subscriber gets the last 2 colors replayed");
+        colors.subscribe(val -> log.info("Second subscriber received: {}", val),
+                logErrorConsumer(latch), logCompleteMethod(latch));
+
+        Helpers.wait(latch);
+    }
+
+    /**
+     * BroadcastProcessor multicasts a single upstream to many subscribers through a shared bounded ring buffer.
+     * Each subscriber has its own demand - the slow subscriber requests 1 event at a time - and the upstream
+     * is requested only as far as the slowest subscriber has room in the ring, so here the source is paced by
+     * the slow subscriber and the fast one is at most 'prefetch' events ahead.
+     */
+    @Test
+    public void broadcastProcessorWithPerSubscriberDemand() {
+        CountDownLatch latch = new CountDownLatch(2);
+
+        BroadcastProcessor<Integer> processor = BroadcastProcessor.create(4);
+
+        processor.subscribe(val -> log.info("Fast subscriber received: {}", val),
+                logErrorConsumer(latch), logCompleteMethod(latch));
+
+        processor.publishOn(Schedulers.newSingle("slow"), 1)
+                .subscribe(logNextAndSlowByMillis(300), logErrorConsumer(latch), logCompleteMethod(latch));
+
+        Flux.range(1, 12)
+                .doOnRequest(n -> log.info("Source requested {}", n))
+                .subscribe(processor);
+
+        Helpers.wait(latch);
+    }
+
+    /**
+     * MulticastFlux is the ConnectableFlux backed by a BroadcastProcessor, so refCount()/autoConnect()
+     * work the same as for the built-in publish()/replay().
+     */
+    @Test
+    public void multicastFluxReplayWithAutoConnect() {
+        CountDownLatch latch = new CountDownLatch(3);
+
+        Flux<Long> numbers = MulticastFlux.replay(Flux.interval(Duration.of(500, ChronoUnit.MILLIS)).take(8),
+                                                  3, 16)
+                .autoConnect(2);
+
+        numbers.subscribe(val -> log.info("First subscriber received: {}", val),
+                logErrorConsumer(latch), logCompleteMethod(latch));
+        numbers.subscribe(val -> log.info("Second subscriber received: {}", val),
+                logErrorConsumer(latch), logCompleteMethod(latch));
+
+        Helpers.sleepMillis(2200);
+        log.info("Third subscriber gets the last 3 numbers replayed");
+        numbers.subscribe(val -> log.info("Third subscriber received: {}", val),
+                logErrorConsumer(latch), logCompleteMethod(latch));
+
+        Helpers.wait(latch);
+    }
+}
@@ -0,0 +1,226 @@
+package com.balamaci.reactor;
+
+import com.balamaci.reactor.aggregate.EventTime;
+import com.balamaci.reactor.aggregate.KeyedAggregate;
+import com.balamaci.reactor.aggregate.PanedWindows;
+import com.balamaci.reactor.aggregate.WindowAggregate;
+import com.balamaci.reactor.aggregate.WindowResult;
+import com.balamaci.reactor.publisher.BoundedGroupBy;
+import com.balamaci.reactor.publisher.GroupMetrics;
+import java.time.Duration;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import org.junit.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.GroupedFlux;
+import reactor.util.function.Tuple2;
+import reactor.util.function.Tuples;
+
+/**
+ * @author sbalamaci
+ */
+public class Part05AdvancedOperators implements BaseTestFlux {
+
+    @Test
+    public void buffer() {
+        Flux<Long> numbers = Flux.interval(Duration.of(1, ChronoUnit.SECONDS));
+
+        Flux<List<Long>> delayedNumbersWindow = numbers.buffer(5);
+
+        subscribeWithLog(delayedNumbersWindow);
+    }
+
+    /**
+     * Split the stream into multiple windows.
+     * The window size can be specified as a number of events
+     */
+    @Test
+    public void simpleWindow() {
+        Flux<Long> numbers = Flux.interval(Duration.of(1, ChronoUnit.SECONDS));
+
+        Flux<Long> delayedNumbersWindow = numbers
+                .window(5) //size of events
+                .flatMap(window -> window.doOnComplete(() -> log.info("Window completed"))
+                                         .doOnSubscribe((sub) -> log.info("Window started"))
+                        );
+
+        subscribeWithLogWaiting(delayedNumbersWindow);
+    }
+
+
+    /**
+     * Split the stream into multiple windows
+     * When the period to start the windows(timeshit) is bigger than the window timespan, some events will be lost
+     */
+    @Test
+    public void windowWithLoosingEvents() {
+        Flux<Long> numbers = Flux.interval(Duration.of(1, ChronoUnit.SECONDS));
+
+        Duration timespan = Duration.of(5, ChronoUnit.SECONDS);
+        Duration timeshift = Duration.of(10, ChronoUnit.SECONDS);
+
+        subscribeTimeWindow(numbers, timespan, timeshift);
+    }
+
+
+    @Test
+    public void windowWithDuplicateEvents() {
+        Flux<Long> numbers = Flux.interval(Duration.of(1, ChronoUnit.SECONDS));
+
+        Duration timespan = Duration.of(9, ChronoUnit.SECONDS);
+        Duration timeshift = Duration.of(3, ChronoUnit.SECONDS);
+
+        subscribeTimeWindow(numbers, timespan, timeshift);
+    }
+
+    /**
+     * When all that's wanted from a window is an aggregate, PanedWindows doesn't open a Flux per window: the 9s
+     * windows starting every 3s are made of 3s panes, an event is added to the sum of its pane only and a window
+     * closing sums its 3 panes.
+     * With event time the timestamps come from the events - here a number every 1s of event time.
+     */
+    @Test
+    public void slidingWindowAggregateWithPanes() {
+        Flux<Long> numbers = Flux.interval(Duration.of(1, ChronoUnit.SECONDS))
+                .take(12);
+
+        Flux<WindowResult<Long>> sums = numbers
+                .transform(PanedWindows.sliding(Duration.ofSeconds(9), Duration.ofSeconds(3),
+                        WindowAggregate.sum(number -> number)));
+        subscribeWithLogWaiting(sums);
+
+        Flux<WindowResult<Long>> eventTimeSums = Flux.range(0, 12)
+                .transform(PanedWindows.sliding(Duration.ofSeconds(9), Duration.ofSeconds(3),
+                        number -> number * 1000L, WindowAggregate.sum(number -> number)));
+        subscribeWithLogWaiting(eventTimeSums);
+    }
+
+    /**
+     * The events carry their own timestamp, in seconds here, and come out of order. The watermark trails the
+     * highest timestamp by 2s, so the 9 coming after the 11 still makes it in the [0, 10) window. The window is
+     * kept for 5s more after closing: the 8 coming then is added and the window emitted again. The 5 comes after
+     * that and goes to the late events.
+     */
+    @Test
+    public void eventTimeWindowsWithLateEvents() {
+        Flux<Tuple2<Integer, String>> events = Flux.just(
+                Tuples.of(1, "red"), Tuples.of(3, "green"), Tuples.of(2, "blue"), Tuples.of(11, "red"),
+                Tuples.of(9, "yellow"), Tuples.of(13, "green"), Tuples.of(8, "red"), Tuples.of(22, "blue"),
+                Tuples.of(5, "green"), Tuples.of(25, "red"));
+
+        EventTime<Tuple2<Integer, String>> eventTime =
+                EventTime.<Tuple2<Integer, String>>timestamps(event -> event.getT1() * 1000L)
+                        .boundedOutOfOrderness(Duration.ofSeconds(2))
+                        .allowedLateness(Duration.ofSeconds(5))
+                        .lateEvents(event -> log.info("Late event {}", event));
+
+        Flux<WindowResult<Long>> counts = events
+                .transform(PanedWindows.tumbling(Duration.ofSeconds(10), eventTime, WindowAggregate.count()));
+
+        subscribeWithLogWaiting(counts);
+    }
+
+    /**
+     * Simple .window() splits the stream into multiple windows. The windows are delimited when
+     * a cancelation event is triggered
+     */
+    @Test
+    public void windowLimitedByUnsubscription() {
+        Flux<String> colors = Flux.fromArray(new String[]{"red", "green", "blue",
+                "red", "yellow", "#", "green", "green"});
+
+
+        colors.window()
+                .concatMap(window -> window.takeUntil(val -> val.equals("#")).buffer())
+                .subscribe(list -> {
+                    String listCommaSeparated = String.join(",", list);
+                    log.info("List {}", listCommaSeparated);
+                });
+    }
+
+
+    private void subscribeTimeWindow(Flux<Long> numbersStream, Duration timespan, Duration timeshift) {
+        Flux<Long> delayedNumbersWindow = numbersStream
+                .window(timespan, timeshift)
+                .flatMap(window -> window
+                        .doOnComplete(() -> log.info("Window completed"))
+                        .doOnSubscribe((sub) -> log.info("Window started"))
+                );
+
+        subscribeWithLogWaiting(delayedNumbersWindow);
+    }
+
+
+    /**
+     * groupBy splits the stream into multiple streams with the key generated by the function passed as
+     * parameter to groupBy
+     */
+    @Test
+    public void groupBy() {
+        Flux<String> colors = Flux.fromArray(new String[]{"red", "green", "blue",
+                "red", "yellow", "green", "green"});
+
+        Flux<GroupedFlux<String, String>> groupedColorsStream = colors
+                .groupBy(val -> val); //identity function
+//                .groupBy(val -> "length" + val.length());
+
+
+        Flux<Tuple2<String, Long>> colorCountStream = groupedColorsStream
+                .flatMap(groupedColor -> groupedColor
+                                            .count()
+                                            .map(count -> Tuples.of(groupedColor.key(), count))
+                );
+
+        subscribeWithLogWaiting(colorCountStream);
+    }
+
+    /**
+     * groupBy keeps a group per key until the source completes. Here at most 3 groups are open: 'yellow' and the
+     * second 'green' evict the least recently used group, which completes with the count so far, and the groups
+     * without an element for 500ms are evicted during the pause. The keys coming back after it get new groups -
+     * the counts are per group, not per key.
+     */
+    @Test
+    public void groupByWithBoundedGroups() {
+        Flux<String> colors = Flux.concat(
+                Flux.just("red", "green", "blue", "red", "yellow", "green", "green"),
+                Flux.just("red", "green").delaySubscription(Duration.ofMillis(1500)));
+
+        GroupMetrics metrics = new GroupMetrics("colors");
+        Flux<Tuple2<String, Long>> colorCountStream = colors
+                .transform(BoundedGroupBy.groupByBounded(val -> val, 3, Duration.ofMillis(500), metrics))
+                .flatMap(groupedColor -> groupedColor
+                                            .count()
+                                            .map(count -> Tuples.of(groupedColor.key(), count)),
+                        3);
+
+        subscribeWithLogWaiting(colorCountStream);
+        log.info("{}", metrics);
+    }
+
+    /**
+     * When all that's wanted from the groups is a number per key, countByKey keeps a long per key in a map instead
+     * of a GroupedFlux per key. The counts are emitted when the source completes - or every flushInterval, with the
+     * counts since the previous flush.
+     */
+    @Test
+    public void countByKeyWithoutGroupedFlux() {
+        Flux<String> colors = Flux.fromArray(new String[]{"red", "green", "blue",
+                "red", "yellow", "green", "green"});
+
+        Flux<Tuple2<String, Long>> colorCountStream = colors
+                .transform(KeyedAggregate.countByKey(val -> val));
+        subscribeWithLogWaiting(colorCountStream);
+
+        Flux<Tuple2<Character, Long>> maxLengthStream = colors
+                .transform(KeyedAggregate.maxByKey(val -> val.charAt(0), String::length));
+        subscribeWithLogWaiting(maxLengthStream);
+
+        Flux<Tuple2<String, Long>> countsPerSecond = Flux.concat(
+                    colors,
+                    Flux.just("red", "green").delaySubscription(Duration.ofMillis(1500)))
+                .transform(KeyedAggregate.countByKey(val -> val, Duration.ofSeconds(1)));
+        subscribeWithLogWaiting(countsPerSecond);
+    }
+
+}
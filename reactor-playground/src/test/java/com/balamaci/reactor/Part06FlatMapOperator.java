@@ -1,8 +1,16 @@
 package com.balamaci.reactor;
 
-import com.balamaci.reactor.util.Helpers;
+import com.balamaci.reactor.publisher.OrderedFlatMap;
+import com.balamaci.reactor.publisher.ReorderBufferMetrics;
+import com.balamaci.reactor.scheduler.HashedWheelTimer;
+import com.balamaci.reactor.simulator.LatencyDistribution;
+import com.balamaci.reactor.simulator.RemoteServiceSimulator;
 import java.time.Duration;
 import java.time.temporal.ChronoUnit;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 import org.junit.Test;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.GroupedFlux;
@@ -27,6 +35,11 @@ import reactor.util.function.Tuples;
  */
 public class Part06FlatMapOperator implements BaseTestFlux {
 
+    private static final HashedWheelTimer timer = HashedWheelTimer.create("remote-service");
+
+    private static final RemoteServiceSimulator remoteService = RemoteServiceSimulator.create(timer,
+            LatencyDistribution.fixed(Duration.ofMillis(200)));
+
     /**
      * Common usecase when for each item you make an async remote call that returns a stream of items (a Publisher<T>)
      *
@@ -92,6 +105,42 @@ public class Part06FlatMapOperator implements BaseTestFlux {
         subscribeWithLogWaiting(colors);
     }
 
+    /**
+     * The remote calls are timeouts on a timer wheel instead of blocked threads, so there can be 100K of them in flight
+     * at the same time. The latencies are exponentially distributed around 200ms.
+     */
+    @Test
+    public void flatMapWith100KCallsInFlight() {
+        RemoteServiceSimulator remote = RemoteServiceSimulator.create(timer,
+                LatencyDistribution.exponential(Duration.ofMillis(200)));
+        long start = System.currentTimeMillis();
+
+        Flux<Long> responses = Flux.range(0, 100_000)
+                .flatMap(val -> remote.request(val), 100_000)
+                .count()
+                .flux();
+        subscribeWithLogWaiting(responses);
+
+        log.info("{} in {}ms", remote, System.currentTimeMillis() - start);
+    }
+
+    /**
+     * Between the two: the substreams are all subscribed at once like with flatMap, so they run in parallel, but
+     * their events come out in the order of the colors like with concatMap. "red" and "green" are ready before
+     * "orange" is done, their events wait in the reorder buffer - at most 4 per substream, then the substream is not
+     * requested any more until its turn comes. The metrics show how much was waiting.
+     */
+    @Test
+    public void flatMapOrdered() {
+        ReorderBufferMetrics metrics = new ReorderBufferMetrics("colors");
+
+        Flux<String> colors = Flux.just("orange", "red", "green")
+                .transform(OrderedFlatMap.flatMapOrdered(val -> simulateRemoteOperation(val), 3, 4, metrics));
+        subscribeWithLogWaiting(colors);
+
+        log.info("{}", metrics.snapshot());
+    }
+
     /**
      * Using concatMap to implement a variable delay in the stream.
      * We'll use the stream values to set the delay and we can do it by creating a substream
@@ -168,25 +217,19 @@ public class Part06FlatMapOperator implements BaseTestFlux {
     }
 
     /**
-     * Simulated remote operation that emits as many events as the length of the color string
+     * Simulated remote operation that emits as many events as the length of the color string, 200ms apart.
+     * The events come from the timer wheel thread of the simulator, no thread is blocked waiting for them.
      * @param color color
      * @return Flux
      */
     private Flux<String> simulateRemoteOperation(String color) {
-        return Flux.<String>create(subscriber -> {
-            Runnable asyncRun = () -> {
-                if("pink".equals(color)) {
-                    subscriber.error(new RuntimeException("Pink is not allowed"));
-                }
-                for (int i = 0; i < color.length(); i++) {
-                    subscriber.next(color + i);
-                    Helpers.sleepMillis(200);
-                }
-
-                subscriber.complete();
-            };
-            new Thread(asyncRun).start();
-        });
+        if("pink".equals(color)) {
+            return remoteService.call(Collections.emptyList(), new RuntimeException("Pink is not allowed"));
+        }
+        List<String> responses = IntStream.range(0, color.length())
+                                          .mapToObj(i -> color + i)
+                                          .collect(Collectors.toList());
+        return remoteService.call(responses, null);
     }
 
 
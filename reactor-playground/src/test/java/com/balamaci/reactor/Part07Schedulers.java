@@ -0,0 +1,281 @@
+package com.balamaci.reactor;
+
+import com.balamaci.reactor.metrics.CountingSubscriber;
+import com.balamaci.reactor.metrics.LatencyProbe;
+import com.balamaci.reactor.resilience.Bulkhead;
+import com.balamaci.reactor.resilience.BulkheadOperator;
+import com.balamaci.reactor.resilience.ConcurrencyLimit;
+import com.balamaci.reactor.scheduler.HashedWheelTimedScheduler;
+import com.balamaci.reactor.scheduler.VirtualThreadScheduler;
+import com.balamaci.reactor.scheduler.WorkStealingScheduler;
+import com.balamaci.reactor.util.Helpers;
+import org.junit.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Reactor provides some high level concepts for concurrent execution, like ExecutorService we're not dealing
+ * with the low level constructs like creating the Threads ourselves. Instead we're using a **Scheduler** which create
+ * Workers who are responsible for scheduling and running code. By default Reactor will not introduce concurrency
+ * and will run the operations on the subscription thread(the one that calls flux.subscribe(...)).
+ * There are two methods through which we can introduce Schedulers into our chain of operations:
+ *     - <b>subscribeOn</b> allows to specify which Scheduler invokes the code contained in the lambda code for
+ *            Flux.create() - where the source runs it's event producing code-.
+ *
+ *     - <b>publishOn</b> allows control to which Scheduler executes the code in the downstream operators
+
+ * Reactor provides some general use scheduler strategies:
+ *    - <b>Schedulers.parallel()</b> - good for parallelization in general. It uses a fixed threadpool,
+ *    so backlog can increase if there is congestion.
+ *    - <b>Schedulers.elastic()</b> - good for IO/blocking as it will pool threads and keep increasing the size of
+ *    the pool if current threads are in use.
+ *    Threads are cleared after some time being idle.
+ *    - <b>Schedulers.from(Executor)</b> - custom ExecutorService
+ *    - <b>Schedulers.single()</b> - uses a single thread - equivalent of parallel(1)-
+ *    should be good enough if the whole code is non blocking.
+
+ * Although we said by default Reactor doesn't introduce concurrency, lots of operators involve waiting like **delay**,
+ * **interval** need to run on a Scheduler, otherwise they would just block the subscribing thread.
+ * By default **Schedulers.timer()** is used, but the Scheduler can be passed as a parameter.
+ *
+ *
+ */
+public class Part07Schedulers implements BaseTestFlux {
+
+    /**
+     * subscribeOn allows to specify which Scheduler invokes the code contained in the lambda code for Flux.create()
+     */
+    @Test
+    public void testSubscribeOn() {
+        log.info("Starting");
+
+        Flux<Integer> flux = Flux.create(subscriber -> { //code that will execute inside the elastic scheduler
+            log.info("Starting slow network op");
+            Helpers.sleepMillis(2000);
+
+            log.info("Emitting 1st");
+            subscriber.next(1);
+
+            subscriber.complete();
+        });
+        flux = flux.subscribeOn(Schedulers.elastic()) //Specify execution on the IO Scheduler
+                .map(val -> {
+                    int newValue = val * 2;
+                    log.info("Mapping new val {}", newValue);
+                    return newValue;
+                });
+
+        subscribeWithLogWaiting(flux);
+    }
+
+
+    /**
+     * publishOn switches the thread that is used for the subscribers downstream from it's invocation
+     * If we initially subscribedOn the IoScheduler we and we
+     * further make another call .
+     */
+    @Test
+    public void testPublishOn() {
+        log.info("Starting");
+
+        Flux<Integer> observable = simpleFlux()
+                .subscribeOn(Schedulers.newParallel("parallel-subscribe"))
+                .publishOn(Schedulers.newElastic("elastic-publish"))
+                .map(val -> {
+                    int newValue = val * 2;
+                    log.info("Mapping new val {}", newValue);
+                    return newValue;
+                })
+                .publishOn(Schedulers.newElastic("elastic-2nd-publish"));
+
+        subscribeWithLogWaiting(observable);
+    }
+
+    /**
+     * The latency added by every thread hop, measured with a LatencyProbe: the events are stamped when they leave
+     * the source and the time is recorded into a histogram per stage after each subscribeOn/publishOn.
+     * The publishOn stages include the time the events spent in the publishOn queue waiting for the
+     * consumer thread.
+     */
+    @Test
+    public void latencyOfSubscribeOnAndPublishOn() {
+        LatencyProbe probe = LatencyProbe.create();
+
+        Flux<Integer> flux = Flux.range(0, 1_000_000)
+                .transform(probe.stamp())
+                .subscribeOn(Schedulers.elastic())
+                .transform(probe.record("subscribeOn"))
+                .publishOn(Schedulers.newElastic("elastic-publish"))
+                .map(val -> val * 2)
+                .transform(probe.record("publishOn"))
+                .publishOn(Schedulers.newElastic("elastic-2nd-publish"))
+                .transform(probe.record("2nd publishOn"));
+
+        CountingSubscriber<Integer> subscriber = subscribeMeasuring(flux, new CountingSubscriber<>(256));
+        subscriber.await(1, TimeUnit.MINUTES);
+
+        probe.snapshots().forEach(snapshot -> log.info("{}", snapshot));
+    }
+
+    /**
+     * Multiple calls to subscribeOn have no effect, just the first one will take effect, so we'll see the code
+     * execute on the first  thread.
+     */
+    @Test
+    public void multipleCallsToSubscribeOn() {
+        log.info("Starting");
+
+        Flux<Integer> observable = simpleFlux()
+                .subscribeOn(Schedulers.newElastic("subscribeA"))
+                .subscribeOn(Schedulers.newParallel("subscribeB"))
+                .map(val -> {
+                    int newValue = val * 2;
+                    log.info("Mapping new val {}", newValue);
+                    return newValue;
+                });
+
+        subscribeWithLogWaiting(observable);
+    }
+
+    /**
+     * By using subscribeOn in flatMap you can control the thread on which flapMap subscribes to the particular
+     * stream. By using a scheduler from a custom executor to which we allow a limited number of threads,
+     * we can also control how many concurrent threads are handling stream operations inside the flatMap
+     */
+    @Test
+    public void flatMapConcurrency() {
+        log.info("Starting");
+
+        ExecutorService fixedThreadPool = Executors.newFixedThreadPool(2);
+
+        Flux<String> observable = Flux.just("red", "green", "blue", "yellow", "orange")
+                .flatMap(color -> simulateRemoteOperationByUppercasing(color)
+                                    .map(changedColor -> {
+                                        String newValue = "**" + changedColor + "**";
+                                        log.info("Decorating {}", newValue);
+                                        return newValue;
+                                    })
+                                    .subscribeOn(Schedulers.fromExecutor(fixedThreadPool))
+                );
+
+        subscribeWithLogWaiting(observable);
+    }
+
+    /**
+     * The same as flatMapConcurrency, with a thread started for every remote call instead of the fixed pool.
+     * The semaphore of the scheduler still lets only 2 calls run at the same time, the others wait on their
+     * own (virtual) thread for a permit.
+     * On a Java older than 21 the scheduler falls back to platform threads, the log shows which one is used.
+     */
+    @Test
+    public void flatMapConcurrencyWithVirtualThreads() {
+        VirtualThreadScheduler scheduler = VirtualThreadScheduler.create("virtual-io", 2);
+        log.info("Using {}", scheduler);
+
+        Flux<String> observable = Flux.just("red", "green", "blue", "yellow", "orange")
+                .flatMap(color -> simulateRemoteOperationByUppercasing(color)
+                                    .map(changedColor -> {
+                                        String newValue = "**" + changedColor + "**";
+                                        log.info("Decorating {}", newValue);
+                                        return newValue;
+                                    })
+                                    .subscribeOn(scheduler)
+                );
+
+        subscribeWithLogWaiting(observable);
+    }
+
+    /**
+     * The thread pool of flatMapConcurrency caps the calls of one pipeline only, and only as long as every call
+     * holds its thread. Here two independent pipelines - colors and shapes - share a Bulkhead in front of the same
+     * remote service, and the calls run on the unbounded elastic scheduler: still only 2 calls run at the same time,
+     * 4 wait for a permit and the 2 that find the queue full are rejected.
+     */
+    @Test
+    public void flatMapConcurrencyWithBulkhead() {
+        Bulkhead bulkhead = Bulkhead.create("remote-service", ConcurrencyLimit.fixed(2), 4);
+
+        Flux<String> colors = Flux.just("red", "green", "blue", "yellow", "orange")
+                .flatMap(color -> callThroughBulkhead(color, bulkhead));
+        Flux<String> shapes = Flux.just("circle", "square", "triangle")
+                .flatMap(shape -> callThroughBulkhead(shape, bulkhead));
+
+        subscribeWithLogWaiting(Flux.merge(colors, shapes));
+        log.info("{}", bulkhead);
+    }
+
+    private Flux<String> callThroughBulkhead(String value, Bulkhead bulkhead) {
+        return simulateRemoteOperationByUppercasing(value)
+                .subscribeOn(Schedulers.elastic())
+                .flux()
+                .transform(BulkheadOperator.bulkhead(bulkhead))
+                .onErrorResumeWith(e -> {
+                    log.info("Rejected {}: {}", value, e.getMessage());
+                    return Flux.empty();
+                });
+    }
+
+    /**
+     * Substreams of uneven length - the remote operation takes 100ms per letter of the color. newParallel would
+     * assign the Workers round-robin to its threads and the short colors queued behind 'lightgoldenrodyellow'
+     * would wait for it. In the WorkStealingScheduler the idle thread takes them over, the log shows on which
+     * thread every color ends up and how many tasks were stolen.
+     */
+    @Test
+    public void flatMapUnevenSubstreamsWithWorkStealing() {
+        WorkStealingScheduler scheduler = WorkStealingScheduler.create("stealing", 2);
+
+        Flux<String> observable = Flux.just("lightgoldenrodyellow", "red", "mediumaquamarine", "tan", "blue", "sky")
+                .flatMap(color -> Mono.fromCallable(() -> {
+                                        Helpers.sleepMillis(100 * color.length());
+                                        log.info("Done with {}", color);
+                                        return color;
+                                    })
+                                    .subscribeOn(scheduler)
+                );
+
+        subscribeWithLogWaiting(observable);
+        log.info("{}", scheduler);
+    }
+
+    /**
+     * delay, delaySubscription, interval and timeout run on Schedulers.timer() when no scheduler is given. Installing a factory whose
+     * newTimer() is a HashedWheelTimedScheduler puts all of them on a timer wheel - notice the 'timer' thread
+     * is the wheel now. The factory is reset at the end so the other tests get the default timer back.
+     */
+    @Test
+    public void timerWheelForDelayIntervalAndTimeout() {
+        Schedulers.setFactory(HashedWheelTimedScheduler.factory(1, TimeUnit.MILLISECONDS, 512));
+        try {
+            log.info("Using {}", ((Supplier<?>) Schedulers.timer()).get()); // timer() wraps the factory's instance
+
+            Flux<String> flux = Flux.interval(Duration.ofMillis(100))
+                    .take(5)
+                    .map(val -> "tick" + val)
+                    .delay(Duration.ofMillis(50))
+                    .delaySubscription(Duration.ofMillis(200))
+                    .timeout(Duration.ofMillis(500));
+
+            subscribeWithLogWaiting(flux);
+        } finally {
+            Schedulers.resetFactory();
+        }
+    }
+
+    private Mono<String> simulateRemoteOperationByUppercasing(String color) {
+        return Mono.just(color).map(colorVal -> {
+            Helpers.sleepMillis(3000);
+
+            log.info("Emitting {}", color.toUpperCase());
+            return color.toUpperCase();
+        });
+
+    }
+}
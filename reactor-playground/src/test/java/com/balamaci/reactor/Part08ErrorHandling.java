@@ -1,5 +1,12 @@
 package com.balamaci.reactor;
 
+import com.balamaci.reactor.resilience.CircuitBreaker;
+import com.balamaci.reactor.resilience.CircuitBreakerOperator;
+import com.balamaci.reactor.resilience.RetryPolicy;
+import com.balamaci.reactor.resilience.RetryWithBackoff;
+import com.balamaci.reactor.resilience.SweepingTimeout;
+import com.balamaci.reactor.resilience.TimeoutSweeper;
+import com.balamaci.reactor.resilience.TokenBucket;
 import org.junit.Test;
 import reactor.core.publisher.Flux;
 
@@ -139,6 +146,25 @@ public class Part08ErrorHandling implements BaseTestFlux {
         //there is also
     }
 
+    /**
+     * timeout() cancels and reschedules a timer task on every event. The SweepingTimeout only counts the events,
+     * a single TimeoutSweeper shared by all the subscriptions checks every 10ms which counters stopped moving.
+     * The timeout is noticed up to one sweep late, the error is the same TimeoutException.
+     */
+    @Test
+    public void timeoutWithSharedSweeper() {
+        Flux<String> colors = Flux.just("red", "blue", "green", "yellow")
+                .concatMap(color ->  delayedByLengthEmitter(ChronoUnit.SECONDS, color)
+                                        .transform(SweepingTimeout.sweepingTimeout(Duration.ofMillis(5500)))
+                                        .doOnError(exception -> log.info("{} failed with {}, {}", color,
+                                                exception.toString(), TimeoutSweeper.shared()))
+                                        .retry(2)
+                                        .onErrorResumeWith(exception -> Flux.just("blank"))
+                );
+
+        subscribeWithLogWaiting(colors);
+    }
+
     /**
      * When you want to retry based on the number considering the thrown exception type
      */
@@ -207,6 +233,59 @@ public class Part08ErrorHandling implements BaseTestFlux {
         subscribeWithLogWaiting(colors);
     }
 
+    /**
+     * The same backoff as a dedicated operator: the RetryPolicy holds the exponential backoff with jitter, the
+     * exceptions not worth retrying and a retry budget - a TokenBucket shared by all the color calls, so when
+     * everything fails the retries don't multiply the load.
+     *
+     * A retry is just a task on the timer resubscribing the same subscriber, no publishers built per error.
+     */
+    @Test
+    public void retryWithBackoffAndBudget() {
+        attemptsMap.clear();
+        TokenBucket retryBudget = TokenBucket.create(2, 4);
+        RetryPolicy policy = RetryPolicy.exponential(3, Duration.ofMillis(500), Duration.ofSeconds(4))
+                .jitter(RetryPolicy.Jitter.FULL)
+                .maxElapsed(Duration.ofSeconds(10))
+                .retryOn(exception -> !(exception instanceof IllegalArgumentException))
+                .budget(retryBudget);
+
+        Flux<String> colors = Flux.just("blue", "green", "red", "black", "yellow")
+                .flatMap(colorName -> simulateRemoteOperation(colorName, 3)
+                                        .transform(RetryWithBackoff.retryWithBackoff(policy))
+                                        .onErrorResumeWith((th) -> Flux.just("generic color"))
+                );
+
+        subscribeWithLogWaiting(colors);
+        log.info("{}", retryBudget);
+    }
+
+    /**
+     * onErrorResumeWith gives a fallback for every failure but the failing service is still called every time.
+     * The CircuitBreaker opens once half of the last 4 calls failed, the calls go straight to the fallback without
+     * reaching the service for 500ms, then a single trial call decides if it stays open or closes again.
+     *
+     * The red service fails its first 7 attempts: 4 failures open the breaker, the trials fail until the 8th
+     * attempt works and closes it.
+     */
+    @Test
+    public void circuitBreakerWithFallback() {
+        attemptsMap.clear();
+        CircuitBreaker breaker = CircuitBreaker.create("red-service", 4, Duration.ofMillis(500));
+
+        Flux<String> colors = Flux.interval(Duration.ofMillis(100))
+                .take(30)
+                .concatMap(val -> simulateRemoteOperation("red", 8)
+                                    .transform(CircuitBreakerOperator.circuitBreaker(breaker,
+                                            exception -> Flux.just("fallback for "
+                                                    + exception.getClass().getSimpleName())))
+                                    .map(color -> color + " " + breaker.state())
+                );
+
+        subscribeWithLogWaiting(colors);
+        log.info("{}", breaker);
+    }
+
 
     private static final ConcurrentHashMap<String, AtomicInteger> attemptsMap = new ConcurrentHashMap<>();
 
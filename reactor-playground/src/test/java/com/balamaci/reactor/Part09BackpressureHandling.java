@@ -0,0 +1,391 @@
+package com.balamaci.reactor;
+
+import com.balamaci.reactor.metrics.ChecksumSubscriber;
+import com.balamaci.reactor.metrics.CountingSubscriber;
+import com.balamaci.reactor.metrics.InstrumentedPublishOn;
+import com.balamaci.reactor.metrics.LatencyHistogramSubscriber;
+import com.balamaci.reactor.metrics.PublishOnMetrics;
+import com.balamaci.reactor.overflow.OnBackpressureOverflow;
+import com.balamaci.reactor.overflow.OverflowBuffer;
+import com.balamaci.reactor.overflow.OverflowMetrics;
+import com.balamaci.reactor.overflow.SpillCodec;
+import com.balamaci.reactor.publisher.AdaptiveLimitRate;
+import com.balamaci.reactor.publisher.CustomRangeFlux;
+import com.balamaci.reactor.util.Helpers;
+import org.junit.Test;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.FluxSink;
+import reactor.core.scheduler.Schedulers;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.temporal.ChronoUnit;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * @author sbalamaci
+ */
+public class Part09BackpressureHandling implements BaseTestFlux {
+
+
+    @Test
+    public void customBackpressureAwareFlux() {
+        Flux<Integer> flux = new CustomFlux(5, 10).log();
+
+        flux.subscribe(
+                val -> log.info("Subscriber received: {}", val), 3);
+    }
+
+    /**
+     * CustomRangeFlux is the production grade version of the CustomFlux bellow, it keeps track of the outstanding
+     * requests so a request(n) coming from inside onNext doesn't start emitting again (notice in the log that all
+     * onNext calls are at the same depth) and it can deal with request(Long.MAX_VALUE).
+     */
+    @Test
+    public void productionGradeCustomRangeFlux() {
+        Flux<Integer> flux = new CustomRangeFlux(5, 10).log();
+
+        flux.subscribe(
+                val -> log.info("Subscriber received: {}", val), 3);
+
+        log.info("=======================");
+
+        subscribeWithLog(new CustomRangeFlux(5, 10).log());
+    }
+
+    /**
+     * Because CustomRangeFlux supports synchronous fusion, the map and filter operators downstream don't receive
+     * the values through onNext but pull them directly from the subscription with poll().
+     * The log() is placed at the end on purpose - putting it between the operators would break the fusion since
+     * log() needs to see every signal.
+     */
+    @Test
+    public void customRangeFluxFusedWithMapAndFilter() {
+        Flux<String> flux = new CustomRangeFlux(1, 10)
+                .map(val -> val * 10)
+                .filter(val -> val % 20 == 0)
+                .map(val -> "*" + val + "*")
+                .log();
+
+        subscribeWithLog(flux);
+    }
+
+    /**
+     * Logging every event costs far more than the operators themselves. The measuring subscribers record only
+     * primitives per event and request in batches, the way a bounded consumer does, and log once at the end.
+     * The checksums are the same for the two sources because they emitted the same events in the same order.
+     */
+    @Test
+    public void measuringSubscribersInsteadOfLogging() {
+        int count = 10_000_000;
+
+        subscribeMeasuring(Flux.range(0, count), new CountingSubscriber<>(256));
+        subscribeMeasuring(new CustomRangeFlux(0, count), new CountingSubscriber<>(256));
+
+        subscribeMeasuring(Flux.range(0, count), new ChecksumSubscriber<>(256));
+        subscribeMeasuring(new CustomRangeFlux(0, count), new ChecksumSubscriber<>(256));
+
+        LatencyHistogramSubscriber<Integer> latency = subscribeMeasuring(Flux.range(0, 1_000_000)
+                .publishOn(Schedulers.newSingle("consumer"), 256), new LatencyHistogramSubscriber<>(256));
+        latency.await(10, TimeUnit.SECONDS);
+    }
+
+
+    @Test
+    public void fluxWithCreateHasBackpressureSupport() {
+        CountDownLatch latch = new CountDownLatch(1);
+
+//        Flux<Integer> flux = createFlux(10, FluxSink.OverflowStrategy.DROP)
+//        Flux<Integer> flux = createFlux(10, FluxSink.OverflowStrategy.ERROR)
+        Flux<Integer> flux = createFlux(10, FluxSink.OverflowStrategy.LATEST)
+                .log()
+                .publishOn(Schedulers.newElastic("elast"), 5);
+
+        flux.subscribe(logNextAndSlowByMillis(50), //simulate a slow subscriber
+                logErrorConsumer(latch),
+                logCompleteMethod(latch));
+
+        Helpers.wait(latch);
+    }
+
+
+
+     /**
+      * Not only a slow subscriber triggers backpressure, but also a slow operator
+      * that would slow down the handling of events and new request calls for new items
+      */
+    @Test
+    public void backpressureStrategyTriggeredBySlowOperator() {
+        Flux<String> flux = createFlux(20, FluxSink.OverflowStrategy.IGNORE)
+                .onBackpressureDrop(overflowVal -> log.info("Dropped {}", overflowVal))
+                .onBackpressureBuffer(5)
+                .log()
+                .publishOn(Schedulers.newElastic("elast"), 2)
+                .map(val -> {
+                    Helpers.sleepMillis(1000);
+                    return "*" + val + "*";
+                });
+        subscribeWithLogWaiting(flux);
+    }
+
+    @Test
+    public void cascadingBackpressureOperators() {
+        CountDownLatch latch = new CountDownLatch(1);
+
+        Flux<Integer> flux = createFlux(20, FluxSink.OverflowStrategy.IGNORE)
+                .onBackpressureBuffer(5)
+                .log()
+                .limitRate(10)
+                .onBackpressureDrop(overflowVal -> log.info("Dropped {}", overflowVal))
+                .log()
+                .publishOn(Schedulers.newElastic("elast"), 5);
+        subscribeWithSlowSubscriber(flux, latch);
+        Helpers.wait(latch);
+
+    }
+
+
+    /**
+     * Instead of the hardcoded limitRate(10) the request batch adapts between 2 and 32: it's halved every time
+     * the slow subscriber ran out of demand while half a batch was waiting in the queue, and it would grow if the
+     * subscriber had to wait for the source.
+     */
+    @Test
+    public void adaptiveLimitRate() {
+        CountDownLatch latch = new CountDownLatch(1);
+
+        Flux<Integer> flux = createFlux(60, FluxSink.OverflowStrategy.BUFFER)
+                .log()
+                .transform(AdaptiveLimitRate.limitRate(2, 16, 32,
+                        batch -> log.info("Batch size changed to {}", batch)))
+                .publishOn(Schedulers.newElastic("elast"), 5);
+        subscribeWithSlowSubscriber(flux, latch);
+        Helpers.wait(latch);
+    }
+
+    /**
+     * Overflow strategies FluxSink.OverflowStrategy doesn't have. The producer emits everything at once and the
+     * slow subscriber gets only what the buffer decided to keep. The metrics report how many events it dropped
+     * and the most events it held at once.
+     */
+    @Test
+    public void dropOldestOverflowStrategy() {
+        subscribeWithOverflowBuffer(() -> OverflowBuffer.dropOldest(5));
+    }
+
+    /**
+     * Once 3 events are waiting, only every 4th new one is kept until the subscriber catches up
+     */
+    @Test
+    public void samplingOverflowStrategy() {
+        subscribeWithOverflowBuffer(() -> OverflowBuffer.sampling(10, 3, 4));
+    }
+
+    /**
+     * The multiples of 5 are the important events, when the buffer is full the others are evicted first
+     */
+    @Test
+    public void priorityEvictionOverflowStrategy() {
+        subscribeWithOverflowBuffer(() -> OverflowBuffer.priority(5, val -> val % 5 == 0 ? 1 : 0));
+    }
+
+    /**
+     * 3 events on the heap, the next 8 (8 bytes each with the length) in a memory-mapped file, the rest dropped
+     */
+    @Test
+    public void spillToDiskOverflowStrategy() {
+        subscribeWithOverflowBuffer(() -> OverflowBuffer.spillToDisk(3, 64, SpillCodec.integers()));
+    }
+
+    /**
+     * The producer is 10 times faster than the subscriber. Only 4 events stay on the heap, the backlog goes into
+     * 64 byte segment files (5 events each with the length) in a temp directory and is replayed in order as the
+     * subscriber asks for more. The segments are deleted as soon as they are read.
+     */
+    @Test
+    public void spillToDiskSegmentsWithRateMismatch() throws IOException {
+        Path directory = Files.createTempDirectory("spill");
+        OverflowMetrics metrics = new OverflowMetrics("spillToDisk");
+        CountDownLatch latch = new CountDownLatch(1);
+
+        Flux<Long> flux = Flux.interval(Duration.of(5, ChronoUnit.MILLIS))
+                .take(60)
+                .transform(OnBackpressureOverflow.onBackpressure(
+                        () -> OverflowBuffer.spillToDisk(4, 64, 100, SpillCodec.longs(), directory), metrics))
+                .publishOn(Schedulers.newElastic("elast"), 1);
+        flux.subscribe(logNextAndSlowByMillis(50),
+                logErrorConsumer(latch),
+                logCompleteMethod(latch));
+        Helpers.wait(latch);
+
+        log.info("{}", metrics);
+        try (Stream<Path> files = Files.list(directory)) {
+            log.info("Segment files left {}", files.count());
+        }
+        Files.delete(directory);
+    }
+
+    /**
+     * The same two scenarios as above with a publishOn that reports what happened in its queue: how full it was
+     * when the consumer thread started draining, how long the events waited, how many events were delivered per
+     * drain and how many times it replenished with request(n).
+     * With the slow subscriber the queue stays full and the events wait for the ones in front of them.
+     * There are just a few events here so the time in queue is sampled for every one of them.
+     */
+    @Test
+    public void publishOnQueueMetrics() {
+        CountDownLatch latch = new CountDownLatch(2);
+
+        PublishOnMetrics createMetrics = new PublishOnMetrics("create-publishOn", 1);
+        Flux<Integer> flux = createFlux(10, FluxSink.OverflowStrategy.LATEST)
+                .transform(InstrumentedPublishOn.publishOn(Schedulers.newElastic("elast"), 5, createMetrics));
+        flux.subscribe(logNextAndSlowByMillis(50),
+                logErrorConsumer(latch),
+                logCompleteMethod(latch));
+
+        PublishOnMetrics cascadingMetrics = new PublishOnMetrics("cascading-publishOn", 1);
+        Flux<Integer> cascading = createFlux(20, FluxSink.OverflowStrategy.IGNORE)
+                .onBackpressureBuffer(5)
+                .limitRate(10)
+                .onBackpressureDrop(overflowVal -> log.info("Dropped {}", overflowVal))
+                .transform(InstrumentedPublishOn.publishOn(Schedulers.newElastic("elast"), 5, cascadingMetrics));
+        subscribeWithSlowSubscriber(cascading, latch);
+
+        Helpers.wait(latch);
+
+        log.info("{}", createMetrics.snapshot());
+        log.info("{}", cascadingMetrics.snapshot());
+    }
+
+
+    @Test
+    public void fluxWithCustomLogicOnBackpressureBuffer() {
+        CountDownLatch latch = new CountDownLatch(1);
+
+
+        Flux<Integer> flux = createFlux(15, FluxSink.OverflowStrategy.ERROR)
+                .onBackpressureDrop((val) -> log.info("Dropping overflown val={}", val))
+                .log()
+                .publishOn(Schedulers.newElastic("elast"), 5);
+
+        subscribeWithSlowSubscriber(flux, latch);
+
+        Helpers.wait(latch);
+    }
+
+
+
+    /**
+     * Zipping a slow stream with a faster one also can cause a backpressure problem
+     */
+    @Test
+    public void zipOperatorHasALimit() {
+        Flux<Integer> fast = createFlux(100, FluxSink.OverflowStrategy.DROP).log();
+        Flux<Long> slowStream = Flux.interval(Duration.of(100, ChronoUnit.MILLIS));
+
+        Flux<String> zippedFlux = Flux.zip(fast, slowStream,
+                (val1, val2) -> val1 + " " + val2);
+
+        subscribeWithLogWaiting(zippedFlux);
+    }
+
+
+    private class CustomFlux extends Flux<Integer> {
+
+        private int startFrom;
+        private int count;
+
+        CustomFlux(int startFrom, int count) {
+            this.startFrom = startFrom;
+            this.count = count;
+        }
+
+        @Override
+        public void subscribe(Subscriber<? super Integer> subscriber) {
+            subscriber.onSubscribe(new CustomRangeSubscription(startFrom, count, subscriber));
+        }
+
+        class CustomRangeSubscription implements Subscription {
+
+            volatile boolean cancelled;
+            private int count;
+            private int currentCount;
+            private int startFrom;
+
+            private Subscriber<? super Integer> actualSubscriber;
+
+            CustomRangeSubscription(int startFrom, int count, Subscriber<? super Integer> actualSubscriber) {
+                this.count = count;
+                this.startFrom = startFrom;
+                this.actualSubscriber = actualSubscriber;
+            }
+
+            @Override
+            public void request(long items) {
+                for(int i=0; i < items; i++) {
+                    if(cancelled) {
+                        return;
+                    }
+
+                    if(currentCount == count) {
+                        actualSubscriber.onComplete();
+                        return;
+                    }
+
+                    actualSubscriber.onNext(startFrom + currentCount);
+
+                    currentCount++;
+                }
+            }
+
+            @Override
+            public void cancel() {
+                cancelled = true;
+            }
+        }
+    }
+
+        private Flux<Integer> createFlux(int events, FluxSink.OverflowStrategy overflowStrategy) {
+            return Flux.create(subscriber -> {
+                log.info("Started emitting");
+
+                for (int i = 1; i < events; i++) {
+                    if (subscriber.isCancelled()) {
+                        return;
+                    }
+                    log.info("Emitting {}", i);
+                    subscriber.next(i);
+                }
+
+                subscriber.complete();
+            }, overflowStrategy);
+        }
+
+        private void subscribeWithOverflowBuffer(Supplier<OverflowBuffer<Integer>> buffer) {
+            CountDownLatch latch = new CountDownLatch(1);
+            OverflowMetrics metrics = new OverflowMetrics("overflowBuffer");
+
+            Flux<Integer> flux = createFlux(20, FluxSink.OverflowStrategy.BUFFER)
+                    .transform(OnBackpressureOverflow.onBackpressure(buffer, metrics))
+                    .publishOn(Schedulers.newElastic("elast"), 2);
+            subscribeWithSlowSubscriber(flux, latch);
+            Helpers.wait(latch);
+
+            log.info("{}", metrics);
+        }
+
+        private <T> void subscribeWithSlowSubscriber(Flux<T> flux, CountDownLatch latch) {
+            flux.subscribe(logNextAndSlowByMillis(200),
+                    logErrorConsumer(latch),
+                    logCompleteMethod(latch));
+        }
+
+
+}
@@ -1,7 +0,0 @@
-package com.balamaci.reactor;
-
-/**
- * @author sbalamaci
- */
-public class Part04HotObservables {
-}